@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import ai.startree.thirdeye.detectionpipeline.components.TimeIndexFiller.TimeLimitInferenceStrategy;
+import ai.startree.thirdeye.detectionpipeline.spec.TimeIndexFillerSpec;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time index filling of an hourly time series with a fraction of the buckets missing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TimeIndexFillerBenchmark {
+
+  private static final long SEED = 42;
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long START_MILLIS = 1609459200000L; // 2021-01-01T00:00:00Z
+
+  @Param({"1000", "10000", "100000"})
+  private int size;
+
+  @Param({"0.01", "0.2"})
+  private double missingRatio;
+
+  private TimeIndexFiller timeIndexFiller;
+  private Interval interval;
+  private DataTable dataTable;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    int present = 0;
+    for (int i = 0; i < size; i++) {
+      if (random.nextDouble() >= missingRatio) {
+        times[present] = START_MILLIS + i * HOUR_MILLIS;
+        values[present] = random.nextDouble() * 1000;
+        present++;
+      }
+    }
+    dataTable = SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries("ts", Arrays.copyOf(times, present))
+        .addSeries("met", Arrays.copyOf(values, present)));
+    interval = new Interval(START_MILLIS, START_MILLIS + size * HOUR_MILLIS, DateTimeZone.UTC);
+
+    final TimeIndexFillerSpec spec = new TimeIndexFillerSpec();
+    spec.setMinTimeInference(TimeLimitInferenceStrategy.FROM_DETECTION_TIME.toString())
+        .setMaxTimeInference(TimeLimitInferenceStrategy.FROM_DETECTION_TIME.toString())
+        .setMonitoringGranularity("PT1H")
+        .setTimestamp("ts");
+    timeIndexFiller = new TimeIndexFiller();
+    timeIndexFiller.init(spec);
+  }
+
+  @Benchmark
+  public DataTable fillIndex() throws Exception {
+    return timeIndexFiller.fillIndex(interval, dataTable);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of a Pinot result set to a DataFrame: column by column with
+ * {@link PinotQueryExecutor#toDataFrame(ResultSet, int)} against row by row with the
+ * {@link DataFrame.Builder}. Simulates a high cardinality query: 3 dimension columns and 2 metric
+ * columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PinotResultSetConversionBenchmark {
+
+  private static final int N_DIMENSION_VALUES = 1000;
+
+  @Param({"10000", "500000"})
+  private int rowCount;
+
+  private ResultSet resultSet;
+
+  @Setup
+  public void setUp() {
+    final Random r = new Random(42);
+    final ObjectMapper mapper = new ObjectMapper();
+    final ObjectNode resultTable = mapper.createObjectNode();
+    final ObjectNode dataSchema = resultTable.putObject("dataSchema");
+    final ArrayNode columnNames = dataSchema.putArray("columnNames");
+    final ArrayNode columnDataTypes = dataSchema.putArray("columnDataTypes");
+    for (final String name : new String[]{"country", "browser", "device"}) {
+      columnNames.add(name);
+      columnDataTypes.add("STRING");
+    }
+    columnNames.add("views");
+    columnDataTypes.add("LONG");
+    columnNames.add("revenue");
+    columnDataTypes.add("DOUBLE");
+
+    final ArrayNode rows = resultTable.putArray("rows");
+    for (int i = 0; i < rowCount; i++) {
+      final ArrayNode row = rows.addArray();
+      row.add("country_" + r.nextInt(N_DIMENSION_VALUES));
+      row.add("browser_" + r.nextInt(N_DIMENSION_VALUES));
+      row.add("device_" + r.nextInt(N_DIMENSION_VALUES));
+      row.add(r.nextInt(1_000_000));
+      row.add(r.nextDouble() * 1000);
+    }
+    resultSet = new ResultTableResultSet(resultTable);
+  }
+
+  @Benchmark
+  public DataFrame columnar() {
+    return PinotQueryExecutor.toDataFrame(resultSet, 0);
+  }
+
+  @Benchmark
+  public DataFrame byRow() {
+    final List<String> columnNames = new ArrayList<>();
+    for (int columnIdx = 0; columnIdx < resultSet.getColumnCount(); columnIdx++) {
+      columnNames.add(resultSet.getColumnName(columnIdx));
+    }
+    final DataFrame.Builder builder = DataFrame.builder(columnNames);
+    for (int rowIdx = 0; rowIdx < resultSet.getRowCount(); rowIdx++) {
+      final String[] row = new String[columnNames.size()];
+      for (int columnIdx = 0; columnIdx < row.length; columnIdx++) {
+        row[columnIdx] = resultSet.getString(rowIdx, columnIdx);
+      }
+      builder.append(row);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.detectors;
+
+import static ai.startree.thirdeye.spi.Constants.COL_TIME;
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.AnomalyDetector;
+import ai.startree.thirdeye.spi.detection.AnomalyDetectorResult;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rule detectors run on an hourly time series with a daily pattern and noise. Detection runs on
+ * the last {@code size} points. The points before are the lookback of the mean variance detector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RuleDetectorBenchmark {
+
+  private static final long SEED = 42;
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long START_MILLIS = 1609459200000L; // 2021-01-01T00:00:00Z
+  private static final String GRANULARITY = "PT1H";
+  private static final int LOOKBACK_HOURS = 28 * 24;
+
+  public enum Detector {
+    THRESHOLD,
+    PERCENTAGE_CHANGE,
+    ABSOLUTE_CHANGE,
+    MEAN_VARIANCE,
+    MEAN_VARIANCE_WEEKLY_SEASONALITY
+  }
+
+  @Param({"1000", "10000", "100000"})
+  private int size;
+
+  @Param
+  private Detector detector;
+
+  private AnomalyDetector<?> anomalyDetector;
+  private Interval interval;
+  private Map<String, DataTable> dataTables;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    final int length = LOOKBACK_HOURS + size;
+    final long[] times = new long[length];
+    final double[] current = new double[length];
+    final double[] baseline = new double[length];
+    for (int i = 0; i < length; i++) {
+      times[i] = START_MILLIS + i * HOUR_MILLIS;
+      baseline[i] = 1000 + 200 * Math.sin(2 * Math.PI * (i % 24) / 24);
+      current[i] = baseline[i] + random.nextGaussian() * 50;
+    }
+    interval = new Interval(times[LOOKBACK_HOURS],
+        times[length - 1] + HOUR_MILLIS,
+        DateTimeZone.UTC);
+    dataTables = Map.of(
+        AnomalyDetector.KEY_CURRENT, SimpleDataTable.fromDataFrame(new DataFrame()
+            .addSeries(COL_TIME, times)
+            .addSeries(COL_VALUE, current)),
+        AnomalyDetector.KEY_BASELINE, SimpleDataTable.fromDataFrame(new DataFrame()
+            .addSeries(COL_TIME, times)
+            .addSeries(COL_VALUE, baseline)));
+    anomalyDetector = newDetector(detector);
+  }
+
+  private static AnomalyDetector<?> newDetector(final Detector detector) {
+    switch (detector) {
+      case THRESHOLD:
+        final ThresholdRuleDetectorSpec thresholdSpec = new ThresholdRuleDetectorSpec()
+            .setMin(900)
+            .setMax(1100);
+        thresholdSpec.setMonitoringGranularity(GRANULARITY);
+        final ThresholdRuleDetector thresholdDetector = new ThresholdRuleDetector();
+        thresholdDetector.init(thresholdSpec);
+        return thresholdDetector;
+      case PERCENTAGE_CHANGE:
+        final PercentageChangeRuleDetectorSpec percentageChangeSpec =
+            new PercentageChangeRuleDetectorSpec().setPercentageChange(0.1);
+        percentageChangeSpec.setMonitoringGranularity(GRANULARITY);
+        final PercentageChangeRuleDetector percentageChangeDetector =
+            new PercentageChangeRuleDetector();
+        percentageChangeDetector.init(percentageChangeSpec);
+        return percentageChangeDetector;
+      case ABSOLUTE_CHANGE:
+        final AbsoluteChangeRuleDetectorSpec absoluteChangeSpec =
+            new AbsoluteChangeRuleDetectorSpec().setAbsoluteChange(100);
+        absoluteChangeSpec.setMonitoringGranularity(GRANULARITY);
+        final AbsoluteChangeRuleDetector absoluteChangeDetector = new AbsoluteChangeRuleDetector();
+        absoluteChangeDetector.init(absoluteChangeSpec);
+        return absoluteChangeDetector;
+      case MEAN_VARIANCE:
+        return newMeanVarianceDetector(new MeanVarianceRuleDetectorSpec()
+            .setLookbackPeriod("P14D"));
+      case MEAN_VARIANCE_WEEKLY_SEASONALITY:
+        return newMeanVarianceDetector(new MeanVarianceRuleDetectorSpec()
+            .setLookbackPeriod("P28D")
+            .setSeasonalityPeriod("P7D"));
+      default:
+        throw new IllegalArgumentException("Unknown detector: " + detector);
+    }
+  }
+
+  private static AnomalyDetector<?> newMeanVarianceDetector(
+      final MeanVarianceRuleDetectorSpec spec) {
+    spec.setMonitoringGranularity(GRANULARITY);
+    final MeanVarianceRuleDetector meanVarianceDetector = new MeanVarianceRuleDetector();
+    meanVarianceDetector.init(spec);
+    return meanVarianceDetector;
+  }
+
+  @Benchmark
+  public AnomalyDetectorResult runDetection() {
+    return anomalyDetector.runDetection(interval, dataTables);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.postprocessor;
+
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.chrono.ISOChronology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merge of unit size hourly anomalies, with and without previously persisted anomalies to replay
+ * against. Merging mutates the anomalies, so fresh anomalies are built before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnomalyMergerPostProcessorBenchmark {
+
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long START_MILLIS = 1609459200000L; // 2021-01-01T00:00:00Z
+  // every RUN_LENGTH anomalies, skip more hours than the default max merge gap
+  private static final int RUN_LENGTH = 10;
+  private static final int GAP_HOURS = 3;
+
+  @Param({"1000", "10000", "100000"})
+  private int size;
+
+  @Param({"false", "true"})
+  private boolean withPersistedAnomalies;
+
+  private AnomalyMergerPostProcessor merger;
+  private List<AnomalyDTO> operatorAnomalies;
+  private List<AnomalyDTO> persistenceAnomalies;
+
+  @Setup
+  public void setUp() {
+    merger = new AnomalyMergerPostProcessor(new AnomalyMergerPostProcessorSpec()
+        .setAlertId(1L)
+        .setUsage(DetectionPipelineUsage.DETECTION));
+    merger.setChronology(ISOChronology.getInstanceUTC());
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpAnomalies() {
+    operatorAnomalies = new ArrayList<>(size);
+    persistenceAnomalies = new ArrayList<>();
+    long startTime = START_MILLIS;
+    for (int i = 0; i < size; i++) {
+      if (i % RUN_LENGTH == 0) {
+        startTime += GAP_HOURS * HOUR_MILLIS;
+      }
+      operatorAnomalies.add(newAnomaly(startTime, null));
+      if (withPersistedAnomalies && i < size / 2) {
+        persistenceAnomalies.add(newAnomaly(startTime, (long) i + 1));
+      }
+      startTime += HOUR_MILLIS;
+    }
+  }
+
+  private static AnomalyDTO newAnomaly(final long startTime, final Long id) {
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setStartTime(startTime)
+        .setEndTime(startTime + HOUR_MILLIS)
+        .setAvgCurrentVal(120)
+        .setAvgBaselineVal(100);
+    anomaly.setId(id);
+    return anomaly;
+  }
+
+  @Benchmark
+  public List<AnomalyDTO> doMerge() {
+    return merger.doMerge(operatorAnomalies, persistenceAnomalies);
+  }
+}
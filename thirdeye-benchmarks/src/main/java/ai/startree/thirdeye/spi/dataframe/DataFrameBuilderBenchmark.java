@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Row oriented DataFrame construction, with declared column types and with type inference. This
+ * is how data source results are converted to DataFrames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DataFrameBuilderBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private List<Object[]> rows;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    rows = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      rows.add(new Object[]{
+          1_600_000_000_000L + i * 60_000L,
+          "dim" + random.nextInt(100),
+          random.nextDouble() * 1000,
+          random.nextBoolean()
+      });
+    }
+  }
+
+  @Benchmark
+  public DataFrame buildTyped() {
+    return DataFrame.builder("ts:LONG", "dimension:STRING", "value:DOUBLE", "flag:BOOLEAN")
+        .append(rows)
+        .build();
+  }
+
+  @Benchmark
+  public DataFrame buildInferred() {
+    return DataFrame.builder("ts", "dimension", "value", "flag")
+        .append(rows)
+        .build();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DataFrame joins on a single key. The right side overlaps half of the left side keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DataFrameJoinBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  @Param({"LONG", "STRING"})
+  private Series.SeriesType keyType;
+
+  private DataFrame left;
+  private DataFrame right;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    left = new DataFrame()
+        .addSeries("key", keys(shuffledRange(0, size, random)))
+        .addSeries("left", randomDoubles(size, random));
+    right = new DataFrame()
+        .addSeries("key", keys(shuffledRange(size / 2, size, random)))
+        .addSeries("right", randomDoubles(size, random));
+  }
+
+  private Series keys(final long[] values) {
+    final LongSeries longs = LongSeries.buildFrom(values);
+    return keyType == Series.SeriesType.STRING ? longs.getStrings() : longs;
+  }
+
+  @Benchmark
+  public DataFrame joinInner() {
+    return left.joinInner(right, "key");
+  }
+
+  @Benchmark
+  public DataFrame joinLeft() {
+    return left.joinLeft(right, "key");
+  }
+
+  @Benchmark
+  public DataFrame joinOuter() {
+    return left.joinOuter(right, "key");
+  }
+
+  static long[] shuffledRange(final long start, final int size, final Random random) {
+    final long[] values = new long[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = start + i;
+    }
+    for (int i = size - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final long tmp = values[i];
+      values[i] = values[j];
+      values[j] = tmp;
+    }
+    return values;
+  }
+
+  static double[] randomDoubles(final int size, final Random random) {
+    final double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextDouble();
+    }
+    return values;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static ai.startree.thirdeye.spi.dataframe.DataFrameJoinBenchmark.randomDoubles;
+
+import ai.startree.thirdeye.spi.dataframe.Grouping.GroupingByValue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Group by value on long, double and string keys, with and without a sum aggregation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GroupingBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  @Param({"10", "1000", "100000"})
+  private int cardinality;
+
+  private LongSeries longKeys;
+  private DoubleSeries doubleKeys;
+  private StringSeries stringKeys;
+  private DataFrame dataFrame;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    final long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = random.nextInt(cardinality);
+    }
+    longKeys = LongSeries.buildFrom(keys);
+    doubleKeys = longKeys.getDoubles();
+    stringKeys = longKeys.getStrings();
+    dataFrame = new DataFrame()
+        .addSeries("key", longKeys)
+        .addSeries("value", randomDoubles(size, random));
+  }
+
+  @Benchmark
+  public GroupingByValue groupByLongValue() {
+    return GroupingByValue.from(longKeys);
+  }
+
+  @Benchmark
+  public GroupingByValue groupByDoubleValue() {
+    return GroupingByValue.from(doubleKeys);
+  }
+
+  @Benchmark
+  public GroupingByValue groupByStringValue() {
+    return GroupingByValue.from(stringKeys);
+  }
+
+  @Benchmark
+  public DataFrame groupByValueAndSum() {
+    return dataFrame.groupByValue("key").aggregate("value:sum");
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static ai.startree.thirdeye.spi.dataframe.DataFrameJoinBenchmark.shuffledRange;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Join pairs computation of {@link Series#hashJoinOuter(Series[], Series[])}, on one and on two
+ * key columns. Lives in the dataframe package to access the package-private join primitives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeriesHashJoinBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private Series[] leftSingleKey;
+  private Series[] rightSingleKey;
+  private Series[] leftCompositeKey;
+  private Series[] rightCompositeKey;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    final LongSeries left = LongSeries.buildFrom(shuffledRange(0, size, random));
+    final LongSeries right = LongSeries.buildFrom(shuffledRange(size / 2, size, random));
+    leftSingleKey = new Series[]{left};
+    rightSingleKey = new Series[]{right};
+    leftCompositeKey = new Series[]{left, left.divide(100).getStrings()};
+    rightCompositeKey = new Series[]{right, right.divide(100).getStrings()};
+  }
+
+  @Benchmark
+  public void hashJoinOuterSingleKey(final Blackhole blackhole) {
+    blackhole.consume(Series.hashJoinOuter(leftSingleKey, rightSingleKey));
+  }
+
+  @Benchmark
+  public void hashJoinOuterCompositeKey(final Blackhole blackhole) {
+    blackhole.consume(Series.hashJoinOuter(leftCompositeKey, rightCompositeKey));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of an alert template: json round trip of {@link StringTemplateUtils} against a
+ * {@link CompiledTemplate} compiled once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TemplateRenderingBenchmark {
+
+  @Param({"3", "30"})
+  private int nodeCount;
+
+  private AlertTemplateDTO template;
+  private CompiledTemplate<AlertTemplateDTO> compiledTemplate;
+  private Map<String, Object> properties;
+
+  @Setup
+  public void setUp() throws Exception {
+    final List<PlanNodeBean> nodes = new ArrayList<>();
+    for (int i = 0; i < nodeCount; i++) {
+      final TemplatableMap<String, Object> params = new TemplatableMap<>();
+      params.putValue("component.dataSource", "${dataSource}");
+      params.putValue("component.query",
+          "SELECT ${timeColumn}, ${aggregationFunction}(${aggregationColumn}) FROM ${dataset} "
+              + "WHERE __timeFilter(${timeColumn}, '${timeColumnFormat}') GROUP BY 1 LIMIT 1000");
+      params.putValue("component.timezone", "${timezone}");
+      params.putValue("component.monitoringGranularity", "P1D");
+      params.putValue("component.offset", "P7D");
+      params.putValue("component.pattern", "UP_OR_DOWN");
+      params.put("component.excludedDimensions",
+          new Templatable<>().setTemplatedValue("${rcaExcludedDimensions}"));
+      nodes.add(new PlanNodeBean()
+          .setName("node" + i)
+          .setType("DataFetcher")
+          .setParams(params)
+          .setInputs(i == 0 ? null : List.of(new InputBean()
+              .setTargetProperty("current")
+              .setSourcePlanNode("node" + (i - 1))
+              .setSourceProperty("output"))));
+    }
+    template = new AlertTemplateDTO()
+        .setName("benchmark-template")
+        .setCron("0 0 0 1/1 * ? *")
+        .setNodes(nodes);
+
+    properties = new HashMap<>();
+    properties.put("dataSource", "pinotQuickStartLocal");
+    properties.put("dataset", "pageviews");
+    properties.put("timeColumn", "date");
+    properties.put("timeColumnFormat", "1:DAYS:SIMPLE_DATE_FORMAT:yyyyMMdd");
+    properties.put("aggregationFunction", "sum");
+    properties.put("aggregationColumn", "views");
+    properties.put("timezone", "UTC");
+    properties.put("rcaExcludedDimensions", List.of("browser", "country"));
+    properties.put("startTime", 1609459200000L);
+    properties.put("endTime", 1612137600000L);
+
+    compiledTemplate = CompiledTemplate.compile(template);
+  }
+
+  @Benchmark
+  public AlertTemplateDTO applyContext() throws Exception {
+    return StringTemplateUtils.applyContext(template, properties);
+  }
+
+  @Benchmark
+  public AlertTemplateDTO compiledRender() throws Exception {
+    return compiledTemplate.render(properties);
+  }
+
+  @Benchmark
+  public AlertTemplateDTO compileAndRender() throws Exception {
+    return CompiledTemplate.compile(template).render(properties);
+  }
+}
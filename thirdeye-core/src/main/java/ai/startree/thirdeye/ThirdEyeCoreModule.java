@@ -14,9 +14,12 @@
 package ai.startree.thirdeye;
 
 import ai.startree.thirdeye.config.CacheConfig;
+import ai.startree.thirdeye.config.QueryLimiterConfiguration;
+import ai.startree.thirdeye.config.QueryTelemetryConfiguration;
 import ai.startree.thirdeye.config.TimeConfiguration;
 import ai.startree.thirdeye.config.UiConfiguration;
 import ai.startree.thirdeye.datalayer.ThirdEyePersistenceModule;
+import ai.startree.thirdeye.datalayer.util.DatabaseConfiguration;
 import ai.startree.thirdeye.datasource.loader.DefaultAggregationLoader;
 import ai.startree.thirdeye.datasource.loader.DefaultMinMaxTimeLoader;
 import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
@@ -29,27 +32,36 @@ import org.apache.tomcat.jdbc.pool.DataSource;
 public class ThirdEyeCoreModule extends AbstractModule {
 
   private final DataSource dataSource;
+  private final DatabaseConfiguration databaseConfiguration;
   private final CacheConfig cacheConfig;
   private final RcaConfiguration rcaConfiguration;
   private final UiConfiguration uiConfiguration;
   private final TimeConfiguration timeConfiguration;
+  private final QueryLimiterConfiguration queryLimiterConfiguration;
+  private final QueryTelemetryConfiguration queryTelemetryConfiguration;
 
   public ThirdEyeCoreModule(final DataSource dataSource,
+      final DatabaseConfiguration databaseConfiguration,
       final CacheConfig cacheConfig,
       final RcaConfiguration rcaConfiguration,
       final UiConfiguration uiConfiguration,
-      final TimeConfiguration timeConfiguration) {
+      final TimeConfiguration timeConfiguration,
+      final QueryLimiterConfiguration queryLimiterConfiguration,
+      final QueryTelemetryConfiguration queryTelemetryConfiguration) {
     this.dataSource = dataSource;
+    this.databaseConfiguration = databaseConfiguration;
 
     this.cacheConfig = cacheConfig;
     this.rcaConfiguration = rcaConfiguration;
     this.uiConfiguration = uiConfiguration;
     this.timeConfiguration = timeConfiguration;
+    this.queryLimiterConfiguration = queryLimiterConfiguration;
+    this.queryTelemetryConfiguration = queryTelemetryConfiguration;
   }
 
   @Override
   protected void configure() {
-    install(new ThirdEyePersistenceModule(dataSource));
+    install(new ThirdEyePersistenceModule(dataSource, databaseConfiguration));
 
     bind(AggregationLoader.class).to(DefaultAggregationLoader.class).in(Scopes.SINGLETON);
     bind(MinMaxTimeLoader.class).to(DefaultMinMaxTimeLoader.class).in(Scopes.SINGLETON);
@@ -58,5 +70,7 @@ public class ThirdEyeCoreModule extends AbstractModule {
     bind(RcaConfiguration.class).toInstance(rcaConfiguration);
     bind(UiConfiguration.class).toInstance(uiConfiguration);
     bind(TimeConfiguration.class).toInstance(timeConfiguration);
+    bind(QueryLimiterConfiguration.class).toInstance(queryLimiterConfiguration);
+    bind(QueryTelemetryConfiguration.class).toInstance(queryTelemetryConfiguration);
   }
 }
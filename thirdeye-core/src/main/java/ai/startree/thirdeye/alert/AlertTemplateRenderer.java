@@ -27,10 +27,13 @@ import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.template.TemplatePropertyMetadata;
-import ai.startree.thirdeye.util.StringTemplateUtils;
+import ai.startree.thirdeye.util.CompiledTemplate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,8 +44,18 @@ import org.joda.time.Interval;
 @Singleton
 public class AlertTemplateRenderer {
 
+  private static final int COMPILED_TEMPLATES_CACHE_SIZE = 1000;
+
   private final AlertManager alertManager;
   private final AlertTemplateManager alertTemplateManager;
+  /**
+   * Compiled persisted templates, by template id and update time. An update of the template
+   * changes the key, so entries never need to be invalidated.
+   */
+  private final Cache<String, CompiledTemplate<AlertTemplateDTO>> compiledTemplates = CacheBuilder
+      .newBuilder()
+      .maximumSize(COMPILED_TEMPLATES_CACHE_SIZE)
+      .build();
 
   @Inject
   public AlertTemplateRenderer(
@@ -171,16 +184,34 @@ public class AlertTemplateRenderer {
 
     properties.put("startTime", detectionInterval.getStartMillis());
     properties.put("endTime", detectionInterval.getEndMillis());
+
+    final AlertTemplateDTO rendered = compiled(template).render(properties);
     // add source metadata to each node
-    if (template.getNodes() != null) {
-      template.getNodes().stream()
+    if (rendered.getNodes() != null) {
+      rendered.getNodes().stream()
           // TODO spyne remove magic string. This was done to remove dependency of AnomalyDetector.TYPE on the renderer
           .filter(node -> node.getType().equals("AnomalyDetector"))
           .forEach(node -> node.getParams()
               .putValue("anomaly.source", String.format("%s/%s", alertName, node.getName())));
     }
+    return rendered;
+  }
 
-    return StringTemplateUtils.applyContext(template, properties);
+  private CompiledTemplate<AlertTemplateDTO> compiled(final AlertTemplateDTO template)
+      throws IOException {
+    final Long id = template.getId();
+    final Timestamp updateTime = template.getUpdateTime();
+    if (id == null || updateTime == null) {
+      // inline template - not worth caching
+      return CompiledTemplate.compile(template);
+    }
+    final String key = id + "-" + updateTime.getTime();
+    CompiledTemplate<AlertTemplateDTO> compiled = compiledTemplates.getIfPresent(key);
+    if (compiled == null) {
+      compiled = CompiledTemplate.compile(template);
+      compiledTemplates.put(key, compiled);
+    }
+    return compiled;
   }
 
   private @NonNull Map<String, Object> defaultProperties(
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class QueryLimiterConfiguration {
+
+  /**
+   * Max number of queries running at the same time against a single datasource. Queries above
+   * this limit wait for a slot. A value <= 0 disables the limit.
+   */
+  private int maxConcurrentQueries = 16;
+  /**
+   * Overrides of maxConcurrentQueries, keyed by datasource name.
+   */
+  private Map<String, Integer> dataSourceMaxConcurrentQueries = Map.of();
+  /**
+   * Max time a query waits for a slot before failing.
+   */
+  private Duration acquireTimeout = Duration.ofMinutes(10);
+
+  public int getMaxConcurrentQueries() {
+    return maxConcurrentQueries;
+  }
+
+  public QueryLimiterConfiguration setMaxConcurrentQueries(final int maxConcurrentQueries) {
+    this.maxConcurrentQueries = maxConcurrentQueries;
+    return this;
+  }
+
+  public Map<String, Integer> getDataSourceMaxConcurrentQueries() {
+    return dataSourceMaxConcurrentQueries;
+  }
+
+  public QueryLimiterConfiguration setDataSourceMaxConcurrentQueries(
+      final Map<String, Integer> dataSourceMaxConcurrentQueries) {
+    this.dataSourceMaxConcurrentQueries = dataSourceMaxConcurrentQueries;
+    return this;
+  }
+
+  public Duration getAcquireTimeout() {
+    return acquireTimeout;
+  }
+
+  public QueryLimiterConfiguration setAcquireTimeout(final Duration acquireTimeout) {
+    this.acquireTimeout = acquireTimeout;
+    return this;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.config;
+
+import java.time.Duration;
+
+public class QueryTelemetryConfiguration {
+
+  /**
+   * Queries slower than this threshold are candidates for the slow query log.
+   */
+  private Duration slowQueryThreshold = Duration.ofSeconds(5);
+  /**
+   * Fraction of the slow queries that are logged, between 0 and 1.
+   */
+  private double slowQuerySampleRate = 0.1;
+  /**
+   * Queries slower than this threshold are always logged.
+   */
+  private Duration slowQueryAlwaysLogThreshold = Duration.ofSeconds(30);
+
+  public Duration getSlowQueryThreshold() {
+    return slowQueryThreshold;
+  }
+
+  public QueryTelemetryConfiguration setSlowQueryThreshold(final Duration slowQueryThreshold) {
+    this.slowQueryThreshold = slowQueryThreshold;
+    return this;
+  }
+
+  public double getSlowQuerySampleRate() {
+    return slowQuerySampleRate;
+  }
+
+  public QueryTelemetryConfiguration setSlowQuerySampleRate(final double slowQuerySampleRate) {
+    this.slowQuerySampleRate = slowQuerySampleRate;
+    return this;
+  }
+
+  public Duration getSlowQueryAlwaysLogThreshold() {
+    return slowQueryAlwaysLogThreshold;
+  }
+
+  public QueryTelemetryConfiguration setSlowQueryAlwaysLogThreshold(
+      final Duration slowQueryAlwaysLogThreshold) {
+    this.slowQueryAlwaysLogThreshold = slowQueryAlwaysLogThreshold;
+    return this;
+  }
+}
@@ -18,7 +18,6 @@
 
 package ai.startree.thirdeye.datasource.cache;
 
-import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
 import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.Constants.METRICS_CACHE_TIMEOUT;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
@@ -32,19 +31,29 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
-import ai.startree.thirdeye.spi.util.Pair;
 import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -52,32 +61,94 @@ import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Caches the datasource clients, keyed by datasource name.
+ *
+ * Lookups do not lock and do not hit the database. An entry is revalidated against the
+ * datasource updateTime in the database once it is older than the revalidation interval: the
+ * cached client keeps being served while the revalidation runs in the background. Only a cache miss
+ * waits for the client to be built, and concurrent misses on the same name share a single load.
+ *
+ * Replaced or removed clients are retired: callers may still hold them, so they are closed after
+ * a grace period, once the queries running on them are finished.
+ */
 @Singleton
 public class DataSourceCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(DataSourceCache.class);
+  private static final Duration DEFAULT_REVALIDATION_INTERVAL = Duration.ofSeconds(30);
+  private static final Duration DEFAULT_RETIREMENT_GRACE_PERIOD = Duration.ofMinutes(5);
 
   private final DataSourceManager dataSourceManager;
   private final DataSourcesLoader dataSourcesLoader;
+  private final DataSourceQueryLimiter queryLimiter;
+  private final DataSourceQueryTelemetry queryTelemetry;
   private final MetricRegistry metricRegistry;
+  private final long revalidationIntervalMillis;
+  private final long retirementGracePeriodMillis;
 
-  private final Map<String, Pair<DataSourceWrapper, Timestamp>> cache = new HashMap<>();
+  private final Map<String, CachedDataSource> cache = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<CachedDataSource>> loads = new ConcurrentHashMap<>();
+  private final Set<String> revalidations = ConcurrentHashMap.newKeySet();
+
+  private final Timer lookupTimer;
+  private final Timer loadTimer;
+  private final Meter coalescedLoadMeter;
+  private final Meter revalidationExceptionMeter;
 
   private final ExecutorService executorService = new ThreadPoolExecutor(0, 10,
       60L,
       TimeUnit.SECONDS,
       new SynchronousQueue<>(),
       threadsNamed("DataSourceCache-%d"));
+  private final ThreadPoolExecutor revalidationExecutor = new ThreadPoolExecutor(1, 1,
+      60L,
+      TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(),
+      threadsNamed("DataSourceCache-revalidation-%d"));
+  private final ScheduledThreadPoolExecutor retirementExecutor = new ScheduledThreadPoolExecutor(1,
+      threadsNamed("DataSourceCache-retirement-%d"));
 
   @Inject
   public DataSourceCache(
       final DataSourceManager dataSourceManager,
       final DataSourcesLoader dataSourcesLoader,
+      final DataSourceQueryLimiter queryLimiter,
+      final DataSourceQueryTelemetry queryTelemetry,
       final MetricRegistry metricRegistry) {
+    this(dataSourceManager,
+        dataSourcesLoader,
+        queryLimiter,
+        queryTelemetry,
+        metricRegistry,
+        DEFAULT_REVALIDATION_INTERVAL,
+        DEFAULT_RETIREMENT_GRACE_PERIOD);
+  }
+
+  @VisibleForTesting
+  DataSourceCache(
+      final DataSourceManager dataSourceManager,
+      final DataSourcesLoader dataSourcesLoader,
+      final DataSourceQueryLimiter queryLimiter,
+      final DataSourceQueryTelemetry queryTelemetry,
+      final MetricRegistry metricRegistry,
+      final Duration revalidationInterval,
+      final Duration retirementGracePeriod) {
     this.dataSourceManager = dataSourceManager;
     this.dataSourcesLoader = dataSourcesLoader;
+    this.queryLimiter = queryLimiter;
+    this.queryTelemetry = queryTelemetry;
     this.metricRegistry = metricRegistry;
+    this.revalidationIntervalMillis = revalidationInterval.toMillis();
+    this.retirementGracePeriodMillis = retirementGracePeriod.toMillis();
+    revalidationExecutor.allowCoreThreadTimeOut(true);
+    retirementExecutor.setKeepAliveTime(60L, TimeUnit.SECONDS);
+    retirementExecutor.allowCoreThreadTimeOut(true);
 
+    lookupTimer = metricRegistry.timer("dataSourceLookupTimer");
+    loadTimer = metricRegistry.timer("dataSourceLoadTimer");
+    coalescedLoadMeter = metricRegistry.meter("dataSourceCoalescedLoadMeter");
+    revalidationExceptionMeter = metricRegistry.meter("dataSourceRevalidationExceptionMeter");
     metricRegistry.register("healthyDatasourceCount",
         new CachedGauge<Integer>(METRICS_CACHE_TIMEOUT.toMinutes(), TimeUnit.MINUTES) {
           @Override
@@ -111,7 +182,81 @@ public class DataSourceCache {
     }
   }
 
-  public synchronized ThirdEyeDataSource getDataSource(final String name) {
+  public ThirdEyeDataSource getDataSource(final String name) {
+    final Timer.Context lookupTime = lookupTimer.time();
+    try {
+      final CachedDataSource cached = cache.get(name);
+      if (cached == null) {
+        // cache miss
+        return load(name).wrapper;
+      }
+      if (System.currentTimeMillis() - cached.validatedAt >= revalidationIntervalMillis) {
+        revalidateAsync(name);
+      }
+      return cached.wrapper;
+    } finally {
+      lookupTime.stop();
+    }
+  }
+
+  private CachedDataSource load(final String name) {
+    final CompletableFuture<CachedDataSource> load = new CompletableFuture<>();
+    final CompletableFuture<CachedDataSource> inFlight = loads.putIfAbsent(name, load);
+    if (inFlight != null) {
+      // another thread is loading the same datasource
+      coalescedLoadMeter.mark();
+      return join(inFlight);
+    }
+    try {
+      final CachedDataSource loaded = loadTimer.timeSupplier(() -> revalidate(name));
+      load.complete(loaded);
+      return loaded;
+    } catch (final RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loads.remove(name, load);
+    }
+  }
+
+  private static CachedDataSource join(final CompletableFuture<CachedDataSource> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void revalidateAsync(final String name) {
+    if (!revalidations.add(name)) {
+      // a revalidation of the same datasource is already queued
+      return;
+    }
+    try {
+      revalidationExecutor.execute(() -> {
+        try {
+          loadTimer.timeSupplier(() -> revalidate(name));
+        } catch (final Exception e) {
+          revalidationExceptionMeter.mark();
+          LOG.error("Failed to revalidate datasource {}", name, e);
+        } finally {
+          revalidations.remove(name);
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      revalidations.remove(name);
+    }
+  }
+
+  /**
+   * Compares the cached version of a datasource with the one in the database and replaces the
+   * cached client if it is outdated.
+   */
+  private CachedDataSource revalidate(final String name) {
+    final CachedDataSource cached = cache.get(name);
     final Optional<DataSourceDTO> dataSource = findByName(name);
 
     // datasource absent in DB
@@ -120,17 +265,32 @@ public class DataSourceCache {
       removeDataSource(name);
       throw new ThirdEyeException(ThirdEyeStatus.ERR_DATASOURCE_NOT_FOUND, name);
     }
-    final Pair<DataSourceWrapper, Timestamp> cachedEntry = cache.get(name);
     final DataSourceDTO dataSourceDTO = dataSource.get();
-    if (cachedEntry != null) {
-      final Timestamp updateTimeCached = cachedEntry.getSecond();
-      if (updateTimeCached.equals(dataSourceDTO.getUpdateTime())) {
-        return cachedEntry.getFirst(); // cache hit
-      }
+    final long now = System.currentTimeMillis();
+    if (cached != null && Objects.equals(cached.updateTime, dataSourceDTO.getUpdateTime())) {
+      // still up to date
+      final CachedDataSource revalidated = new CachedDataSource(cached.wrapper,
+          cached.updateTime,
+          now);
+      return cache.replace(name, cached, revalidated) ? revalidated : cached;
     }
 
-    // cache miss
-    return loadDataSource(dataSourceDTO);
+    final CachedDataSource loaded = new CachedDataSource(newDataSource(dataSourceDTO),
+        dataSourceDTO.getUpdateTime(),
+        now);
+    final boolean replaced = cached == null
+        ? cache.putIfAbsent(name, loaded) == null
+        : cache.replace(name, cached, loaded);
+    if (!replaced) {
+      // the cache was invalidated while loading, the loaded client may be outdated
+      // it is still used by the caller, then closed
+      retire(loaded.wrapper);
+      return loaded;
+    }
+    if (cached != null) {
+      retire(cached.wrapper);
+    }
+    return loaded;
   }
 
   private Optional<DataSourceDTO> findByName(final String name) {
@@ -141,42 +301,56 @@ public class DataSourceCache {
     return results.stream().findFirst();
   }
 
-  private ThirdEyeDataSource loadDataSource(final DataSourceDTO dataSource) {
+  private DataSourceWrapper newDataSource(final DataSourceDTO dataSource) {
     requireNonNull(dataSource);
     final String dataSourceName = dataSource.getName();
-    final DataSourceWrapper wrapped = wrap(
+    return wrap(
         requireNonNull(dataSourcesLoader.loadDataSource(dataSource),
-            "Failed to construct a data source object! " + dataSourceName));
-
-    // remove outdated cached datasource
-    removeDataSource(dataSourceName);
-    cache.put(dataSourceName, new Pair<>(wrapped, dataSource.getUpdateTime()));
-    return wrapped;
+            "Failed to construct a data source object! " + dataSourceName),
+        dataSourceName);
   }
 
-  private DataSourceWrapper wrap(final ThirdEyeDataSource thirdEyeDataSource) {
-    return new DataSourceWrapper(thirdEyeDataSource, metricRegistry);
+  private DataSourceWrapper wrap(final ThirdEyeDataSource thirdEyeDataSource,
+      final String dataSourceName) {
+    return new DataSourceWrapper(thirdEyeDataSource,
+        dataSourceName,
+        queryLimiter,
+        queryTelemetry,
+        metricRegistry);
   }
 
   public void removeDataSource(final String name) {
     optional(cache.remove(name))
-        .map(Pair::getFirst)
-        .ifPresent(this::close);
+        .map(cached -> cached.wrapper)
+        .ifPresent(this::retire);
+  }
+
+  /**
+   * Lookups do not take a reference on the client: a caller may start a query on a client after
+   * it is replaced. The client is closed after a grace period, once its running queries are
+   * finished.
+   */
+  private void retire(final DataSourceWrapper wrapper) {
+    retirementExecutor.schedule(wrapper::retire,
+        retirementGracePeriodMillis,
+        TimeUnit.MILLISECONDS);
   }
 
   public void clear() {
-    cache.values().stream()
-        .map(Pair::getFirst)
-        .forEach(this::close);
-    cache.clear();
+    cache.keySet().forEach(this::removeDataSource);
   }
 
-  private void close(final ThirdEyeDataSource dataSource) {
-    try {
-      dataSource.close();
-      shutdownExecutionService(executorService);
-    } catch (final Exception e) {
-      LOG.error("Datasource {} was not flushed gracefully.", dataSource.getName());
+  private static class CachedDataSource {
+
+    private final DataSourceWrapper wrapper;
+    private final Timestamp updateTime;
+    private final long validatedAt;
+
+    private CachedDataSource(final DataSourceWrapper wrapper, final Timestamp updateTime,
+        final long validatedAt) {
+      this.wrapper = wrapper;
+      this.updateTime = updateTime;
+      this.validatedAt = validatedAt;
     }
   }
 }
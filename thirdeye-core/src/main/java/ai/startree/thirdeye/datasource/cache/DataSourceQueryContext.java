@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import java.util.concurrent.Callable;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Tags the datasource queries run by the current thread, for telemetry.
+ * Queries are run synchronously by the thread that fetches the data, so the tags set around a
+ * fetch are visible in {@link DataSourceWrapper}.
+ */
+public class DataSourceQueryContext {
+
+  private static final DataSourceQueryContext EMPTY = new DataSourceQueryContext(null, null);
+  private static final ThreadLocal<DataSourceQueryContext> CURRENT = new ThreadLocal<>();
+
+  private final @Nullable Long alertId;
+  private final @Nullable String dataset;
+
+  private DataSourceQueryContext(final @Nullable Long alertId, final @Nullable String dataset) {
+    this.alertId = alertId;
+    this.dataset = dataset;
+  }
+
+  public static <T> T call(final @Nullable Long alertId, final @Nullable String dataset,
+      final Callable<T> callable) throws Exception {
+    final DataSourceQueryContext previous = CURRENT.get();
+    CURRENT.set(new DataSourceQueryContext(alertId, dataset));
+    try {
+      return callable.call();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  public static DataSourceQueryContext current() {
+    final DataSourceQueryContext context = CURRENT.get();
+    return context == null ? EMPTY : context;
+  }
+
+  public @Nullable Long getAlertId() {
+    return alertId;
+  }
+
+  public @Nullable String getDataset() {
+    return dataset;
+  }
+}
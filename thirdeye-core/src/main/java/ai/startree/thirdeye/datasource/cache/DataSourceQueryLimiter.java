@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryTelemetry.tag;
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.config.QueryLimiterConfiguration;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.ThirdEyeStatus;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounds the number of queries running at the same time against each datasource.
+ * All datasource queries go through {@link DataSourceWrapper}, so the limit is shared by every
+ * caller: aggregation loader, min/max time loader, detection pipeline data fetchers, etc.
+ */
+@Singleton
+public class DataSourceQueryLimiter {
+
+  public static final String QUERY_LIMIT_METRIC_PREFIX = "dataSourceQueryLimit";
+
+  private static final Logger LOG = LoggerFactory.getLogger(DataSourceQueryLimiter.class);
+
+  private final QueryLimiterConfiguration configuration;
+  private final MetricRegistry metricRegistry;
+  private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+  @Inject
+  public DataSourceQueryLimiter(final QueryLimiterConfiguration configuration,
+      final MetricRegistry metricRegistry) {
+    this.configuration = configuration;
+    this.metricRegistry = metricRegistry;
+  }
+
+  /**
+   * Creates the limit and the metrics of the datasource, if not created yet. Called when the
+   * datasource client is created, so that the metrics exist before the first query.
+   */
+  public void register(final String dataSource) {
+    limit(dataSource);
+  }
+
+  public <T> T execute(final String dataSource, final Callable<T> query) throws Exception {
+    final Limit limit = limit(dataSource);
+    if (limit.semaphore == null) {
+      return query.call();
+    }
+
+    final long waitStart = System.nanoTime();
+    final boolean acquired = limit.semaphore.tryAcquire(configuration.getAcquireTimeout().toMillis(),
+        TimeUnit.MILLISECONDS);
+    limit.waitTimer.update(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+    if (!acquired) {
+      LOG.error("Query on datasource {} did not get a slot after {}. {} queries running, {} waiting.",
+          dataSource, configuration.getAcquireTimeout(), limit.running(),
+          limit.semaphore.getQueueLength());
+      throw new ThirdEyeException(ThirdEyeStatus.ERR_TIMEOUT);
+    }
+    try {
+      return query.call();
+    } finally {
+      limit.semaphore.release();
+    }
+  }
+
+  private Limit limit(final String dataSource) {
+    return limits.computeIfAbsent(requireNonNull(dataSource), this::newLimit);
+  }
+
+  private Limit newLimit(final String dataSource) {
+    final int maxConcurrentQueries = configuration.getDataSourceMaxConcurrentQueries()
+        .getOrDefault(dataSource, configuration.getMaxConcurrentQueries());
+    final Limit limit = new Limit(maxConcurrentQueries,
+        metricRegistry.timer(limitMetricName("waitTime", dataSource)));
+    if (limit.semaphore != null) {
+      metricRegistry.register(limitMetricName("running", dataSource),
+          (Gauge<Integer>) limit::running);
+      metricRegistry.register(limitMetricName("waiting", dataSource),
+          (Gauge<Integer>) limit.semaphore::getQueueLength);
+    }
+    return limit;
+  }
+
+  /**
+   * Name of a limiter metric, tagged by datasource like the {@link DataSourceQueryTelemetry}
+   * metrics, for instance {@code dataSourceQueryLimit.waiting.<datasource>}.
+   */
+  public static String limitMetricName(final String metric, final String dataSource) {
+    return MetricRegistry.name(QUERY_LIMIT_METRIC_PREFIX, metric, tag(dataSource));
+  }
+
+  private static class Limit {
+
+    private final int maxConcurrentQueries;
+    // null when the datasource is not limited
+    private final Semaphore semaphore;
+    private final Timer waitTimer;
+
+    private Limit(final int maxConcurrentQueries, final Timer waitTimer) {
+      this.maxConcurrentQueries = maxConcurrentQueries;
+      this.semaphore = maxConcurrentQueries > 0 ? new Semaphore(maxConcurrentQueries, true) : null;
+      this.waitTimer = waitTimer;
+    }
+
+    private int running() {
+      return maxConcurrentQueries - semaphore.availablePermits();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
+import ai.startree.thirdeye.config.QueryTelemetryConfiguration;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Throwables;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records datasource query metrics tagged by datasource and dataset, and logs slow queries with
+ * the alert id.
+ *
+ * Tags are encoded in the dropwizard metric names, for instance
+ * {@code dataSourceQuery.latency.<datasource>.<dataset>}. The prometheus exporter maps them back
+ * to labels. The alert id is not a tag: metrics are never removed from the registry, and the
+ * number of alerts is not bounded.
+ */
+@Singleton
+public class DataSourceQueryTelemetry {
+
+  public static final String QUERY_METRIC_PREFIX = "dataSourceQuery";
+  public static final String QUERY_ERROR_METRIC_PREFIX = "dataSourceQueryError";
+  public static final String QUERY_CACHE_METRIC_PREFIX = "dataSourceQueryCache";
+
+  private static final Logger LOG = LoggerFactory.getLogger(DataSourceQueryTelemetry.class);
+  private static final String UNKNOWN = "unknown";
+  private static final String NO_ALERT = "none";
+
+  private final QueryTelemetryConfiguration configuration;
+  private final MetricRegistry metricRegistry;
+
+  @Inject
+  public DataSourceQueryTelemetry(final QueryTelemetryConfiguration configuration,
+      final MetricRegistry metricRegistry) {
+    this.configuration = configuration;
+    this.metricRegistry = metricRegistry;
+  }
+
+  /**
+   * Name of the counter of query cache results.
+   *
+   * @param outcome for instance hit, miss or bypass
+   */
+  public static String cacheCounterName(final String outcome, final String dataSource,
+      final @Nullable String dataset) {
+    return MetricRegistry.name(QUERY_CACHE_METRIC_PREFIX, outcome, tag(dataSource), tag(dataset));
+  }
+
+  static String tag(final @Nullable String value) {
+    // dots separate the tags in the metric name
+    return value == null || value.isEmpty() ? UNKNOWN : value.replace('.', '_');
+  }
+
+  public DataTable record(final String dataSource, final DataSourceRequest request,
+      final Callable<DataTable> fetch) throws Exception {
+    final DataSourceQueryContext context = DataSourceQueryContext.current();
+    final String dataset = tag(optional(request.getTable()).orElse(context.getDataset()));
+    final String alertId = optional(context.getAlertId()).map(String::valueOf).orElse(NO_ALERT);
+    final String tags = MetricRegistry.name(tag(dataSource), dataset);
+
+    final long start = System.nanoTime();
+    final DataTable dataTable;
+    try {
+      dataTable = fetch.call();
+    } catch (final Exception e) {
+      final long elapsedNanos = System.nanoTime() - start;
+      metricRegistry.timer(queryMetricName("latency", tags))
+          .update(elapsedNanos, TimeUnit.NANOSECONDS);
+      final String errorClass = Throwables.getRootCause(e).getClass().getSimpleName();
+      metricRegistry.meter(MetricRegistry.name(QUERY_ERROR_METRIC_PREFIX, tags, errorClass)).mark();
+      logIfSlow(dataSource, dataset, alertId, request, elapsedNanos, -1, -1, errorClass);
+      throw e;
+    }
+    final long elapsedNanos = System.nanoTime() - start;
+    metricRegistry.timer(queryMetricName("latency", tags))
+        .update(elapsedNanos, TimeUnit.NANOSECONDS);
+
+    final DataFrame df = dataTable.getDataFrame();
+    final int rows = df == null ? 0 : df.size();
+    final int columns = df == null ? 0 : df.getSeriesNames().size();
+    metricRegistry.histogram(queryMetricName("rows", tags)).update(rows);
+    metricRegistry.histogram(queryMetricName("columns", tags)).update(columns);
+    metricRegistry.histogram(queryMetricName("bytes", tags)).update(estimateSizeBytes(df));
+    logIfSlow(dataSource, dataset, alertId, request, elapsedNanos, rows, columns, null);
+    return dataTable;
+  }
+
+  private static String queryMetricName(final String metric, final String tags) {
+    return MetricRegistry.name(QUERY_METRIC_PREFIX, metric, tags);
+  }
+
+  private void logIfSlow(final String dataSource, final String dataset, final String alertId,
+      final DataSourceRequest request, final long elapsedNanos, final int rows, final int columns,
+      final @Nullable String errorClass) {
+    if (elapsedNanos < configuration.getSlowQueryThreshold().toNanos()) {
+      return;
+    }
+    if (elapsedNanos < configuration.getSlowQueryAlwaysLogThreshold().toNanos()
+        && ThreadLocalRandom.current().nextDouble() >= configuration.getSlowQuerySampleRate()) {
+      return;
+    }
+    LOG.warn("Slow query on datasource {}, dataset {}, alert {}: {}ms, {} rows, {} columns, error: {}. Query: {}",
+        dataSource,
+        dataset,
+        alertId,
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        rows,
+        columns,
+        errorClass,
+        optional(request.getQuery()).map(q -> q.replace('\n', ' ')).orElse(null));
+  }
+
+  /**
+   * Rough estimate of the memory used by the values of a dataframe.
+   */
+  static long estimateSizeBytes(final @Nullable DataFrame df) {
+    if (df == null) {
+      return 0;
+    }
+    long bytes = 0;
+    for (final Series series : df.getSeries().values()) {
+      switch (series.type()) {
+        case BOOLEAN:
+          bytes += series.size();
+          break;
+        case STRING:
+          for (final String value : ((StringSeries) series).values()) {
+            // reference + object header + 2 bytes per char
+            bytes += value == null ? 8 : 48 + 2L * value.length();
+          }
+          break;
+        case OBJECT:
+          bytes += 16L * series.size();
+          break;
+        default:
+          bytes += 8L * series.size();
+      }
+    }
+    return bytes;
+  }
+}
@@ -24,22 +24,43 @@ import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class intercepts all data source calls and helps with telemetry, etc.
  */
 public class DataSourceWrapper implements ThirdEyeDataSource {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DataSourceWrapper.class);
+
   private final ThirdEyeDataSource delegate;
+  private final String name;
+  private final DataSourceQueryLimiter queryLimiter;
+  private final DataSourceQueryTelemetry queryTelemetry;
 
   private final Meter fetchTableExceptionMeter;
   private final Timer fetchTableTimer;
 
-  public DataSourceWrapper(final ThirdEyeDataSource delegate, final MetricRegistry metricRegistry) {
+  private final AtomicInteger runningQueries = new AtomicInteger();
+  private final AtomicBoolean retired = new AtomicBoolean();
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  public DataSourceWrapper(final ThirdEyeDataSource delegate,
+      final String name,
+      final DataSourceQueryLimiter queryLimiter,
+      final DataSourceQueryTelemetry queryTelemetry,
+      final MetricRegistry metricRegistry) {
     this.delegate = delegate;
+    this.name = name;
+    this.queryLimiter = queryLimiter;
+    this.queryTelemetry = queryTelemetry;
 
     fetchTableExceptionMeter = metricRegistry.meter("fetchTableExceptionMeter");
     fetchTableTimer = metricRegistry.timer("fetchTableTimer");
+    queryLimiter.register(name);
   }
 
   @Override
@@ -64,12 +85,19 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public DataTable fetchDataTable(final DataSourceRequest request) throws Exception {
-    return fetchTableTimer.time(() -> fetchDataTable0(request));
+    runningQueries.incrementAndGet();
+    try {
+      return queryLimiter.execute(name, () -> fetchTableTimer.time(() -> fetchDataTable0(request)));
+    } finally {
+      if (runningQueries.decrementAndGet() == 0 && retired.get()) {
+        closeQuietly();
+      }
+    }
   }
 
   private DataTable fetchDataTable0(final DataSourceRequest request) throws Exception {
     try {
-      return delegate.fetchDataTable(request);
+      return queryTelemetry.record(name, request, () -> delegate.fetchDataTable(request));
     } catch (Exception e) {
       // track exceptions
       fetchTableExceptionMeter.mark();
@@ -99,6 +127,26 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public void close() throws Exception {
-    delegate.close();
+    if (closed.compareAndSet(false, true)) {
+      delegate.close();
+    }
+  }
+
+  /**
+   * Marks this datasource as replaced or removed from the cache, at the end of its grace period.
+   * The delegate is closed once the running queries are finished.
+   */
+  void retire() {
+    if (retired.compareAndSet(false, true) && runningQueries.get() == 0) {
+      closeQuietly();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (final Exception e) {
+      LOG.error("Datasource {} was not flushed gracefully.", name);
+    }
   }
 }
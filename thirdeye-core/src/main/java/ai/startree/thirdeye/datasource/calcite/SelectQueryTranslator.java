@@ -35,6 +35,7 @@ import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.SqlNodeList;
 import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.parser.SqlParser;
 import org.apache.calcite.sql.parser.SqlParser.Config;
 import org.apache.calcite.sql.parser.SqlParserPos;
@@ -49,6 +50,7 @@ public class SelectQueryTranslator {
 
   public static final String TIME_AGGREGATION_ALIAS = "teTimeGroup";
   public static final boolean QUOTE_IDENTIFIERS = true;
+  private static final String UNION_SUBQUERY_ALIAS_PREFIX = "teUnion";
 
   // SELECT clause
   final private List<QueryProjection> selectProjections;
@@ -146,6 +148,35 @@ public class SelectQueryTranslator {
     return nodeToQuery(sqlNode, sqlDialect, QUOTE_IDENTIFIERS);
   }
 
+  /**
+   * Generates a single query returning the rows of all the given queries, concatenated with UNION
+   * ALL. Each query is wrapped in a subquery, so its ORDER BY and LIMIT only apply to its own
+   * rows. Queries must project the same number of columns, with compatible types, in the same
+   * order. Column names of the result are the ones of the first query.
+   */
+  public static String getUnionAllSql(final List<SelectQueryTranslator> queries,
+      final SqlLanguage sqlLanguage, final SqlExpressionBuilder expressionBuilder) {
+    checkArgument(!queries.isEmpty(), "At least one query is required to generate a UNION ALL");
+    final SqlParser.Config sqlParserConfig = SqlLanguageTranslator.translate(sqlLanguage.getSqlParserConfig());
+    final SqlDialect sqlDialect = SqlLanguageTranslator.translate(sqlLanguage.getSqlDialect());
+
+    SqlNode unionNode = null;
+    for (int i = 0; i < queries.size(); i++) {
+      final SqlNode subQuery = queries.get(i)
+          .getSqlNode(sqlParserConfig, expressionBuilder, sqlDialect);
+      final SqlNode selectNode = new SqlSelect(
+          SqlParserPos.ZERO,
+          null,
+          SqlNodeList.of(SqlParserPos.ZERO, List.of(SqlIdentifier.star(SqlParserPos.ZERO))),
+          addAlias(subQuery, UNION_SUBQUERY_ALIAS_PREFIX + i),
+          null, null, null, null, null, null, null, null);
+      unionNode = unionNode == null
+          ? selectNode
+          : SqlStdOperatorTable.UNION_ALL.createCall(SqlParserPos.ZERO, unionNode, selectNode);
+    }
+    return nodeToQuery(unionNode, sqlDialect, QUOTE_IDENTIFIERS);
+  }
+
   protected SqlNode getSqlNode(final SqlParser.Config sqlParserConfig,
       final SqlExpressionBuilder expressionBuilder, final SqlDialect dialect) {
 
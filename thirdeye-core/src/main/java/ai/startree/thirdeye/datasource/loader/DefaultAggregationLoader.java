@@ -15,13 +15,20 @@ package ai.startree.thirdeye.datasource.loader;
 
 import static ai.startree.thirdeye.datasource.calcite.QueryProjection.getFunctionName;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.util.CalciteUtils.addAlias;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierDescOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
+import static ai.startree.thirdeye.util.CalciteUtils.quoteIdentifierIfReserved;
+import static ai.startree.thirdeye.util.CalciteUtils.stringLiteralOf;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.DataSourceQueryContext;
+import ai.startree.thirdeye.datasource.calcite.QueryPredicate;
 import ai.startree.thirdeye.datasource.calcite.QueryProjection;
 import ai.startree.thirdeye.datasource.calcite.SelectQuery;
 import ai.startree.thirdeye.datasource.calcite.SelectQueryTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
@@ -29,25 +36,42 @@ import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Templatable;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.metric.DimensionType;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
+import org.apache.calcite.sql.SqlBasicTypeNameSpec;
+import org.apache.calcite.sql.SqlDataTypeSpec;
 import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.commons.collections4.MapUtils;
+import org.joda.time.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +82,8 @@ public class DefaultAggregationLoader implements AggregationLoader {
 
   private static final long TIMEOUT = 600000;
   private static final String ROLLUP_NAME = "OTHER";
+  private static final int UNION_ALL_BATCH_SIZE = 10;
+  private static final int DIMENSION_VALUE_MAX_LENGTH = 4096;
 
   private final DataSourceCache dataSourceCache;
   private final ExecutorService executorService;
@@ -114,10 +140,8 @@ public class DefaultAggregationLoader implements AggregationLoader {
     return output;
   }
 
-  @Override
-  public DataFrame loadBreakdown(final MetricSlice slice, final int limit) throws Exception {
+  private static List<String> breakdownDimensions(final MetricSlice slice) {
     final DatasetConfigDTO datasetConfigDTO = slice.getDatasetConfigDTO();
-
     final List<String> dimensions = new ArrayList<>(optional(datasetConfigDTO.getDimensions()).map(
         Templatable::getValue).orElse(List.of()));
     dimensions.removeAll(slice.getPredicates()
@@ -125,6 +149,13 @@ public class DefaultAggregationLoader implements AggregationLoader {
         .map(Predicate::getLhs)
         .collect(Collectors.toList()));
     dimensions.remove(datasetConfigDTO.getTimeColumn());
+    return dimensions;
+  }
+
+  @Override
+  public DataFrame loadBreakdown(final MetricSlice slice, final int limit) throws Exception {
+    final DatasetConfigDTO datasetConfigDTO = slice.getDatasetConfigDTO();
+    final List<String> dimensions = breakdownDimensions(slice);
 
     LOG.info("Querying breakdown '{}' for dimensions '{}'", slice, dimensions);
 
@@ -135,6 +166,22 @@ public class DefaultAggregationLoader implements AggregationLoader {
         .build()
         .setIndex(COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
 
+    final ThirdEyeDataSource thirdEyeDataSource = dataSourceCache.getDataSource(
+        datasetConfigDTO.getDataSource());
+    final List<DataFrame> results = dimensions.size() > 1 && isUnionAllSupported(thirdEyeDataSource)
+        ? loadBreakdownUnionAll(slice, limit, dimensions, thirdEyeDataSource)
+        : loadBreakdownPerDimension(slice, limit, dimensions, datasetConfigDTO.getDataSource());
+
+    final DataFrame breakdown = dfAll.append(results);
+    // add time column containing start time of slice
+    return breakdown
+        .addSeries(Constants.COL_TIME,
+            LongSeries.fillValues(breakdown.size(), slice.getInterval().getStartMillis()))
+        .setIndex(Constants.COL_TIME, COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+  }
+
+  private List<DataFrame> loadBreakdownPerDimension(final MetricSlice slice, final int limit,
+      final List<String> dimensions, final String dataSource) throws Exception {
     final Map<String, Future<DataFrame>> responses = new HashMap<>();
 
     // submit requests
@@ -147,8 +194,8 @@ public class DefaultAggregationLoader implements AggregationLoader {
           .orderBy(identifierDescOf(Constants.COL_VALUE))
           .limit(limit)
           .build();
-      final Future<DataFrame> res = getQueryResultAsync(request,
-          datasetConfigDTO.getDataSource());
+      final Future<DataFrame> res = getQueryResultAsync(request, dataSource,
+          slice.getDatasetConfigDTO().getDataset());
 
       responses.put(dimension, res);
     }
@@ -163,13 +210,210 @@ public class DefaultAggregationLoader implements AggregationLoader {
           .addSeries(Constants.COL_VALUE, res.get(Constants.COL_VALUE));
       results.add(dfResult);
     }
+    return results;
+  }
 
-    final DataFrame breakdown = dfAll.append(results);
-    // add time column containing start time of slice
-    return breakdown
-        .addSeries(Constants.COL_TIME,
-            LongSeries.fillValues(breakdown.size(), slice.getInterval().getStartMillis()))
-        .setIndex(Constants.COL_TIME, COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+  /**
+   * Computes the top values of all dimensions with UNION ALL queries: one round trip per
+   * {@link #UNION_ALL_BATCH_SIZE} dimensions instead of one per dimension.
+   * Each branch returns the dimension name as a literal and the dimension value cast to a string,
+   * so that branches on dimensions of different types can be concatenated.
+   */
+  private List<DataFrame> loadBreakdownUnionAll(final MetricSlice slice, final int limit,
+      final List<String> dimensions, final ThirdEyeDataSource thirdEyeDataSource)
+      throws Exception {
+    final List<Future<DataFrame>> responses = new ArrayList<>();
+    for (final List<String> batch : Lists.partition(dimensions, UNION_ALL_BATCH_SIZE)) {
+      final List<SelectQueryTranslator> requests = new ArrayList<>();
+      for (final String dimension : batch) {
+        final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+        requests.add(SelectQuery.from(slice)
+            .select(addAlias(stringLiteralOf(dimension), COL_DIMENSION_NAME))
+            .select(addAlias(castToString(dimensionIdentifier), COL_DIMENSION_VALUE))
+            .groupBy(dimensionIdentifier)
+            // ensure multiple runs return the same values when num rows > limit - see te-636
+            .orderBy(identifierDescOf(Constants.COL_VALUE))
+            .limit(limit)
+            .build());
+      }
+      final String query = SelectQueryTranslator.getUnionAllSql(requests,
+          thirdEyeDataSource.getSqlLanguage(),
+          thirdEyeDataSource.getSqlExpressionBuilder());
+      responses.add(submit(slice.getDatasetConfigDTO().getDataset(),
+          () -> getQueryResult(query, thirdEyeDataSource)));
+    }
+
+    final List<DataFrame> results = new ArrayList<>();
+    for (final Future<DataFrame> response : responses) {
+      final DataFrame res = response.get(TIMEOUT, TimeUnit.MILLISECONDS);
+      results.add(new DataFrame()
+          .addSeries(COL_DIMENSION_NAME, res.get(COL_DIMENSION_NAME))
+          .addSeries(COL_DIMENSION_VALUE, res.get(COL_DIMENSION_VALUE))
+          .addSeries(Constants.COL_VALUE, res.get(Constants.COL_VALUE)));
+    }
+    return results;
+  }
+
+  /**
+   * Computes the current and baseline values of all dimensions in a single pass: the rows of both
+   * intervals are read by the same query, and each value is a conditional aggregation on the
+   * interval. The top values are the ones of the union of both intervals.
+   * Queries are batched with UNION ALL when the datasource supports it. Queries not completed
+   * before the deadline are cancelled and their dimensions are listed as timed out.
+   */
+  @Override
+  public BreakdownComparison loadBreakdown(final MetricSlice currentSlice, final Interval baselineInterval,
+      final int limit, final long timeoutMillis) throws Exception {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    final DatasetConfigDTO datasetConfigDTO = currentSlice.getDatasetConfigDTO();
+    final String dataset = datasetConfigDTO.getDataset();
+    final List<String> dimensions = breakdownDimensions(currentSlice);
+
+    LOG.info("Querying breakdown '{}' with baseline {} for dimensions '{}'",
+        currentSlice,
+        baselineInterval,
+        dimensions);
+
+    final ThirdEyeDataSource thirdEyeDataSource = dataSourceCache.getDataSource(
+        datasetConfigDTO.getDataSource());
+    final boolean unionAll = dimensions.size() > 1 && isUnionAllSupported(thirdEyeDataSource);
+    final Map<List<String>, Future<DataFrame>> responses = new LinkedHashMap<>();
+    if (unionAll) {
+      for (final List<String> batch : Lists.partition(dimensions, UNION_ALL_BATCH_SIZE)) {
+        final List<SelectQueryTranslator> requests = new ArrayList<>();
+        for (final String dimension : batch) {
+          final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+          requests.add(comparisonQuery(currentSlice, baselineInterval, thirdEyeDataSource)
+              .select(addAlias(stringLiteralOf(dimension), COL_DIMENSION_NAME))
+              .select(addAlias(castToString(dimensionIdentifier), COL_DIMENSION_VALUE))
+              .groupBy(dimensionIdentifier)
+              // ensure multiple runs return the same values when num rows > limit - see te-636
+              .orderBy(identifierDescOf(Constants.COL_VALUE))
+              .limit(limit)
+              .build());
+        }
+        final String query = SelectQueryTranslator.getUnionAllSql(requests,
+            thirdEyeDataSource.getSqlLanguage(),
+            thirdEyeDataSource.getSqlExpressionBuilder());
+        responses.put(batch, submit(dataset, () -> getQueryResult(query, thirdEyeDataSource)));
+      }
+    } else {
+      for (final String dimension : dimensions) {
+        final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+        final SelectQueryTranslator request = comparisonQuery(currentSlice, baselineInterval,
+            thirdEyeDataSource)
+            .select(dimensionIdentifier)
+            .groupBy(dimensionIdentifier)
+            // ensure multiple runs return the same values when num rows > limit - see te-636
+            .orderBy(identifierDescOf(Constants.COL_VALUE))
+            .limit(limit)
+            .build();
+        responses.put(List.of(dimension), submit(dataset,
+            () -> withDimensionColumns(getQueryResult(request, datasetConfigDTO.getDataSource()),
+                dimension)));
+      }
+    }
+
+    final List<DataFrame> results = new ArrayList<>();
+    final List<String> timedOutDimensions = new ArrayList<>();
+    for (final Entry<List<String>, Future<DataFrame>> response : responses.entrySet()) {
+      final DataFrame res;
+      try {
+        res = response.getValue()
+            .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (final TimeoutException e) {
+        response.getValue().cancel(true);
+        LOG.warn("Breakdown of dataset {} on dimensions {} timed out after {} ms. Skipping.",
+            dataset,
+            response.getKey(),
+            timeoutMillis);
+        timedOutDimensions.addAll(response.getKey());
+        continue;
+      }
+      results.add(new DataFrame()
+          .addSeries(COL_DIMENSION_NAME, res.get(COL_DIMENSION_NAME))
+          .addSeries(COL_DIMENSION_VALUE, res.get(COL_DIMENSION_VALUE))
+          .addSeries(COL_CURRENT_VALUE, res.get(COL_CURRENT_VALUE))
+          .addSeries(COL_BASELINE_VALUE, res.get(COL_BASELINE_VALUE)));
+    }
+
+    final DataFrame breakdown = DataFrame
+        .builder(COL_DIMENSION_NAME + ":STRING",
+            COL_DIMENSION_VALUE + ":STRING",
+            COL_CURRENT_VALUE + ":DOUBLE",
+            COL_BASELINE_VALUE + ":DOUBLE")
+        .build()
+        .append(results)
+        .setIndex(COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+    return new BreakdownComparison(breakdown, timedOutDimensions);
+  }
+
+  /**
+   * Query on the rows of the current and baseline intervals, with the metric aggregated on each
+   * interval in COL_CURRENT_VALUE and COL_BASELINE_VALUE, and on both intervals in COL_VALUE.
+   */
+  private static SelectQuery comparisonQuery(final MetricSlice currentSlice,
+      final Interval baselineInterval, final ThirdEyeDataSource thirdEyeDataSource) {
+    final DatasetConfigDTO datasetConfigDTO = currentSlice.getDatasetConfigDTO();
+    final MetricConfigDTO metricConfigDTO = currentSlice.getMetricConfigDTO();
+    final SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
+    final String timeColumn = quoteIdentifierIfReserved(datasetConfigDTO.getTimeColumn(),
+        SqlLanguageTranslator.translate(sqlLanguage.getSqlParserConfig()),
+        SqlLanguageTranslator.translate(sqlLanguage.getSqlDialect()));
+    final SqlExpressionBuilder expressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
+    final String currentFilter = expressionBuilder.getTimeFilterExpression(timeColumn,
+        currentSlice.getInterval(),
+        datasetConfigDTO.getTimeFormat());
+    final String baselineFilter = expressionBuilder.getTimeFilterExpression(timeColumn,
+        baselineInterval,
+        datasetConfigDTO.getTimeFormat());
+
+    final SelectQuery query = new SelectQuery(datasetConfigDTO.getDataset())
+        .where(String.format("(%s) OR (%s)", currentFilter, baselineFilter))
+        .select(conditionalMetric(metricConfigDTO, currentFilter).withAlias(COL_CURRENT_VALUE))
+        .select(conditionalMetric(metricConfigDTO, baselineFilter).withAlias(COL_BASELINE_VALUE))
+        .select(QueryProjection.fromMetricConfig(metricConfigDTO).withAlias(Constants.COL_VALUE));
+    if (isNotBlank(metricConfigDTO.getWhere())) {
+      query.where(metricConfigDTO.getWhere());
+    }
+    for (final Predicate predicate : currentSlice.getPredicates()) {
+      query.where(QueryPredicate.of(predicate, DimensionType.STRING));
+    }
+    return query;
+  }
+
+  private static DataFrame withDimensionColumns(final DataFrame res, final String dimension) {
+    return res
+        .addSeries(COL_DIMENSION_NAME, StringSeries.fillValues(res.size(), dimension))
+        .addSeries(COL_DIMENSION_VALUE, res.get(dimension));
+  }
+
+  /**
+   * Aggregation of the metric on the rows matching the condition. Other rows are replaced by NULL,
+   * which is ignored by aggregation functions.
+   */
+  private static QueryProjection conditionalMetric(final MetricConfigDTO metricConfigDTO,
+      final String condition) {
+    final String column = metricConfigDTO.getName().equals("*")
+        ? "1"
+        : getFunctionName(metricConfigDTO);
+    return QueryProjection.of(metricConfigDTO.getDefaultAggFunction(),
+        List.of(String.format("CASE WHEN %s THEN %s ELSE NULL END", condition, column)));
+  }
+
+  private static boolean isUnionAllSupported(final ThirdEyeDataSource thirdEyeDataSource) {
+    final SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
+    return sqlLanguage != null && sqlLanguage.getSqlDialect().isUnionAllSupported();
+  }
+
+  /**
+   * CAST to VARCHAR with an explicit length: some databases do not accept a VARCHAR without length.
+   */
+  private static SqlNode castToString(final SqlNode node) {
+    final SqlDataTypeSpec varchar = new SqlDataTypeSpec(
+        new SqlBasicTypeNameSpec(SqlTypeName.VARCHAR, DIMENSION_VALUE_MAX_LENGTH, SqlParserPos.ZERO),
+        SqlParserPos.ZERO);
+    return SqlStdOperatorTable.CAST.createCall(SqlParserPos.ZERO, node, varchar);
   }
 
   @Override
@@ -198,12 +442,18 @@ public class DefaultAggregationLoader implements AggregationLoader {
           .groupBy(dimensionIdentifier);
     }
     final String dataSource = slice.getDatasetConfigDTO().getDataSource();
-    return getQueryResultAsync(requestBuilder.build(), dataSource);
+    return getQueryResultAsync(requestBuilder.build(), dataSource,
+        slice.getDatasetConfigDTO().getDataset());
   }
 
   private Future<DataFrame> getQueryResultAsync(final SelectQueryTranslator request,
-      final String dataSource) {
-    return executorService.submit(() -> getQueryResult(request, dataSource));
+      final String dataSource, final String dataset) {
+    return submit(dataset, () -> getQueryResult(request, dataSource));
+  }
+
+  private Future<DataFrame> submit(final String dataset, final Callable<DataFrame> query) {
+    // tag the datasource queries with the dataset for telemetry
+    return executorService.submit(() -> DataSourceQueryContext.call(null, dataset, query));
   }
 
   public DataFrame getQueryResult(final SelectQueryTranslator request, final String dataSource)
@@ -211,6 +461,11 @@ public class DefaultAggregationLoader implements AggregationLoader {
     final ThirdEyeDataSource thirdEyeDataSource = dataSourceCache.getDataSource(dataSource);
     final String query = request.getSql(thirdEyeDataSource.getSqlLanguage(),
         thirdEyeDataSource.getSqlExpressionBuilder());
+    return getQueryResult(query, thirdEyeDataSource);
+  }
+
+  private static DataFrame getQueryResult(final String query,
+      final ThirdEyeDataSource thirdEyeDataSource) throws Exception {
     LOG.info("Sending query: {}", query.replace("\n", ""));
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
     // table info is only used with legacy Pinot client - should be removed
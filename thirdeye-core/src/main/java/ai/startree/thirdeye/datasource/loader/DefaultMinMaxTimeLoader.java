@@ -18,6 +18,7 @@ import static ai.startree.thirdeye.util.CalciteUtils.identifierDescOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.DataSourceQueryContext;
 import ai.startree.thirdeye.datasource.calcite.SelectQuery;
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
@@ -89,7 +90,8 @@ public class DefaultMinMaxTimeLoader implements MinMaxTimeLoader {
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
     final DataSourceRequest request = new DataSourceRequest(null, sqlQuery, customOptions,
         Map.of());
-    final DataFrame df = dataSource.fetchDataTable(request).getDataFrame();
+    final DataFrame df = DataSourceQueryContext.call(null, datasetConfigDTO.getDataset(),
+        () -> dataSource.fetchDataTable(request)).getDataFrame();
     if (df == null || df.size() == 0) {
       LOG.warn(
           "Empty dataframe for {} time query on dataset {} on interval {}. Dataset is empty or unknown SQL error. Could not fetch start time.",
@@ -19,6 +19,7 @@ import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
 import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
 
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQuery.MacroCall;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeFilterFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupKeyFunction;
@@ -29,15 +30,24 @@ import ai.startree.thirdeye.spi.datasource.macro.MacroFunctionContext;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import org.apache.calcite.sql.SqlBinaryOperator;
 import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.SqlPostfixOperator;
+import org.apache.calcite.sql.SqlPrefixOperator;
 import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.sql.util.SqlShuttle;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
@@ -54,6 +64,7 @@ public class MacroEngine {
   );
   public static final boolean QUOTE_IDENTIFIERS = false;
 
+  private final SqlLanguage sqlLanguage;
   private final SqlParser.Config sqlParserConfig;
   private final SqlDialect sqlDialect;
   private final String tableName;
@@ -61,10 +72,12 @@ public class MacroEngine {
   private final Map<String, String> properties;
   private final MacroFunctionContext macroFunctionContext;
   private final Map<String, MacroFunction> availableMacros = new HashMap<>();
+  private @Nullable ParsedQueryCache parsedQueryCache;
 
   public MacroEngine(final SqlLanguage sqlLanguage, final SqlExpressionBuilder sqlExpressionBuilder,
       final Interval detectionInterval,
       @Nullable final DatasetConfigDTO datasetConfigDTO, String query) {
+    this.sqlLanguage = sqlLanguage;
     this.sqlParserConfig = SqlLanguageTranslator.translate(sqlLanguage.getSqlParserConfig());
     this.sqlDialect = SqlLanguageTranslator.translate(sqlLanguage.getSqlDialect());
     this.tableName = optional(datasetConfigDTO).map(DatasetConfigDTO::getDataset).orElse(null);
@@ -83,19 +96,92 @@ public class MacroEngine {
     }
   }
 
+  /**
+   * Restricts the time filter macros to the given interval. The time filter is the intersection of
+   * the detection interval (with lookbacks applied) and the restriction.
+   */
+  public MacroEngine withTimeFilterRestriction(final Interval timeFilterRestriction) {
+    macroFunctionContext.setTimeFilterRestriction(timeFilterRestriction);
+    return this;
+  }
+
+  /**
+   * Parses the query once per query text and sql language. The macros are then expanded and
+   * spliced in the cached query text, without Calcite parsing.
+   */
+  public MacroEngine withParsedQueryCache(final @Nullable ParsedQueryCache parsedQueryCache) {
+    this.parsedQueryCache = parsedQueryCache;
+    return this;
+  }
+
   public DataSourceRequest prepareRequest() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
-    final SqlNode appliedMacrosNode = applyMacros(rootNode);
-    final String preparedQuery = nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
+    final String preparedQuery = prepareQuery();
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
     return new DataSourceRequest(tableName, preparedQuery, customOptions, properties);
   }
 
+  private String prepareQuery() {
+    if (parsedQueryCache != null) {
+      final ParsedQuery parsedQuery = parsedQueryCache.get(query, sqlLanguage, this::parseQuery);
+      if (parsedQuery.isBindable()) {
+        return parsedQuery.render(this::expandMacro);
+      }
+    }
+    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final SqlNode appliedMacrosNode = applyMacros(rootNode);
+    return nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
+  }
+
   private SqlNode applyMacros(SqlNode rootNode) {
     return rootNode.accept(new MacroVisitor());
   }
 
+  private ParsedQuery parseQuery() {
+    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final MacroExtractor macroExtractor = new MacroExtractor();
+    final SqlNode nodeWithPlaceholders = rootNode.accept(macroExtractor);
+    if (macroExtractor.nested || !unparsedVerbatim(ParsedQuery.placeholder(0))) {
+      return ParsedQuery.notBindable();
+    }
+    return ParsedQuery.of(nodeToQuery(nodeWithPlaceholders, sqlDialect, QUOTE_IDENTIFIERS),
+        macroExtractor.macroCalls);
+  }
+
+  /**
+   * Whether the dialect unparses the identifier without quotes.
+   */
+  private boolean unparsedVerbatim(final String identifier) {
+    return identifier.equals(
+        nodeToQuery(new SqlIdentifier(identifier, SqlParserPos.ZERO), sqlDialect, QUOTE_IDENTIFIERS));
+  }
+
+  private String expandMacro(final MacroCall macroCall) {
+    return availableMacros.get(macroCall.getName())
+        .expandMacro(macroCall.getParams(), macroFunctionContext);
+  }
+
+  private @Nullable MacroFunction macroOf(final SqlCall call) {
+    if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
+      // cannot be a macro function
+      return null;
+    }
+    return availableMacros.get(call.getOperator().getName());
+  }
+
+  /**
+   * An operator printed next to its operands: an expansion operand may need parentheses.
+   */
+  private static boolean bindsOperands(final @Nullable SqlCall parent) {
+    if (parent == null || parent.getKind() == SqlKind.AS) {
+      return false;
+    }
+    final SqlOperator operator = parent.getOperator();
+    return operator instanceof SqlBinaryOperator
+        || operator instanceof SqlPrefixOperator
+        || operator instanceof SqlPostfixOperator;
+  }
+
   private List<String> paramsFromCall(final SqlCall call) {
     return call.getOperandList().stream()
         // don't quote identifiers to make parsing simpler - but datasource sql expression generators have to manage quoting downstream
@@ -116,11 +202,7 @@ public class MacroEngine {
     }
 
     private SqlNode replaceIfMacro(SqlCall call) {
-      if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
-        // cannot be a macro function
-        return call;
-      }
-      final MacroFunction macroFunction = availableMacros.get(call.getOperator().getName());
+      final MacroFunction macroFunction = macroOf(call);
       if (macroFunction != null) {
         List<String> macroParams = paramsFromCall(call);
         String expandedMacro = macroFunction.expandMacro(macroParams, macroFunctionContext);
@@ -130,4 +212,37 @@ public class MacroEngine {
       return call;
     }
   }
+
+  /**
+   * Replaces the macro calls by placeholders and collects them, in the expansion order of
+   * {@link MacroVisitor}.
+   */
+  private class MacroExtractor extends SqlShuttle {
+
+    private final List<MacroCall> macroCalls = new ArrayList<>();
+    private final Deque<SqlCall> parents = new ArrayDeque<>();
+    private boolean nested = false;
+
+    @Override
+    public @Nullable
+    SqlNode visit(SqlCall call) {
+      parents.push(call);
+      CallCopyingArgHandler argHandler = new CallCopyingArgHandler(call, false);
+      call.getOperator().acceptCall(this, call, false, argHandler);
+      parents.pop();
+
+      final SqlCall visited = (SqlCall) argHandler.result();
+      final MacroFunction macroFunction = macroOf(visited);
+      if (macroFunction == null) {
+        return visited;
+      }
+      final List<String> params = paramsFromCall(visited);
+      if (params.stream().anyMatch(ParsedQuery::containsPlaceholder)) {
+        // the params of the outer macro depend on the expansion of the inner one
+        nested = true;
+      }
+      macroCalls.add(new MacroCall(macroFunction.name(), params, bindsOperands(parents.peek())));
+      return new SqlIdentifier(ParsedQuery.placeholder(macroCalls.size() - 1), SqlParserPos.ZERO);
+    }
+  }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql.macro;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A query parsed once, with its macro calls replaced by placeholders in the unparsed query text.
+ *
+ * Rendering expands the macro calls and splices the expansions in the query text: it does not
+ * need Calcite. A query with nested macro calls cannot be rendered this way: it is represented
+ * by a not bindable ParsedQuery, and has to be parsed at each run.
+ */
+public class ParsedQuery {
+
+  private static final String PLACEHOLDER_PREFIX = "__thirdeye_macro_";
+  private static final String PLACEHOLDER_SUFFIX = "__";
+  private static final ParsedQuery NOT_BINDABLE = new ParsedQuery(null, null, null);
+
+  /**
+   * Query text around the placeholders. fragments.size() == macroCalls.size() + 1
+   */
+  private final @Nullable List<String> fragments;
+  /**
+   * Macro calls in expansion order. The order matters: macros can write request properties.
+   */
+  private final @Nullable List<MacroCall> macroCalls;
+  /**
+   * Index in macroCalls of the macro call following each fragment, in query text order.
+   */
+  private final int @Nullable [] spliceOrder;
+
+  private ParsedQuery(final @Nullable List<String> fragments,
+      final @Nullable List<MacroCall> macroCalls, final int @Nullable [] spliceOrder) {
+    this.fragments = fragments;
+    this.macroCalls = macroCalls;
+    this.spliceOrder = spliceOrder;
+  }
+
+  public static String placeholder(final int macroIndex) {
+    return PLACEHOLDER_PREFIX + macroIndex + PLACEHOLDER_SUFFIX;
+  }
+
+  public static boolean containsPlaceholder(final String sql) {
+    return sql.contains(PLACEHOLDER_PREFIX);
+  }
+
+  public static ParsedQuery notBindable() {
+    return NOT_BINDABLE;
+  }
+
+  /**
+   * @param queryWithPlaceholders the unparsed query, with the macro call i replaced by
+   *     {@link #placeholder(int)}
+   * @param macroCalls the macro calls, in expansion order
+   */
+  public static ParsedQuery of(final String queryWithPlaceholders,
+      final List<MacroCall> macroCalls) {
+    if (countOccurrences(queryWithPlaceholders, PLACEHOLDER_PREFIX) != macroCalls.size()) {
+      // a placeholder was not unparsed verbatim, or the query contains the prefix itself
+      return NOT_BINDABLE;
+    }
+    final int[] positions = new int[macroCalls.size()];
+    for (int i = 0; i < macroCalls.size(); i++) {
+      positions[i] = queryWithPlaceholders.indexOf(placeholder(i));
+      if (positions[i] < 0) {
+        return NOT_BINDABLE;
+      }
+    }
+    final int[] spliceOrder = IntStream.range(0, macroCalls.size())
+        .boxed()
+        .sorted(Comparator.comparingInt(i -> positions[i]))
+        .mapToInt(i -> i)
+        .toArray();
+
+    final List<String> fragments = new ArrayList<>(macroCalls.size() + 1);
+    int start = 0;
+    for (final int macroIndex : spliceOrder) {
+      fragments.add(queryWithPlaceholders.substring(start, positions[macroIndex]));
+      start = positions[macroIndex] + placeholder(macroIndex).length();
+    }
+    fragments.add(queryWithPlaceholders.substring(start));
+
+    return new ParsedQuery(fragments, List.copyOf(macroCalls), spliceOrder);
+  }
+
+  private static int countOccurrences(final String text, final String substring) {
+    int count = 0;
+    for (int i = text.indexOf(substring); i >= 0; i = text.indexOf(substring, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  public boolean isBindable() {
+    return fragments != null;
+  }
+
+  public List<MacroCall> getMacroCalls() {
+    return requireNonNull(macroCalls, "query is not bindable");
+  }
+
+  /**
+   * Expands the macro calls in expansion order, then splices the expansions in the query text.
+   */
+  public String render(final Function<MacroCall, String> expander) {
+    requireNonNull(fragments, "query is not bindable");
+    final List<String> expansions = getMacroCalls().stream()
+        .map(expander)
+        .collect(Collectors.toList());
+
+    final StringBuilder sb = new StringBuilder(fragments.get(0));
+    for (int i = 0; i < spliceOrder.length; i++) {
+      final int macroIndex = spliceOrder[i];
+      if (macroCalls.get(macroIndex).isParenthesized()) {
+        sb.append('(').append(expansions.get(macroIndex)).append(')');
+      } else {
+        sb.append(expansions.get(macroIndex));
+      }
+      sb.append(fragments.get(i + 1));
+    }
+    return sb.toString();
+  }
+
+  public static class MacroCall {
+
+    private final String name;
+    private final List<String> params;
+    private final boolean parenthesized;
+
+    /**
+     * @param parenthesized whether the expansion has to be put in parentheses to keep the
+     *     operator precedence of the parsed query
+     */
+    public MacroCall(final String name, final List<String> params, final boolean parenthesized) {
+      this.name = name;
+      this.params = List.copyOf(params);
+      this.parenthesized = parenthesized;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public List<String> getParams() {
+      return params;
+    }
+
+    public boolean isParenthesized() {
+      return parenthesized;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql.macro;
+
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the queries parsed by the {@link MacroEngine}, by query text and sql language.
+ *
+ * Runs of the same alert only differ by their detection interval. With this cache, the query
+ * of an alert is parsed with Calcite once: the macros are then expanded and spliced in the
+ * cached query text at each run.
+ */
+@Singleton
+public class ParsedQueryCache {
+
+  private static final int MAX_SIZE = 10_000;
+
+  private final Cache<CacheKey, ParsedQuery> cache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .build();
+
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  @Inject
+  public ParsedQueryCache(final MetricRegistry metricRegistry) {
+    hitCounter = metricRegistry.counter("parsedQueryCacheHitCounter");
+    missCounter = metricRegistry.counter("parsedQueryCacheMissCounter");
+    metricRegistry.register("parsedQueryCacheSize", (Gauge<Long>) cache::size);
+    metricRegistry.register("parsedQueryCacheHitRatio", new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(hitCounter.getCount(), hitCounter.getCount() + missCounter.getCount());
+      }
+    });
+  }
+
+  /**
+   * Returns the parsed query for the query and language. Parsing failures are not cached.
+   */
+  public ParsedQuery get(final String query, final SqlLanguage sqlLanguage,
+      final Supplier<ParsedQuery> parser) {
+    final CacheKey key = new CacheKey(query, sqlLanguage);
+    final ParsedQuery cached = cache.getIfPresent(key);
+    if (cached != null) {
+      hitCounter.inc();
+      return cached;
+    }
+    missCounter.inc();
+    // concurrent misses on the same key may parse twice - the result is the same
+    final ParsedQuery parsed = parser.get();
+    cache.put(key, parsed);
+    return parsed;
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private static class CacheKey {
+
+    private final String query;
+    /**
+     * The parser config and the dialect are defined by the language implementation.
+     */
+    private final Class<? extends SqlLanguage> sqlLanguageClass;
+
+    private CacheKey(final String query, final SqlLanguage sqlLanguage) {
+      this.query = query;
+      this.sqlLanguageClass = sqlLanguage.getClass();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final CacheKey cacheKey = (CacheKey) o;
+      return query.equals(cacheKey.query) && sqlLanguageClass.equals(cacheKey.sqlLanguageClass);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(query, sqlLanguageClass);
+    }
+  }
+}
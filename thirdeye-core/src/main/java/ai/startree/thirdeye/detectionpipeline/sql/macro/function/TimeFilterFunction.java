@@ -62,10 +62,21 @@ public class TimeFilterFunction implements MacroFunction {
 
     // compute timeLimits
     final Interval detectionInterval = context.getDetectionInterval();
-    final DateTime filterLowerBound = detectionInterval.getStart()
+    DateTime filterLowerBound = detectionInterval.getStart()
         .minus(isoPeriod(lookbackFromStart));
-    final DateTime filterUpperBound = detectionInterval.getEnd()
+    DateTime filterUpperBound = detectionInterval.getEnd()
         .minus(isoPeriod(lookbackFromEnd));
+    final Interval restriction = context.getTimeFilterRestriction();
+    if (restriction != null) {
+      checkArgument(restriction.getStartMillis() < filterUpperBound.getMillis()
+              && filterLowerBound.getMillis() < restriction.getEndMillis(),
+          "time filter restriction %s does not overlap the time filter %s/%s",
+          restriction, filterLowerBound, filterUpperBound);
+      filterLowerBound = filterLowerBound.withMillis(
+          Math.max(filterLowerBound.getMillis(), restriction.getStartMillis()));
+      filterUpperBound = filterUpperBound.withMillis(
+          Math.min(filterUpperBound.getMillis(), restriction.getEndMillis()));
+    }
     final Interval filterInterval = new Interval(filterLowerBound, filterUpperBound);
 
     //write time limits to metadata
@@ -26,6 +26,8 @@ public class RcaConfiguration {
 
   private List<String> formatters = Collections.emptyList();
   private int parallelism = 1;
+  /* maximum time to load the breakdowns of a heatmap - dimensions not loaded in time are skipped */
+  private long heatmapTimeoutMillis = 60_000;
   @JsonProperty("topContributors")
   private ContributorsFinderConfiguration contributorsFinderConfiguration = new ContributorsFinderConfiguration();
 
@@ -38,6 +40,15 @@ public class RcaConfiguration {
     return this;
   }
 
+  public long getHeatmapTimeoutMillis() {
+    return heatmapTimeoutMillis;
+  }
+
+  public RcaConfiguration setHeatmapTimeoutMillis(final long heatmapTimeoutMillis) {
+    this.heatmapTimeoutMillis = heatmapTimeoutMillis;
+    return this;
+  }
+
   public List<String> getFormatters() {
     return formatters;
   }
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_TEMPLATE_MISSING_PROPERTY;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.node.ValueNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.text.StringSubstitutor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A template prepared for repeated rendering.
+ *
+ * Rendering gives the same result as {@link StringTemplateUtils#applyContext(Object, Map)}, but
+ * the template is serialized only once, when it is compiled. Compilation records the position of
+ * every String containing a ${...} placeholder and of every templated {@link Templatable}.
+ * A render substitutes these positions only - the rest of the json tree is shared between
+ * renders - then deserializes the result.
+ *
+ * A CompiledTemplate is immutable and can be shared between threads.
+ */
+public class CompiledTemplate<T> {
+
+  private static final String PLACEHOLDERS_ATTRIBUTE = "placeholders";
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+      .setNodeFactory(new TextRoundTripNodeFactory())
+      .registerModule(new SimpleModule()
+          .addSerializer(Templatable.class, new TemplatableRecorder())
+          .addSerializer(String.class, new StringRecorder()));
+
+  private final Class<T> type;
+  private final JsonNode tree;
+  private final List<Placeholder> placeholders;
+
+  private CompiledTemplate(final Class<T> type, final JsonNode tree,
+      final List<Placeholder> placeholders) {
+    this.type = type;
+    this.tree = tree;
+    this.placeholders = placeholders;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> CompiledTemplate<T> compile(final T template) throws IOException {
+    final List<Placeholder> placeholders = new ArrayList<>();
+    final JsonNode tree = toTree(template, placeholders);
+    return new CompiledTemplate<>((Class<T>) template.getClass(),
+        tree,
+        Collections.unmodifiableList(placeholders));
+  }
+
+  private static JsonNode toTree(final Object value, final List<Placeholder> placeholders)
+      throws IOException {
+    final TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false);
+    OBJECT_MAPPER.writer()
+        .withAttribute(PLACEHOLDERS_ATTRIBUTE, placeholders)
+        .writeValue(buffer, value);
+    return OBJECT_MAPPER.readTree(buffer.asParser());
+  }
+
+  public T render(final Map<String, Object> valuesMap) throws IOException {
+    return OBJECT_MAPPER.treeToValue(renderTree(valuesMap), type);
+  }
+
+  public int placeholderCount() {
+    return placeholders.size();
+  }
+
+  private JsonNode renderTree(final Map<String, Object> valuesMap) throws IOException {
+    if (placeholders.isEmpty()) {
+      return tree;
+    }
+    final StringSubstitutor sub = new StringSubstitutor(valuesMap)
+        .setDisableSubstitutionInValues(true)
+        .setEnableUndefinedVariableException(true);
+    // containers copied during this render - they can be modified in place
+    final Set<JsonNode> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+    JsonNode root = tree;
+    for (final Placeholder placeholder : placeholders) {
+      final JsonNode rendered;
+      try {
+        rendered = placeholder.render(valuesMap, sub);
+      } catch (final RuntimeException e) {
+        // same exception type as the serialization based rendering
+        throw new JsonMappingException(null, e.getMessage(), e);
+      }
+      root = replace(root, placeholder.path, rendered, copies);
+    }
+    return root;
+  }
+
+  private static JsonNode replace(final JsonNode root, final List<Object> path,
+      final JsonNode replacement, final Set<JsonNode> copies) {
+    if (path.isEmpty()) {
+      return replacement;
+    }
+    final JsonNode rootCopy = copyOf(root, copies);
+    JsonNode container = rootCopy;
+    for (int i = 0; i < path.size() - 1; i++) {
+      final Object segment = path.get(i);
+      final JsonNode child = get(container, segment);
+      final JsonNode childCopy = copyOf(child, copies);
+      if (childCopy != child) {
+        set(container, segment, childCopy);
+      }
+      container = childCopy;
+    }
+    set(container, path.get(path.size() - 1), replacement);
+    return rootCopy;
+  }
+
+  private static JsonNode copyOf(final JsonNode container, final Set<JsonNode> copies) {
+    if (copies.contains(container)) {
+      return container;
+    }
+    final JsonNode copy;
+    if (container.isObject()) {
+      copy = OBJECT_MAPPER.createObjectNode().setAll((ObjectNode) container);
+    } else {
+      copy = OBJECT_MAPPER.createArrayNode().addAll((ArrayNode) container);
+    }
+    copies.add(copy);
+    return copy;
+  }
+
+  private static JsonNode get(final JsonNode container, final Object segment) {
+    return segment instanceof Integer
+        ? container.get((Integer) segment)
+        : container.get((String) segment);
+  }
+
+  private static void set(final JsonNode container, final Object segment, final JsonNode value) {
+    if (segment instanceof Integer) {
+      ((ArrayNode) container).set((Integer) segment, value);
+    } else {
+      ((ObjectNode) container).set((String) segment, value);
+    }
+  }
+
+  /**
+   * Path of the value that was just written, as field names and array indices.
+   */
+  private static List<Object> pathOf(final JsonGenerator generator) {
+    final LinkedList<Object> path = new LinkedList<>();
+    for (JsonStreamContext ctx = generator.getOutputContext(); ctx != null && !ctx.inRoot();
+        ctx = ctx.getParent()) {
+      path.addFirst(ctx.inObject() ? ctx.getCurrentName() : ctx.getCurrentIndex());
+    }
+    return new ArrayList<>(path);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void record(final SerializerProvider serializerProvider,
+      final Placeholder placeholder) {
+    ((List<Placeholder>) serializerProvider.getAttribute(PLACEHOLDERS_ATTRIBUTE)).add(placeholder);
+  }
+
+  private abstract static class Placeholder {
+
+    protected final List<Object> path;
+
+    protected Placeholder(final List<Object> path) {
+      this.path = path;
+    }
+
+    abstract JsonNode render(Map<String, Object> valuesMap, StringSubstitutor sub)
+        throws IOException;
+  }
+
+  private static class StringPlaceholder extends Placeholder {
+
+    private final String template;
+
+    private StringPlaceholder(final List<Object> path, final String template) {
+      super(path);
+      this.template = template;
+    }
+
+    @Override
+    JsonNode render(final Map<String, Object> valuesMap, final StringSubstitutor sub) {
+      try {
+        return TextNode.valueOf(sub.replace(template));
+      } catch (final IllegalArgumentException e) {
+        throw new ThirdEyeException(ERR_TEMPLATE_MISSING_PROPERTY, e.getMessage());
+      }
+    }
+  }
+
+  private static class TemplatablePlaceholder extends Placeholder {
+
+    private final String property;
+
+    private TemplatablePlaceholder(final List<Object> path, final String templatedValue) {
+      super(path);
+      this.property = templatedValue.substring(2, templatedValue.length() - 1);
+    }
+
+    @Override
+    JsonNode render(final Map<String, Object> valuesMap, final StringSubstitutor sub)
+        throws IOException {
+      checkArgument(valuesMap.containsKey(property),
+          "Property not provided for templatable value: %s",
+          property);
+      final @Nullable Object value = valuesMap.get(property);
+      final JsonNode renderedValue = value == null
+          ? NullNode.getInstance()
+          // the property value can contain placeholders too
+          : compile(value).renderTree(valuesMap);
+      return OBJECT_MAPPER.createObjectNode()
+          .set(Templatable.VALUE_FIELD_STRING, renderedValue);
+    }
+  }
+
+  private static class StringRecorder extends JsonSerializer<String> {
+
+    @Override
+    public void serialize(final String stringField, final JsonGenerator jsonGenerator,
+        final SerializerProvider serializerProvider) throws IOException {
+      jsonGenerator.writeString(stringField);
+      if (stringField.contains("${")) {
+        record(serializerProvider, new StringPlaceholder(pathOf(jsonGenerator), stringField));
+      }
+    }
+  }
+
+  private static class TemplatableRecorder extends JsonSerializer<Templatable> {
+
+    @Override
+    public void serialize(final Templatable templatable, final JsonGenerator jsonGenerator,
+        final SerializerProvider serializerProvider) throws IOException {
+      final String templatedValue = templatable.getTemplatedValue();
+      jsonGenerator.writeStartObject();
+      if (templatedValue != null) {
+        jsonGenerator.writeStringField("templatedValue", templatedValue);
+        jsonGenerator.writeEndObject();
+        record(serializerProvider, new TemplatablePlaceholder(pathOf(jsonGenerator),
+            templatedValue));
+      } else {
+        // the value is serialized with the same provider: nested placeholders are recorded
+        serializerProvider.defaultSerializeField(Templatable.VALUE_FIELD_STRING,
+            templatable.getValue(),
+            jsonGenerator);
+        jsonGenerator.writeEndObject();
+      }
+    }
+  }
+
+  /**
+   * Creates the numeric nodes a json text round trip would create: integral numbers are narrowed
+   * to the smallest of int and long, floating point numbers are doubles. This keeps untyped
+   * values - for instance in a Map<String, Object> - identical to the serialization based
+   * rendering.
+   */
+  private static class TextRoundTripNodeFactory extends JsonNodeFactory {
+
+    @Override
+    public NumericNode numberNode(final long v) {
+      return (int) v == v ? numberNode((int) v) : super.numberNode(v);
+    }
+
+    @Override
+    public ValueNode numberNode(final Long value) {
+      return value == null ? nullNode() : numberNode(value.longValue());
+    }
+
+    @Override
+    public ValueNode numberNode(final BigInteger v) {
+      return v != null && v.bitLength() < Long.SIZE ? numberNode(v.longValue())
+          : super.numberNode(v);
+    }
+
+    @Override
+    public NumericNode numberNode(final float v) {
+      // through the decimal representation, as the json text would
+      return numberNode(Double.parseDouble(Float.toString(v)));
+    }
+
+    @Override
+    public ValueNode numberNode(final Float value) {
+      return value == null ? nullNode() : numberNode(value.floatValue());
+    }
+  }
+}
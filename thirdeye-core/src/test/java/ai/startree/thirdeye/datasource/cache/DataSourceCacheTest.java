@@ -0,0 +1,224 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.config.QueryLimiterConfiguration;
+import ai.startree.thirdeye.config.QueryTelemetryConfiguration;
+import ai.startree.thirdeye.datasource.DataSourcesLoader;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataSourceCacheTest {
+
+  private static final String NAME = "pinot";
+
+  private DataSourceManager dataSourceManager;
+  private DataSourcesLoader dataSourcesLoader;
+  private DataSourceDTO dataSourceDTO;
+
+  @BeforeMethod
+  public void setUp() {
+    dataSourceManager = mock(DataSourceManager.class);
+    dataSourcesLoader = mock(DataSourcesLoader.class);
+    dataSourceDTO = dto(1000L);
+    when(dataSourceManager.findByPredicate(any())).thenAnswer(i -> optionalList(dataSourceDTO));
+    when(dataSourcesLoader.loadDataSource(any())).thenAnswer(i -> mock(ThirdEyeDataSource.class));
+  }
+
+  private static DataSourceDTO dto(final long updateTime) {
+    final DataSourceDTO dto = new DataSourceDTO().setName(NAME);
+    dto.setUpdateTime(new Timestamp(updateTime));
+    return dto;
+  }
+
+  private static List<DataSourceDTO> optionalList(final DataSourceDTO dto) {
+    return dto == null ? List.of() : List.of(dto);
+  }
+
+  private DataSourceCache newCache(final Duration revalidationInterval) {
+    return newCache(revalidationInterval, Duration.ZERO);
+  }
+
+  private DataSourceCache newCache(final Duration revalidationInterval,
+      final Duration retirementGracePeriod) {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    return new DataSourceCache(dataSourceManager,
+        dataSourcesLoader,
+        new DataSourceQueryLimiter(new QueryLimiterConfiguration(), metricRegistry),
+        new DataSourceQueryTelemetry(new QueryTelemetryConfiguration(), metricRegistry),
+        metricRegistry,
+        revalidationInterval,
+        retirementGracePeriod);
+  }
+
+  @Test
+  public void testLookupsDoNotHitTheDatabaseBeforeRevalidation() {
+    final DataSourceCache cache = newCache(Duration.ofHours(1));
+
+    final ThirdEyeDataSource first = cache.getDataSource(NAME);
+    for (int i = 0; i < 10; i++) {
+      assertThat(cache.getDataSource(NAME)).isSameAs(first);
+    }
+    verify(dataSourceManager, times(1)).findByPredicate(any());
+    verify(dataSourcesLoader, times(1)).loadDataSource(any());
+  }
+
+  @Test
+  public void testConcurrentMissesAreCoalesced() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(dataSourcesLoader.loadDataSource(any())).thenAnswer(i -> {
+      loading.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return mock(ThirdEyeDataSource.class);
+    });
+    final DataSourceCache cache = newCache(Duration.ofHours(1));
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<ThirdEyeDataSource>> futures = new ArrayList<>();
+      futures.add(executorService.submit(() -> cache.getDataSource(NAME)));
+      loading.await(10, TimeUnit.SECONDS);
+      for (int i = 0; i < 3; i++) {
+        futures.add(executorService.submit(() -> cache.getDataSource(NAME)));
+      }
+      Thread.sleep(100);
+      release.countDown();
+
+      final ThirdEyeDataSource first = futures.get(0).get(10, TimeUnit.SECONDS);
+      for (final Future<ThirdEyeDataSource> future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(first);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    verify(dataSourcesLoader, times(1)).loadDataSource(any());
+  }
+
+  @Test
+  public void testUpdatedDataSourceIsReplacedAfterRunningQueriesFinish() throws Exception {
+    final ThirdEyeDataSource oldDelegate = mock(ThirdEyeDataSource.class);
+    final ThirdEyeDataSource newDelegate = mock(ThirdEyeDataSource.class);
+    when(dataSourcesLoader.loadDataSource(any())).thenReturn(oldDelegate, newDelegate);
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(oldDelegate.fetchDataTable(any())).thenAnswer(i -> {
+      running.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return mock(DataTable.class);
+    });
+    final DataSourceCache cache = newCache(Duration.ZERO);
+
+    final ThirdEyeDataSource oldDataSource = cache.getDataSource(NAME);
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      final Future<DataTable> query = executorService.submit(
+          () -> oldDataSource.fetchDataTable(mock(DataSourceRequest.class)));
+      running.await(10, TimeUnit.SECONDS);
+
+      dataSourceDTO = dto(2000L);
+      // stale client is served while the revalidation runs in the background
+      assertThat(cache.getDataSource(NAME)).isSameAs(oldDataSource);
+      verify(dataSourcesLoader, timeout(10_000).times(2)).loadDataSource(any());
+      final long deadline = System.currentTimeMillis() + 10_000;
+      while (cache.getDataSource(NAME) == oldDataSource
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(cache.getDataSource(NAME)).isNotSameAs(oldDataSource);
+
+      // the running query is not impacted
+      verify(oldDelegate, never()).close();
+      release.countDown();
+      assertThat(query.get(10, TimeUnit.SECONDS)).isNotNull();
+      verify(oldDelegate, timeout(10_000).times(1)).close();
+      verify(newDelegate, never()).close();
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDeletedDataSourceIsRemoved() throws Exception {
+    final ThirdEyeDataSource delegate = mock(ThirdEyeDataSource.class);
+    when(dataSourcesLoader.loadDataSource(any())).thenReturn(delegate);
+    final DataSourceCache cache = newCache(Duration.ZERO);
+    cache.getDataSource(NAME);
+
+    dataSourceDTO = null;
+    cache.getDataSource(NAME);
+    final long deadline = System.currentTimeMillis() + 10_000;
+    boolean removed = false;
+    while (!removed && System.currentTimeMillis() < deadline) {
+      try {
+        cache.getDataSource(NAME);
+        Thread.sleep(10);
+      } catch (final ThirdEyeException e) {
+        removed = true;
+      }
+    }
+    assertThat(removed).isTrue();
+    assertThatThrownBy(() -> cache.getDataSource(NAME)).isInstanceOf(ThirdEyeException.class);
+    // the removed client is closed
+    verify(delegate, timeout(10_000).times(1)).close();
+  }
+
+  @Test
+  public void testReplacedDataSourceIsUsableDuringGracePeriod() throws Exception {
+    final ThirdEyeDataSource oldDelegate = mock(ThirdEyeDataSource.class);
+    when(dataSourcesLoader.loadDataSource(any())).thenReturn(oldDelegate,
+        mock(ThirdEyeDataSource.class));
+    when(oldDelegate.fetchDataTable(any())).thenReturn(mock(DataTable.class));
+    final DataSourceCache cache = newCache(Duration.ZERO, Duration.ofHours(1));
+
+    // the caller looks up the client, then queries it after it is replaced
+    final ThirdEyeDataSource oldDataSource = cache.getDataSource(NAME);
+    dataSourceDTO = dto(2000L);
+    final long deadline = System.currentTimeMillis() + 10_000;
+    while (cache.getDataSource(NAME) == oldDataSource
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(cache.getDataSource(NAME)).isNotSameAs(oldDataSource);
+
+    assertThat(oldDataSource.fetchDataTable(mock(DataSourceRequest.class))).isNotNull();
+    verify(oldDelegate, never()).close();
+  }
+}
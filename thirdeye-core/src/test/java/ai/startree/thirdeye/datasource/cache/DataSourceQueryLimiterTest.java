@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryLimiter.limitMetricName;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.config.QueryLimiterConfiguration;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class DataSourceQueryLimiterTest {
+
+  private static final String DATASOURCE = "pinot";
+
+  @Test
+  public void testConcurrentQueriesAreBounded() throws Exception {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final DataSourceQueryLimiter limiter = new DataSourceQueryLimiter(
+        new QueryLimiterConfiguration().setMaxConcurrentQueries(2), metricRegistry);
+    // done by the datasource wrapper: the gauges exist before the first query
+    limiter.register(DATASOURCE);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    try {
+      final List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        futures.add(executorService.submit(() -> limiter.execute(DATASOURCE, () -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          release.await();
+          running.decrementAndGet();
+          return 1;
+        })));
+      }
+      final Gauge<?> waiting = metricRegistry.getGauges()
+          .get(limitMetricName("waiting", DATASOURCE));
+      final long deadline = System.currentTimeMillis() + 10_000;
+      while (((Integer) waiting.getValue()) < 3 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(waiting.getValue()).isEqualTo(3);
+      assertThat(metricRegistry.getGauges().get(limitMetricName("running", DATASOURCE))
+          .getValue()).isEqualTo(2);
+
+      release.countDown();
+      for (final Future<Integer> future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(metricRegistry.timer(limitMetricName("waitTime", DATASOURCE)).getCount())
+        .isEqualTo(5);
+  }
+
+  @Test
+  public void testMetricNamesAreTaggedByDataSource() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final DataSourceQueryLimiter limiter = new DataSourceQueryLimiter(
+        new QueryLimiterConfiguration().setMaxConcurrentQueries(2), metricRegistry);
+    limiter.register("my.pinot");
+
+    assertThat(metricRegistry.getGauges()).containsKeys(
+        "dataSourceQueryLimit.running.my_pinot",
+        "dataSourceQueryLimit.waiting.my_pinot");
+    assertThat(metricRegistry.getTimers()).containsKey("dataSourceQueryLimit.waitTime.my_pinot");
+  }
+
+  @Test
+  public void testAcquireTimeout() throws Exception {
+    final DataSourceQueryLimiter limiter = new DataSourceQueryLimiter(
+        new QueryLimiterConfiguration()
+            .setMaxConcurrentQueries(1)
+            .setAcquireTimeout(Duration.ofMillis(50)),
+        new MetricRegistry());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Boolean> blocking = executorService.submit(() -> limiter.execute(DATASOURCE,
+          () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+          }));
+      started.await();
+
+      assertThatThrownBy(() -> limiter.execute(DATASOURCE, () -> 1))
+          .isInstanceOf(ThirdEyeException.class);
+      // other datasources are not impacted
+      assertThat(limiter.execute("other", () -> 1)).isEqualTo(1);
+
+      release.countDown();
+      assertThat(blocking.get(10, TimeUnit.SECONDS)).isTrue();
+      // the slot is released
+      assertThat(limiter.execute(DATASOURCE, () -> 1)).isEqualTo(1);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDataSourceOverrideCanDisableTheLimit() throws Exception {
+    final DataSourceQueryLimiter limiter = new DataSourceQueryLimiter(
+        new QueryLimiterConfiguration()
+            .setMaxConcurrentQueries(1)
+            .setDataSourceMaxConcurrentQueries(Map.of(DATASOURCE, 0))
+            .setAcquireTimeout(Duration.ofMillis(50)),
+        new MetricRegistry());
+
+    // nested calls would time out with a limit of 1
+    assertThat(limiter.execute(DATASOURCE, () -> limiter.execute(DATASOURCE, () -> 1)))
+        .isEqualTo(1);
+  }
+}
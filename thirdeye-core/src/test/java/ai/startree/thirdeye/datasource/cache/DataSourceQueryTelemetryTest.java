@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.config.QueryTelemetryConfiguration;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class DataSourceQueryTelemetryTest {
+
+  private static final DataTable DATA_TABLE = SimpleDataTable.fromDataFrame(new DataFrame()
+      .addSeries("ts", 1L, 2L, 3L)
+      .addSeries("value", 1.0, 2.0, 3.0));
+
+  private static DataSourceQueryTelemetry telemetry(final MetricRegistry metricRegistry) {
+    return new DataSourceQueryTelemetry(new QueryTelemetryConfiguration()
+        .setSlowQueryThreshold(Duration.ZERO)
+        .setSlowQuerySampleRate(0.5),
+        metricRegistry);
+  }
+
+  @Test
+  public void testMetricsAreTaggedWithDataSourceAndDataset() throws Exception {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final DataSourceQueryTelemetry telemetry = telemetry(metricRegistry);
+    final DataSourceRequest request = new DataSourceRequest("my.table", "SELECT 1", Map.of(),
+        Map.of());
+
+    final DataTable result = DataSourceQueryContext.call(42L, "ignored",
+        () -> telemetry.record("pinot", request, () -> DATA_TABLE));
+
+    assertThat(result).isSameAs(DATA_TABLE);
+    // request table has priority over the context dataset - dots are escaped
+    assertThat(metricRegistry.timer("dataSourceQuery.latency.pinot.my_table").getCount())
+        .isEqualTo(1);
+    assertThat(metricRegistry.histogram("dataSourceQuery.rows.pinot.my_table")
+        .getSnapshot().getMax()).isEqualTo(3);
+    assertThat(metricRegistry.histogram("dataSourceQuery.columns.pinot.my_table")
+        .getSnapshot().getMax()).isEqualTo(2);
+    assertThat(metricRegistry.histogram("dataSourceQuery.bytes.pinot.my_table")
+        .getSnapshot().getMax()).isEqualTo(48);
+  }
+
+  @Test
+  public void testContextDatasetIsUsedWhenRequestHasNoTable() throws Exception {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final DataSourceQueryTelemetry telemetry = telemetry(metricRegistry);
+    final DataSourceRequest request = new DataSourceRequest(null, "SELECT 1", Map.of(), Map.of());
+
+    DataSourceQueryContext.call(null, "dataset1",
+        () -> telemetry.record("pinot", request, () -> DATA_TABLE));
+    telemetry.record("pinot", request, () -> DATA_TABLE);
+
+    assertThat(metricRegistry.timer("dataSourceQuery.latency.pinot.dataset1").getCount())
+        .isEqualTo(1);
+    assertThat(metricRegistry.timer("dataSourceQuery.latency.pinot.unknown").getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testErrorsAreCountedByRootCauseClass() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final DataSourceQueryTelemetry telemetry = telemetry(metricRegistry);
+    final DataSourceRequest request = new DataSourceRequest("table", "SELECT 1", Map.of(),
+        Map.of());
+
+    assertThatThrownBy(() -> telemetry.record("pinot", request, () -> {
+      throw new RuntimeException(new IllegalStateException("broker down"));
+    })).isInstanceOf(RuntimeException.class);
+
+    assertThat(metricRegistry.meter(
+        "dataSourceQueryError.pinot.table.IllegalStateException").getCount()).isEqualTo(1);
+    assertThat(metricRegistry.timer("dataSourceQuery.latency.pinot.table").getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testEstimateSizeBytes() {
+    final DataFrame df = new DataFrame()
+        .addSeries("long", 1L, 2L)
+        .addSeries("boolean", true, false)
+        .addSeries("string", "ab", null);
+    // 2 longs + 2 booleans + (48 + 2 * 2) + null reference
+    assertThat(DataSourceQueryTelemetry.estimateSizeBytes(df)).isEqualTo(16 + 2 + 52 + 8);
+    assertThat(DataSourceQueryTelemetry.estimateSizeBytes(null)).isEqualTo(0);
+  }
+}
@@ -35,6 +35,7 @@ import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.calcite.sql.SqlBasicCall;
 import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
@@ -830,6 +831,33 @@ public class SelectQueryTranslatorTest {
     assertEquivalent(output, expected);
   }
 
+  @Test
+  public void testGetUnionAllSql() {
+    final List<SelectQueryTranslator> requests = List.of(COLUMN_NAME_2, COLUMN_NAME_3)
+        .stream()
+        .map(column -> new SelectQuery(TABLE).withDatabase(DATABASE)
+            .select(STANDARD_AGGREGATION_PROJECTION.withAlias("value"))
+            .select(identifierOf(column))
+            .groupBy(identifierOf(column))
+            .orderBy(identifierOf("value"))
+            .limit(10)
+            .build())
+        .collect(Collectors.toList());
+    final String output = SelectQueryTranslator.getUnionAllSql(requests,
+        SQL_LANGUAGE,
+        SQL_EXPRESSION_BUILDER);
+
+    final String branch = "SELECT * FROM (SELECT SUM(\"%s\") AS \"value\", \"%s\" FROM \"%s\".\"%s\" "
+        + "GROUP BY \"%s\" ORDER BY \"value\" FETCH NEXT 10 ROWS ONLY) AS \"%s\"";
+    final String expected = String.format(branch, COLUMN_NAME_1, COLUMN_NAME_2, DATABASE, TABLE,
+        COLUMN_NAME_2, "teUnion0")
+        + " UNION ALL "
+        + String.format(branch, COLUMN_NAME_1, COLUMN_NAME_3, DATABASE, TABLE, COLUMN_NAME_3,
+        "teUnion1");
+
+    assertEquivalent(output, expected);
+  }
+
   // TODO cyril - should be easy to express:
   //  a timeseries --> with timegrouping
   //  a breakdown on a time interval, with the standard format of the time column (no datetimeconvert)
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.loader;
+
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.joda.time.Interval;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class DefaultAggregationLoaderTest {
+
+  private static final Interval CURRENT_INTERVAL = new Interval(2000L, 3000L);
+  private static final Interval BASELINE_INTERVAL = new Interval(1000L, 2000L);
+
+  private static final SqlLanguage SQL_LANGUAGE = sqlLanguage(false);
+
+  private static SqlLanguage sqlLanguage(final boolean unionAllSupported) {
+    return new SqlLanguage() {
+      @Override
+      public ThirdEyeSqlParserConfig getSqlParserConfig() {
+        return new ThirdEyeSqlParserConfig.Builder()
+            .withLex("MYSQL_ANSI")
+            .withConformance("BABEL")
+            .withParserFactory("SqlBabelParserImpl")
+            .build();
+      }
+
+      @Override
+      public ThirdeyeSqlDialect getSqlDialect() {
+        return new ThirdeyeSqlDialect.Builder()
+            .withBaseDialect("AnsiSqlDialect")
+            .withIdentifierQuoteString("\"")
+            .withIdentifierEscapedQuoteString("")
+            .withUnionAllSupported(unionAllSupported)
+            .build();
+      }
+    };
+  }
+
+  private static final SqlExpressionBuilder SQL_EXPRESSION_BUILDER = new SqlExpressionBuilder() {
+    @Override
+    public String getTimeFilterExpression(final String timeColumn, final Interval filterInterval,
+        final String timeColumnFormat) {
+      return String.format("%s >= %s AND %s < %s", timeColumn, filterInterval.getStartMillis(),
+          timeColumn, filterInterval.getEndMillis());
+    }
+  };
+
+  private final Set<String> queries = ConcurrentHashMap.newKeySet();
+  private ThirdEyeDataSource dataSource;
+  private DefaultAggregationLoader aggregationLoader;
+
+  private static MetricSlice currentSlice() {
+    final MetricConfigDTO metric = new MetricConfigDTO()
+        .setName("views")
+        .setDefaultAggFunction("SUM");
+    final DatasetConfigDTO dataset = new DatasetConfigDTO()
+        .setDataset("table1")
+        .setDataSource("ds1")
+        .setTimeColumn("ts")
+        .setTimeFormat("EPOCH_MILLIS")
+        .setDimensions(Templatable.of(List.of("country", "browser")));
+    return MetricSlice.from(metric, CURRENT_INTERVAL, List.of(), dataset);
+  }
+
+  private static DataFrame response(final String dimension, final String value,
+      final double current, final double baseline) {
+    return new DataFrame()
+        .addSeries(dimension, value)
+        .addSeries(COL_CURRENT_VALUE, current)
+        .addSeries(COL_BASELINE_VALUE, baseline)
+        .addSeries(Constants.COL_VALUE, current + baseline);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    queries.clear();
+    dataSource = mock(ThirdEyeDataSource.class);
+    when(dataSource.getSqlLanguage()).thenReturn(SQL_LANGUAGE);
+    when(dataSource.getSqlExpressionBuilder()).thenReturn(SQL_EXPRESSION_BUILDER);
+    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
+    when(dataSourceCache.getDataSource("ds1")).thenReturn(dataSource);
+    aggregationLoader = new DefaultAggregationLoader(dataSourceCache);
+  }
+
+  @Test
+  public void testLoadBreakdownWithBaseline() throws Exception {
+    when(dataSource.fetchDataTable(any(DataSourceRequest.class))).thenAnswer(i -> {
+      final String query = i.getArgument(0, DataSourceRequest.class).getQuery();
+      queries.add(query);
+      return SimpleDataTable.fromDataFrame(query.contains("\"country\"")
+          ? response("country", "FR", 10, 20)
+          : response("browser", "chrome", 30, 40));
+    });
+
+    final DataFrame breakdown = aggregationLoader.loadBreakdown(currentSlice(),
+        BASELINE_INTERVAL,
+        100,
+        10_000).getBreakdown();
+
+    // one query per dimension for both intervals
+    assertThat(queries).hasSize(2);
+    for (final String query : queries) {
+      assertThat(query).contains("SUM(CASE WHEN \"ts\" >= 2000 AND \"ts\" < 3000 THEN \"views\"");
+      assertThat(query).contains("SUM(CASE WHEN \"ts\" >= 1000 AND \"ts\" < 2000 THEN \"views\"");
+    }
+    assertThat(breakdown.size()).isEqualTo(2);
+    assertThat(breakdown.getStrings(COL_DIMENSION_NAME).toList())
+        .containsExactlyInAnyOrder("country", "browser");
+    assertThat(breakdown.getStrings(COL_DIMENSION_VALUE).toList())
+        .containsExactlyInAnyOrder("FR", "chrome");
+    assertThat(breakdown.getDoubles(COL_CURRENT_VALUE).sum().value()).isEqualTo(40);
+    assertThat(breakdown.getDoubles(COL_BASELINE_VALUE).sum().value()).isEqualTo(60);
+  }
+
+  @Test
+  public void testLoadBreakdownWithBaselineUsesUnionAllWhenSupported() throws Exception {
+    when(dataSource.getSqlLanguage()).thenReturn(sqlLanguage(true));
+    when(dataSource.fetchDataTable(any(DataSourceRequest.class))).thenAnswer(i -> {
+      final String query = i.getArgument(0, DataSourceRequest.class).getQuery();
+      queries.add(query);
+      return SimpleDataTable.fromDataFrame(new DataFrame()
+          .addSeries(COL_DIMENSION_NAME, "country", "browser")
+          .addSeries(COL_DIMENSION_VALUE, "FR", "chrome")
+          .addSeries(COL_CURRENT_VALUE, 10, 30)
+          .addSeries(COL_BASELINE_VALUE, 20, 40)
+          .addSeries(Constants.COL_VALUE, 30, 70));
+    });
+
+    final DataFrame breakdown = aggregationLoader.loadBreakdown(currentSlice(),
+        BASELINE_INTERVAL,
+        100,
+        10_000).getBreakdown();
+
+    // a single query for both dimensions
+    assertThat(queries).hasSize(1);
+    assertThat(queries.iterator().next()).contains("UNION ALL");
+    assertThat(breakdown.size()).isEqualTo(2);
+    assertThat(breakdown.getStrings(COL_DIMENSION_NAME).toList())
+        .containsExactlyInAnyOrder("country", "browser");
+    assertThat(breakdown.getDoubles(COL_CURRENT_VALUE).sum().value()).isEqualTo(40);
+    assertThat(breakdown.getDoubles(COL_BASELINE_VALUE).sum().value()).isEqualTo(60);
+  }
+
+  /**
+   * Runs the generated queries on an in-memory HSQLDB database. HSQLDB supports UNION ALL of
+   * subqueries that have their own ORDER BY and FETCH.
+   */
+  private void fetchFromHsqldb(final Connection connection) throws Exception {
+    when(dataSource.fetchDataTable(any(DataSourceRequest.class))).thenAnswer(i -> {
+      final String query = i.getArgument(0, DataSourceRequest.class).getQuery();
+      queries.add(query);
+      try (final Statement statement = connection.createStatement();
+          final ResultSet resultSet = statement.executeQuery(query)) {
+        return SimpleDataTable.fromDataFrame(toDataFrame(resultSet));
+      }
+    });
+  }
+
+  /**
+   * Keeps the case of the column labels. DataFrame.fromResultSet lower cases them.
+   */
+  private static DataFrame toDataFrame(final ResultSet resultSet) throws Exception {
+    final ResultSetMetaData metaData = resultSet.getMetaData();
+    final List<String> labels = new ArrayList<>();
+    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+      labels.add(metaData.getColumnLabel(i));
+    }
+    final DataFrame.Builder builder = DataFrame.builder(labels);
+    while (resultSet.next()) {
+      final Object[] row = new Object[labels.size()];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = resultSet.getObject(i + 1);
+      }
+      builder.append(row);
+    }
+    return builder.build();
+  }
+
+  private static Connection hsqldbConnection() throws Exception {
+    final Connection connection = DriverManager.getConnection(
+        "jdbc:hsqldb:mem:" + UUID.randomUUID(), "sa", "");
+    try (final Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE \"table1\" (\"ts\" BIGINT, \"country\" VARCHAR(16), "
+          + "\"browser\" VARCHAR(16), \"views\" DOUBLE)");
+      statement.execute("INSERT INTO \"table1\" VALUES "
+          // baseline
+          + "(1500, 'FR', 'chrome', 20), (1600, 'US', 'firefox', 4), "
+          // current
+          + "(2500, 'FR', 'chrome', 10), (2600, 'US', 'firefox', 5), (2700, 'DE', 'safari', 1), "
+          // outside of both intervals
+          + "(3500, 'DE', 'safari', 100)");
+    }
+    return connection;
+  }
+
+  @DataProvider
+  public static Object[][] unionAllSupported() {
+    return new Object[][]{{false}, {true}};
+  }
+
+  @Test(dataProvider = "unionAllSupported")
+  public void testLoadBreakdownWithBaselineOnDatabase(final boolean unionAllSupported)
+      throws Exception {
+    when(dataSource.getSqlLanguage()).thenReturn(sqlLanguage(unionAllSupported));
+    try (final Connection connection = hsqldbConnection()) {
+      fetchFromHsqldb(connection);
+
+      final DataFrame breakdown = aggregationLoader.loadBreakdown(currentSlice(),
+          BASELINE_INTERVAL,
+          2,
+          10_000).getBreakdown();
+
+      assertThat(queries).hasSize(unionAllSupported ? 1 : 2);
+      // top 2 values of each dimension on both intervals
+      assertThat(breakdown.size()).isEqualTo(4);
+      final DataFrame country = breakdown.filterEquals(COL_DIMENSION_NAME, "country").dropNull();
+      assertThat(country.getStrings(COL_DIMENSION_VALUE).toList())
+          .containsExactlyInAnyOrder("FR", "US");
+      final DataFrame browser = breakdown.filterEquals(COL_DIMENSION_NAME, "browser").dropNull();
+      assertThat(browser.getStrings(COL_DIMENSION_VALUE).toList())
+          .containsExactlyInAnyOrder("chrome", "firefox");
+      assertThat(browser.getDoubles(COL_CURRENT_VALUE).sum().value()).isEqualTo(15);
+      assertThat(browser.getDoubles(COL_BASELINE_VALUE).sum().value()).isEqualTo(24);
+    }
+  }
+
+  @Test(dataProvider = "unionAllSupported")
+  public void testLoadBreakdownOnDatabase(final boolean unionAllSupported) throws Exception {
+    when(dataSource.getSqlLanguage()).thenReturn(sqlLanguage(unionAllSupported));
+    try (final Connection connection = hsqldbConnection()) {
+      fetchFromHsqldb(connection);
+
+      final DataFrame breakdown = aggregationLoader.loadBreakdown(currentSlice(), 1);
+
+      assertThat(queries).hasSize(unionAllSupported ? 1 : 2);
+      assertThat(breakdown.size()).isEqualTo(2);
+      assertThat(breakdown.getStrings(COL_DIMENSION_NAME).toList())
+          .containsExactlyInAnyOrder("country", "browser");
+      assertThat(breakdown.getStrings(COL_DIMENSION_VALUE).toList())
+          .containsExactlyInAnyOrder("FR", "chrome");
+      assertThat(breakdown.getDoubles(Constants.COL_VALUE).toList()).containsExactly(10., 10.);
+    }
+  }
+
+  @Test
+  public void testLoadBreakdownWithBaselineReturnsPartialResultOnTimeout() throws Exception {
+    when(dataSource.fetchDataTable(any(DataSourceRequest.class))).thenAnswer(i -> {
+      final String query = i.getArgument(0, DataSourceRequest.class).getQuery();
+      if (query.contains("\"browser\"")) {
+        Thread.sleep(5_000);
+        return SimpleDataTable.fromDataFrame(response("browser", "chrome", 30, 40));
+      }
+      return SimpleDataTable.fromDataFrame(response("country", "FR", 10, 20));
+    });
+
+    final BreakdownComparison comparison = aggregationLoader.loadBreakdown(currentSlice(),
+        BASELINE_INTERVAL,
+        100,
+        500);
+
+    assertThat(comparison.isPartial()).isTrue();
+    assertThat(comparison.getTimedOutDimensions()).containsExactly("browser");
+    final DataFrame breakdown = comparison.getBreakdown();
+    assertThat(breakdown.size()).isEqualTo(1);
+    assertThat(breakdown.getString(COL_DIMENSION_NAME, 0)).isEqualTo("country");
+    assertThat(breakdown.getDouble(COL_CURRENT_VALUE, 0)).isEqualTo(10);
+    assertThat(breakdown.getDouble(COL_BASELINE_VALUE, 0)).isEqualTo(20);
+  }
+}
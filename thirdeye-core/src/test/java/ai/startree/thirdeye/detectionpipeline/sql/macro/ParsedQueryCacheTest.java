@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql.macro;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import com.codahale.metrics.MetricRegistry;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ParsedQueryCacheTest {
+
+  private static final Interval INTERVAL = new Interval(1000L, 2000L, DateTimeZone.UTC);
+  private static final Interval NEXT_INTERVAL = new Interval(2000L, 3000L, DateTimeZone.UTC);
+
+  private static final SqlLanguage SQL_LANGUAGE = new SqlLanguage() {
+    private final ThirdEyeSqlParserConfig sqlParserConfig = new ThirdEyeSqlParserConfig.Builder()
+        .withLex("MYSQL_ANSI")
+        .withConformance("BABEL")
+        .withParserFactory("SqlBabelParserImpl")
+        .build();
+    private final ThirdeyeSqlDialect sqlDialect = new ThirdeyeSqlDialect.Builder()
+        .withBaseDialect("AnsiSqlDialect")
+        .withIdentifierQuoteString("\"")
+        .withIdentifierEscapedQuoteString("")
+        .build();
+
+    @Override
+    public ThirdEyeSqlParserConfig getSqlParserConfig() {
+      return sqlParserConfig;
+    }
+
+    @Override
+    public ThirdeyeSqlDialect getSqlDialect() {
+      return sqlDialect;
+    }
+  };
+
+  private static final SqlExpressionBuilder SQL_EXPRESSION_BUILDER = new SqlExpressionBuilder() {
+    @Override
+    public String getTimeFilterExpression(final String timeColumn, final Interval filterInterval,
+        final @Nullable String timeColumnFormat) {
+      return String.format("%s >= %s AND %s < %s", timeColumn, filterInterval.getStartMillis(),
+          timeColumn, filterInterval.getEndMillis());
+    }
+
+    @Override
+    public String getTimeGroupExpression(final String timeColumn,
+        final @Nullable String timeFormat, final Period granularity,
+        final @Nullable String timezone) {
+      return String.format("DATETIMECONVERT(%s, '%s', '%s')", timeColumn, timeFormat,
+          granularity);
+    }
+  };
+
+  private MetricRegistry metricRegistry;
+  private ParsedQueryCache parsedQueryCache;
+
+  private static DataSourceRequest prepare(final String query, final Interval interval,
+      final @Nullable ParsedQueryCache parsedQueryCache) {
+    return new MacroEngine(SQL_LANGUAGE, SQL_EXPRESSION_BUILDER, interval, null, query)
+        .withParsedQueryCache(parsedQueryCache)
+        .prepareRequest();
+  }
+
+  private void assertSameAsWithoutCache(final String query) {
+    final DataSourceRequest expected = prepare(query, INTERVAL, null);
+    final DataSourceRequest output = prepare(query, INTERVAL, parsedQueryCache);
+    assertThat(output.getQuery()).isEqualTo(expected.getQuery());
+    assertThat(output.getProperties()).isEqualTo(expected.getProperties());
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    parsedQueryCache = new ParsedQueryCache(metricRegistry);
+  }
+
+  @Test
+  public void testSameQueryAsWithoutCache() {
+    assertSameAsWithoutCache("SELECT * FROM tableName WHERE __timeFilter(ts, 'EPOCH')");
+    assertSameAsWithoutCache(
+        "SELECT __timeGroup(ts, 'EPOCH', 'P1D') AS bucket, SUM(views) FROM tableName "
+            + "WHERE __timeFilter(ts, 'EPOCH', 'P7D') GROUP BY bucket ORDER BY bucket");
+    assertSameAsWithoutCache("SELECT country FROM tableName");
+  }
+
+  @Test
+  public void testMacroInOperatorIsParenthesized() {
+    final DataSourceRequest output = prepare(
+        "SELECT * FROM tableName WHERE __timeFilter(ts, 'EPOCH') AND country = 'US'",
+        INTERVAL,
+        parsedQueryCache);
+    assertThat(output.getQuery()).isEqualTo(
+        "SELECT *\nFROM tableName\nWHERE (ts >= 1000 AND ts < 2000) AND country = 'US'");
+  }
+
+  @Test
+  public void testMacrosAreBoundAtEachRun() {
+    final String query = "SELECT * FROM tableName WHERE __timeFilter(ts, 'EPOCH')";
+
+    final DataSourceRequest first = prepare(query, INTERVAL, parsedQueryCache);
+    final DataSourceRequest second = prepare(query, NEXT_INTERVAL, parsedQueryCache);
+
+    assertThat(first.getQuery()).endsWith("WHERE ts >= 1000 AND ts < 2000");
+    assertThat(second.getQuery()).endsWith("WHERE ts >= 2000 AND ts < 3000");
+    assertThat(second.getProperties())
+        .containsEntry(MIN_TIME_MILLIS.toString(), "2000")
+        .containsEntry(MAX_TIME_MILLIS.toString(), "3000");
+    assertThat(parsedQueryCache.size()).isEqualTo(1);
+    assertThat(metricRegistry.counter("parsedQueryCacheHitCounter").getCount()).isEqualTo(1);
+    assertThat(metricRegistry.counter("parsedQueryCacheMissCounter").getCount()).isEqualTo(1);
+    assertThat(metricRegistry.getGauges().get("parsedQueryCacheHitRatio").getValue())
+        .isEqualTo(0.5);
+  }
+
+  @Test
+  public void testNestedMacrosFallBackToParsing() {
+    final String query =
+        "SELECT * FROM tableName WHERE __timeFilter(__timeGroup(ts, 'EPOCH', 'P1D'), 'EPOCH')";
+    assertSameAsWithoutCache(query);
+    assertSameAsWithoutCache(query);
+    assertThat(parsedQueryCache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testParsingFailureIsNotCached() {
+    assertThatThrownBy(() -> prepare("SELECT FROM WHERE", INTERVAL, parsedQueryCache))
+        .isInstanceOf(ThirdEyeException.class);
+    assertThat(parsedQueryCache.size()).isEqualTo(0);
+  }
+}
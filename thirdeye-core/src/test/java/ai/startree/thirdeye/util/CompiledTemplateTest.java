@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+public class CompiledTemplateTest {
+
+  private static PlanNodeBean planNode() {
+    final TemplatableMap<String, Object> params = new TemplatableMap<>();
+    params.put("list", new Templatable<>().setTemplatedValue("${list}"));
+    params.put("number", new Templatable<>().setTemplatedValue("${number}"));
+    params.putValue("query", "select ${column} from ${table}");
+    params.putValue("constant", "no placeholder");
+    return new PlanNodeBean()
+        .setName("root")
+        .setType("${type}")
+        .setParams(params);
+  }
+
+  private static Map<String, Object> values(final String column) {
+    return Map.of("list", List.of("a", "${column}"),
+        "number", 5L,
+        "column", column,
+        "table", "t",
+        "type", "DataFetcher");
+  }
+
+  private static JsonNode toTree(final Object object) {
+    return ThirdEyeSerialization.getObjectMapper().valueToTree(object);
+  }
+
+  @Test
+  public void testStringReplacement() throws IOException {
+    final Map<String, Object> values = Map.of("k1", "v1", "k2", "v2");
+    final Map<String, String> output = CompiledTemplate.compile(
+        new HashMap<>(Map.of("k", "${k1}", "k2", "\\withBackSlashes\\${k2}", "k3", "v3")))
+        .render(values);
+    assertThat(output).isEqualTo(Map.of("k", "v1", "k2", "\\withBackSlashes\\v2", "k3", "v3"));
+  }
+
+  @Test
+  public void testTemplatableReplacement() throws IOException {
+    final CompiledTemplate<PlanNodeBean> compiled = CompiledTemplate.compile(planNode());
+    assertThat(compiled.placeholderCount()).isEqualTo(4);
+
+    final PlanNodeBean output = compiled.render(values("c1"));
+
+    assertThat(output.getType()).isEqualTo("DataFetcher");
+    assertThat(output.getParams().getValue("list")).isEqualTo(List.of("a", "c1"));
+    assertThat(output.getParams().get("list").getTemplatedValue()).isNull();
+    assertThat(output.getParams().getValue("query")).isEqualTo("select c1 from t");
+    assertThat(output.getParams().getValue("constant")).isEqualTo("no placeholder");
+  }
+
+  @Test
+  public void testRenderIsRepeatable() throws IOException {
+    final CompiledTemplate<PlanNodeBean> compiled = CompiledTemplate.compile(planNode());
+
+    final PlanNodeBean first = compiled.render(values("c1"));
+    final PlanNodeBean second = compiled.render(values("c2"));
+
+    assertThat(first.getParams().getValue("query")).isEqualTo("select c1 from t");
+    assertThat(second.getParams().getValue("query")).isEqualTo("select c2 from t");
+    assertThat(toTree(compiled.render(values("c1")))).isEqualTo(toTree(first));
+  }
+
+  @Test
+  public void testSameResultAsStringTemplateUtils() throws Exception {
+    final PlanNodeBean template = planNode();
+    final Map<String, Object> values = values("c1");
+
+    final PlanNodeBean expected = StringTemplateUtils.applyContext(template, values);
+    final PlanNodeBean output = CompiledTemplate.compile(template).render(values);
+
+    assertThat(toTree(output)).isEqualTo(toTree(expected));
+    // untyped numbers are deserialized like a json text round trip would
+    assertThat(output.getParams().getValue("number")).isInstanceOf(Integer.class);
+  }
+
+  @Test
+  public void testFailAtMissingValue() throws IOException {
+    final CompiledTemplate<Map<String, String>> compiled = CompiledTemplate.compile(
+        new HashMap<>(Map.of("k", "${k1}")));
+    assertThatThrownBy(() -> compiled.render(Map.of("k2", "v2")))
+        .isInstanceOf(JsonMappingException.class);
+  }
+
+  @Test
+  public void testTemplatableReplacementErrorWhenKeyIsMissingInProperty() throws IOException {
+    final CompiledTemplate<PlanNodeBean> compiled = CompiledTemplate.compile(planNode());
+    final Map<String, Object> values = new HashMap<>(values("c1"));
+    values.remove("list");
+    assertThatThrownBy(() -> compiled.render(values))
+        .isInstanceOf(JsonMappingException.class)
+        .hasMessageContaining("list");
+  }
+
+  @Test
+  public void testAlertTemplateRendering() throws Exception {
+    final AlertTemplateDTO template = ThirdEyeSerialization.getObjectMapper()
+        .readValue(IOUtils.resourceToString("/alertTemplateDto.json", StandardCharsets.UTF_8),
+            AlertTemplateDTO.class);
+
+    final AlertTemplateDTO renderedTemplate = CompiledTemplate.compile(template)
+        .render(ImmutableMap.<String, Object>builder()
+            .put("aggregationColumn", "views")
+            .put("completenessDelay", "P0D")
+            .put("monitoringGranularity", "P1D")
+            .put("max", "${max}")
+            .put("timezone", "UTC")
+            .put("queryFilters", "")
+            .put("aggregationFunction", "sum")
+            .put("rcaExcludedDimensions", List.of())
+            .put("timeColumnFormat", "1,DAYS,SIMPLE_DATE_FORMAT,yyyyMMdd")
+            .put("timeColumn", "date")
+            .put("min", "${min}")
+            .put("rcaAggregationFunction", "")
+            .put("queryLimit", "100000000")
+            .put("startTime", 1)
+            .put("endTime", 2)
+            .put("dataSource", "pinotQuickStartLocal")
+            .put("dataset", "pageviews")
+            .build());
+
+    final String renderedTemplateString = ThirdEyeSerialization.getObjectMapper()
+        .writeValueAsString(renderedTemplate);
+    final String expectedRenderedTemplateString = IOUtils.resourceToString(
+        "/alertTemplateDtoRendered.json",
+        StandardCharsets.UTF_8);
+
+    final ObjectMapper mapper = new ObjectMapper();
+    assertThat(mapper.readTree(renderedTemplateString))
+        .isEqualTo(mapper.readTree(expectedRenderedTemplateString));
+  }
+}
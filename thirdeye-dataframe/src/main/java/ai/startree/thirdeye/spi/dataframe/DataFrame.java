@@ -577,47 +577,164 @@ public class DataFrame {
     }
   }
 
+  /**
+   * Reads a ResultSet into a DataFrame. Columns are read directly into primitive arrays typed
+   * by the jdbc column type. Then, like in {@link Builder#build()}, the series type is inferred
+   * from the values: a VARCHAR column of numbers is a LONG or DOUBLE series, a DOUBLE column of
+   * integral values is a LONG series, a column of nulls is a BOOLEAN series and the columns of
+   * an empty ResultSet are OBJECT series.
+   * Column names are lower-cased.
+   */
   public static DataFrame fromResultSet(final ResultSet resultSet) throws SQLException {
-    final List<String> columns = new ArrayList<>();
-    final List<SeriesType> columnTypes = new ArrayList<>();
     final ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
     final int columnCount = resultSetMetaData.getColumnCount();
-
+    final ResultSetColumn[] columns = new ResultSetColumn[columnCount];
     for (int i = 0; i < columnCount; i++) {
-      columns.add(resultSetMetaData.getColumnLabel(i + 1).toLowerCase(Locale.ENGLISH));
-      columnTypes.add(jdbcTypeToSeriesType(resultSetMetaData.getColumnType(i + 1)));
+      columns[i] = new ResultSetColumn(
+          resultSetMetaData.getColumnLabel(i + 1).toLowerCase(Locale.ENGLISH),
+          jdbcTypeToSeriesType(resultSetMetaData.getColumnType(i + 1)));
     }
-    final DataFrame.Builder builder = DataFrame.builder(columns);
+
+    int size = 0;
     while (resultSet.next()) {
-      final Object[] rowData = new Object[columnCount];
       for (int i = 0; i < columnCount; i++) {
-        final SeriesType columnType = columnTypes.get(i);
-        switch (columnType) {
-          case DOUBLE:
-            rowData[i] = resultSet.getDouble(i + 1);
-            break;
-          case LONG:
-            rowData[i] = resultSet.getLong(i + 1);
-            break;
-          case STRING:
-            rowData[i] = resultSet.getString(i + 1);
-            break;
-          case BOOLEAN:
-            rowData[i] = resultSet.getBoolean(i + 1);
-            break;
-          case OBJECT:
-            rowData[i] = resultSet.getObject(i + 1);
-            break;
-          default:
-            throw new RuntimeException("Unrecognized data type - " + columnTypes.get(i + 1));
-        }
-        if (resultSet.wasNull()) {
-          rowData[i] = null;
+        columns[i].read(resultSet, i + 1, size);
+      }
+      size++;
+    }
+
+    final DataFrame df = new DataFrame();
+    for (final ResultSetColumn column : columns) {
+      df.addSeries(column.name, column.toSeries(size));
+    }
+    return df;
+  }
+
+  /**
+   * A column of a ResultSet, read into a growing array of the type of the column.
+   */
+  private static final class ResultSetColumn {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String name;
+    private final SeriesType type;
+    private long[] longs;
+    private double[] doubles;
+    private byte[] booleans;
+    private Object[] objects;
+
+    private ResultSetColumn(final String name, final SeriesType type) {
+      this.name = name;
+      this.type = type;
+      switch (type) {
+        case LONG:
+          longs = new long[INITIAL_CAPACITY];
+          break;
+        case DOUBLE:
+          doubles = new double[INITIAL_CAPACITY];
+          break;
+        case BOOLEAN:
+          booleans = new byte[INITIAL_CAPACITY];
+          break;
+        case STRING:
+        case OBJECT:
+          objects = new Object[INITIAL_CAPACITY];
+          break;
+        default:
+          throw new IllegalArgumentException("Unrecognized data type - " + type);
+      }
+    }
+
+    private void read(final ResultSet resultSet, final int columnIndex, final int row)
+        throws SQLException {
+      switch (type) {
+        case LONG:
+          if (row == longs.length) {
+            longs = Arrays.copyOf(longs, 2 * row);
+          }
+          final long l = resultSet.getLong(columnIndex);
+          longs[row] = resultSet.wasNull() ? LongSeries.NULL : l;
+          break;
+        case DOUBLE:
+          if (row == doubles.length) {
+            doubles = Arrays.copyOf(doubles, 2 * row);
+          }
+          final double d = resultSet.getDouble(columnIndex);
+          doubles[row] = resultSet.wasNull() ? DoubleSeries.NULL : d;
+          break;
+        case BOOLEAN:
+          if (row == booleans.length) {
+            booleans = Arrays.copyOf(booleans, 2 * row);
+          }
+          final boolean b = resultSet.getBoolean(columnIndex);
+          booleans[row] = resultSet.wasNull() ? BooleanSeries.NULL : BooleanSeries.valueOf(b);
+          break;
+        case STRING:
+          if (row == objects.length) {
+            objects = Arrays.copyOf(objects, 2 * row);
+          }
+          objects[row] = resultSet.getString(columnIndex);
+          break;
+        default:
+          if (row == objects.length) {
+            objects = Arrays.copyOf(objects, 2 * row);
+          }
+          final Object o = resultSet.getObject(columnIndex);
+          objects[row] = resultSet.wasNull() ? null : o;
+      }
+    }
+
+    /**
+     * Returns the series of the inferred type, same as ObjectSeries#inferType on the values.
+     */
+    private Series toSeries(final int size) {
+      if (size == 0) {
+        return ObjectSeries.empty();
+      }
+      switch (type) {
+        case LONG:
+          final long[] longValues = Arrays.copyOf(longs, size);
+          for (final long value : longValues) {
+            if (!LongSeries.isNull(value)) {
+              return LongSeries.buildFrom(longValues);
+            }
+          }
+          return BooleanSeries.nulls(size);
+        case DOUBLE:
+          return inferDoubles(Arrays.copyOf(doubles, size));
+        case BOOLEAN:
+          return BooleanSeries.buildFrom(Arrays.copyOf(booleans, size));
+        case STRING:
+          return StringSeries.buildFrom(Arrays.copyOf(objects, size, String[].class))
+              .toInferredType();
+        default:
+          final ObjectSeries series = ObjectSeries.buildFrom(Arrays.copyOf(objects, size));
+          return series.get(series.inferType());
+      }
+    }
+
+    private static Series inferDoubles(final double[] values) {
+      boolean allNull = true;
+      boolean integral = true;
+      for (final double value : values) {
+        if (!DoubleSeries.isNull(value)) {
+          allNull = false;
+          integral &= (long) value == value;
         }
       }
-      builder.append(rowData);
+      if (allNull) {
+        return BooleanSeries.nulls(values.length);
+      }
+      if (!integral) {
+        return DoubleSeries.buildFrom(values);
+      }
+      final long[] longValues = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        longValues[i] = DoubleSeries.isNull(values[i]) ? LongSeries.NULL : (long) values[i];
+      }
+      return LongSeries.buildFrom(longValues);
     }
-    return builder.build();
   }
 
   private static SeriesType jdbcTypeToSeriesType(final int columnType) {
@@ -1717,6 +1834,29 @@ public class DataFrame {
         Grouping.GroupingByValue.from(names2series(seriesNames)));
   }
 
+  /**
+   * Returns a DataFrameGrouping based on the labels provided by the series referenced by
+   * {@code seriesNames} row by row.  The method can group across multiple columns.  Unlike
+   * {@link #groupByValue(String...)}, the aggregation result holds one key column per input
+   * column (indexed by {@code seriesNames}) and no {@code Tuples} are constructed.  Groups are
+   * in order of first appearance.
+   *
+   * @param seriesNames series containing grouping labels
+   * @return DataFrameGrouping
+   * @see Grouping.GroupingByValue
+   */
+  public Grouping.DataFrameGrouping groupByValueColumns(String... seriesNames) {
+    return this.groupByValueColumns(Arrays.asList(seriesNames));
+  }
+
+  /**
+   * @see DataFrame#groupByValueColumns(String...)
+   */
+  public Grouping.DataFrameGrouping groupByValueColumns(List<String> seriesNames) {
+    return new Grouping.DataFrameGrouping(seriesNames, this,
+        Grouping.GroupingByValue.from(names2series(seriesNames)));
+  }
+
   /**
    * Returns a DataFrameGrouping based on the labels provided by {@code labels} row by row.
    * The size of {@code labels} must match the size of the DataFrame.
@@ -309,7 +309,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getDoubles().values);
+        this.addValues(s.getDoubles().values());
       }
       return this;
     }
@@ -362,9 +362,28 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   // CAUTION: The array is final, but values are inherently modifiable
   private final double[] values;
+  // set instead of values if the series is stored off-heap
+  private final OffHeapStore.Doubles offHeapValues;
 
   private DoubleSeries(double... values) {
     this.values = values;
+    this.offHeapValues = null;
+  }
+
+  DoubleSeries(final OffHeapStore.Doubles offHeapValues) {
+    this.values = null;
+    this.offHeapValues = offHeapValues;
+  }
+
+  boolean isOffHeap() {
+    return this.offHeapValues != null;
+  }
+
+  private double valueAt(final int index) {
+    if (this.values != null) {
+      return this.values[index];
+    }
+    return this.offHeapValues.get(index);
   }
 
   @Override
@@ -379,7 +398,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.valueAt(index));
   }
 
   public static double getDouble(double value) {
@@ -388,7 +407,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.valueAt(index));
   }
 
   public static long getLong(double value) {
@@ -403,7 +422,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.valueAt(index));
   }
 
   public static byte getBoolean(double value) {
@@ -415,7 +434,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.valueAt(index));
   }
 
   public static String getString(double value) {
@@ -427,7 +446,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.valueAt(index));
   }
 
   public static Object getObject(double value) {
@@ -438,17 +457,20 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public double get(int index) {
-    return this.values[index];
+    return this.valueAt(index);
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.valueAt(index));
   }
 
   @Override
   public int size() {
-    return this.values.length;
+    if (this.values != null) {
+      return this.values.length;
+    }
+    return this.offHeapValues.size();
   }
 
   @Override
@@ -456,15 +478,39 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     return SeriesType.DOUBLE;
   }
 
+  /**
+   * Returns the values of the series. The array of an off-heap series is a new on-heap copy, see
+   * {@link OffHeapStore}.
+   */
   public double[] values() {
-    return this.values;
+    if (this.values != null) {
+      return this.values;
+    }
+    return this.copyOfRange(0, this.size());
+  }
+
+  private double[] copyOfRange(int from, int to) {
+    if (this.values != null) {
+      return Arrays.copyOfRange(this.values, from, to);
+    }
+    double[] values = new double[to - from];
+    this.offHeapValues.copyTo(from, values, 0, values.length);
+    return values;
+  }
+
+  private void copyTo(int from, double[] dest, int destPos, int length) {
+    if (this.values != null) {
+      System.arraycopy(this.values, from, dest, destPos, length);
+    } else {
+      this.offHeapValues.copyTo(from, dest, destPos, length);
+    }
   }
 
   public double value() {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.valueAt(0);
   }
 
   /**
@@ -473,10 +519,10 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @return list of series elements
    */
   public List<Double> toList() {
-    Double[] values = new Double[this.values.length];
-    for (int i = 0; i < this.values.length; i++) {
+    Double[] values = new Double[this.size()];
+    for (int i = 0; i < this.size(); i++) {
       if (!this.isNull(i)) {
-        values[i] = this.values[i];
+        values[i] = this.valueAt(i);
       }
     }
     return Arrays.asList(values);
@@ -486,14 +532,15 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   public DoubleSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
-    return buildFrom(Arrays.copyOfRange(this.values, from, to));
+    return buildFrom(this.copyOfRange(from, to));
   }
 
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("DoubleSeries{");
-    for (double d : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      double d = this.valueAt(i);
       if (isNull(d)) {
         builder.append("null");
       } else {
@@ -510,7 +557,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return String.valueOf(this.values[index]);
+    return String.valueOf(this.valueAt(index));
   }
 
   @Override
@@ -929,8 +976,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     }
     assertSameLength(this, mask, other);
 
-    double[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    double[] values = this.copyOfRange(0, this.size());
+    for (int i = 0; i < this.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getDouble(i);
       }
@@ -940,12 +987,12 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   public DoubleSeries set(BooleanSeries mask, double value) {
     assertSameLength(this, mask);
-    double[] values = new double[this.values.length];
+    double[] values = new double[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.valueAt(i);
       }
     }
     return buildFrom(values);
@@ -953,8 +1000,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   public int count(double value) {
     int count = 0;
-    for (double v : this.values) {
-      if (nullSafeDoubleComparator(v, value) == 0) {
+    for (int i = 0; i < this.size(); i++) {
+      if (nullSafeDoubleComparator(this.valueAt(i), value) == 0) {
         count++;
       }
     }
@@ -977,10 +1024,10 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public int find(double value, double epsilon, int startOffset) {
-    for (int i = startOffset; i < this.values.length; i++) {
-      if ((this.values[i] >= value - epsilon
-          && this.values[i] <= value + epsilon)
-          || isNull(this.values[i]) && isNull(value)) {
+    for (int i = startOffset; i < this.size(); i++) {
+      if ((this.valueAt(i) >= value - epsilon
+          && this.valueAt(i) <= value + epsilon)
+          || isNull(this.valueAt(i)) && isNull(value)) {
         return i;
       }
     }
@@ -1005,7 +1052,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @return series copy without nulls
    */
   public DoubleSeries fillNull(double value) {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -1015,7 +1062,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public DoubleSeries fillInfinite(double value) {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (Double.isInfinite(values[i])) {
         values[i] = value;
@@ -1031,7 +1078,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
       if (fromIndex[i] == -1) {
         values[i] = NULL;
       } else {
-        values[i] = this.values[fromIndex[i]];
+        values[i] = this.valueAt(fromIndex[i]);
       }
     }
     return buildFrom(values);
@@ -1048,17 +1095,28 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
     DoubleSeries that = (DoubleSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.values != null && that.values != null) {
+      return Arrays.equals(this.values, that.values);
+    }
+    if (this.size() != that.size()) {
+      return false;
+    }
+    for (int i = 0; i < this.size(); i++) {
+      if (Double.doubleToLongBits(this.valueAt(i)) != Double.doubleToLongBits(that.valueAt(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return nullSafeDoubleComparator(this.values[indexThis], that.getDouble(indexThat));
+    return nullSafeDoubleComparator(this.valueAt(indexThis), that.getDouble(indexThat));
   }
 
   @Override
   int hashCode(int index) {
-    return (int) Double.doubleToRawLongBits(this.values[index]);
+    return Double.hashCode(this.valueAt(index));
   }
 
   /**
@@ -1172,7 +1230,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @see Series#aggregate(Function)
    */
   public static DoubleSeries aggregate(DoubleFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getDoubles().values));
+    return buildFrom(function.apply(series.dropNull().getDoubles().values()));
   }
 
   /**
@@ -1180,7 +1238,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    */
   public static BooleanSeries aggregate(DoubleConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getDoubles().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getDoubles().values())).build();
   }
 
   public static double corr(Series a, Series b) {
@@ -1212,7 +1270,16 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    if (this.values != null) {
+      return Arrays.hashCode(this.values);
+    }
+    // same as Arrays.hashCode
+    int result = 1;
+    for (int i = 0; i < this.size(); i++) {
+      long bits = Double.doubleToLongBits(this.valueAt(i));
+      result = 31 * result + (int) (bits ^ (bits >>> 32));
+    }
+    return result;
   }
 
   public static double valueOf(Double value) {
@@ -1235,13 +1302,13 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries shift(int offset) {
-    double[] values = new double[this.values.length];
+    double[] values = new double[this.size()];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
-      System.arraycopy(this.values, 0, values, Math.min(offset, values.length),
+      this.copyTo(0, values, Math.min(offset, values.length),
           Math.max(values.length - offset, 0));
     } else {
-      System.arraycopy(this.values, Math.min(-offset, values.length), values, 0,
+      this.copyTo(Math.min(-offset, values.length), values, 0,
           Math.max(values.length + offset, 0));
       Arrays.fill(values, Math.max(values.length + offset, 0), values.length, NULL);
     }
@@ -1250,7 +1317,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries sorted() {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     Arrays.sort(values);
 
     // order NaNs first
@@ -1273,8 +1340,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   @Override
   int[] sortedIndex() {
     List<DoubleSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new DoubleSortTuple(this.values[i], i));
+    for (int i = 0; i < this.size(); i++) {
+      tuples.add(new DoubleSortTuple(this.valueAt(i), i));
     }
 
     Collections.sort(tuples, new Comparator<DoubleSortTuple>() {
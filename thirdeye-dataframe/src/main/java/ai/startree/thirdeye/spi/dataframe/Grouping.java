@@ -16,11 +16,8 @@ package ai.startree.thirdeye.spi.dataframe;
 import ai.startree.thirdeye.spi.dataframe.Series.LongConditional;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import org.apache.commons.lang3.ArrayUtils;
 import org.joda.time.DateTime;
@@ -42,13 +39,22 @@ public abstract class Grouping {
   public static final String OP_MEDIAN = "MEDIAN";
   public static final String OP_STD = "STD";
 
-  // TODO generate keys on-demand only
-  final Series keys;
+  // may be null if the subclass generates keys on demand, see generateKeys()
+  private Series keys;
 
   Grouping(Series keys) {
     this.keys = keys;
   }
 
+  /**
+   * Generates the key series on first access, for groupings constructed without keys.
+   *
+   * @return key series
+   */
+  Series generateKeys() {
+    throw new IllegalStateException("Grouping keys were not provided");
+  }
+
   /**
    * Applies {@code function} as aggregation function to all values per group and
    * returns the result as a new DataFrame with the number of elements equal to the size
@@ -190,7 +196,7 @@ public abstract class Grouping {
    * @return group count
    */
   public int size() {
-    return this.keys.size();
+    return this.keys().size();
   }
 
   /**
@@ -199,6 +205,9 @@ public abstract class Grouping {
    * @return key series
    */
   public Series keys() {
+    if (this.keys == null) {
+      this.keys = this.generateKeys();
+    }
     return this.keys;
   }
 
@@ -208,7 +217,7 @@ public abstract class Grouping {
    * @return {@code true} is empty, {@code false} otherwise.
    */
   public boolean isEmpty() {
-    return this.keys.isEmpty();
+    return this.size() <= 0;
   }
 
   /**
@@ -224,11 +233,11 @@ public abstract class Grouping {
   abstract Series apply(Series s, int groupIndex);
 
   private GroupingDataFrame makeResult(Series s) {
-    return new GroupingDataFrame(GROUP_KEY, GROUP_VALUE, this.keys, s);
+    return new GroupingDataFrame(GROUP_KEY, GROUP_VALUE, this.keys(), s);
   }
 
   private GroupingDataFrame makeResult(Series s, String keyName) {
-    return new GroupingDataFrame(keyName, GROUP_VALUE, this.keys, s);
+    return new GroupingDataFrame(keyName, GROUP_VALUE, this.keys(), s);
   }
 
   /**
@@ -326,11 +335,21 @@ public abstract class Grouping {
     final String keyName;
     final DataFrame source;
     final Grouping grouping;
+    // not null if the keys are output as one column per key series, see keyColumns()
+    final List<String> keyNames;
 
     DataFrameGrouping(String keyName, DataFrame source, Grouping grouping) {
       this.keyName = keyName;
       this.source = source;
       this.grouping = grouping;
+      this.keyNames = null;
+    }
+
+    DataFrameGrouping(List<String> keyNames, DataFrame source, GroupingByValue grouping) {
+      this.keyName = GROUP_KEY;
+      this.source = source;
+      this.grouping = grouping;
+      this.keyNames = keyNames;
     }
 
     public int size() {
@@ -376,7 +395,7 @@ public abstract class Grouping {
 
       // check for duplicate use of series name
       Set<String> outNames = new HashSet<>();
-      outNames.add(this.keyName);
+      DataFrame df = this.makeKeyFrame(outNames);
 
       for (String seriesName : seriesNames) {
         if (outNames.contains(seriesName)) {
@@ -386,10 +405,6 @@ public abstract class Grouping {
         outNames.add(seriesName);
       }
 
-      DataFrame df = new DataFrame();
-      df.addSeries(this.keyName, this.grouping.keys);
-      df.setIndex(this.keyName);
-
       for (int i = 0; i < seriesNames.length; i++) {
         Series s = this.source.get(seriesNames[i]);
         df.addSeries(seriesNames[i], this.grouping.aggregate(s, functions[i]).getValues());
@@ -433,12 +448,8 @@ public abstract class Grouping {
      * @see DataFrameGrouping#aggregate(String[], Series.Function[])
      */
     public DataFrame aggregate(List<String> aggregationExpressions) {
-      DataFrame df = new DataFrame();
-      df.addSeries(this.keyName, this.grouping.keys);
-      df.setIndex(this.keyName);
-
       Set<String> outNames = new HashSet<>();
-      outNames.add(this.keyName);
+      DataFrame df = this.makeKeyFrame(outNames);
 
       for (String expression : aggregationExpressions) {
         // parse expression
@@ -472,6 +483,28 @@ public abstract class Grouping {
       return df;
     }
 
+    /**
+     * Returns a DataFrame holding the group keys as index, and adds the key column names to
+     * {@code outNames}.
+     */
+    private DataFrame makeKeyFrame(Set<String> outNames) {
+      DataFrame df = new DataFrame();
+      if (this.keyNames == null) {
+        df.addSeries(this.keyName, this.grouping.keys());
+        df.setIndex(this.keyName);
+        outNames.add(this.keyName);
+        return df;
+      }
+
+      Series[] keyColumns = ((GroupingByValue) this.grouping).keyColumns();
+      for (int i = 0; i < keyColumns.length; i++) {
+        df.addSeries(this.keyNames.get(i), keyColumns[i]);
+      }
+      df.setIndex(this.keyNames);
+      outNames.addAll(this.keyNames);
+      return df;
+    }
+
     GroupingDataFrame aggregateExpression(String seriesName, String operation) {
       switch (operation.toUpperCase()) {
         case OP_SUM:
@@ -618,16 +651,29 @@ public abstract class Grouping {
 
   /**
    * Represents a Grouping based on value. Elements are grouped into separate buckets for each
-   * distinct value in the series.
-   * <br/><b>NOTE:</b> the resulting keys are equivalent to calling {@code unique()} on the series.
+   * distinct value in the series. Rows are assigned to groups with a primitive hash table, see
+   * {@link PrimitiveGroupIndex}. Within a group, elements keep the order of the source series.
+   * <br/><b>NOTE:</b> the resulting keys are equivalent to calling {@code unique()} on the series
+   * if sorted, and are in order of first appearance otherwise.
    */
   public static final class GroupingByValue extends Grouping {
 
     private final List<int[]> buckets;
+    private final Series[] keyColumns;
 
     private GroupingByValue(Series keys, List<int[]> buckets) {
       super(keys);
       this.buckets = buckets;
+      this.keyColumns = new Series[]{keys};
+    }
+
+    /**
+     * Grouping across several series. The Tuple keys are only generated if requested.
+     */
+    private GroupingByValue(Series[] keyColumns, List<int[]> buckets) {
+      super(null);
+      this.buckets = buckets;
+      this.keyColumns = keyColumns;
     }
 
     @Override
@@ -635,7 +681,50 @@ public abstract class Grouping {
       return s.project(this.buckets.get(groupIndex));
     }
 
+    @Override
+    public int size() {
+      return this.buckets.size();
+    }
+
+    @Override
+    Series generateKeys() {
+      DataFrame.Tuple[] tuples = new DataFrame.Tuple[this.size()];
+      for (int i = 0; i < tuples.length; i++) {
+        tuples[i] = DataFrame.Tuple.buildFrom(this.keyColumns, i);
+      }
+      return ObjectSeries.buildFrom((Object[]) tuples);
+    }
+
+    /**
+     * Returns the keys of each group as one series per grouped series, in the order of the
+     * grouped series. Unlike {@link #keys()}, does not generate Tuples when grouping across
+     * several series.
+     *
+     * @return key series, one per grouped series
+     */
+    public Series[] keyColumns() {
+      return Arrays.copyOf(this.keyColumns, this.keyColumns.length);
+    }
+
+    /**
+     * Groups by value, with the keys sorted in ascending order.
+     *
+     * @see GroupingByValue#from(Series, boolean)
+     */
     public static GroupingByValue from(Series series) {
+      return from(series, true);
+    }
+
+    /**
+     * Groups by value. If {@code sorted} is {@code false} the groups are in order of first
+     * appearance, which skips the sort of the distinct values.
+     * <br/><b>NOTE:</b> groups of object series are always in order of first appearance.
+     *
+     * @param series series to group by value
+     * @param sorted sort the keys in ascending order
+     * @return grouping
+     */
+    public static GroupingByValue from(Series series, boolean sorted) {
       if (series.isEmpty()) {
         return new GroupingByValue(series.getBuilder().build(), new ArrayList<int[]>());
       }
@@ -643,77 +732,49 @@ public abstract class Grouping {
         return from(series.getObjects());
       }
 
-      List<int[]> buckets = new ArrayList<>();
-      int[] sref = series.sortedIndex();
-
-      int bucketOffset = 0;
-      for (int i = 1; i < sref.length; i++) {
-        if (!series.equals(series, sref[i - 1], sref[i])) {
-          int[] fromIndex = Arrays.copyOfRange(sref, bucketOffset, i);
-          buckets.add(fromIndex);
-          bucketOffset = i;
-        }
+      PrimitiveGroupIndex index = PrimitiveGroupIndex.from(series);
+      int[][] buckets = index.buckets();
+      Series keys = series.project(index.firstRowOfGroup());
+      if (!sorted) {
+        return new GroupingByValue(keys, Arrays.asList(buckets));
       }
 
-      int[] fromIndex = Arrays.copyOfRange(sref, bucketOffset, sref.length);
-      buckets.add(fromIndex);
-
-      return new GroupingByValue(series.project(keysFromBuckets(buckets)), buckets);
+      // only the distinct values are sorted
+      int[] order = keys.sortedIndex();
+      List<int[]> sortedBuckets = new ArrayList<>(order.length);
+      for (int group : order) {
+        sortedBuckets.add(buckets[group]);
+      }
+      return new GroupingByValue(keys.project(order), sortedBuckets);
     }
 
     public static GroupingByValue from(ObjectSeries series) {
-      Map<Object, List<Integer>> dynBuckets = new LinkedHashMap<>();
-
-      for (int i = 0; i < series.size(); i++) {
-        Object key = series.getObject(i);
-        if (!dynBuckets.containsKey(key)) {
-          dynBuckets.put(key, new ArrayList<Integer>());
-        }
-        dynBuckets.get(key).add(i);
-      }
-
-      List<int[]> buckets = new ArrayList<>();
-      for (Map.Entry<Object, List<Integer>> entry : dynBuckets.entrySet()) {
-        buckets.add(ArrayUtils.toPrimitive(
-            entry.getValue().toArray(new Integer[entry.getValue().size()])));
+      if (series.isEmpty()) {
+        return new GroupingByValue(series.getBuilder().build(), new ArrayList<int[]>());
       }
-
-      return new GroupingByValue(series.project(keysFromBuckets(buckets)), buckets);
+      PrimitiveGroupIndex index = PrimitiveGroupIndex.from(series);
+      return new GroupingByValue(series.project(index.firstRowOfGroup()),
+          Arrays.asList(index.buckets()));
     }
 
+    /**
+     * Groups across several series. Groups are in order of first appearance. The keys are
+     * available as Tuples via {@link #keys()} and column by column via {@link #keyColumns()}.
+     *
+     * @param series series to group by value
+     * @return grouping
+     */
     public static GroupingByValue from(Series[] series) {
       Series.assertSameLength(series);
 
-      List<int[]> buckets = new ArrayList<>();
-      PrimitiveMultimap m = new PrimitiveMultimap(series);
-      BitSet b = new BitSet(series[0].size());
-
-      for (int i = 0; i < series[0].size(); i++) {
-        if (!b.get(i)) {
-          int[] keys = m.get(series, i, series);
-          for (int k : keys) {
-            b.set(k);
-          }
-          buckets.add(keys);
-        }
-      }
-
-      int[] keys = keysFromBuckets(buckets);
-      DataFrame.Tuple[] tuples = new DataFrame.Tuple[keys.length];
-      for (int i = 0; i < keys.length; i++) {
-        tuples[i] = DataFrame.Tuple.buildFrom(series, keys[i]);
+      PrimitiveGroupIndex index = PrimitiveGroupIndex.from(series);
+      int[] firstRows = index.firstRowOfGroup();
+      Series[] keyColumns = new Series[series.length];
+      for (int i = 0; i < series.length; i++) {
+        keyColumns[i] = series[i].project(firstRows);
       }
 
-      return new GroupingByValue(ObjectSeries.buildFrom((Object[]) tuples), buckets);
-    }
-
-    private static int[] keysFromBuckets(List<int[]> buckets) {
-      int[] keyIndex = new int[buckets.size()];
-      int i = 0;
-      for (int[] b : buckets) {
-        keyIndex[i++] = b[0];
-      }
-      return keyIndex;
+      return new GroupingByValue(keyColumns, Arrays.asList(index.buckets()));
     }
   }
 
@@ -156,7 +156,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getLongs().values);
+        this.addValues(s.getLongs().values());
       }
       return this;
     }
@@ -231,9 +231,28 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   // CAUTION: The array is final, but values are inherently modifiable
   private final long[] values;
+  // set instead of values if the series is stored off-heap
+  private final OffHeapStore.Longs offHeapValues;
 
   private LongSeries(long... values) {
     this.values = values;
+    this.offHeapValues = null;
+  }
+
+  LongSeries(final OffHeapStore.Longs offHeapValues) {
+    this.values = null;
+    this.offHeapValues = offHeapValues;
+  }
+
+  boolean isOffHeap() {
+    return this.offHeapValues != null;
+  }
+
+  private long valueAt(final int index) {
+    if (this.values != null) {
+      return this.values[index];
+    }
+    return this.offHeapValues.get(index);
   }
 
   @Override
@@ -248,7 +267,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.valueAt(index));
   }
 
   public static double getDouble(long value) {
@@ -260,7 +279,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.valueAt(index));
   }
 
   public static long getLong(long value) {
@@ -269,7 +288,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.valueAt(index));
   }
 
   public static byte getBoolean(long value) {
@@ -281,7 +300,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.valueAt(index));
   }
 
   public static String getString(long value) {
@@ -293,7 +312,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.valueAt(index));
   }
 
   public static Object getObject(long value) {
@@ -304,17 +323,20 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public long get(int index) {
-    return this.values[index];
+    return this.valueAt(index);
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.valueAt(index));
   }
 
   @Override
   public int size() {
-    return this.values.length;
+    if (this.values != null) {
+      return this.values.length;
+    }
+    return this.offHeapValues.size();
   }
 
   @Override
@@ -322,15 +344,39 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     return SeriesType.LONG;
   }
 
+  /**
+   * Returns the values of the series. The array of an off-heap series is a new on-heap copy, see
+   * {@link OffHeapStore}.
+   */
   public long[] values() {
-    return this.values;
+    if (this.values != null) {
+      return this.values;
+    }
+    return this.copyOfRange(0, this.size());
+  }
+
+  private long[] copyOfRange(int from, int to) {
+    if (this.values != null) {
+      return Arrays.copyOfRange(this.values, from, to);
+    }
+    long[] values = new long[to - from];
+    this.offHeapValues.copyTo(from, values, 0, values.length);
+    return values;
+  }
+
+  private void copyTo(int from, long[] dest, int destPos, int length) {
+    if (this.values != null) {
+      System.arraycopy(this.values, from, dest, destPos, length);
+    } else {
+      this.offHeapValues.copyTo(from, dest, destPos, length);
+    }
   }
 
   public long value() {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.valueAt(0);
   }
 
   /**
@@ -339,10 +385,10 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @return list of series elements
    */
   public List<Long> toList() {
-    Long[] values = new Long[this.values.length];
-    for (int i = 0; i < this.values.length; i++) {
+    Long[] values = new Long[this.size()];
+    for (int i = 0; i < this.size(); i++) {
       if (!this.isNull(i)) {
-        values[i] = this.values[i];
+        values[i] = this.valueAt(i);
       }
     }
     return Arrays.asList(values);
@@ -352,14 +398,15 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   public LongSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
-    return buildFrom(Arrays.copyOfRange(this.values, from, to));
+    return buildFrom(this.copyOfRange(from, to));
   }
 
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("LongSeries{");
-    for (long l : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      long l = this.valueAt(i);
       if (isNull(l)) {
         builder.append("null");
       } else {
@@ -376,7 +423,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return String.valueOf(this.values[index]);
+    return String.valueOf(this.valueAt(index));
   }
 
   public LongSeries sum() {
@@ -663,8 +710,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     }
     assertSameLength(this, mask, other);
 
-    long[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    long[] values = this.copyOfRange(0, this.size());
+    for (int i = 0; i < this.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getLong(i);
       }
@@ -674,12 +721,12 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   public LongSeries set(BooleanSeries mask, long value) {
     assertSameLength(this, mask);
-    long[] values = new long[this.values.length];
+    long[] values = new long[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.valueAt(i);
       }
     }
     return buildFrom(values);
@@ -687,8 +734,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   public int count(long value) {
     int count = 0;
-    for (long v : this.values) {
-      if (v == value) {
+    for (int i = 0; i < this.size(); i++) {
+      if (this.valueAt(i) == value) {
         count++;
       }
     }
@@ -711,8 +758,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public int find(long value, int startOffset) {
-    for (int i = startOffset; i < this.values.length; i++) {
-      if (this.values[i] == value) {
+    for (int i = startOffset; i < this.size(); i++) {
+      if (this.valueAt(i) == value) {
         return i;
       }
     }
@@ -731,7 +778,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   int hashCode(int index) {
-    return (int) this.values[index];
+    return Long.hashCode(this.valueAt(index));
   }
 
   /**
@@ -742,7 +789,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @return series copy without nulls
    */
   public LongSeries fillNull(long value) {
-    long[] values = Arrays.copyOf(this.values, this.values.length);
+    long[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -758,7 +805,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
       if (fromIndex[i] == -1) {
         values[i] = NULL;
       } else {
-        values[i] = this.values[fromIndex[i]];
+        values[i] = this.valueAt(fromIndex[i]);
       }
     }
     return buildFrom(values);
@@ -775,17 +822,37 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
     LongSeries that = (LongSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.values != null && that.values != null) {
+      return Arrays.equals(this.values, that.values);
+    }
+    if (this.size() != that.size()) {
+      return false;
+    }
+    for (int i = 0; i < this.size(); i++) {
+      if (this.valueAt(i) != that.valueAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return Long.compare(this.values[indexThis], that.getLong(indexThat));
+    return Long.compare(this.valueAt(indexThis), that.getLong(indexThat));
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    if (this.values != null) {
+      return Arrays.hashCode(this.values);
+    }
+    // same as Arrays.hashCode
+    int result = 1;
+    for (int i = 0; i < this.size(); i++) {
+      long value = this.valueAt(i);
+      result = 31 * result + (int) (value ^ (value >>> 32));
+    }
+    return result;
   }
 
   /**
@@ -899,7 +966,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @see Series#aggregate(Function)
    */
   public static LongSeries aggregate(LongFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getLongs().values));
+    return buildFrom(function.apply(series.dropNull().getLongs().values()));
   }
 
   /**
@@ -907,7 +974,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    */
   public static BooleanSeries aggregate(LongConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getLongs().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getLongs().values())).build();
   }
 
   public static long valueOf(Long value) {
@@ -930,13 +997,13 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public LongSeries shift(int offset) {
-    long[] values = new long[this.values.length];
+    long[] values = new long[this.size()];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
-      System.arraycopy(this.values, 0, values, Math.min(offset, values.length),
+      this.copyTo(0, values, Math.min(offset, values.length),
           Math.max(values.length - offset, 0));
     } else {
-      System.arraycopy(this.values, Math.min(-offset, values.length), values, 0,
+      this.copyTo(Math.min(-offset, values.length), values, 0,
           Math.max(values.length + offset, 0));
       Arrays.fill(values, Math.max(values.length + offset, 0), values.length, NULL);
     }
@@ -945,7 +1012,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public LongSeries sorted() {
-    long[] values = Arrays.copyOf(this.values, this.values.length);
+    long[] values = this.copyOfRange(0, this.size());
     Arrays.sort(values);
     return buildFrom(values);
   }
@@ -953,8 +1020,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   @Override
   int[] sortedIndex() {
     List<LongSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new LongSortTuple(this.values[i], i));
+    for (int i = 0; i < this.size(); i++) {
+      tuples.add(new LongSortTuple(this.valueAt(i), i));
     }
 
     Collections.sort(tuples, new Comparator<LongSortTuple>() {
@@ -22,6 +22,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -708,7 +709,7 @@ public class ObjectSeries extends TypedSeries<ObjectSeries> {
 
   @Override
   int hashCode(int index) {
-    return this.values[index].hashCode();
+    return Objects.hashCode(this.values[index]);
   }
 
   static final class ObjectSortTuple {
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores large series outside of the java heap.
+ *
+ * Series of type DOUBLE, LONG and STRING bigger than the threshold are copied into direct
+ * buffers, or into memory-mapped files if a directory is given. STRING series are dictionary
+ * encoded: distinct values stay on the heap, the codes are stored off-heap.
+ *
+ * Off-heap series are transparent to DataFrame operations. Single values, slices, copies and
+ * shifts are read from the buffers. values() returns a new on-heap copy of an off-heap series,
+ * that is not cached: the heap is only used while the operation that needs the array runs.
+ * Operations that build a new series, like map or filter, create it on-heap. The store reduces
+ * the heap retained by big tables that are kept while other work runs, for instance fetched data
+ * waiting for the other nodes of a pipeline. It does not reduce the peak heap of an operation.
+ *
+ * The memory is released when the store is closed. Series of a closed store cannot be read
+ * anymore. The store must only be closed once no thread reads its series: reading a freed
+ * buffer crashes the JVM. The detection task closes the store once the pipeline has returned,
+ * which only happens once all the operators have stopped.
+ */
+public final class OffHeapStore implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapStore.class);
+  private static final int NULL_CODE = -1;
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final long thresholdBytes;
+  private final @Nullable Path directory;
+  private final List<ByteBuffer> buffers = new ArrayList<>();
+  private final List<Path> files = new ArrayList<>();
+  private long allocatedBytes = 0;
+  private volatile boolean closed = false;
+
+  /**
+   * @param thresholdBytes series smaller than this size are kept on-heap
+   * @param directory directory of the memory-mapped files. If null, direct buffers are used.
+   */
+  public OffHeapStore(final long thresholdBytes, final @Nullable Path directory) {
+    this.thresholdBytes = thresholdBytes;
+    this.directory = directory;
+  }
+
+  /**
+   * Returns a DataFrame with the same index and series, big series being stored off-heap.
+   * Returns the input if no series is moved off-heap.
+   */
+  public DataFrame offHeap(final DataFrame df) {
+    final DataFrame out = new DataFrame();
+    boolean changed = false;
+    for (final Map.Entry<String, Series> e : df.getSeries().entrySet()) {
+      final Series s = offHeap(e.getValue());
+      changed |= s != e.getValue();
+      out.addSeries(e.getKey(), s);
+    }
+    if (!changed) {
+      return df;
+    }
+    if (!df.getIndexNames().isEmpty()) {
+      out.setIndex(df.getIndexNames());
+    }
+    return out;
+  }
+
+  /**
+   * Returns the series stored off-heap if it is bigger than the threshold, the input otherwise.
+   */
+  public Series offHeap(final Series series) {
+    switch (series.type()) {
+      case DOUBLE:
+        return offHeap((DoubleSeries) series);
+      case LONG:
+        return offHeap((LongSeries) series);
+      case STRING:
+        return offHeap((StringSeries) series);
+      default:
+        return series;
+    }
+  }
+
+  public DoubleSeries offHeap(final DoubleSeries series) {
+    if (series.isOffHeap() || (long) series.size() * Double.BYTES < thresholdBytes) {
+      return series;
+    }
+    final DoubleBuffer buffer = allocate((long) series.size() * Double.BYTES).asDoubleBuffer();
+    buffer.put(series.values());
+    return new DoubleSeries(new Doubles(this, buffer));
+  }
+
+  public LongSeries offHeap(final LongSeries series) {
+    if (series.isOffHeap() || (long) series.size() * Long.BYTES < thresholdBytes) {
+      return series;
+    }
+    final LongBuffer buffer = allocate((long) series.size() * Long.BYTES).asLongBuffer();
+    buffer.put(series.values());
+    return new LongSeries(new Longs(this, buffer));
+  }
+
+  public StringSeries offHeap(final StringSeries series) {
+    if (series.isOffHeap() || (long) series.size() * Integer.BYTES < thresholdBytes) {
+      return series;
+    }
+    final Map<String, Integer> codes = new HashMap<>();
+    final List<String> dictionary = new ArrayList<>();
+    final IntBuffer buffer = allocate((long) series.size() * Integer.BYTES).asIntBuffer();
+    for (final String value : series.values()) {
+      if (value == null) {
+        buffer.put(NULL_CODE);
+        continue;
+      }
+      buffer.put(codes.computeIfAbsent(value, v -> {
+        dictionary.add(v);
+        return dictionary.size() - 1;
+      }));
+    }
+    return new StringSeries(new Strings(this, dictionary.toArray(new String[0]), buffer));
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Releases the off-heap memory and deletes the memory-mapped files. Must not be called while
+   * another thread reads a series of the store.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    buffers.forEach(CLEANER::clean);
+    buffers.clear();
+    for (final Path file : files) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        LOG.warn("Could not delete off-heap series file {}", file, e);
+      }
+    }
+    files.clear();
+  }
+
+  private synchronized ByteBuffer allocate(final long bytes) {
+    checkState(!closed, "Off-heap store is closed");
+    checkArgument(bytes <= Integer.MAX_VALUE, "Series is too big to be stored off-heap");
+    final ByteBuffer buffer;
+    if (directory == null) {
+      buffer = ByteBuffer.allocateDirect((int) bytes);
+    } else {
+      try {
+        final Path file = Files.createTempFile(directory, "series-", ".bin");
+        files.add(file);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+          buffer = channel.map(MapMode.READ_WRITE, 0, bytes);
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    buffers.add(buffer);
+    allocatedBytes += bytes;
+    return buffer.order(ByteOrder.nativeOrder());
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Off-heap store is closed. The series cannot be read.");
+    }
+  }
+
+  static final class Doubles {
+
+    private final OffHeapStore store;
+    private final DoubleBuffer buffer;
+
+    private Doubles(final OffHeapStore store, final DoubleBuffer buffer) {
+      this.store = store;
+      this.buffer = buffer;
+    }
+
+    int size() {
+      return buffer.capacity();
+    }
+
+    double get(final int index) {
+      store.checkOpen();
+      return buffer.get(index);
+    }
+
+    void copyTo(final int from, final double[] dest, final int destPos, final int length) {
+      store.checkOpen();
+      buffer.duplicate().position(from).get(dest, destPos, length);
+    }
+  }
+
+  static final class Longs {
+
+    private final OffHeapStore store;
+    private final LongBuffer buffer;
+
+    private Longs(final OffHeapStore store, final LongBuffer buffer) {
+      this.store = store;
+      this.buffer = buffer;
+    }
+
+    int size() {
+      return buffer.capacity();
+    }
+
+    long get(final int index) {
+      store.checkOpen();
+      return buffer.get(index);
+    }
+
+    void copyTo(final int from, final long[] dest, final int destPos, final int length) {
+      store.checkOpen();
+      buffer.duplicate().position(from).get(dest, destPos, length);
+    }
+  }
+
+  static final class Strings {
+
+    private final OffHeapStore store;
+    private final String[] dictionary;
+    private final IntBuffer codes;
+
+    private Strings(final OffHeapStore store, final String[] dictionary, final IntBuffer codes) {
+      this.store = store;
+      this.dictionary = dictionary;
+      this.codes = codes;
+    }
+
+    int size() {
+      return codes.capacity();
+    }
+
+    String get(final int index) {
+      store.checkOpen();
+      return decode(codes.get(index));
+    }
+
+    void copyTo(final int from, final String[] dest, final int destPos, final int length) {
+      store.checkOpen();
+      for (int i = 0; i < length; i++) {
+        dest[destPos + i] = decode(codes.get(from + i));
+      }
+    }
+
+    private String decode(final int code) {
+      return code == NULL_CODE ? StringSeries.NULL : dictionary[code];
+    }
+  }
+
+  /**
+   * Frees the memory of direct and mapped buffers without waiting for the garbage collector.
+   * Falls back to the garbage collector if the JVM does not expose Unsafe.invokeCleaner.
+   */
+  private static final class Cleaner {
+
+    private final @Nullable Object unsafe;
+    private final @Nullable Method invokeCleaner;
+
+    private Cleaner(final @Nullable Object unsafe, final @Nullable Method invokeCleaner) {
+      this.unsafe = unsafe;
+      this.invokeCleaner = invokeCleaner;
+    }
+
+    private static Cleaner create() {
+      try {
+        final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        return new Cleaner(theUnsafe.get(null),
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+      } catch (final ReflectiveOperationException | RuntimeException e) {
+        LOG.warn("Off-heap memory will be released by the garbage collector: {}", e.toString());
+        return new Cleaner(null, null);
+      }
+    }
+
+    private void clean(final ByteBuffer buffer) {
+      if (invokeCleaner == null) {
+        return;
+      }
+      try {
+        invokeCleaner.invoke(unsafe, buffer);
+      } catch (final ReflectiveOperationException e) {
+        LOG.warn("Could not release off-heap buffer", e);
+      }
+    }
+  }
+}
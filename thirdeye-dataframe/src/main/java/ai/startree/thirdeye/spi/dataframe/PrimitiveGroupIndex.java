@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Arrays;
+
+/**
+ * Hash-based assignment of rows to groups of equal keys, for grouping by value. Primitive,
+ * open-addressing, linear probing. Does not box values nor allocate key objects.
+ *
+ * Group ids are dense and assigned in order of first appearance of the key.
+ */
+final class PrimitiveGroupIndex {
+
+  private static final int EMPTY = 0;
+
+  private final int[] groupOfRow;
+  private final int[] firstRowOfGroup;
+
+  private PrimitiveGroupIndex(final int[] groupOfRow, final int[] firstRowOfGroup) {
+    this.groupOfRow = groupOfRow;
+    this.firstRowOfGroup = firstRowOfGroup;
+  }
+
+  /**
+   * Groups the rows of {@code series} by the values of all series.
+   *
+   * @param series key series, of same length
+   * @return group index
+   */
+  static PrimitiveGroupIndex from(final Series... series) {
+    Series.assertSameLength(series);
+    final int size = series[0].size();
+    final int mask = capacity(size) - 1;
+
+    // table contains group id + 1, such that EMPTY indicates a free slot
+    final int[] table = new int[mask + 1];
+    final int[] groupHashes = new int[size];
+    final int[] firstRows = new int[size];
+    final int[] groupOfRow = new int[size];
+
+    int groupCount = 0;
+    for (int row = 0; row < size; row++) {
+      final int hash = hashRow(series, row);
+      int slot = hash & mask;
+      while (true) {
+        final int entry = table[slot];
+        if (entry == EMPTY) {
+          table[slot] = groupCount + 1;
+          groupHashes[groupCount] = hash;
+          firstRows[groupCount] = row;
+          groupOfRow[row] = groupCount;
+          groupCount++;
+          break;
+        }
+        final int group = entry - 1;
+        if (groupHashes[group] == hash && equalsRow(series, firstRows[group], row)) {
+          groupOfRow[row] = group;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    return new PrimitiveGroupIndex(groupOfRow, Arrays.copyOf(firstRows, groupCount));
+  }
+
+  int groupCount() {
+    return this.firstRowOfGroup.length;
+  }
+
+  /**
+   * Returns the group id of each row.
+   */
+  int[] groupOfRow() {
+    return this.groupOfRow;
+  }
+
+  /**
+   * Returns the first row of each group. Can be used to project the key of each group.
+   */
+  int[] firstRowOfGroup() {
+    return this.firstRowOfGroup;
+  }
+
+  /**
+   * Returns the rows of each group, in ascending row order.
+   */
+  int[][] buckets() {
+    final int groupCount = this.groupCount();
+    final int[] counts = new int[groupCount];
+    for (final int group : this.groupOfRow) {
+      counts[group]++;
+    }
+
+    final int[][] buckets = new int[groupCount][];
+    for (int group = 0; group < groupCount; group++) {
+      buckets[group] = new int[counts[group]];
+    }
+
+    final int[] offsets = new int[groupCount];
+    for (int row = 0; row < this.groupOfRow.length; row++) {
+      final int group = this.groupOfRow[row];
+      buckets[group][offsets[group]++] = row;
+    }
+    return buckets;
+  }
+
+  static int hashRow(final Series[] series, final int row) {
+    int h = 1;
+    for (final Series s : series) {
+      h = 31 * h + s.hashCode(row);
+    }
+    // murmur3 finalizer - series hash codes are often poorly distributed (eg truncated longs)
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static boolean equalsRow(final Series[] series, final int rowA, final int rowB) {
+    for (final Series s : series) {
+      if (!s.equals(s, rowA, rowB)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a power of two of at least twice the size - keeps the load factor below 0.5
+   */
+  private static int capacity(final int size) {
+    return Integer.highestOneBit(Math.max(1, 2 * size - 1)) << 1;
+  }
+}
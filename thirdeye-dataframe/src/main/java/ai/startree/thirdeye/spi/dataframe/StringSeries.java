@@ -132,7 +132,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getStrings().values);
+        this.addValues(s.getStrings().values());
       }
       return this;
     }
@@ -171,9 +171,28 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   // CAUTION: The array is final, but values are inherently modifiable
   private final String[] values;
+  // set instead of values if the series is stored off-heap
+  private final OffHeapStore.Strings offHeapValues;
 
   private StringSeries(String... values) {
     this.values = values;
+    this.offHeapValues = null;
+  }
+
+  StringSeries(final OffHeapStore.Strings offHeapValues) {
+    this.values = null;
+    this.offHeapValues = offHeapValues;
+  }
+
+  boolean isOffHeap() {
+    return this.offHeapValues != null;
+  }
+
+  private String valueAt(final int index) {
+    if (this.values != null) {
+      return this.values[index];
+    }
+    return this.offHeapValues.get(index);
   }
 
   @Override
@@ -188,7 +207,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.valueAt(index));
   }
 
   public static double getDouble(String value) {
@@ -200,7 +219,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.valueAt(index));
   }
 
   public static long getLong(String value) {
@@ -216,7 +235,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.valueAt(index));
   }
 
   public static byte getBoolean(String value) {
@@ -231,7 +250,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.valueAt(index));
   }
 
   public static String getString(String string) {
@@ -240,7 +259,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.valueAt(index));
   }
 
   public static Object getObject(String value) {
@@ -251,17 +270,20 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   }
 
   public String get(int index) {
-    return this.values[index];
+    return this.valueAt(index);
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.valueAt(index));
   }
 
   @Override
   public int size() {
-    return this.values.length;
+    if (this.values != null) {
+      return this.values.length;
+    }
+    return this.offHeapValues.size();
   }
 
   @Override
@@ -269,20 +291,47 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     return SeriesType.STRING;
   }
 
+  /**
+   * Returns the values of the series. The array of an off-heap series is a new on-heap copy, see
+   * {@link OffHeapStore}.
+   */
   public String[] values() {
-    return this.values;
+    if (this.values != null) {
+      return this.values;
+    }
+    return this.copyOfRange(0, this.size());
+  }
+
+  private String[] copyOfRange(int from, int to) {
+    if (this.values != null) {
+      return Arrays.copyOfRange(this.values, from, to);
+    }
+    String[] values = new String[to - from];
+    this.offHeapValues.copyTo(from, values, 0, values.length);
+    return values;
+  }
+
+  private void copyTo(int from, String[] dest, int destPos, int length) {
+    if (this.values != null) {
+      System.arraycopy(this.values, from, dest, destPos, length);
+    } else {
+      this.offHeapValues.copyTo(from, dest, destPos, length);
+    }
   }
 
   public String value() {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.valueAt(0);
   }
 
   @Override
   public StringSeries unique() {
-    Set<String> uniques = new HashSet<>(Arrays.asList(this.values));
+    Set<String> uniques = new HashSet<>();
+    for (int i = 0; i < this.size(); i++) {
+      uniques.add(this.valueAt(i));
+    }
     String[] values = new String[uniques.size()];
     return StringSeries.buildFrom(uniques.toArray(values));
   }
@@ -296,9 +345,9 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   public StringSeries compress() {
     Map<String, String> map = new HashMap<>();
 
-    String[] values = new String[this.values.length];
+    String[] values = new String[this.size()];
     for (int i = 0; i < values.length; i++) {
-      String v = this.values[i];
+      String v = this.valueAt(i);
       if (!map.containsKey(v)) {
         map.put(v, v);
       }
@@ -314,7 +363,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @return list of series elements
    */
   public List<String> toList() {
-    return Arrays.asList(this.values);
+    return Arrays.asList(this.values());
   }
 
   /**
@@ -332,7 +381,8 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     boolean isLong = true;
     boolean isDouble = true;
 
-    for (String s : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      String s = this.valueAt(i);
       isBoolean &= (s == null) || (s.length() <= 0) || (s.compareToIgnoreCase("true") == 0
           || s.compareToIgnoreCase("false") == 0);
       isLong &=
@@ -367,7 +417,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   public StringSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
-    return StringSeries.buildFrom(Arrays.copyOfRange(this.values, from, to));
+    return StringSeries.buildFrom(this.copyOfRange(from, to));
   }
 
   // TODO validate design decision
@@ -462,8 +512,8 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     }
     assertSameLength(this, mask, other);
 
-    String[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    String[] values = this.copyOfRange(0, this.size());
+    for (int i = 0; i < this.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getString(i);
       }
@@ -473,12 +523,12 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   public StringSeries set(BooleanSeries mask, String value) {
     assertSameLength(this, mask);
-    String[] values = new String[this.values.length];
+    String[] values = new String[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.valueAt(i);
       }
     }
     return buildFrom(values);
@@ -486,8 +536,8 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   public int count(String value) {
     int count = 0;
-    for (String v : this.values) {
-      if (nullSafeStringComparator(v, value) == 0) {
+    for (int i = 0; i < this.size(); i++) {
+      if (nullSafeStringComparator(this.valueAt(i), value) == 0) {
         count++;
       }
     }
@@ -514,7 +564,8 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("StringSeries{");
-    for (String s : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      String s = this.valueAt(i);
       if (isNull(s)) {
         builder.append("null ");
       } else {
@@ -532,7 +583,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return this.values[index];
+    return this.valueAt(index);
   }
 
   @Override
@@ -548,7 +599,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @return series copy without nulls
    */
   public StringSeries fillNull(String value) {
-    String[] values = Arrays.copyOf(this.values, this.values.length);
+    String[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -564,7 +615,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
       if (fromIndex[i] == -1) {
         values[i] = NULL;
       } else {
-        values[i] = this.values[fromIndex[i]];
+        values[i] = this.valueAt(fromIndex[i]);
       }
     }
     return StringSeries.buildFrom(values);
@@ -581,22 +632,41 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
     StringSeries that = (StringSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.values != null && that.values != null) {
+      return Arrays.equals(this.values, that.values);
+    }
+    if (this.size() != that.size()) {
+      return false;
+    }
+    for (int i = 0; i < this.size(); i++) {
+      if (!Objects.equals(this.valueAt(i), that.valueAt(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return nullSafeStringComparator(this.values[indexThis], that.getString(indexThat));
+    return nullSafeStringComparator(this.valueAt(indexThis), that.getString(indexThat));
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    if (this.values != null) {
+      return Arrays.hashCode(this.values);
+    }
+    // same as Arrays.hashCode
+    int result = 1;
+    for (int i = 0; i < this.size(); i++) {
+      result = 31 * result + Objects.hashCode(this.valueAt(i));
+    }
+    return result;
   }
 
   @Override
   int hashCode(int index) {
-    return Objects.hashCode(this.values[index]);
+    return Objects.hashCode(this.valueAt(index));
   }
 
   /**
@@ -710,7 +780,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @see Series#aggregate(Function)
    */
   public static StringSeries aggregate(StringFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getStrings().values));
+    return buildFrom(function.apply(series.dropNull().getStrings().values()));
   }
 
   /**
@@ -718,7 +788,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    */
   public static BooleanSeries aggregate(StringConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getStrings().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getStrings().values())).build();
   }
 
   public static boolean isNull(String value) {
@@ -748,13 +818,13 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public StringSeries shift(int offset) {
-    String[] values = new String[this.values.length];
+    String[] values = new String[this.size()];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
-      System.arraycopy(this.values, 0, values, Math.min(offset, values.length),
+      this.copyTo(0, values, Math.min(offset, values.length),
           Math.max(values.length - offset, 0));
     } else {
-      System.arraycopy(this.values, Math.min(-offset, values.length), values, 0,
+      this.copyTo(Math.min(-offset, values.length), values, 0,
           Math.max(values.length + offset, 0));
       Arrays.fill(values, Math.max(values.length + offset, 0), values.length, NULL);
     }
@@ -763,7 +833,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public StringSeries sorted() {
-    String[] values = Arrays.copyOf(this.values, this.values.length);
+    String[] values = this.copyOfRange(0, this.size());
     Arrays.sort(values, new Comparator<String>() {
       @Override
       public int compare(String a, String b) {
@@ -776,8 +846,8 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   @Override
   int[] sortedIndex() {
     List<StringSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new StringSortTuple(this.values[i], i));
+    for (int i = 0; i < this.size(); i++) {
+      tuples.add(new StringSortTuple(this.valueAt(i), i));
     }
 
     Collections.sort(tuples, new Comparator<StringSortTuple>() {
@@ -19,6 +19,7 @@ import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
@@ -911,7 +912,7 @@ public class DataFrameTest {
 
     Grouping.DataFrameGrouping grouping = df.groupByValue("b", "a");
 
-    final Series keys = grouping.grouping.keys;
+    final Series keys = grouping.grouping.keys();
     Assert.assertEquals(keys.size(), 3);
     Assert.assertEquals(keys.getObject(0), DataFrame.Tuple.buildFrom(1.0d, 1L));
     Assert.assertEquals(keys.getObject(1), DataFrame.Tuple.buildFrom(2.0d, 1L));
@@ -1398,6 +1399,83 @@ public class DataFrameTest {
     assertEquals(out.getStrings("b"), "1", "2");
   }
 
+  @Test
+  public void testGroupByValueUnsorted() {
+    LongSeries in = DataFrame.toSeries(3, 4, LNULL, 3, 1, 4);
+    Grouping.GroupingByValue grouping = Grouping.GroupingByValue.from(in, false);
+
+    assertEquals(grouping.keys().getLongs(), 3, 4, LNULL, 1);
+    assertEquals(grouping.apply(in, 0).getLongs(), 3, 3);
+    assertEquals(grouping.apply(in, 1).getLongs(), 4, 4);
+    assertEquals(grouping.apply(in, 2).getLongs(), LNULL);
+    assertEquals(grouping.apply(in, 3).getLongs(), 1);
+  }
+
+  @Test
+  public void testGroupByValueSortedMatchesUnique() {
+    DoubleSeries in = DataFrame.toSeries(2.5, -1.0, DNULL, 2.5, 0.0, -1.0);
+    Grouping.GroupingByValue grouping = Grouping.GroupingByValue.from(in);
+
+    assertEquals(grouping.keys().getDoubles(), in.unique().getDoubles().values());
+    assertEquals(grouping.apply(in, 3).getDoubles(), 2.5, 2.5);
+  }
+
+  @Test
+  public void testGroupByValueColumns() {
+    DataFrame out = new DataFrame()
+        .addSeries("a", 2, 1, 2, 1, 2)
+        .addSeries("b", "x", "y", "x", "x", "x")
+        .addSeries("v", 1, 2, 3, 4, 5)
+        .groupByValueColumns("a", "b")
+        .aggregate("v:sum", "v:first:first");
+
+    Assert.assertEquals(out.getIndexNames(), Arrays.asList("a", "b"));
+    Assert.assertEquals(out.size(), 3);
+    assertEquals(out.getLongs("a"), 2, 1, 1);
+    assertEquals(out.getStrings("b"), "x", "y", "x");
+    assertEquals(out.getLongs("v"), 9, 2, 4);
+    assertEquals(out.getLongs("first"), 1, 2, 4);
+  }
+
+  @Test
+  public void testGroupByValueColumnsMatchesTupleKeys() {
+    DataFrame df = new DataFrame()
+        .addSeries("a", 1, 1, 2, LNULL, 2, LNULL)
+        .addSeries("b", 1.0, DNULL, 2.0, 1.0, 2.0, 1.0)
+        .addSeries("v", 1, 2, 3, 4, 5, 6);
+
+    DataFrame tuples = df.groupByValue("a", "b").aggregate("v:sum");
+    DataFrame columns = df.groupByValueColumns("a", "b").aggregate("v:sum");
+
+    Assert.assertEquals(columns.size(), tuples.size());
+    assertEquals(columns.getLongs("v"), tuples.getLongs("v").values());
+    for (int i = 0; i < tuples.size(); i++) {
+      Assert.assertEquals(tuples.getObject("key", i),
+          DataFrame.Tuple.buildFrom(new Series[]{columns.get("a"), columns.get("b")}, i));
+    }
+  }
+
+  @Test
+  public void testGroupByValueIntegralDoubles() {
+    // integral doubles have no low mantissa bits: hashing must not rely on the low bits only
+    final int distinct = 50_000;
+    final double[] values = new double[2 * distinct];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i % distinct;
+    }
+    final DoubleSeries in = DoubleSeries.buildFrom(values);
+
+    final HashSet<Integer> hashes = new HashSet<>();
+    for (int i = 0; i < distinct; i++) {
+      hashes.add(PrimitiveGroupIndex.hashRow(new Series[]{in}, i));
+    }
+    assertThat(hashes.size()).isGreaterThan(distinct * 99 / 100);
+
+    final Grouping.GroupingByValue grouping = Grouping.GroupingByValue.from(in, false);
+    Assert.assertEquals(grouping.size(), distinct);
+    assertEquals(grouping.apply(in, 7).getDoubles(), 7.0, 7.0);
+  }
+
   @Test
   public void testStableMultiSortDoubleLong() {
     DataFrame mydf = new DataFrame(1, 2, 3, 4, 5, 6, 7, 8)
@@ -4298,6 +4376,104 @@ public class DataFrameTest {
     assertThat(output).isEqualTo(expected);
   }
 
+  @Test
+  public void testFromResultSetInfersTypesFromValues() throws SQLException {
+    final List<String> labels = List.of("VARCHAR_LONGS", "VARCHAR_DOUBLES", "INTEGRAL_DOUBLES",
+        "NULL_LONGS");
+    final List<Integer> types = List.of(Types.VARCHAR, Types.VARCHAR, Types.DOUBLE,
+        Types.BIGINT);
+    final List<List<Object>> rows = List.of(
+        Arrays.<Object>asList("1", "1.5", 1.0, null),
+        Arrays.<Object>asList("2", "2", 2.0, null),
+        Arrays.<Object>asList(null, null, null, null));
+
+    final DataFrame output = DataFrame.fromResultSet(resultSet(labels, types, rows));
+    final DataFrame expected = new DataFrame()
+        .addSeries("varchar_longs", 1L, 2L, LNULL)
+        .addSeries("varchar_doubles", 1.5, 2.0, DNULL)
+        .addSeries("integral_doubles", 1L, 2L, LNULL)
+        .addSeries("null_longs", BooleanSeries.nulls(3));
+    assertThat(output).isEqualTo(expected);
+
+    final DataFrame empty = DataFrame.fromResultSet(resultSet(labels, types, List.of()));
+    assertThat(empty.size()).isEqualTo(0);
+    for (final String name : empty.getSeriesNames()) {
+      assertThat(empty.get(name).type()).isEqualTo(SeriesType.OBJECT);
+    }
+  }
+
+  private static ResultSet resultSet(final List<String> labels, final List<Integer> types,
+      final List<List<Object>> rows) {
+    return new AbstractTestResultSet() {
+      boolean wasNull;
+      int cursor = -1;
+
+      @Override
+      public boolean next() {
+        return ++cursor < rows.size();
+      }
+
+      @Override
+      public boolean wasNull() {
+        return wasNull;
+      }
+
+      private Object value(final int columnIndex) {
+        final Object val = rows.get(cursor).get(columnIndex - 1);
+        wasNull = val == null;
+        return val;
+      }
+
+      @Override
+      public Object getObject(final int columnIndex) {
+        return value(columnIndex);
+      }
+
+      @Override
+      public long getLong(final int columnIndex) {
+        final Object val = value(columnIndex);
+        return val == null ? 0 : ((Number) val).longValue();
+      }
+
+      @Override
+      public double getDouble(final int columnIndex) {
+        final Object val = value(columnIndex);
+        return val == null ? 0 : ((Number) val).doubleValue();
+      }
+
+      @Override
+      public String getString(final int columnIndex) {
+        return (String) value(columnIndex);
+      }
+
+      @Override
+      public boolean getBoolean(final int columnIndex) {
+        final Object val = value(columnIndex);
+        return val != null && (Boolean) val;
+      }
+
+      @Override
+      public ResultSetMetaData getMetaData() {
+        return new AbstractTestResultSetMetaData() {
+          @Override
+          public int getColumnCount() {
+            return labels.size();
+          }
+
+          @Override
+          public String getColumnLabel(final int column) {
+            return labels.get(column - 1);
+          }
+
+          @Override
+          public int getColumnType(final int column) {
+            return types.get(column - 1);
+          }
+        };
+      }
+    };
+  }
+
   private static <T> List<T> listOf(@Nullable T e1, @Nullable T e2, @Nullable T e3) {
     final List<T> l = new ArrayList<>();
     l.add(e1);
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class OffHeapStoreTest {
+
+  private static DataFrame dataFrame() {
+    return new DataFrame()
+        .addSeries("ts", 3L, 1L, 2L, LongSeries.NULL)
+        .addSeries("value", 3.0, DoubleSeries.NULL, 2.0, 4.0)
+        .addSeries("dim", "b", "a", StringSeries.NULL, "b")
+        .addSeries("flag", true, false, true, true)
+        .setIndex("ts");
+  }
+
+  @Test
+  public void testOffHeapIsTransparent() {
+    final DataFrame df = dataFrame();
+    try (final OffHeapStore store = new OffHeapStore(0, null)) {
+      final DataFrame offHeap = store.offHeap(df);
+
+      assertThat(offHeap).isNotSameAs(df);
+      assertThat(offHeap.getIndexNames()).containsExactly("ts");
+      assertThat(offHeap.getLongs("ts").isOffHeap()).isTrue();
+      assertThat(offHeap.getDoubles("value").isOffHeap()).isTrue();
+      assertThat(offHeap.getStrings("dim").isOffHeap()).isTrue();
+      assertThat(offHeap).isEqualTo(df);
+
+      assertThat(offHeap.getDoubles("value").get(2)).isEqualTo(2.0);
+      assertThat(offHeap.getDoubles("value").isNull(1)).isTrue();
+      assertThat(offHeap.getDoubles("value").sum().value()).isEqualTo(9.0);
+      assertThat(offHeap.getLongs("ts").sorted()).isEqualTo(df.getLongs("ts").sorted());
+      assertThat(offHeap.getStrings("dim").get(2)).isNull();
+      assertThat(offHeap.getStrings("dim").unique().size()).isEqualTo(3);
+      assertThat(offHeap.sortedBy("ts")).isEqualTo(df.sortedBy("ts"));
+      assertThat(offHeap.groupByValue("dim").aggregate("value:sum").getDoubles("value").values())
+          .containsExactly(df.groupByValue("dim").aggregate("value:sum").getDoubles("value")
+              .values());
+      assertThat(store.getAllocatedBytes()).isEqualTo(4 * (8 + 8 + 4));
+    }
+  }
+
+  @Test
+  public void testSeriesBelowThresholdStayOnHeap() {
+    final DataFrame df = dataFrame();
+    try (final OffHeapStore store = new OffHeapStore(4 * 8, null)) {
+      final DataFrame offHeap = store.offHeap(df);
+
+      assertThat(offHeap.getDoubles("value").isOffHeap()).isTrue();
+      assertThat(offHeap.getStrings("dim").isOffHeap()).isFalse();
+    }
+    try (final OffHeapStore store = new OffHeapStore(1000, null)) {
+      assertThat(store.offHeap(df)).isSameAs(df);
+      assertThat(store.getAllocatedBytes()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void testCloseReleasesSeries() {
+    final OffHeapStore store = new OffHeapStore(0, null);
+    final DoubleSeries series = store.offHeap(DoubleSeries.buildFrom(1.0, 2.0));
+    store.close();
+
+    assertThat(store.isClosed()).isTrue();
+    assertThatThrownBy(() -> series.get(0)).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> store.offHeap(DoubleSeries.buildFrom(1.0, 2.0)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void testBulkOperationsReadTheBuffers() {
+    final DataFrame df = dataFrame();
+    try (final OffHeapStore store = new OffHeapStore(0, null)) {
+      final DataFrame offHeap = store.offHeap(df);
+      for (final String name : List.of("ts", "value", "dim")) {
+        final Series series = offHeap.get(name);
+        final Series expected = df.get(name);
+
+        assertThat(series.slice(1, 3)).isEqualTo(expected.slice(1, 3));
+        assertThat(series.shift(1)).isEqualTo(expected.shift(1));
+        assertThat(series.shift(-2)).isEqualTo(expected.shift(-2));
+        assertThat(series.toString()).isEqualTo(expected.toString());
+        assertThat(series.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(series).isEqualTo(expected);
+      }
+      assertThat(offHeap.getDoubles("value").fillNull(0)).isEqualTo(
+          df.getDoubles("value").fillNull(0));
+      assertThat(offHeap.getLongs("ts").count(2L)).isEqualTo(1);
+      assertThat(offHeap.getStrings("dim").count("b")).isEqualTo(2);
+      // values() of an off-heap series is a copy
+      final double[] values = offHeap.getDoubles("value").values();
+      values[0] = 10.0;
+      assertThat(offHeap.getDoubles("value").get(0)).isEqualTo(3.0);
+    }
+  }
+
+  @Test
+  public void testBulkReadsAfterCloseThrow() {
+    final OffHeapStore store = new OffHeapStore(0, null);
+    final DoubleSeries doubles = store.offHeap(DoubleSeries.buildFrom(1.0, 2.0));
+    final LongSeries longs = store.offHeap(LongSeries.buildFrom(1L, 2L));
+    final StringSeries strings = store.offHeap(StringSeries.buildFrom("a", "b"));
+    // bulk reads before close do not leave a copy that could be read after close
+    assertThat(doubles.values()).containsExactly(1.0, 2.0);
+    assertThat(longs.values()).containsExactly(1L, 2L);
+    assertThat(strings.values()).containsExactly("a", "b");
+    store.close();
+
+    for (final Series series : List.of(doubles, longs, strings)) {
+      assertThatThrownBy(() -> series.slice(0, 1)).isInstanceOf(IllegalStateException.class);
+      assertThatThrownBy(series::toString).isInstanceOf(IllegalStateException.class);
+    }
+    assertThatThrownBy(doubles::values).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(longs::values).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(strings::values).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void testMemoryMappedFiles() throws IOException {
+    final Path directory = Files.createTempDirectory("offheap");
+    try (final OffHeapStore store = new OffHeapStore(0, directory)) {
+      final DataFrame offHeap = store.offHeap(dataFrame());
+
+      assertThat(offHeap).isEqualTo(dataFrame());
+      assertThat(Files.list(directory).count()).isEqualTo(3);
+    }
+    assertThat(Files.list(directory).count()).isEqualTo(0);
+    Files.delete(directory);
+  }
+}
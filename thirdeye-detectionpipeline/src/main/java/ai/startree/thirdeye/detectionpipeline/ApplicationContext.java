@@ -15,6 +15,8 @@ package ai.startree.thirdeye.detectionpipeline;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQueryCache;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import java.util.concurrent.ExecutorService;
@@ -29,6 +31,8 @@ public class ApplicationContext {
   private final ExecutorService subTaskExecutor;
   private final DetectionPipelineConfiguration configuration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final TimeRangeQueryCache queryCache;
+  private final ParsedQueryCache parsedQueryCache;
 
   public ApplicationContext(final DataSourceCache dataSourceCache,
       final DetectionRegistry detectionRegistry,
@@ -37,7 +41,9 @@ public class ApplicationContext {
       final DatasetConfigManager datasetConfigManager,
       final ExecutorService subTaskExecutor,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final TimeRangeQueryCache queryCache,
+      final ParsedQueryCache parsedQueryCache) {
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
     this.postProcessorRegistry = postProcessorRegistry;
@@ -46,6 +52,8 @@ public class ApplicationContext {
     this.enumerationItemMaintainer = enumerationItemMaintainer;
     configuration = detectionPipelineConfiguration;
     this.datasetConfigManager = datasetConfigManager;
+    this.queryCache = queryCache;
+    this.parsedQueryCache = parsedQueryCache;
   }
 
   public DataSourceCache getDataSourceCache() {
@@ -79,4 +87,12 @@ public class ApplicationContext {
   public EnumerationItemMaintainer getEnumerationItemMaintainer() {
     return enumerationItemMaintainer;
   }
+
+  public TimeRangeQueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  public ParsedQueryCache getParsedQueryCache() {
+    return parsedQueryCache;
+  }
 }
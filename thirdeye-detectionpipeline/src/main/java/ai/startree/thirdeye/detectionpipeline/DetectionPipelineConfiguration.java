@@ -16,6 +16,9 @@ package ai.startree.thirdeye.detectionpipeline;
 public class DetectionPipelineConfiguration {
 
   private ForkJoinConfiguration forkjoin = new ForkJoinConfiguration();
+  private PlanExecutorConfiguration planExecutor = new PlanExecutorConfiguration();
+  private QueryCacheConfiguration queryCache = new QueryCacheConfiguration();
+  private OffHeapConfiguration offHeap = new OffHeapConfiguration();
 
   public ForkJoinConfiguration getForkjoin() {
     return forkjoin;
@@ -26,4 +29,33 @@ public class DetectionPipelineConfiguration {
     this.forkjoin = forkjoin;
     return this;
   }
+
+  public PlanExecutorConfiguration getPlanExecutor() {
+    return planExecutor;
+  }
+
+  public DetectionPipelineConfiguration setPlanExecutor(
+      final PlanExecutorConfiguration planExecutor) {
+    this.planExecutor = planExecutor;
+    return this;
+  }
+
+  public QueryCacheConfiguration getQueryCache() {
+    return queryCache;
+  }
+
+  public DetectionPipelineConfiguration setQueryCache(
+      final QueryCacheConfiguration queryCache) {
+    this.queryCache = queryCache;
+    return this;
+  }
+
+  public OffHeapConfiguration getOffHeap() {
+    return offHeap;
+  }
+
+  public DetectionPipelineConfiguration setOffHeap(final OffHeapConfiguration offHeap) {
+    this.offHeap = offHeap;
+    return this;
+  }
 }
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.detectionpipeline;
 
+import ai.startree.thirdeye.spi.dataframe.OffHeapStore;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
@@ -27,6 +28,8 @@ public class DetectionPipelineContext {
   private EnumerationItemDTO enumerationItem;
   private DetectionPipelineUsage usage;
   private Long alertId;
+  // if set, big fetched series are stored off-heap. The owner of the context closes the store.
+  private OffHeapStore offHeapStore;
 
   public ApplicationContext getApplicationContext() {
     return applicationContext;
@@ -84,4 +87,13 @@ public class DetectionPipelineContext {
     this.alertId = alertId;
     return this;
   }
+
+  public OffHeapStore getOffHeapStore() {
+    return offHeapStore;
+  }
+
+  public DetectionPipelineContext setOffHeapStore(final OffHeapStore offHeapStore) {
+    this.offHeapStore = offHeapStore;
+    return this;
+  }
 }
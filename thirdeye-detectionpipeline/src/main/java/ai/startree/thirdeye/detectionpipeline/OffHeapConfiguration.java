@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+public class OffHeapConfiguration {
+
+  /**
+   * If true, big series fetched by detection tasks are stored outside of the java heap. The
+   * memory is released when the task ends.
+   */
+  private boolean enabled = false;
+  /**
+   * Series smaller than this size are kept on-heap.
+   */
+  private long thresholdBytes = 8L * 1024 * 1024;
+  /**
+   * Directory of the memory-mapped files. If not set, direct memory is used, and is bounded by
+   * the -XX:MaxDirectMemorySize jvm option.
+   */
+  private String directory = null;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public OffHeapConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public long getThresholdBytes() {
+    return thresholdBytes;
+  }
+
+  public OffHeapConfiguration setThresholdBytes(final long thresholdBytes) {
+    this.thresholdBytes = thresholdBytes;
+    return this;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public OffHeapConfiguration setDirectory(final String directory) {
+    this.directory = directory;
+    return this;
+  }
+}
@@ -21,7 +21,10 @@ import static java.util.Collections.emptyList;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache;
+import ai.startree.thirdeye.detectionpipeline.operator.SqlExecutionOperator;
 import ai.startree.thirdeye.detectionpipeline.persistence.CachedDatasetConfigManager;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQueryCache;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
@@ -51,8 +54,12 @@ public class PlanExecutor implements AutoCloseable {
   private final DatasetConfigManager datasetConfigManager;
   private final DetectionPipelineConfiguration detectionPipelineConfiguration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final TimeRangeQueryCache queryCache;
+  private final ParsedQueryCache parsedQueryCache;
 
   private final ExecutorService subTaskExecutor;
+  private final ExecutorService planNodeExecutor;
+  private final PlanNodeDagScheduler planNodeDagScheduler;
 
   @Inject
   public PlanExecutor(final PlanNodeFactory planNodeFactory,
@@ -62,7 +69,9 @@ public class PlanExecutor implements AutoCloseable {
       final EventManager eventManager,
       final DatasetConfigManager datasetConfigManager,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final TimeRangeQueryCache queryCache,
+      final ParsedQueryCache parsedQueryCache) {
     this.planNodeFactory = planNodeFactory;
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
@@ -71,9 +80,23 @@ public class PlanExecutor implements AutoCloseable {
     this.datasetConfigManager = datasetConfigManager;
     this.detectionPipelineConfiguration = detectionPipelineConfiguration;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    this.queryCache = queryCache;
+    this.parsedQueryCache = parsedQueryCache;
 
     final int nThreads = detectionPipelineConfiguration.getForkjoin().getParallelism();
     subTaskExecutor = Executors.newFixedThreadPool(nThreads, threadsNamed("fork-join-%d"));
+
+    final PlanExecutorConfiguration planExecutorConfiguration =
+        detectionPipelineConfiguration.getPlanExecutor();
+    if (planExecutorConfiguration.isParallel()) {
+      planNodeExecutor = Executors.newFixedThreadPool(planExecutorConfiguration.getParallelism(),
+          threadsNamed("plan-node-%d"));
+      planNodeDagScheduler = new PlanNodeDagScheduler(planNodeExecutor,
+          planExecutorConfiguration.getNodeTimeout());
+    } else {
+      planNodeExecutor = null;
+      planNodeDagScheduler = null;
+    }
   }
 
   @VisibleForTesting
@@ -91,17 +114,37 @@ public class PlanExecutor implements AutoCloseable {
             node.getName());
         executePlanNode(pipelinePlanNodes, inputPlanNode, resultMap);
       }
+    }
+    setInputs(node, resultMap);
+    resultMap.putAll(executeOperator(node));
+  }
+
+  /**
+   * Sets the inputs of the node from the outputs of its input nodes, found in the result map.
+   */
+  static void setInputs(final PlanNode node, final Map<ContextKey, OperatorResult> resultMap) {
+    for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
+      final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
       if (!resultMap.containsKey(contextKey)) {
         throw new RuntimeException("Missing resultMap key - " + contextKey);
       }
       node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
     }
+  }
+
+  /**
+   * Builds and executes the operator of the node.
+   *
+   * @return the outputs of the operator, keyed by node name and output key
+   */
+  static Map<ContextKey, OperatorResult> executeOperator(final PlanNode node) throws Exception {
     final Operator operator = node.buildOperator();
     operator.execute();
-    final Map<String, OperatorResult> outputs = operator.getOutputs();
-    for (final Entry<String, OperatorResult> output : outputs.entrySet()) {
-      resultMap.put(key(node.getName(), output.getKey()), output.getValue());
+    final Map<ContextKey, OperatorResult> outputs = new HashMap<>();
+    for (final Entry<String, OperatorResult> output : operator.getOutputs().entrySet()) {
+      outputs.put(key(node.getName(), output.getKey()), output.getValue());
     }
+    return outputs;
   }
 
   @VisibleForTesting
@@ -131,7 +174,9 @@ public class PlanExecutor implements AutoCloseable {
         new CachedDatasetConfigManager(datasetConfigManager),
         subTaskExecutor,
         detectionPipelineConfiguration,
-        enumerationItemMaintainer);
+        enumerationItemMaintainer,
+        queryCache,
+        parsedQueryCache);
   }
 
   /**
@@ -152,6 +197,10 @@ public class PlanExecutor implements AutoCloseable {
   /**
    * Main interface for running the pipeline.
    *
+   * Returns or throws once no operator of the pipeline runs anymore: on failure or timeout, the
+   * running nodes and fork-join runs are cancelled and joined before the exception is thrown.
+   * Resources used by the operators, like the off-heap store, can be released right after.
+   *
    * @param planNodeBeans The pipeline DAG as a list of nodes
    * @return The result map. All the outputs from all the nodes are emitted here.
    * @throws Exception All exceptions are to be handled by upstream consumer.
@@ -173,7 +222,11 @@ public class PlanExecutor implements AutoCloseable {
 
     /* Execute the DAG */
     final PlanNode rootNode = pipelinePlanNodes.get(ROOT_OPERATOR_KEY);
-    executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    if (planNodeDagScheduler != null) {
+      planNodeDagScheduler.execute(pipelinePlanNodes, rootNode, resultMap);
+    } else {
+      executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    }
 
     return resultMap;
   }
@@ -197,5 +250,7 @@ public class PlanExecutor implements AutoCloseable {
   @Override
   public void close() throws Exception {
     shutdownExecutionService(subTaskExecutor);
+    shutdownExecutionService(planNodeExecutor);
+    SqlExecutionOperator.closeIdleConnections();
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+public class PlanExecutorConfiguration {
+
+  /**
+   * If true, a plan node is executed as soon as its input nodes have completed, concurrently with
+   * the other nodes. If false, the DAG is walked depth-first on the calling thread.
+   */
+  private boolean parallel = true;
+  private Integer parallelism = 5;
+  /**
+   * Max duration of the execution of a plan node. Does not include the time spent waiting for a
+   * thread.
+   */
+  private Duration nodeTimeout = Duration.ofHours(1);
+
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  public PlanExecutorConfiguration setParallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  public Integer getParallelism() {
+    return parallelism;
+  }
+
+  public PlanExecutorConfiguration setParallelism(final Integer parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public Duration getNodeTimeout() {
+    return nodeTimeout;
+  }
+
+  public PlanExecutorConfiguration setNodeTimeout(final Duration nodeTimeout) {
+    this.nodeTimeout = nodeTimeout;
+    return this;
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the nodes a root node depends on, each node as soon as its inputs are available.
+ *
+ * A node is submitted to the executor once all its input nodes have completed: a slow node only
+ * delays the nodes that depend on it. Each node must complete within the node timeout, counted
+ * from the moment the node starts running: waiting for a thread of the executor does not count.
+ * If a node fails or times out, the other nodes are cancelled, and the exception is propagated to
+ * the caller once the running nodes have stopped.
+ *
+ * Only the nodes reachable from the root are executed, like with the depth-first execution.
+ */
+public class PlanNodeDagScheduler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PlanNodeDagScheduler.class);
+
+  private final ExecutorService executorService;
+  private final Duration nodeTimeout;
+
+  public PlanNodeDagScheduler(final ExecutorService executorService, final Duration nodeTimeout) {
+    this.executorService = executorService;
+    this.nodeTimeout = nodeTimeout;
+  }
+
+  public void execute(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode rootNode,
+      final Map<ContextKey, OperatorResult> resultMap) throws Exception {
+    final List<PlanNode> nodes = topologicalOrder(pipelinePlanNodes, rootNode);
+
+    /* nodes write their outputs concurrently. A node reads its inputs once its input nodes are done */
+    final Map<ContextKey, OperatorResult> results = Collections.synchronizedMap(new HashMap<>());
+    final CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+    final Map<String, NodeRun> runs = new LinkedHashMap<>();
+    for (final PlanNode node : nodes) {
+      final NodeRun run = new NodeRun(node, results);
+      run.done.whenComplete((v, t) -> {
+        if (t != null) {
+          firstFailure.completeExceptionally(t);
+        }
+      });
+      final CompletableFuture<?>[] inputs = inputsOf(node).stream()
+          .map(input -> runs.get(input.getSourcePlanNode()).done)
+          .distinct()
+          .toArray(CompletableFuture[]::new);
+      runs.put(node.getName(), run);
+      CompletableFuture.allOf(inputs).thenRun(run::submit);
+    }
+
+    boolean succeeded = false;
+    try {
+      CompletableFuture.anyOf(runs.get(rootNode.getName()).done, firstFailure).get();
+      succeeded = true;
+    } catch (final ExecutionException e) {
+      throw unwrap(e);
+    } finally {
+      if (!succeeded) {
+        cancelAndJoin(runs.values());
+      }
+    }
+    resultMap.putAll(results);
+  }
+
+  /**
+   * Cancels the nodes that are not completed and waits for the running ones to stop: once this
+   * method returns, no node of the pipeline is running anymore.
+   */
+  private static void cancelAndJoin(final Iterable<NodeRun> runs) {
+    final List<CompletableFuture<Void>> stopped = new ArrayList<>();
+    for (final NodeRun run : runs) {
+      run.cancel();
+      stopped.add(run.stopped);
+    }
+    LOG.debug("Waiting for cancelled plan nodes to stop");
+    /* join is not interruptible: the nodes are stopped even if the caller is interrupted */
+    CompletableFuture.allOf(stopped.toArray(CompletableFuture[]::new)).join();
+  }
+
+  /**
+   * @return the nodes reachable from the root. Input nodes come before the nodes depending on
+   *     them. The last node is the root node.
+   */
+  @VisibleForTesting
+  static List<PlanNode> topologicalOrder(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode rootNode) {
+    final Map<String, PlanNode> ordered = new LinkedHashMap<>();
+    visit(pipelinePlanNodes, rootNode, ordered, new HashSet<>());
+    return new ArrayList<>(ordered.values());
+  }
+
+  private static void visit(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node,
+      final Map<String, PlanNode> ordered,
+      final Set<String> visiting) {
+    if (ordered.containsKey(node.getName())) {
+      return;
+    }
+    checkArgument(visiting.add(node.getName()),
+        "Cycle detected in the pipeline at node \"%s\". Template is invalid.",
+        node.getName());
+    for (final InputBean input : inputsOf(node)) {
+      final PlanNode inputPlanNode = pipelinePlanNodes.get(input.getSourcePlanNode());
+      checkArgument(inputPlanNode != null,
+          "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
+          input.getSourcePlanNode(),
+          node.getName());
+      visit(pipelinePlanNodes, inputPlanNode, ordered, visiting);
+    }
+    visiting.remove(node.getName());
+    ordered.put(node.getName(), node);
+  }
+
+  private static Exception unwrap(final ExecutionException e) {
+    final Throwable cause = e.getCause();
+    if (cause instanceof Exception) {
+      return (Exception) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return e;
+  }
+
+  private static List<InputBean> inputsOf(final PlanNode node) {
+    return optional(node.getPlanNodeInputs()).orElse(emptyList());
+  }
+
+  /**
+   * The execution of a single node.
+   */
+  private class NodeRun {
+
+    private final PlanNode node;
+    private final Map<ContextKey, OperatorResult> results;
+    /* completed when the node outputs are in the results, or with the failure of the node */
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    /* completed when no thread runs the node anymore, or will ever run it */
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    /* set by the first of run() and cancel(): a cancelled node never starts */
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Future<?> task;
+
+    private NodeRun(final PlanNode node, final Map<ContextKey, OperatorResult> results) {
+      this.node = node;
+      this.results = results;
+    }
+
+    private void submit() {
+      try {
+        task = executorService.submit(this::run);
+      } catch (final RejectedExecutionException e) {
+        done.completeExceptionally(e);
+      }
+    }
+
+    private void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        CompletableFuture.delayedExecutor(nodeTimeout.toMillis(), TimeUnit.MILLISECONDS)
+            .execute(() -> done.completeExceptionally(new TimeoutException(String.format(
+                "Plan node %s did not complete within %s", node.getName(), nodeTimeout))));
+        PlanExecutor.setInputs(node, results);
+        results.putAll(PlanExecutor.executeOperator(node));
+        done.complete(null);
+      } catch (final Throwable t) {
+        done.completeExceptionally(t);
+      } finally {
+        stopped.complete(null);
+      }
+    }
+
+    private void cancel() {
+      if (started.compareAndSet(false, true)) {
+        stopped.complete(null);
+        return;
+      }
+      final Future<?> runningTask = task;
+      if (runningTask != null) {
+        LOG.debug("Cancelling plan node {}", node.getName());
+        runningTask.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+public class QueryCacheConfiguration {
+
+  /**
+   * If true, data fetcher results are cached by time range and consecutive runs of the same
+   * query only fetch the part of the time filter that is not already cached.
+   */
+  private boolean enabled = false;
+  /**
+   * Max number of cells (rows x columns) kept in the cache.
+   */
+  private long maxCells = 10_000_000L;
+  private Duration expireAfterAccess = Duration.ofHours(2);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public QueryCacheConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public long getMaxCells() {
+    return maxCells;
+  }
+
+  public QueryCacheConfiguration setMaxCells(final long maxCells) {
+    this.maxCells = maxCells;
+    return this;
+  }
+
+  public Duration getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public QueryCacheConfiguration setExpireAfterAccess(final Duration expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+    return this;
+  }
+}
@@ -13,15 +13,20 @@
  */
 package ai.startree.thirdeye.detectionpipeline.components;
 
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datasource.calcite.QueryPredicate;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache.CacheKey;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
 import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.MacroEngine;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQueryCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
@@ -32,14 +37,19 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.metric.DimensionType;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 
 public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
 
+  private static final String TIME_FILTER_MACRO = "__timeFilter";
+
   /**
    * Query to execute.
    */
@@ -51,6 +61,10 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   private ThirdEyeDataSource thirdEyeDataSource;
   private DatasetConfigDTO datasetConfigDTO;
   private List<QueryPredicate> timeseriesFilters = List.of();
+  private String dataSourceName;
+  private String timeColumn;
+  private TimeRangeQueryCache queryCache;
+  private ParsedQueryCache parsedQueryCache;
 
   public String getQuery() {
     return query;
@@ -75,6 +89,10 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   public void init(final DataFetcherSpec dataFetcherSpec) {
     this.query = dataFetcherSpec.getQuery();
     this.tableName = dataFetcherSpec.getTableName();
+    this.dataSourceName = dataFetcherSpec.getDataSource();
+    this.timeColumn = dataFetcherSpec.getTimestamp();
+    this.queryCache = dataFetcherSpec.getQueryCache();
+    this.parsedQueryCache = dataFetcherSpec.getParsedQueryCache();
     if (tableName != null) {
       final DatasetConfigManager datasetDao = Objects.requireNonNull(dataFetcherSpec.getDatasetDao());
       this.datasetConfigDTO = Objects.requireNonNull(datasetDao.findByDataset(dataFetcherSpec.getTableName()),
@@ -101,12 +119,52 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   @Override
   public DataTable getDataTable(Interval detectionInterval) throws Exception {
     String queryWithFilters = injectFilters(query);
-    DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters);
-    DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
+    DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters, null);
+    DataTable result = useQueryCache(queryWithFilters)
+        ? fetchWithQueryCache(detectionInterval, queryWithFilters, preparedRequest)
+        : thirdEyeDataSource.fetchDataTable(preparedRequest);
     result.addProperties(preparedRequest.getProperties());
     return result;
   }
 
+  private boolean useQueryCache(final String queryWithFilters) {
+    // sub-range fetches restrict every time filter: only supported for a single time filter
+    return queryCache != null
+        && queryCache.isEnabled()
+        && thirdEyeDataSource.getSqlLanguage() != null
+        && thirdEyeDataSource.getSqlExpressionBuilder() != null
+        && countTimeFilterMacros(queryWithFilters) == 1;
+  }
+
+  private DataTable fetchWithQueryCache(final Interval detectionInterval,
+      final String queryWithFilters, final DataSourceRequest preparedRequest) throws Exception {
+    final CacheKey key = new CacheKey(dataSourceName,
+        tableName,
+        queryWithFilters,
+        detectionInterval.getChronology().getZone(),
+        optional(datasetConfigDTO).map(AbstractDTO::getUpdateTime).map(Timestamp::getTime)
+            .orElse(null));
+    final Period mutabilityPeriod = isoPeriod(optional(datasetConfigDTO)
+        .map(DatasetConfigDTO::getMutabilityPeriod)
+        .orElse(null), Period.ZERO);
+    return queryCache.fetch(key,
+        preparedRequest,
+        timeColumn,
+        mutabilityPeriod,
+        subRange -> applyMacros(detectionInterval, queryWithFilters, subRange),
+        thirdEyeDataSource::fetchDataTable);
+  }
+
+  private static int countTimeFilterMacros(final String query) {
+    int count = 0;
+    int index = query.indexOf(TIME_FILTER_MACRO);
+    while (index >= 0) {
+      count++;
+      index = query.indexOf(TIME_FILTER_MACRO, index + TIME_FILTER_MACRO.length());
+    }
+    return count;
+  }
+
   private String injectFilters(final String query) {
     if (timeseriesFilters.isEmpty()) {
       return query;
@@ -119,7 +177,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   }
 
   private DataSourceRequest applyMacros(final Interval detectionInterval,
-      final String queryWithFilters) {
+      final String queryWithFilters, final @Nullable Interval timeFilterRestriction) {
     SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
     SqlExpressionBuilder sqlExpressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
     boolean macrosSupported = sqlLanguage != null && sqlExpressionBuilder != null;
@@ -128,7 +186,10 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
           sqlExpressionBuilder,
           detectionInterval,
           datasetConfigDTO,
-          queryWithFilters).prepareRequest();
+          queryWithFilters)
+          .withTimeFilterRestriction(timeFilterRestriction)
+          .withParsedQueryCache(parsedQueryCache)
+          .prepareRequest();
     }
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryTelemetry.cacheCounterName;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.GRANULARITY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.util.TimeUtils.floorByPeriod;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
+
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
+import ai.startree.thirdeye.detectionpipeline.QueryCacheConfiguration;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches data fetcher results by time range.
+ *
+ * The cache understands the time filter written by the __timeFilter macro. Rows that are older
+ * than the mutability period of the dataset are stored per query template. When the same query
+ * template is run again with a shifted time filter, the cached rows are reused and the data
+ * source is only queried for the missing tail of the time filter.
+ *
+ * A query is only cached if its result has a time column of type long, all the time values are
+ * inside the time filter and the time filter start is aligned on the granularity of the
+ * __timeGroup macro. A query with a row limit (LIMIT, TOP or FETCH FIRST) is never cached: its
+ * result may be truncated, and cached rows stitched with a tail could exceed the limit. In any
+ * other case, the query is run without the cache.
+ */
+@Singleton
+public class TimeRangeQueryCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeRangeQueryCache.class);
+  private static final Pattern ROW_LIMIT = Pattern.compile(
+      "\\b(LIMIT|TOP|FETCH\\s+(FIRST|NEXT))\\s+\\d+", Pattern.CASE_INSENSITIVE);
+
+  private final boolean enabled;
+  private final Cache<CacheKey, CachedRange> cache;
+  private final LongSupplier clock;
+
+  private final Counter hitCounter;
+  private final Counter partialHitCounter;
+  private final Counter missCounter;
+  private final Counter bypassCounter;
+  private final MetricRegistry metricRegistry;
+
+  @Inject
+  public TimeRangeQueryCache(final DetectionPipelineConfiguration configuration,
+      final MetricRegistry metricRegistry) {
+    this(configuration.getQueryCache(), metricRegistry, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  TimeRangeQueryCache(final QueryCacheConfiguration configuration,
+      final MetricRegistry metricRegistry, final LongSupplier clock) {
+    this.enabled = configuration.isEnabled();
+    this.clock = clock;
+    this.metricRegistry = metricRegistry;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(configuration.getMaxCells())
+        .weigher((CacheKey k, CachedRange v) -> v.weight())
+        .expireAfterAccess(configuration.getExpireAfterAccess().toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+
+    hitCounter = metricRegistry.counter("queryCacheHitCounter");
+    partialHitCounter = metricRegistry.counter("queryCachePartialHitCounter");
+    missCounter = metricRegistry.counter("queryCacheMissCounter");
+    bypassCounter = metricRegistry.counter("queryCacheBypassCounter");
+    metricRegistry.register("queryCacheSize", (Gauge<Long>) cache::size);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Fetches the data of {@code request}, reusing cached rows when possible.
+   *
+   * @param key identifies the query template. Requests with the same key must only differ
+   *     by their time filter.
+   * @param request the request with all macros applied on the detection interval
+   * @param timeColumn the name of the time column in the result
+   * @param mutabilityPeriod rows more recent than now - mutabilityPeriod are never cached
+   * @param subRangeRequest builds the request restricted to a sub-range of the time filter
+   * @param fetcher runs a request against the data source
+   */
+  public DataTable fetch(final CacheKey key,
+      final DataSourceRequest request,
+      final String timeColumn,
+      final Period mutabilityPeriod,
+      final Function<Interval, DataSourceRequest> subRangeRequest,
+      final Fetcher fetcher) throws Exception {
+    final TimeFilter filter = TimeFilter.fromProperties(request.getProperties(), key.timezone);
+    if (!enabled || filter == null || !filter.isStartAligned() || hasRowLimit(request)) {
+      count(bypassCounter, "bypass", key);
+      return fetcher.fetch(request);
+    }
+
+    final long now = clock.getAsLong();
+    final long stableEnd = Math.min(filter.end, floorByPeriod(
+        new DateTime(now, key.timezone).minus(mutabilityPeriod), filter.granularity).getMillis());
+
+    final CachedRange cached = cache.getIfPresent(key);
+    if (cached != null && cached.start <= filter.start && filter.start < cached.end) {
+      final long reuseEnd = Math.min(cached.end, filter.end);
+      final DataFrame reused = cached.slice(timeColumn, filter.start, reuseEnd);
+      if (reuseEnd == filter.end) {
+        count(hitCounter, "hit", key);
+        return SimpleDataTable.fromDataFrame(reused);
+      }
+      final DataSourceRequest tailRequest = subRangeRequest.apply(
+          new Interval(reuseEnd, filter.end, key.timezone));
+      final TimeFilter tailFilter = TimeFilter.fromProperties(tailRequest.getProperties(),
+          key.timezone);
+      if (tailFilter != null && tailFilter.start == reuseEnd && tailFilter.end == filter.end) {
+        final DataFrame tail = fetcher.fetch(tailRequest).getDataFrame();
+        if (isCacheable(tail, timeColumn, tailFilter) && sameSchema(reused, tail)) {
+          count(partialHitCounter, "partialHit", key);
+          final DataFrame stitched = reused.append(tail);
+          store(key, stitched, timeColumn, filter.start, stableEnd);
+          return SimpleDataTable.fromDataFrame(stitched);
+        }
+      }
+      LOG.warn("Could not fetch the tail {}/{} of cached query on table {}. Running full query.",
+          reuseEnd, filter.end, request.getTable());
+    }
+
+    count(missCounter, "miss", key);
+    final DataTable result = fetcher.fetch(request);
+    final DataFrame df = result.getDataFrame();
+    if (isCacheable(df, timeColumn, filter)) {
+      store(key, df, timeColumn, filter.start, stableEnd);
+    }
+    return result;
+  }
+
+  private void count(final Counter counter, final String outcome, final CacheKey key) {
+    counter.inc();
+    metricRegistry.counter(cacheCounterName(outcome, key.dataSource, key.table)).inc();
+  }
+
+  private void store(final CacheKey key, final DataFrame df, final String timeColumn,
+      final long start, final long end) {
+    if (start >= end) {
+      // everything is in the mutability period - nothing to store
+      return;
+    }
+    final DataFrame sorted = df.sortedBy(timeColumn);
+    final int endIndex = lowerBound(sorted.getLongs(timeColumn), end);
+    cache.put(key, new CachedRange(start, end, sorted.slice(0, endIndex)));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return cache.size();
+  }
+
+  private static boolean hasRowLimit(final DataSourceRequest request) {
+    return request.getQuery() != null && ROW_LIMIT.matcher(request.getQuery()).find();
+  }
+
+  private static boolean isCacheable(final DataFrame df, final String timeColumn,
+      final TimeFilter filter) {
+    if (!df.contains(timeColumn) || df.get(timeColumn).type() != SeriesType.LONG) {
+      return false;
+    }
+    final LongSeries time = df.getLongs(timeColumn);
+    if (time.hasNull()) {
+      return false;
+    }
+    // time values outside the filter mean the time column is transformed - slices would be wrong
+    return time.isEmpty() || (time.min().value() >= filter.start
+        && time.max().value() < filter.end);
+  }
+
+  private static boolean sameSchema(final DataFrame df, final DataFrame other) {
+    if (!df.getSeriesNames().equals(other.getSeriesNames())) {
+      return false;
+    }
+    for (final String name : df.getSeriesNames()) {
+      if (df.get(name).type() != other.get(name).type()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index of the first value greater or equal to {@code value}.
+   * Values must be sorted.
+   */
+  private static int lowerBound(final LongSeries sortedValues, final long value) {
+    int low = 0;
+    int high = sortedValues.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (sortedValues.getLong(mid) < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @FunctionalInterface
+  public interface Fetcher {
+
+    DataTable fetch(DataSourceRequest request) throws Exception;
+  }
+
+  public static class CacheKey {
+
+    private final String dataSource;
+    private final String table;
+    private final String query;
+    private final DateTimeZone timezone;
+    private final Long datasetUpdateTime;
+
+    public CacheKey(final String dataSource, final @Nullable String table, final String query,
+        final DateTimeZone timezone, final @Nullable Long datasetUpdateTime) {
+      this.dataSource = dataSource;
+      this.table = table;
+      this.query = query;
+      this.timezone = timezone;
+      this.datasetUpdateTime = datasetUpdateTime;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final CacheKey cacheKey = (CacheKey) o;
+      return Objects.equals(dataSource, cacheKey.dataSource)
+          && Objects.equals(table, cacheKey.table)
+          && Objects.equals(query, cacheKey.query)
+          && Objects.equals(timezone, cacheKey.timezone)
+          && Objects.equals(datasetUpdateTime, cacheKey.datasetUpdateTime);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(dataSource, table, query, timezone, datasetUpdateTime);
+    }
+  }
+
+  /**
+   * Rows with time in [start, end), sorted by time.
+   */
+  private static class CachedRange {
+
+    private final long start;
+    private final long end;
+    private final DataFrame dataFrame;
+
+    private CachedRange(final long start, final long end, final DataFrame dataFrame) {
+      this.start = start;
+      this.end = end;
+      this.dataFrame = dataFrame;
+    }
+
+    /**
+     * Returns a copy of the rows with time in [from, to).
+     */
+    private DataFrame slice(final String timeColumn, final long from, final long to) {
+      final LongSeries time = dataFrame.getLongs(timeColumn);
+      return dataFrame.slice(lowerBound(time, from), lowerBound(time, to));
+    }
+
+    private int weight() {
+      return Math.max(1, dataFrame.size() * dataFrame.getSeriesNames().size());
+    }
+  }
+
+  private static class TimeFilter {
+
+    private final long start;
+    private final long end;
+    private final Period granularity;
+    private final DateTimeZone timezone;
+
+    private TimeFilter(final long start, final long end, final Period granularity,
+        final DateTimeZone timezone) {
+      this.start = start;
+      this.end = end;
+      this.granularity = granularity;
+      this.timezone = timezone;
+    }
+
+    private static @Nullable TimeFilter fromProperties(final Map<String, String> properties,
+        final DateTimeZone timezone) {
+      final String minTime = properties.get(MIN_TIME_MILLIS.toString());
+      final String maxTime = properties.get(MAX_TIME_MILLIS.toString());
+      final String granularity = properties.get(GRANULARITY.toString());
+      if (minTime == null || maxTime == null || granularity == null) {
+        return null;
+      }
+      return new TimeFilter(Long.parseLong(minTime), Long.parseLong(maxTime),
+          isoPeriod(granularity), timezone);
+    }
+
+    private boolean isStartAligned() {
+      return floorByPeriod(new DateTime(start, timezone), granularity).getMillis() == start;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.model.TimeSeries;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Combines the results of the fork-join sub-pipeline runs in a single {@link CombinerResult}.
+ * Each result is tagged with its enumeration item. Results are referenced, not copied.
+ */
+public class CombinerOperator extends DetectionPipelineOperator {
+
+  public static final String DEFAULT_INPUT_KEY = "input_ForkJoinResult";
+  public static final String DEFAULT_OUTPUT_KEY = "output_Combiner";
+
+  public CombinerOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+  }
+
+  @Override
+  public void execute() throws Exception {
+    final ForkJoinResult forkJoinResult = (ForkJoinResult) requireNonNull(
+        inputMap.get(DEFAULT_INPUT_KEY), "ForkJoinResult input is missing");
+
+    final Map<String, OperatorResult> results = new LinkedHashMap<>();
+    int i = 0;
+    for (final ForkJoinResultItem item : forkJoinResult.getResults()) {
+      for (final OperatorResult result : item.getResults().values()) {
+        results.put(String.valueOf(i++), withEnumerationItem(result, item.getEnumerationItem()));
+      }
+    }
+    setOutput(DEFAULT_OUTPUT_KEY, new CombinerResult(results));
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "CombinerOperator";
+  }
+
+  private static OperatorResult withEnumerationItem(final OperatorResult delegate,
+      final EnumerationItemDTO enumerationItem) {
+    return new OperatorResult() {
+      @Override
+      public long getLastTimestamp() {
+        return delegate.getLastTimestamp();
+      }
+
+      @Override
+      public @Nullable List<AnomalyDTO> getAnomalies() {
+        return delegate.getAnomalies();
+      }
+
+      @Override
+      public @Nullable EnumerationItemDTO getEnumerationItem() {
+        return enumerationItem;
+      }
+
+      @Override
+      public @Nullable Map<String, List> getRawData() {
+        return delegate.getRawData();
+      }
+
+      @Override
+      public @Nullable TimeSeries getTimeseries() {
+        return delegate.getTimeseries();
+      }
+    };
+  }
+}
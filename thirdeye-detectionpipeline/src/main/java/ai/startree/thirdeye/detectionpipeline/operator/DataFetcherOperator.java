@@ -18,10 +18,16 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.DataSourceQueryContext;
 import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.detectionpipeline.components.GenericDataFetcher;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQueryCache;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.OffHeapStore;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -29,12 +35,15 @@ import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import java.util.List;
 import java.util.Map;
 
 public class DataFetcherOperator extends DetectionPipelineOperator {
 
   private DataFetcher<DataFetcherSpec> dataFetcher;
+  private Long alertId;
+  private OffHeapStore offHeapStore;
 
   public DataFetcherOperator() {
     super();
@@ -51,18 +60,26 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
 
     final ApplicationContext applicationContext = context.getPlanNodeContext()
         .getApplicationContext();
+    alertId = optional(context.getPlanNodeContext().getDetectionPipelineContext())
+        .map(DetectionPipelineContext::getAlertId)
+        .orElse(null);
+    offHeapStore = optional(context.getPlanNodeContext().getDetectionPipelineContext())
+        .map(DetectionPipelineContext::getOffHeapStore)
+        .orElse(null);
     final DataSourceCache dataSourceCache = requireNonNull(applicationContext.getDataSourceCache());
     final DatasetConfigManager datasetDao = requireNonNull(
         applicationContext.getDatasetConfigManager());
     final Map<String, Object> params = optional(planNode.getParams()).map(TemplatableMap::valueMap)
         .orElse(null);
     final List<Predicate> predicates = optional(context.getPredicates()).orElse(List.of());
-    dataFetcher = createDataFetcher(params, dataSourceCache, datasetDao, predicates);
+    dataFetcher = createDataFetcher(params, dataSourceCache, datasetDao, predicates,
+        applicationContext.getQueryCache(), applicationContext.getParsedQueryCache());
   }
 
   protected DataFetcher<DataFetcherSpec> createDataFetcher(final Map<String, Object> params,
       final DataSourceCache dataSourceCache, final DatasetConfigManager datasetDao,
-      final List<Predicate> predicates) {
+      final List<Predicate> predicates, final TimeRangeQueryCache queryCache,
+      final ParsedQueryCache parsedQueryCache) {
     final Map<String, Object> componentSpec = getComponentSpec(params);
     final DataFetcherSpec spec = requireNonNull(
         AbstractSpec.fromProperties(componentSpec, DataFetcherSpec.class),
@@ -70,6 +87,8 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
     spec.setDataSourceCache(dataSourceCache);
     spec.setDatasetDao(datasetDao);
     spec.setTimeseriesFilters(predicates);
+    spec.setQueryCache(queryCache);
+    spec.setParsedQueryCache(parsedQueryCache);
 
     final GenericDataFetcher genericDataFetcher = new GenericDataFetcher();
     genericDataFetcher.init(spec);
@@ -79,9 +98,20 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
 
   @Override
   public void execute() throws Exception {
-    final DataTable dataTable = dataFetcher.getDataTable(detectionInterval);
+    // tag the datasource queries with the alert for telemetry
+    final DataTable dataTable = DataSourceQueryContext.call(alertId, null,
+        () -> dataFetcher.getDataTable(detectionInterval));
     resultMap.put(outputKeyMap.values().iterator().next(),
-        dataTable);
+        offHeap(dataTable));
+  }
+
+  private DataTable offHeap(final DataTable dataTable) {
+    if (offHeapStore == null) {
+      return dataTable;
+    }
+    final DataFrame df = dataTable.getDataFrame();
+    final DataFrame offHeapDf = offHeapStore.offHeap(df);
+    return offHeapDf == df ? dataTable : SimpleDataTable.fromDataFrame(offHeapDf);
   }
 
   @Override
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import ai.startree.thirdeye.spi.detection.Enumerator;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outputs the enumeration items an alert runs on. For a detection run, the items are synced with
+ * the persisted enumeration items of the alert, so that anomalies can reference them.
+ */
+public class EnumeratorOperator extends DetectionPipelineOperator {
+
+  public static final String DEFAULT_OUTPUT_KEY = "enumerationItems";
+  public static final String K_ID_KEYS = "idKeys";
+  private static final String DEFAULT_ENUMERATOR_TYPE = "default";
+
+  private Enumerator enumerator;
+  private EnumerationItemMaintainer enumerationItemMaintainer;
+  private DetectionPipelineContext detectionPipelineContext;
+
+  public EnumeratorOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+    final ApplicationContext applicationContext = context.getPlanNodeContext()
+        .getApplicationContext();
+    final String type = optional(planNode.getParams())
+        .map(TemplatableMap::valueMap)
+        .map(p -> p.get(PROP_TYPE))
+        .map(Object::toString)
+        .orElse(DEFAULT_ENUMERATOR_TYPE);
+    enumerator = requireNonNull(applicationContext.getDetectionRegistry()).buildEnumerator(type);
+    enumerationItemMaintainer = applicationContext.getEnumerationItemMaintainer();
+    detectionPipelineContext = context.getPlanNodeContext().getDetectionPipelineContext();
+  }
+
+  @Override
+  public void execute() throws Exception {
+    final EnumerationItemDTO contextItem = detectionPipelineContext.getEnumerationItem();
+    if (contextItem != null) {
+      // the run is restricted to a single enumeration item - see EvaluationContextProcessor
+      setOutput(DEFAULT_OUTPUT_KEY, new EnumeratorResult(List.of(contextItem)));
+      return;
+    }
+
+    final Map<String, Object> params = optional(planNode.getParams())
+        .map(TemplatableMap::valueMap)
+        .orElse(emptyMap());
+    final List<EnumerationItemDTO> enumerationItems = enumerator.enumerate(
+        new Enumerator.Context()
+            .setParams(params)
+            .setInputMap(inputMap));
+
+    setOutput(DEFAULT_OUTPUT_KEY, new EnumeratorResult(sync(enumerationItems, params)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<EnumerationItemDTO> sync(final List<EnumerationItemDTO> enumerationItems,
+      final Map<String, Object> params) {
+    final Long alertId = detectionPipelineContext.getAlertId();
+    if (alertId == null
+        || detectionPipelineContext.getUsage() != DetectionPipelineUsage.DETECTION) {
+      return enumerationItems;
+    }
+    final List<String> idKeys = (List<String>) params.get(K_ID_KEYS);
+    return enumerationItemMaintainer.sync(enumerationItems, idKeys, alertId);
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "EnumeratorOperator";
+  }
+
+  public static class EnumeratorResult implements OperatorResult {
+
+    private final List<EnumerationItemDTO> enumerationItems;
+
+    public EnumeratorResult(final List<EnumerationItemDTO> enumerationItems) {
+      this.enumerationItems = enumerationItems;
+    }
+
+    @Override
+    public List<EnumerationItemDTO> getEnumerationItems() {
+      return enumerationItems;
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.detectionpipeline.ContextKey;
+import ai.startree.thirdeye.detectionpipeline.ForkJoinConfiguration;
+import ai.startree.thirdeye.detectionpipeline.Operator;
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
+import ai.startree.thirdeye.detectionpipeline.PlanNode;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeContext;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeFactory;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import ai.startree.thirdeye.util.CompiledTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the sub-pipeline starting at the "root" node once per enumeration item output by the
+ * "enumerator" node, then passes the results to the "combiner" node.
+ *
+ * Each run gets its own copy of the sub-pipeline nodes, with the enumeration item params applied
+ * to the node params. Runs are executed on the shared fork-join executor. At most "parallelism"
+ * runs of this operator are in flight at a time. A run that fails or does not complete within
+ * the fork-join timeout is logged and skipped: the other enumeration items are not impacted.
+ * The timeout of a run starts when the run starts executing, not when it is submitted. Once the
+ * operator returns or throws, none of its runs is running anymore.
+ */
+public class ForkJoinOperator extends DetectionPipelineOperator {
+
+  public static final String K_ENUMERATOR = "enumerator";
+  public static final String K_ROOT = "root";
+  public static final String K_COMBINER = "combiner";
+  public static final String K_PARALLELISM = "parallelism";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ForkJoinOperator.class);
+
+  private PlanNodeContext planNodeContext;
+  private PlanNode enumerator;
+  private PlanNode root;
+  private PlanNode combiner;
+  private ExecutorService subTaskExecutor;
+  private int parallelism;
+  private Duration timeout;
+  /**
+   * Plan node beans compiled once and rendered for each enumeration item, by plan node name.
+   */
+  private final Map<String, CompiledTemplate<PlanNodeBean>> compiledPlanNodeBeans =
+      new ConcurrentHashMap<>();
+
+  public ForkJoinOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+    planNodeContext = context.getPlanNodeContext();
+    final Map<String, PlanNode> pipelinePlanNodes = planNodeContext.getPipelinePlanNodes();
+    enumerator = getPlanNode(pipelinePlanNodes, K_ENUMERATOR);
+    root = getPlanNode(pipelinePlanNodes, K_ROOT);
+    combiner = getPlanNode(pipelinePlanNodes, K_COMBINER);
+
+    subTaskExecutor = requireNonNull(planNodeContext.getApplicationContext().getSubTaskExecutor(),
+        "subTaskExecutor is not set");
+    final ForkJoinConfiguration configuration = planNodeContext.getApplicationContext()
+        .getConfiguration()
+        .getForkjoin();
+    timeout = configuration.getTimeout();
+    parallelism = optional(params().get(K_PARALLELISM))
+        .map(p -> Integer.parseInt(p.toString()))
+        .map(p -> Math.min(p, configuration.getParallelism()))
+        .orElse(configuration.getParallelism());
+    checkArgument(parallelism > 0, "ForkJoin parallelism must be positive. Found %s",
+        parallelism);
+  }
+
+  private PlanNode getPlanNode(final Map<String, PlanNode> pipelinePlanNodes, final String key) {
+    final Object nodeName = requireNonNull(params().get(key),
+        String.format("ForkJoin param \"%s\" is missing", key));
+    return requireNonNull(pipelinePlanNodes.get(nodeName.toString()),
+        String.format("ForkJoin %s node \"%s\" does not exist. Template is invalid.", key,
+            nodeName));
+  }
+
+  private Map<String, Object> params() {
+    return optional(planNode.getParams()).map(TemplatableMap::valueMap).orElse(emptyMap());
+  }
+
+  @Override
+  public void execute() throws Exception {
+    final List<EnumerationItemDTO> enumerationItems = enumerate();
+    final ForkJoinResult forkJoinResult = executeAll(enumerationItems);
+    if (forkJoinResult.getResults().isEmpty() && !enumerationItems.isEmpty()) {
+      throw new RuntimeException(String.format(
+          "ForkJoin failed for all %d enumeration items. See logs for the errors.",
+          enumerationItems.size()));
+    }
+
+    combiner.setInput(CombinerOperator.DEFAULT_INPUT_KEY, forkJoinResult);
+    final Operator combinerOperator = combiner.buildOperator();
+    combinerOperator.execute();
+    combinerOperator.getOutputs().forEach(this::setOutput);
+  }
+
+  private List<EnumerationItemDTO> enumerate() throws Exception {
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+    PlanExecutor.executePlanNode(planNodeContext.getPipelinePlanNodes(), enumerator, resultMap);
+    return PlanExecutor.getOutput(resultMap, enumerator.getName())
+        .values()
+        .stream()
+        .map(OperatorResult::getEnumerationItems)
+        .filter(l -> l != null)
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException(
+            "No enumeration items output by node " + enumerator.getName()));
+  }
+
+  private ForkJoinResult executeAll(final List<EnumerationItemDTO> enumerationItems)
+      throws InterruptedException {
+    final BlockingQueue<Run> completedRuns = new LinkedBlockingQueue<>();
+    final List<Run> runs = new ArrayList<>(enumerationItems.size());
+    final ForkJoinResultItem[] results = new ForkJoinResultItem[enumerationItems.size()];
+    final List<EnumerationItemDTO> failures = new ArrayList<>();
+
+    int inFlight = 0;
+    try {
+      while (runs.size() < enumerationItems.size() || inFlight > 0) {
+        while (inFlight < parallelism && runs.size() < enumerationItems.size()) {
+          final Run run = new Run(runs.size(), enumerationItems.get(runs.size()));
+          run.result.whenComplete((r, t) -> completedRuns.add(run));
+          runs.add(run);
+          run.submit();
+          inFlight++;
+        }
+
+        final Run done = completedRuns.take();
+        inFlight--;
+        try {
+          results[done.index] = done.result.get();
+        } catch (final ExecutionException e) {
+          if (e.getCause() instanceof TimeoutException) {
+            LOG.error("ForkJoin run for enumeration item {} did not complete within {}",
+                describe(done.enumerationItem), timeout);
+            done.cancel();
+          } else {
+            LOG.error("ForkJoin run failed for enumeration item {}",
+                describe(done.enumerationItem), e.getCause());
+          }
+          failures.add(done.enumerationItem);
+        }
+      }
+    } finally {
+      cancelAndJoin(runs);
+    }
+
+    final List<ForkJoinResultItem> resultList = new ArrayList<>(results.length);
+    for (final ForkJoinResultItem result : results) {
+      if (result != null) {
+        resultList.add(result);
+      }
+    }
+    return new ForkJoinResult(resultList, failures);
+  }
+
+  /**
+   * Cancels the runs that are not completed and waits for the running ones to stop: once this
+   * method returns, no run of this operator is running anymore.
+   */
+  private static void cancelAndJoin(final List<Run> runs) {
+    runs.forEach(Run::cancel);
+    /* join is not interruptible: the runs are stopped even if the caller is interrupted */
+    CompletableFuture.allOf(runs.stream()
+        .map(run -> run.stopped)
+        .toArray(CompletableFuture[]::new)).join();
+  }
+
+  private ForkJoinResultItem runSubPipeline(final EnumerationItemDTO enumerationItem)
+      throws Exception {
+    final Map<String, PlanNode> clonedPlanNodes = new HashMap<>();
+    final PlanNode rootClone = cloneWithEnumerationItem(root, enumerationItem, clonedPlanNodes);
+
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+    PlanExecutor.executePlanNode(clonedPlanNodes, rootClone, resultMap);
+
+    // only keep the root outputs - intermediate results are released with the result map
+    return new ForkJoinResultItem(enumerationItem,
+        PlanExecutor.getOutput(resultMap, rootClone.getName()));
+  }
+
+  /**
+   * Clones the node and the nodes it depends on. Enumeration item params are applied on the plan
+   * node params. The cloned nodes are put in clonedPlanNodes.
+   */
+  private PlanNode cloneWithEnumerationItem(final PlanNode node,
+      final EnumerationItemDTO enumerationItem,
+      final Map<String, PlanNode> clonedPlanNodes) throws Exception {
+    final PlanNode existing = clonedPlanNodes.get(node.getName());
+    if (existing != null) {
+      return existing;
+    }
+    final Map<String, PlanNode> pipelinePlanNodes = planNodeContext.getPipelinePlanNodes();
+    for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
+      final PlanNode inputPlanNode = requireNonNull(
+          pipelinePlanNodes.get(input.getSourcePlanNode()),
+          String.format("sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist.",
+              input.getSourcePlanNode(), node.getName()));
+      cloneWithEnumerationItem(inputPlanNode, enumerationItem, clonedPlanNodes);
+    }
+
+    final PlanNodeContext context = PlanNodeContext.copy(node.getContext());
+    context.getDetectionPipelineContext().setEnumerationItem(enumerationItem);
+    context
+        .setPlanNodeBean(applyParams(context.getPlanNodeBean(), enumerationItem))
+        .setPipelinePlanNodes(clonedPlanNodes);
+    final PlanNode clone = PlanNodeFactory.build(node.getClass(), context);
+    clonedPlanNodes.put(clone.getName(), clone);
+    return clone;
+  }
+
+  private PlanNodeBean applyParams(final PlanNodeBean planNodeBean,
+      final EnumerationItemDTO enumerationItem) throws Exception {
+    final Map<String, Object> params = enumerationItem.getParams();
+    if (params == null || params.isEmpty()) {
+      return planNodeBean;
+    }
+    CompiledTemplate<PlanNodeBean> compiled = compiledPlanNodeBeans.get(planNodeBean.getName());
+    if (compiled == null) {
+      compiled = CompiledTemplate.compile(planNodeBean);
+      compiledPlanNodeBeans.putIfAbsent(planNodeBean.getName(), compiled);
+    }
+    return compiled.render(params);
+  }
+
+  private static String describe(final EnumerationItemDTO enumerationItem) {
+    return optional(enumerationItem.getName())
+        .orElseGet(() -> String.valueOf(enumerationItem.getParams()));
+  }
+
+  /**
+   * The sub-pipeline run of an enumeration item.
+   */
+  private class Run implements Runnable {
+
+    private final int index;
+    private final EnumerationItemDTO enumerationItem;
+    /* completed with the result of the run, its failure, or a timeout */
+    private final CompletableFuture<ForkJoinResultItem> result = new CompletableFuture<>();
+    /* completed when no thread runs the sub-pipeline anymore, or will ever run it */
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    /* set by the first of run() and cancel(): a cancelled run never starts */
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Future<?> task;
+
+    private Run(final int index, final EnumerationItemDTO enumerationItem) {
+      this.index = index;
+      this.enumerationItem = enumerationItem;
+    }
+
+    private void submit() {
+      try {
+        task = subTaskExecutor.submit(this);
+      } catch (final RejectedExecutionException e) {
+        result.completeExceptionally(e);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        /* the timeout starts when the run starts: time spent in the executor queue is not counted */
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .execute(() -> result.completeExceptionally(new TimeoutException()));
+        result.complete(runSubPipeline(enumerationItem));
+      } catch (final Throwable t) {
+        result.completeExceptionally(t);
+      } finally {
+        stopped.complete(null);
+      }
+    }
+
+    private void cancel() {
+      if (started.compareAndSet(false, true)) {
+        stopped.complete(null);
+        return;
+      }
+      final Future<?> runningTask = task;
+      if (runningTask != null) {
+        runningTask.cancel(true);
+      }
+    }
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "ForkJoinOperator";
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.List;
+
+/**
+ * Results of the fork-join sub-pipeline runs, in enumeration order. Enumeration items whose run
+ * failed or timed out are not in the results: they are listed in failedEnumerationItems.
+ */
+public class ForkJoinResult implements OperatorResult {
+
+  private final List<ForkJoinResultItem> results;
+  private final List<EnumerationItemDTO> failedEnumerationItems;
+
+  public ForkJoinResult(final List<ForkJoinResultItem> results,
+      final List<EnumerationItemDTO> failedEnumerationItems) {
+    this.results = results;
+    this.failedEnumerationItems = failedEnumerationItems;
+  }
+
+  public List<ForkJoinResultItem> getResults() {
+    return results;
+  }
+
+  public List<EnumerationItemDTO> getFailedEnumerationItems() {
+    return failedEnumerationItems;
+  }
+}
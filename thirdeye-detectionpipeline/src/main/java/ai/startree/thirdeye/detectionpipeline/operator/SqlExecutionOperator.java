@@ -31,6 +31,9 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +49,17 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
    */
   private static final String JDBC_CONNECTION_PARAMS = "jdbc.parameters";
   private static final String DEFAULT_SQL_ENGINE = "HYPERSQL";
+  /**
+   * Max number of idle connections kept per reusable engine. A connection released when the pool
+   * is full is closed.
+   */
+  private static final int MAX_IDLE_CONNECTIONS = 8;
+  /**
+   * Idle connections of reusable engines. Keyed by jdbc url and properties.
+   * A connection is only used by one execution at a time. Closed by {@link #closeIdleConnections()}.
+   */
+  private static final Map<String, BlockingDeque<Connection>> IDLE_CONNECTIONS =
+      new ConcurrentHashMap<>();
 
   private final List<String> queries = new ArrayList<>();
   private DataTableToSqlAdapter dataTableToSqlAdapter;
@@ -74,13 +88,71 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
 
   @Override
   public final void execute() throws Exception {
-    Connection connection = getConnection();
-    initTables(connection);
-    runQueries(connection);
-    dataTableToSqlAdapter.tearDown(connection);
+    final Connection connection = getConnection();
+    try {
+      try {
+        initTables(connection);
+        runQueries(connection);
+      } finally {
+        dataTableToSqlAdapter.tearDown(connection);
+      }
+    } catch (final Exception e) {
+      // the connection may be left in an unknown state - do not reuse it
+      closeQuietly(connection);
+      throw e;
+    }
+    release(connection);
+  }
+
+  /**
+   * Closes the idle connections of reusable engines. Connections in use are closed when released,
+   * if the pool is full.
+   */
+  public static void closeIdleConnections() {
+    for (final BlockingDeque<Connection> connections : IDLE_CONNECTIONS.values()) {
+      Connection connection;
+      while ((connection = connections.pollFirst()) != null) {
+        closeQuietly(connection);
+      }
+    }
   }
 
   private Connection getConnection() throws ClassNotFoundException, SQLException {
+    if (!dataTableToSqlAdapter.isConnectionReusable()) {
+      return newConnection();
+    }
+    Connection connection;
+    while ((connection = idleConnections().pollFirst()) != null) {
+      if (!connection.isClosed()) {
+        return connection;
+      }
+    }
+    return newConnection();
+  }
+
+  private void release(final Connection connection) {
+    if (!dataTableToSqlAdapter.isConnectionReusable()
+        || !idleConnections().offerFirst(connection)) {
+      closeQuietly(connection);
+    }
+  }
+
+  private BlockingDeque<Connection> idleConnections() {
+    final String key = dataTableToSqlAdapter.jdbcConnection()
+        + dataTableToSqlAdapter.jdbcProperties();
+    return IDLE_CONNECTIONS.computeIfAbsent(key,
+        k -> new LinkedBlockingDeque<>(MAX_IDLE_CONNECTIONS));
+  }
+
+  private static void closeQuietly(final Connection connection) {
+    try {
+      connection.close();
+    } catch (final SQLException e) {
+      LOG.warn("Failed to close JDBC connection.", e);
+    }
+  }
+
+  private Connection newConnection() throws ClassNotFoundException, SQLException {
     try {
       Class.forName(dataTableToSqlAdapter.jdbcDriverClassName());
     } catch (final Exception e) {
@@ -122,9 +194,10 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
   }
 
   private DataTable runQuery(final String query, final Connection connection) throws SQLException {
-    final Statement stmt = connection.createStatement();
-    final ResultSet resultSet = stmt.executeQuery(query);
-    return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
+    try (final Statement stmt = connection.createStatement();
+        final ResultSet resultSet = stmt.executeQuery(query)) {
+      return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
+    }
   }
 
   @Override
@@ -13,31 +13,48 @@
  */
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads DataTables in an in-memory HyperSQL database.
+ *
+ * Each execution loads its tables in its own schema, dropped at tear down: executions can run
+ * concurrently on the same database, and a connection can be reused by the next executions.
+ * Rows are inserted with batched prepared statements.
+ */
 public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
-  private final Logger LOG = LoggerFactory.getLogger(getClass());
+  private static final AtomicLong SCHEMA_COUNTER = new AtomicLong();
+  private static final String DEFAULT_SCHEMA = "PUBLIC";
+  private static final int INSERT_BATCH_SIZE = 10_000;
 
-  private final List<String> insertedTable = new ArrayList<>();
+  private final Logger LOG = LoggerFactory.getLogger(getClass());
 
   private final Properties properties = new Properties();
 
+  private String schemaName;
+
   @Override
   public String jdbcConnection() {
-    return "jdbc:hsqldb:mem";
+    return "jdbc:hsqldb:mem:thirdeye";
   }
 
   @Override
@@ -50,58 +67,106 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     return properties;
   }
 
+  @Override
+  public boolean isConnectionReusable() {
+    return true;
+  }
+
   @Override
   public void loadTables(final Connection connection, final Map<String, DataTable> dataTables)
       throws SQLException {
+    schemaName = "EXECUTION_" + SCHEMA_COUNTER.incrementAndGet();
+    execute(connection, "CREATE SCHEMA " + schemaName);
+    // equivalent to "use [schemaName]"
+    execute(connection, "SET SCHEMA " + schemaName);
     for (final Entry<String, DataTable> entry : dataTables.entrySet()) {
       insertInput(connection, entry.getKey(), entry.getValue());
-      insertedTable.add(entry.getKey());
     }
   }
 
   @Override
   public void tearDown(final Connection connection) throws SQLException {
-    // Destroy database
-    LOG.debug("trying to drop all the tables to clean up the environment.");
-    for (final String tableName : insertedTable) {
-      destroyTable(connection, tableName);
+    if (schemaName == null) {
+      return;
     }
+    // Destroy the tables of the execution
+    LOG.debug("trying to drop schema {} to clean up the environment.", schemaName);
+    execute(connection, "SET SCHEMA " + DEFAULT_SCHEMA);
+    execute(connection, "DROP SCHEMA " + schemaName + " IF EXISTS CASCADE");
+    schemaName = null;
   }
 
-  private void destroyTable(final Connection c, final String tableName) throws SQLException {
-    final String dropTableStatement = "DROP TABLE " + tableName + " IF EXISTS";
-    try {
-      c.prepareCall(dropTableStatement).execute();
+  private void execute(final Connection c, final String sql) throws SQLException {
+    try (final Statement statement = c.createStatement()) {
+      statement.execute(sql);
     } catch (final SQLException e) {
-      LOG.error("Failed to drop table: {} with sql: {}",
-          tableName,
-          dropTableStatement,
-          e);
+      LOG.error("Failed to execute sql: {}", sql, e);
       throw e;
     }
   }
 
   private void insertInput(final Connection c, final String tableName,
       final DataTable dataTable) throws SQLException {
-    // Drop the table in case.
-    destroyTable(c, tableName);
-
     final DataFrame df = dataTable.getDataFrame();
     // Create the table.
     createTable(c, tableName, df);
 
     // Insert all rows into the table
-    for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
-      final String insertionStatement = getRowInsertionStatement(tableName, rowIdx, df);
-      try {
-        c.prepareCall(insertionStatement).execute();
-      } catch (final SQLException e) {
-        LOG.error("Failed to insert row idx: {}, insertion sql: {}",
-            rowIdx,
-            insertionStatement,
-            e);
-        throw e;
+    final List<String> seriesNames = df.getSeriesNames();
+    final Series[] series = new Series[seriesNames.size()];
+    for (int colIdx = 0; colIdx < series.length; colIdx++) {
+      series[colIdx] = df.get(seriesNames.get(colIdx));
+    }
+    final String insertionStatement = getInsertionStatement(tableName, series.length);
+    try (final PreparedStatement statement = c.prepareStatement(insertionStatement)) {
+      for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
+        for (int colIdx = 0; colIdx < series.length; colIdx++) {
+          setParameter(statement, colIdx + 1, series[colIdx], rowIdx);
+        }
+        statement.addBatch();
+        if ((rowIdx + 1) % INSERT_BATCH_SIZE == 0) {
+          statement.executeBatch();
+        }
       }
+      statement.executeBatch();
+    } catch (final SQLException e) {
+      LOG.error("Failed to insert rows in table: {}, insertion sql: {}",
+          tableName,
+          insertionStatement,
+          e);
+      throw e;
+    }
+  }
+
+  private static void setParameter(final PreparedStatement statement, final int parameterIndex,
+      final Series series, final int rowIdx) throws SQLException {
+    switch (series.type()) {
+      case LONG:
+        if (series.isNull(rowIdx)) {
+          statement.setNull(parameterIndex, Types.BIGINT);
+        } else {
+          statement.setLong(parameterIndex, series.getLong(rowIdx));
+        }
+        break;
+      case DOUBLE:
+        if (series.isNull(rowIdx)) {
+          statement.setNull(parameterIndex, Types.DOUBLE);
+        } else {
+          statement.setDouble(parameterIndex, series.getDouble(rowIdx));
+        }
+        break;
+      case BOOLEAN:
+        if (series.isNull(rowIdx)) {
+          statement.setNull(parameterIndex, Types.BOOLEAN);
+        } else {
+          statement.setBoolean(parameterIndex, BooleanSeries.isTrue(series.getBoolean(rowIdx)));
+        }
+        break;
+      case STRING:
+        statement.setString(parameterIndex, series.getString(rowIdx));
+        break;
+      default:
+        statement.setObject(parameterIndex, series.getObject(rowIdx));
     }
   }
 
@@ -110,40 +175,14 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     final String tableCreationStatement = getTableCreationStatement(tableName,
         dataFrame.getSeriesNames(),
         dataFrame.getSeriesTypes());
-    try {
-      c.prepareCall(tableCreationStatement).execute();
-      LOG.debug("Trying to create table with sql: {}", tableCreationStatement);
-    } catch (final SQLException e) {
-      LOG.error("Failed to create table: {} with sql: {}",
-          tableName,
-          tableCreationStatement,
-          e);
-      throw e;
-    }
+    LOG.debug("Trying to create table with sql: {}", tableCreationStatement);
+    execute(c, tableCreationStatement);
   }
 
-  private String getRowInsertionStatement(final String tableName,
-      final int rowIdx,
-      final DataFrame dataFrame) {
-    final StringBuilder sb = new StringBuilder(
-        "INSERT INTO " + tableName + " VALUES (");
-    final List<String> seriesNames = dataFrame.getSeriesNames();
-    for (int colIdx = 0; colIdx < seriesNames.size(); colIdx++) {
-      final Object value = dataFrame.getObject(seriesNames.get(colIdx), rowIdx);
-
-      // If string, then wrap with quotes
-      final String quoteWith = value instanceof String ? "'" : "";
-      sb
-          .append(quoteWith)
-          .append(value)
-          .append(quoteWith);
-
-      if (colIdx < seriesNames.size() - 1) {
-        sb.append(", ");
-      }
-    }
-    sb.append(")");
-    return sb.toString();
+  private String getInsertionStatement(final String tableName, final int columnCount) {
+    return "INSERT INTO " + tableName + " VALUES ("
+        + String.join(", ", Collections.nCopies(columnCount, "?"))
+        + ")";
   }
 
   private String getTableCreationStatement(final String tableName, final List<String> columns,
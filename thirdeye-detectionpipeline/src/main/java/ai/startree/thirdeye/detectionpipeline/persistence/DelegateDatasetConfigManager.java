@@ -43,6 +43,11 @@ public class DelegateDatasetConfigManager implements DatasetConfigManager {
     return delegate.save(entity);
   }
 
+  @Override
+  public int save(final List<DatasetConfigDTO> entities) {
+    return delegate.save(entities);
+  }
+
   @Override
   public int update(final DatasetConfigDTO entity) {
     return delegate.update(entity);
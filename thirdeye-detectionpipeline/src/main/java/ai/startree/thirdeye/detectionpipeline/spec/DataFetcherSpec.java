@@ -14,6 +14,8 @@
 package ai.startree.thirdeye.detectionpipeline.spec;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache;
+import ai.startree.thirdeye.detectionpipeline.sql.macro.ParsedQueryCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
@@ -51,6 +53,15 @@ public class DataFetcherSpec extends AbstractSpec {
    */
   private List<Predicate> timeseriesFilters;
 
+  /**
+   * Expected to be set during DataFetcherOperator init.
+   */
+  private TimeRangeQueryCache queryCache;
+  /**
+   * Expected to be set during DataFetcherOperator init.
+   */
+  private ParsedQueryCache parsedQueryCache;
+
   public String getDataSource() {
     return dataSource;
   }
@@ -104,4 +115,22 @@ public class DataFetcherSpec extends AbstractSpec {
     this.timeseriesFilters = timeseriesFilters;
     return this;
   }
+
+  public TimeRangeQueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  public DataFetcherSpec setQueryCache(final TimeRangeQueryCache queryCache) {
+    this.queryCache = queryCache;
+    return this;
+  }
+
+  public ParsedQueryCache getParsedQueryCache() {
+    return parsedQueryCache;
+  }
+
+  public DataFetcherSpec setParsedQueryCache(final ParsedQueryCache parsedQueryCache) {
+    this.parsedQueryCache = parsedQueryCache;
+    return this;
+  }
 }
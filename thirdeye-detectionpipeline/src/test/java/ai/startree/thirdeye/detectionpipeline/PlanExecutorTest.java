@@ -13,63 +13,89 @@
  */
 package ai.startree.thirdeye.detectionpipeline;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache;
+import ai.startree.thirdeye.detectionpipeline.operator.CombinerOperator;
+import ai.startree.thirdeye.detectionpipeline.operator.CombinerResult;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
+import ai.startree.thirdeye.detectionpipeline.operator.ForkJoinOperator;
+import ai.startree.thirdeye.detectionpipeline.plan.CombinerPlanNode;
 import ai.startree.thirdeye.detectionpipeline.plan.EchoPlanNode;
+import ai.startree.thirdeye.detectionpipeline.plan.EnumeratorPlanNode;
+import ai.startree.thirdeye.detectionpipeline.plan.ForkJoinPlanNode;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
 import ai.startree.thirdeye.spi.detection.Enumerator;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 public class PlanExecutorTest {
 
   private PlanExecutor planExecutor;
+  private PlanExecutor parallelPlanExecutor;
+  private PlanNodeFactory planNodeFactory;
+  private DetectionRegistry detectionRegistry;
   private Enumerator enumerator;
+  private final List<PlanExecutor> planExecutors = new ArrayList<>();
 
   @BeforeMethod
   public void setUp() {
-    final DetectionRegistry detectionRegistry = mock(DetectionRegistry.class);
-    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
-    final PostProcessorRegistry postProcessorRegistry = mock(PostProcessorRegistry.class);
-    final EventManager eventManager = mock(EventManager.class);
-    final DatasetConfigManager datasetConfigManager = mock(DatasetConfigManager.class);
-    final PlanNodeFactory planNodeFactory = new PlanNodeFactory(
-    );
-    final EnumerationItemManager enumerationItemManager = mock(EnumerationItemManager.class);
-    when(enumerationItemManager.save(any())).thenAnswer(e -> {
-      ((EnumerationItemDTO) e.getArguments()[0]).setId(1L);
-      return 1L;
-    });
-    planExecutor = new PlanExecutor(planNodeFactory,
-        dataSourceCache,
-        detectionRegistry,
-        postProcessorRegistry,
-        eventManager,
-        datasetConfigManager,
-        new DetectionPipelineConfiguration(),
-        mock(EnumerationItemMaintainer.class));
+    detectionRegistry = mock(DetectionRegistry.class);
+    planNodeFactory = new PlanNodeFactory();
+    planNodeFactory.registerPlanNodeClass(ActionPlanNode.class);
+    planExecutor = newPlanExecutor(new DetectionPipelineConfiguration().setPlanExecutor(
+        new PlanExecutorConfiguration().setParallel(false)));
+    parallelPlanExecutor = newPlanExecutor(new DetectionPipelineConfiguration());
     enumerator = mock(Enumerator.class);
 
     when(detectionRegistry.buildEnumerator("default")).thenReturn(enumerator);
   }
 
+  private PlanExecutor newPlanExecutor(final DetectionPipelineConfiguration configuration) {
+    final PlanExecutor executor = new PlanExecutor(planNodeFactory,
+        mock(DataSourceCache.class),
+        detectionRegistry,
+        mock(PostProcessorRegistry.class),
+        mock(EventManager.class),
+        mock(DatasetConfigManager.class),
+        configuration,
+        mock(EnumerationItemMaintainer.class),
+        mock(TimeRangeQueryCache.class),
+        null);
+    planExecutors.add(executor);
+    return executor;
+  }
+
   @Test
   public void testExecutePlanNode() throws Exception {
     final EchoPlanNode node = new EchoPlanNode();
@@ -100,4 +126,220 @@ public class PlanExecutorTest {
     final EchoResult echoResult = (EchoResult) result;
     assertThat(echoResult.text()).isEqualTo(echoInput);
   }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    for (final PlanExecutor executor : planExecutors) {
+      executor.close();
+    }
+    planExecutors.clear();
+    ActionPlanNode.action = name -> {};
+  }
+
+  @DataProvider
+  public Object[][] parallel() {
+    return new Object[][]{{false}, {true}};
+  }
+
+  private PlanExecutor planExecutor(final boolean parallel) {
+    return parallel ? parallelPlanExecutor : planExecutor;
+  }
+
+  @Test(dataProvider = "parallel")
+  public void testForkJoinRunsSubPipelinePerEnumerationItem(final boolean parallel)
+      throws Exception {
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        enumerationItem("a", Map.of("text", "a")),
+        // missing template property: the run fails and is skipped
+        enumerationItem("failing", Map.of("other", "b")),
+        enumerationItem("c", Map.of("text", "c"))));
+
+    final Map<String, OperatorResult> outputs = planExecutor(parallel)
+        .runPipelineAndGetRootOutputs(forkJoinPipeline(), evaluationContext());
+
+    assertThat(outputs).containsOnlyKeys(CombinerOperator.DEFAULT_OUTPUT_KEY);
+    final CombinerResult combinerResult =
+        (CombinerResult) outputs.get(CombinerOperator.DEFAULT_OUTPUT_KEY);
+    assertThat(combinerResult.getResults()).containsOnlyKeys("0", "1");
+    assertThat(combinerResult.getDetectionResults().stream()
+        .map(r -> r.getEnumerationItem().getName())
+        .collect(Collectors.toList())).containsExactly("a", "c");
+  }
+
+  @Test(dataProvider = "parallel")
+  public void testForkJoinFailsIfAllRunsFail(final boolean parallel) {
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        enumerationItem("failing", Map.of("other", "b"))));
+
+    assertThatThrownBy(() -> planExecutor(parallel).runPipelineAndGetRootOutputs(
+        forkJoinPipeline(), evaluationContext()))
+        .hasMessageContaining("ForkJoin failed for all 1 enumeration items");
+  }
+
+  @Test(dataProvider = "parallel")
+  public void testForkJoinSkipsRunsThatTimeOut(final boolean parallel) throws Exception {
+    final CountDownLatch stuckInterrupted = new CountDownLatch(1);
+    ActionPlanNode.action = name -> {
+      if (name.equals("stuck")) {
+        try {
+          new CountDownLatch(1).await();
+        } catch (final InterruptedException e) {
+          stuckInterrupted.countDown();
+          throw e;
+        }
+      }
+    };
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        enumerationItem("a", Map.of("text", "a")),
+        enumerationItem("stuck", Map.of("text", "stuck")),
+        enumerationItem("c", Map.of("text", "c"))));
+    final PlanExecutor executor = newPlanExecutor(new DetectionPipelineConfiguration()
+        .setPlanExecutor(new PlanExecutorConfiguration().setParallel(parallel))
+        .setForkjoin(new ForkJoinConfiguration().setTimeout(Duration.ofMillis(500))));
+
+    final Map<String, OperatorResult> outputs = executor.runPipelineAndGetRootOutputs(
+        actionForkJoinPipeline(5), evaluationContext());
+
+    final CombinerResult combinerResult =
+        (CombinerResult) outputs.get(CombinerOperator.DEFAULT_OUTPUT_KEY);
+    assertThat(combinerResult.getDetectionResults().stream()
+        .map(r -> r.getEnumerationItem().getName())
+        .collect(Collectors.toList())).containsExactly("a", "c");
+    // the run was interrupted, and stopped before the pipeline returned
+    assertThat(stuckInterrupted.getCount()).isZero();
+  }
+
+  @Test(dataProvider = "parallel")
+  public void testForkJoinParallelism(final boolean parallel) throws Exception {
+    final int parallelism = 2;
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    // runs wait for each other by pairs: completes only if 2 runs are in flight at the same time
+    final CyclicBarrier barrier = new CyclicBarrier(parallelism);
+    ActionPlanNode.action = name -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } finally {
+        running.decrementAndGet();
+      }
+    };
+    final List<EnumerationItemDTO> items = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      items.add(enumerationItem("item" + i, Map.of("text", "item" + i)));
+    }
+    when(enumerator.enumerate(any())).thenReturn(items);
+    // more threads than the parallelism of the node
+    final PlanExecutor executor = newPlanExecutor(new DetectionPipelineConfiguration()
+        .setPlanExecutor(new PlanExecutorConfiguration().setParallel(parallel))
+        .setForkjoin(new ForkJoinConfiguration().setParallelism(4)));
+
+    final Map<String, OperatorResult> outputs = executor.runPipelineAndGetRootOutputs(
+        actionForkJoinPipeline(parallelism), evaluationContext());
+
+    final CombinerResult combinerResult =
+        (CombinerResult) outputs.get(CombinerOperator.DEFAULT_OUTPUT_KEY);
+    assertThat(combinerResult.getDetectionResults()).hasSize(items.size());
+    assertThat(maxRunning.get()).isEqualTo(parallelism);
+  }
+
+  private static EnumerationItemDTO enumerationItem(final String name,
+      final Map<String, Object> params) {
+    return new EnumerationItemDTO().setName(name).setParams(params);
+  }
+
+  private static DetectionPipelineContext evaluationContext() {
+    return new DetectionPipelineContext()
+        .setUsage(DetectionPipelineUsage.EVALUATION)
+        .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC));
+  }
+
+  private static List<PlanNodeBean> forkJoinPipeline() {
+    return List.of(
+        new PlanNodeBean()
+            .setName("root")
+            .setType(ForkJoinPlanNode.TYPE)
+            .setParams(TemplatableMap.fromValueMap(Map.of(
+                ForkJoinOperator.K_ENUMERATOR, "enumerator",
+                ForkJoinOperator.K_ROOT, "childRoot",
+                ForkJoinOperator.K_COMBINER, "combiner"))),
+        new PlanNodeBean()
+            .setName("enumerator")
+            .setType(EnumeratorPlanNode.TYPE),
+        new PlanNodeBean()
+            .setName("combiner")
+            .setType(CombinerPlanNode.TYPE),
+        new PlanNodeBean()
+            .setName("childRoot")
+            .setType(EchoPlanNode.TYPE)
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, "${text}"))
+            .setInputs(List.of(new InputBean()
+                .setSourcePlanNode("echo")
+                .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY)
+                .setTargetProperty("echo"))),
+        new PlanNodeBean()
+            .setName("echo")
+            .setType(EchoPlanNode.TYPE)
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, "${text}")));
+  }
+
+  private static List<PlanNodeBean> actionForkJoinPipeline(final int parallelism) {
+    return List.of(
+        new PlanNodeBean()
+            .setName("root")
+            .setType(ForkJoinPlanNode.TYPE)
+            .setParams(TemplatableMap.fromValueMap(Map.of(
+                ForkJoinOperator.K_ENUMERATOR, "enumerator",
+                ForkJoinOperator.K_ROOT, "childRoot",
+                ForkJoinOperator.K_COMBINER, "combiner",
+                ForkJoinOperator.K_PARALLELISM, parallelism))),
+        new PlanNodeBean()
+            .setName("enumerator")
+            .setType(EnumeratorPlanNode.TYPE),
+        new PlanNodeBean()
+            .setName("combiner")
+            .setType(CombinerPlanNode.TYPE),
+        new PlanNodeBean()
+            .setName("childRoot")
+            .setType(ActionPlanNode.TYPE)
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, "${text}")));
+  }
+
+  /**
+   * Echo node that runs the static action with the echoed text first.
+   */
+  public static class ActionPlanNode extends EchoPlanNode {
+
+    public static final String TYPE = "Action";
+
+    private static volatile NodeAction action = name -> {};
+
+    @Override
+    public String getType() {
+      return TYPE;
+    }
+
+    @Override
+    public Operator buildOperator() {
+      final String name = String.valueOf(
+          planNodeBean.getParams().get(EchoOperator.DEFAULT_INPUT_KEY).getValue());
+      final EchoOperator operator = new EchoOperator() {
+        @Override
+        public void execute() throws Exception {
+          action.run(name);
+          super.execute();
+        }
+      };
+      operator.init(createOperatorContext()
+          .setDetectionInterval(detectionInterval)
+          .setInputsMap(inputsMap)
+          .setPlanNode(planNodeBean));
+      return operator;
+    }
+  }
+
+  private interface NodeAction {
+
+    void run(String name) throws Exception;
+  }
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.detectionpipeline.operator.DelayOperator;
+import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
+import ai.startree.thirdeye.detectionpipeline.plan.DelayPlanNode;
+import ai.startree.thirdeye.detectionpipeline.plan.EchoPlanNode;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PlanNodeDagSchedulerTest {
+
+  private static final String ECHO_INPUT = "echo";
+
+  private ExecutorService executorService;
+
+  private static PlanNode echoNode(final String name, final String... sources) {
+    final List<InputBean> inputs = new ArrayList<>();
+    for (final String source : sources) {
+      inputs.add(new InputBean()
+          .setSourcePlanNode(source)
+          .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY)
+          .setTargetProperty(source));
+    }
+    final EchoPlanNode node = new EchoPlanNode();
+    node.init(context(name, new PlanNodeBean()
+        .setInputs(inputs)
+        .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, ECHO_INPUT))));
+    return node;
+  }
+
+  private static PlanNode delayNode(final String name, final String delayTime,
+      final String source) {
+    final DelayPlanNode node = new DelayPlanNode();
+    node.init(context(name, new PlanNodeBean()
+        .setInputs(List.of(new InputBean()
+            .setSourcePlanNode(source)
+            .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY)
+            .setTargetProperty(EchoOperator.DEFAULT_OUTPUT_KEY)))
+        .setParams(TemplatableMap.ofValue("delayTime", delayTime))));
+    return node;
+  }
+
+  /**
+   * A node forwarding its input like a delay node, that runs the action before.
+   */
+  private static PlanNode actionNode(final String name, final String source,
+      final NodeAction action) {
+    final DelayPlanNode node = new DelayPlanNode() {
+      @Override
+      public Operator buildOperator() {
+        final DelayOperator operator = new DelayOperator() {
+          @Override
+          public void execute() throws Exception {
+            action.run();
+            super.execute();
+          }
+        };
+        operator.init(createOperatorContext()
+            .setDetectionInterval(detectionInterval)
+            .setInputsMap(inputsMap)
+            .setPlanNode(planNodeBean));
+        return operator;
+      }
+    };
+    node.init(context(name, new PlanNodeBean()
+        .setInputs(List.of(new InputBean()
+            .setSourcePlanNode(source)
+            .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY)
+            .setTargetProperty(EchoOperator.DEFAULT_OUTPUT_KEY)))
+        .setParams(TemplatableMap.ofValue("delayTime", "PT0S"))));
+    return node;
+  }
+
+  private static PlanNodeContext context(final String name, final PlanNodeBean planNodeBean) {
+    return new PlanNodeContext()
+        .setName(name)
+        .setDetectionPipelineContext(new DetectionPipelineContext()
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC)))
+        .setPlanNodeBean(planNodeBean.setName(name));
+  }
+
+  private static Map<String, PlanNode> nodeMap(final PlanNode... nodes) {
+    final Map<String, PlanNode> map = new HashMap<>();
+    for (final PlanNode node : nodes) {
+      map.put(node.getName(), node);
+    }
+    return map;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testTopologicalOrder() {
+    final PlanNode source = echoNode("source");
+    final PlanNode d1 = delayNode("d1", "PT0S", "source");
+    final PlanNode d2 = delayNode("d2", "PT0S", "source");
+    final PlanNode root = echoNode("root", "d1", "d2");
+    // unreachable from root: must not be scheduled
+    final PlanNode unused = echoNode("unused");
+
+    final List<PlanNode> order = PlanNodeDagScheduler.topologicalOrder(
+        nodeMap(source, d1, d2, root, unused),
+        root);
+
+    assertThat(order.stream().map(PlanNode::getName).collect(Collectors.toList()))
+        .containsExactly("source", "d1", "d2", "root");
+  }
+
+  @Test
+  public void testTopologicalOrderWithMissingSourceNode() {
+    final PlanNode root = echoNode("root", "missing");
+
+    assertThatThrownBy(() -> PlanNodeDagScheduler.topologicalOrder(nodeMap(root), root))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("missing");
+  }
+
+  @Test
+  public void testTopologicalOrderWithCycle() {
+    final PlanNode a = delayNode("a", "PT0S", "b");
+    final PlanNode b = delayNode("b", "PT0S", "a");
+    final PlanNode root = echoNode("root", "a");
+
+    assertThatThrownBy(() -> PlanNodeDagScheduler.topologicalOrder(nodeMap(a, b, root), root))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Cycle");
+  }
+
+  @Test
+  public void testIndependentNodesRunConcurrently() throws Exception {
+    // each node waits for the 2 others: completes only if the 3 nodes run at the same time
+    final CyclicBarrier barrier = new CyclicBarrier(3);
+    final NodeAction awaitOthers = () -> barrier.await(10, TimeUnit.SECONDS);
+    final PlanNode root = echoNode("root", "d1", "d2", "d3");
+    final Map<String, PlanNode> nodes = nodeMap(echoNode("source"),
+        actionNode("d1", "source", awaitOthers),
+        actionNode("d2", "source", awaitOthers),
+        actionNode("d3", "source", awaitOthers),
+        root);
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+
+    new PlanNodeDagScheduler(executorService, Duration.ofMinutes(1))
+        .execute(nodes, root, resultMap);
+
+    final OperatorResult rootResult = resultMap.get(
+        PlanExecutor.key("root", EchoOperator.DEFAULT_OUTPUT_KEY));
+    assertThat(((EchoOperator.EchoResult) rootResult).text()).isEqualTo(ECHO_INPUT);
+    assertThat(resultMap).containsKeys(PlanExecutor.key("d1", EchoOperator.DEFAULT_OUTPUT_KEY),
+        PlanExecutor.key("d2", EchoOperator.DEFAULT_OUTPUT_KEY),
+        PlanExecutor.key("d3", EchoOperator.DEFAULT_OUTPUT_KEY));
+  }
+
+  @Test
+  public void testNodeStartsWhenItsInputsComplete() throws Exception {
+    // "slow" completes only once "afterFast" has run. "afterFast" depends on "fast" only: it must
+    // not wait for "slow", that is at the same depth as "fast"
+    final CountDownLatch afterFastDone = new CountDownLatch(1);
+    final PlanNode root = echoNode("root", "slow", "afterFast");
+    final Map<String, PlanNode> nodes = nodeMap(echoNode("source"),
+        actionNode("slow", "source", () -> {
+          if (!afterFastDone.await(10, TimeUnit.SECONDS)) {
+            throw new TimeoutException("afterFast did not run before slow completed");
+          }
+        }),
+        actionNode("fast", "source", () -> {}),
+        actionNode("afterFast", "fast", afterFastDone::countDown),
+        root);
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+
+    new PlanNodeDagScheduler(executorService, Duration.ofMinutes(1))
+        .execute(nodes, root, resultMap);
+
+    assertThat(resultMap).containsKey(PlanExecutor.key("root", EchoOperator.DEFAULT_OUTPUT_KEY));
+  }
+
+  @Test
+  public void testFailureCancelsRunningNodes() {
+    final CountDownLatch slowStarted = new CountDownLatch(1);
+    final CountDownLatch slowInterrupted = new CountDownLatch(1);
+    final PlanNode root = echoNode("root", "slow", "failing");
+    final Map<String, PlanNode> nodes = nodeMap(echoNode("source"),
+        actionNode("slow", "source", () -> {
+          slowStarted.countDown();
+          try {
+            new CountDownLatch(1).await();
+          } catch (final InterruptedException e) {
+            slowInterrupted.countDown();
+            throw e;
+          }
+        }),
+        actionNode("failing", "source", () -> {
+          slowStarted.await();
+          throw new IllegalStateException("failing node");
+        }),
+        root);
+
+    assertThatThrownBy(() -> new PlanNodeDagScheduler(executorService, Duration.ofMinutes(1))
+        .execute(nodes, root, new HashMap<>()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("failing node");
+    // the running node was interrupted, and stopped before execute returned
+    assertThat(slowInterrupted.getCount()).isZero();
+  }
+
+  @Test
+  public void testNodeTimeout() {
+    final PlanNode root = echoNode("root", "slow");
+    final Map<String, PlanNode> nodes = nodeMap(echoNode("source"),
+        actionNode("slow", "source", () -> new CountDownLatch(1).await()),
+        root);
+
+    assertThatThrownBy(() -> new PlanNodeDagScheduler(executorService, Duration.ofMillis(200))
+        .execute(nodes, root, new HashMap<>()))
+        .isInstanceOf(TimeoutException.class)
+        .hasMessageContaining("slow");
+  }
+
+  @Test
+  public void testRootWithoutInputs() throws Exception {
+    final PlanNode root = echoNode("root");
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+
+    new PlanNodeDagScheduler(executorService, Duration.ofMinutes(1))
+        .execute(Collections.emptyMap(), root, resultMap);
+
+    assertThat(resultMap).hasSize(1);
+  }
+
+  private interface NodeAction {
+
+    void run() throws Exception;
+  }
+}
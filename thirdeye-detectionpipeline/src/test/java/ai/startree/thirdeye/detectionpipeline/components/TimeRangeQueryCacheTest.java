@@ -0,0 +1,199 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.GRANULARITY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.detectionpipeline.QueryCacheConfiguration;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache.CacheKey;
+import ai.startree.thirdeye.detectionpipeline.components.TimeRangeQueryCache.Fetcher;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TimeRangeQueryCacheTest {
+
+  private static final long DAY = 86_400_000L;
+  private static final String TIME_COLUMN = "ts";
+  private static final CacheKey KEY = new CacheKey("pinot", "table",
+      "SELECT ... WHERE __timeFilter(ts, 'EPOCH')", DateTimeZone.UTC, 1L);
+
+  private final List<Interval> fetchedIntervals = new ArrayList<>();
+  private long now;
+  private MetricRegistry metricRegistry;
+  private TimeRangeQueryCache cache;
+
+  private static DataSourceRequest request(final long start, final long end) {
+    return request("query " + start + " " + end, start, end);
+  }
+
+  private static DataSourceRequest request(final String query, final long start,
+      final long end) {
+    return new DataSourceRequest("table", query, Map.of(), Map.of(
+        MIN_TIME_MILLIS.toString(), String.valueOf(start),
+        MAX_TIME_MILLIS.toString(), String.valueOf(end),
+        GRANULARITY.toString(), Period.days(1).toString()));
+  }
+
+  /**
+   * Returns one row per day in the time filter of the request. value = ts / DAY.
+   */
+  private DataTable fetch(final DataSourceRequest request) {
+    final long start = Long.parseLong(request.getProperties().get(MIN_TIME_MILLIS.toString()));
+    final long end = Long.parseLong(request.getProperties().get(MAX_TIME_MILLIS.toString()));
+    fetchedIntervals.add(new Interval(start, end));
+    final LongSeries.Builder ts = LongSeries.builder();
+    final LongSeries.Builder values = LongSeries.builder();
+    for (long t = start; t < end; t += DAY) {
+      ts.addValues(t);
+      values.addValues(t / DAY);
+    }
+    return SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries(TIME_COLUMN, ts.build())
+        .addSeries("value", values.build()));
+  }
+
+  private DataTable fetchWithCache(final long start, final long end) throws Exception {
+    return cache.fetch(KEY,
+        request(start, end),
+        TIME_COLUMN,
+        Period.days(2),
+        interval -> request(interval.getStartMillis(), interval.getEndMillis()),
+        this::fetch);
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    fetchedIntervals.clear();
+    now = 100 * DAY;
+    metricRegistry = new MetricRegistry();
+    cache = new TimeRangeQueryCache(new QueryCacheConfiguration().setEnabled(true),
+        metricRegistry,
+        () -> now);
+  }
+
+  @Test
+  public void testMissThenPartialHitFetchesOnlyTail() throws Exception {
+    final DataTable first = fetchWithCache(60 * DAY, 100 * DAY);
+    assertThat(first.getDataFrame().size()).isEqualTo(40);
+    assertThat(fetchedIntervals).containsExactly(new Interval(60 * DAY, 100 * DAY));
+    assertThat(metricRegistry.counter("queryCacheMissCounter").getCount()).isEqualTo(1);
+
+    // next run: window shifted by one day
+    now = 101 * DAY;
+    fetchedIntervals.clear();
+    final DataTable second = fetchWithCache(61 * DAY, 101 * DAY);
+
+    // stable rows are [61, 98) - only the mutability period and the new day are fetched
+    assertThat(fetchedIntervals).containsExactly(new Interval(98 * DAY, 101 * DAY));
+    assertThat(metricRegistry.counter("queryCachePartialHitCounter").getCount()).isEqualTo(1);
+    assertThat(second.getDataFrame()).isEqualTo(fetch(request(61 * DAY, 101 * DAY))
+        .getDataFrame());
+  }
+
+  @Test
+  public void testFullHit() throws Exception {
+    fetchWithCache(60 * DAY, 90 * DAY);
+    fetchedIntervals.clear();
+
+    final DataTable result = fetchWithCache(70 * DAY, 90 * DAY);
+
+    assertThat(fetchedIntervals).isEmpty();
+    assertThat(metricRegistry.counter("queryCacheHitCounter").getCount()).isEqualTo(1);
+    assertThat(result.getDataFrame().getLongs(TIME_COLUMN).getLong(0)).isEqualTo(70 * DAY);
+    assertThat(result.getDataFrame().size()).isEqualTo(20);
+  }
+
+  @Test
+  public void testCachedDataIsNotShared() throws Exception {
+    fetchWithCache(60 * DAY, 90 * DAY);
+    final DataTable first = fetchWithCache(60 * DAY, 90 * DAY);
+    first.getDataFrame().getLongs("value").values()[0] = -1;
+
+    final DataTable second = fetchWithCache(60 * DAY, 90 * DAY);
+    assertThat(second.getDataFrame().getLongs("value").getLong(0)).isEqualTo(60);
+  }
+
+  @Test
+  public void testQueryWithLimitBypassesCache() throws Exception {
+    // the data source truncates the result to the LIMIT: caching it would store an incomplete range
+    final String query = "SELECT ts, value FROM table ORDER BY ts LIMIT 10";
+    final Fetcher truncatingFetcher = request -> {
+      final DataFrame df = fetch(request).getDataFrame();
+      return SimpleDataTable.fromDataFrame(df.slice(0, Math.min(df.size(), 10)));
+    };
+
+    cache.fetch(KEY, request(query, 60 * DAY, 90 * DAY), TIME_COLUMN, Period.days(2),
+        interval -> request(query, interval.getStartMillis(), interval.getEndMillis()),
+        truncatingFetcher);
+    final DataTable result = cache.fetch(KEY, request(query, 70 * DAY, 90 * DAY), TIME_COLUMN,
+        Period.days(2),
+        interval -> request(query, interval.getStartMillis(), interval.getEndMillis()),
+        truncatingFetcher);
+
+    // same result as without the cache: the first 10 rows of the second time filter
+    assertThat(result.getDataFrame()).isEqualTo(
+        truncatingFetcher.fetch(request(query, 70 * DAY, 90 * DAY)).getDataFrame());
+    assertThat(fetchedIntervals).startsWith(new Interval(60 * DAY, 90 * DAY),
+        new Interval(70 * DAY, 90 * DAY));
+    assertThat(metricRegistry.counter("queryCacheBypassCounter").getCount()).isEqualTo(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void testUnalignedStartBypassesCache() throws Exception {
+    fetchWithCache(60 * DAY + 1, 90 * DAY);
+    fetchWithCache(60 * DAY + 1, 90 * DAY);
+
+    assertThat(fetchedIntervals).hasSize(2);
+    assertThat(metricRegistry.counter("queryCacheBypassCounter").getCount()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testStartBeforeCachedRangeIsAMiss() throws Exception {
+    fetchWithCache(60 * DAY, 90 * DAY);
+    fetchedIntervals.clear();
+
+    fetchWithCache(50 * DAY, 90 * DAY);
+
+    assertThat(fetchedIntervals).containsExactly(new Interval(50 * DAY, 90 * DAY));
+    assertThat(metricRegistry.counter("queryCacheMissCounter").getCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testDisabledCache() throws Exception {
+    cache = new TimeRangeQueryCache(new QueryCacheConfiguration(), new MetricRegistry(),
+        () -> now);
+    fetchWithCache(60 * DAY, 90 * DAY);
+    fetchWithCache(60 * DAY, 90 * DAY);
+
+    assertThat(fetchedIntervals).hasSize(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+}
@@ -19,6 +19,7 @@ import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
@@ -50,6 +51,60 @@ public class SqlExecutionOperatorTest {
     testSqlExecution(ImmutableMap.of("sql.engine", "Calcite"));
   }
 
+  @Test
+  public void testHyperSqlAdapterBulkLoadAndReuse() throws Exception {
+    final int size = 25_000;
+    final long[] ts = new long[size];
+    final double[] met = new double[size];
+    final String[] dim = new String[size];
+    for (int i = 0; i < size; i++) {
+      ts[i] = i;
+      met[i] = i % 10 == 0 ? DoubleSeries.NULL : i * 0.5;
+      dim[i] = i % 7 == 0 ? null : "it's '" + i % 3 + "'";
+    }
+    final DataFrame input = new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(ts))
+        .addSeries("met", DoubleSeries.buildFrom(met))
+        .addSeries("dim", StringSeries.buildFrom(dim));
+
+    // the same table name is loaded twice on the same thread: the connection is reused
+    for (int run = 0; run < 2; run++) {
+      final Map<String, Object> params = new HashMap<>();
+      params.put("sql.engine", "HyperSql");
+      params.put("sql.queries", ImmutableList.of(
+          "SELECT COUNT(*) AS cnt, COUNT(met) AS met_cnt, COUNT(dim) AS dim_cnt FROM input_data",
+          "SELECT dim, met FROM input_data WHERE ts = 4"));
+      final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator();
+      final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+          .setType("SqlExecution")
+          .setParams(TemplatableMap.fromValueMap(params))
+          .setInputs(ImmutableList.of(new InputBean().setTargetProperty("input_data")
+              .setSourceProperty("output")
+              .setSourcePlanNode("dataFetcher")))
+          .setOutputs(ImmutableList.of());
+      final long startTime = System.currentTimeMillis();
+      final OperatorContext context = new OperatorContext()
+          .setDetectionInterval(new Interval(startTime, startTime + 1000L, DateTimeZone.UTC))
+          .setPlanNode(planNodeBean)
+          .setInputsMap(ImmutableMap.of("input_data", SimpleDataTable.fromDataFrame(input)))
+          .setProperties(ImmutableMap.of());
+      sqlExecutionOperator.init(context);
+      sqlExecutionOperator.execute();
+
+      final DataFrame counts = ((DataTable) sqlExecutionOperator.getOutputs()
+          .get("0")).getDataFrame();
+      assertThat(counts.getLong("cnt", 0)).isEqualTo(size);
+      assertThat(counts.getLong("met_cnt", 0)).isEqualTo(size - size / 10);
+      assertThat(counts.getLong("dim_cnt", 0)).isEqualTo(size - (size + 6) / 7);
+
+      final DataFrame row = ((DataTable) sqlExecutionOperator.getOutputs()
+          .get("1")).getDataFrame();
+      assertThat(row.size()).isEqualTo(1);
+      assertThat(row.getString("dim", 0)).isEqualTo("it's '1'");
+      assertThat(row.getDouble("met", 0)).isEqualTo(2.0);
+    }
+  }
+
   private void testSqlExecution(Map<String, Object> customParams) throws Exception {
     Map<String, Object> params = new HashMap<>();
     params.put("sql.queries",
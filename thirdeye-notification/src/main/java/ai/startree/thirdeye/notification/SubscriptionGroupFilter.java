@@ -30,7 +30,6 @@ import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import ai.startree.thirdeye.spi.detection.AnomalyResultSource;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -70,11 +69,14 @@ public class SubscriptionGroupFilter {
         && !anomaly.getFeedback().getFeedbackType().isUnresolved();
   }
 
-  private static boolean shouldFilter(final AnomalyDTO anomaly, final long startTime) {
+  /**
+   * The parent, create time and ignore conditions are applied by the query. The feedback type and
+   * the result source are not in the anomaly index: they are checked here.
+   */
+  private static boolean shouldFilter(final AnomalyDTO anomaly) {
     return anomaly != null
         && !anomaly.isChild()
         && !hasFeedback(anomaly)
-        && anomaly.getCreateTime().getTime() > startTime
         && !isIgnore(anomaly)
         && ANOMALY_RESULT_SOURCES.contains(anomaly.getAnomalyResultSource());
   }
@@ -98,12 +100,17 @@ public class SubscriptionGroupFilter {
 
     // Fetch all the anomalies to be notified to the recipients
     final Map<Long, Long> vectorClocks = newVectorClocks(alertAssociations, sg.getVectorClocks());
-    return alertAssociations.stream()
-        .filter(aa -> isAlertActive(aa.getAlert().getId()))
-        .map(alertAssociation -> findAnomaliesForAlertAssociation(alertAssociation,
-            vectorClocks,
-            endTime))
-        .flatMap(Collection::stream)
+    final Set<Long> activeAlertIds = Set.copyOf(alertManager.findAllActiveIds());
+    final List<AnomalyFilter> anomalyFilters = alertAssociations.stream()
+        .filter(aa -> activeAlertIds.contains(aa.getAlert().getId()))
+        .map(aa -> toAnomalyFilter(aa, vectorClocks, endTime))
+        .collect(Collectors.toList());
+    if (anomalyFilters.isEmpty()) {
+      return Set.of();
+    }
+
+    return anomalyManager.filterParents(anomalyFilters).stream()
+        .filter(SubscriptionGroupFilter::shouldFilter)
         .collect(toSet());
   }
 
@@ -122,13 +129,7 @@ public class SubscriptionGroupFilter {
         .collect(Collectors.toList());
   }
 
-  private boolean isAlertActive(final long alertId) {
-    final AlertDTO alert = alertManager.findById(alertId);
-    return alert != null && alert.isActive();
-  }
-
-  private Set<AnomalyDTO> findAnomaliesForAlertAssociation(
-      final AlertAssociationDto aa,
+  private static AnomalyFilter toAnomalyFilter(final AlertAssociationDto aa,
       final Map<Long, Long> vectorClocks,
       final long endTime) {
     final long alertId = aa.getAlert().getId();
@@ -141,11 +142,6 @@ public class SubscriptionGroupFilter {
     optional(aa.getEnumerationItem())
         .map(AbstractDTO::getId)
         .ifPresent(anomalyFilter::setEnumerationItemId);
-
-    final Collection<AnomalyDTO> candidates = anomalyManager.filter(anomalyFilter);
-
-    return candidates.stream()
-        .filter(anomaly -> shouldFilter(anomaly, startTime))
-        .collect(toSet());
+    return anomalyFilter;
   }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertAssociationDto;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
+import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
+import ai.startree.thirdeye.spi.detection.AnomalyResultSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SubscriptionGroupFilterTest {
+
+  private static final long END_TIME = 100_000L;
+
+  private AnomalyManager anomalyManager;
+  private AlertManager alertManager;
+  private SubscriptionGroupFilter subscriptionGroupFilter;
+
+  private static AlertAssociationDto association(final long alertId, final Long enumerationItemId) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setId(alertId);
+    final AlertAssociationDto aa = new AlertAssociationDto().setAlert(alert);
+    if (enumerationItemId != null) {
+      final EnumerationItemDTO enumerationItem = new EnumerationItemDTO();
+      enumerationItem.setId(enumerationItemId);
+      aa.setEnumerationItem(enumerationItem);
+    }
+    return aa;
+  }
+
+  private static AnomalyDTO anomaly(final long id) {
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setAnomalyResultSource(AnomalyResultSource.DEFAULT_ANOMALY_DETECTION);
+    anomaly.setId(id);
+    return anomaly;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    anomalyManager = mock(AnomalyManager.class);
+    alertManager = mock(AlertManager.class);
+    subscriptionGroupFilter = new SubscriptionGroupFilter(anomalyManager, alertManager);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFilterQueriesAllAssociationsAtOnce() {
+    when(alertManager.findAllActiveIds()).thenReturn(List.of(1L, 3L));
+    final AnomalyDTO toNotify = anomaly(1L);
+    final AnomalyDTO withFeedback = anomaly(2L);
+    withFeedback.setFeedback(new AnomalyFeedbackDTO().setFeedbackType(AnomalyFeedbackType.ANOMALY));
+    final AnomalyDTO withUnresolvedFeedback = anomaly(3L);
+    withUnresolvedFeedback.setFeedback(new AnomalyFeedbackDTO()
+        .setFeedbackType(AnomalyFeedbackType.NO_FEEDBACK));
+    when(anomalyManager.filterParents(anyCollection()))
+        .thenReturn(List.of(toNotify, withFeedback, withUnresolvedFeedback));
+
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO()
+        .setAlertAssociations(List.of(
+            association(1L, 10L),
+            association(1L, 11L),
+            // inactive alert
+            association(2L, null),
+            association(3L, null)))
+        .setVectorClocks(Map.of(1L, 1000L, 3L, 2000L));
+
+    final Set<AnomalyDTO> anomalies = subscriptionGroupFilter.filter(sg, END_TIME);
+
+    assertThat(anomalies).containsExactlyInAnyOrder(toNotify, withUnresolvedFeedback);
+    final ArgumentCaptor<Collection<AnomalyFilter>> captor = ArgumentCaptor.forClass(
+        Collection.class);
+    verify(anomalyManager, times(1)).filterParents(captor.capture());
+    verify(anomalyManager, never()).filter(any(AnomalyFilter.class));
+    verify(alertManager, never()).findById(any());
+
+    assertThat(captor.getValue())
+        .extracting(AnomalyFilter::getAlertId, AnomalyFilter::getEnumerationItemId,
+            af -> af.getCreateTimeWindow().getStartMillis())
+        .containsExactly(
+            tuple(1L, 10L, 1001L),
+            tuple(1L, 11L, 1001L),
+            tuple(3L, null, 2001L));
+  }
+
+  @Test
+  public void testFilterWithoutActiveAlert() {
+    when(alertManager.findAllActiveIds()).thenReturn(List.of());
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO()
+        .setAlertAssociations(List.of(association(1L, null)));
+
+    assertThat(subscriptionGroupFilter.filter(sg, END_TIME)).isEmpty();
+    verify(anomalyManager, never()).filterParents(anyCollection());
+  }
+}
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datalayer;
 
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
+import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
 import ai.startree.thirdeye.datalayer.util.GenericResultSetMapper;
 import ai.startree.thirdeye.datalayer.util.SqlQueryBuilder;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -26,6 +27,8 @@ import com.google.inject.Singleton;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +83,69 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Reads the json entities whose index rows match the predicate, in a single query.
+   * Rows are mapped one by one while the result set is read: the json of a row can be garbage
+   * collected as soon as the row is mapped.
+   *
+   * @param predicate predicate on the index table columns
+   * @param mapper maps a json entity to the returned type. Eg: json deserialization.
+   */
+  public <T> List<T> findJsonEntitiesByIndex(final Predicate predicate, final Long limit,
+      final Long offset, final Class<? extends AbstractIndexEntity> indexClass,
+      final JsonEntityMapper<T> mapper, final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createFindJsonEntitiesByIndexStatement(connection,
+              indexClass,
+              predicate,
+              limit,
+              offset)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          final List<T> results = new ArrayList<>();
+          while (resultSet.next()) {
+            final GenericJsonEntity entity = new GenericJsonEntity()
+                .setJsonVal(resultSet.getString(2));
+            entity.setId(resultSet.getLong(1))
+                .setVersion(resultSet.getInt(3))
+                .setCreateTime(resultSet.getTimestamp(4))
+                .setUpdateTime(resultSet.getTimestamp(5));
+            results.add(mapper.map(entity));
+          }
+          return results;
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Reads only the base ids of the index rows matching the predicate.
+   */
+  public List<Long> findBaseIds(final Predicate predicate, final Long limit, final Long offset,
+      final Class<? extends AbstractIndexEntity> indexClass, final Connection connection)
+      throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createFindBaseIdsStatement(connection, indexClass, predicate, limit, offset)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          final List<Long> ids = new ArrayList<>();
+          while (resultSet.next()) {
+            ids.add(resultSet.getLong(1));
+          }
+          return ids;
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
   public <E extends AbstractEntity> Long save(final E entity, final Connection connection)
       throws Exception {
     final long tStart = System.nanoTime();
@@ -104,6 +170,70 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Inserts the entities with a single JDBC batch. Entities must be of the same class.
+   *
+   * @return the generated ids, in the order of the entities
+   */
+  public <E extends AbstractEntity> List<Long> saveBatch(final List<E> entities,
+      final Connection connection) throws Exception {
+    if (entities.isEmpty()) {
+      return List.of();
+    }
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement batchInsertStmt = sqlQueryBuilder
+          .createBatchInsertStatement(connection, entities.get(0).getClass())) {
+        for (final E entity : entities) {
+          sqlQueryBuilder.addBatchInsert(connection, batchInsertStmt, entity);
+        }
+        batchInsertStmt.executeBatch();
+        final List<Long> ids = new ArrayList<>(entities.size());
+        try (final ResultSet generatedKeys = batchInsertStmt.getGeneratedKeys()) {
+          for (final E entity : entities) {
+            ids.add(generatedKeys.next() ? generatedKeys.getLong(1) : entity.getId());
+          }
+        }
+        return ids;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Updates the entities by id with JDBC batches, one per update statement. Entities must be of
+   * the same class. See {@link SqlQueryBuilder#batchUpdateSql}.
+   *
+   * @return the update counts, in the order of the entities
+   */
+  public <E extends AbstractEntity> int[] updateBatch(final List<E> entities,
+      final Connection connection) throws Exception {
+    final int[] updateCounts = new int[entities.size()];
+    final Map<String, List<Integer>> indexesBySql = new LinkedHashMap<>();
+    for (int i = 0; i < entities.size(); i++) {
+      indexesBySql.computeIfAbsent(sqlQueryBuilder.batchUpdateSql(entities.get(i)),
+          k -> new ArrayList<>()).add(i);
+    }
+    for (final Map.Entry<String, List<Integer>> e : indexesBySql.entrySet()) {
+      final long tStart = System.nanoTime();
+      try (final PreparedStatement batchUpdateStmt = connection.prepareStatement(e.getKey())) {
+        for (final int i : e.getValue()) {
+          sqlQueryBuilder.addBatchUpdate(batchUpdateStmt, entities.get(i));
+        }
+        final int[] batchUpdateCounts = batchUpdateStmt.executeBatch();
+        for (int j = 0; j < batchUpdateCounts.length; j++) {
+          updateCounts[e.getValue().get(j)] = batchUpdateCounts[j];
+        }
+      } finally {
+        dbWriteCallCounter.inc();
+        dbWriteDuration.update(System.nanoTime() - tStart);
+      }
+    }
+    return updateCounts;
+  }
+
   public <E extends AbstractEntity> Integer update(final E entity, final Predicate predicate,
       final Connection connection)
       throws Exception {
@@ -193,4 +323,9 @@ public class DatabaseService {
       dbReadDuration.update(System.nanoTime() - tStart);
     }
   }
+
+  public interface JsonEntityMapper<T> {
+
+    T map(GenericJsonEntity entity) throws Exception;
+  }
 }
@@ -58,6 +58,7 @@ import ai.startree.thirdeye.datalayer.entity.RcaInvestigationIndex;
 import ai.startree.thirdeye.datalayer.entity.RootcauseTemplateIndex;
 import ai.startree.thirdeye.datalayer.entity.TaskEntity;
 import ai.startree.thirdeye.datalayer.entity.TaskIndex;
+import ai.startree.thirdeye.datalayer.util.DatabaseConfiguration;
 import ai.startree.thirdeye.datalayer.util.EntityMappingHolder;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
@@ -118,9 +119,15 @@ public class ThirdEyePersistenceModule extends AbstractModule {
   );
 
   private final DataSource dataSource;
+  private final DatabaseConfiguration databaseConfiguration;
 
-  public ThirdEyePersistenceModule(DataSource dataSource) {
+  public ThirdEyePersistenceModule(final DataSource dataSource,
+      final DatabaseConfiguration databaseConfiguration) {
     this.dataSource = dataSource;
+    // the configuration is absent when the server is set up with an externally provided datasource
+    this.databaseConfiguration = databaseConfiguration == null
+        ? new DatabaseConfiguration()
+        : databaseConfiguration;
   }
 
   public static String camelCaseToUnderscore(String str) {
@@ -131,6 +138,7 @@ public class ThirdEyePersistenceModule extends AbstractModule {
   protected void configure() {
     bind(javax.sql.DataSource.class).toInstance(dataSource);
     bind(DataSource.class).toInstance(dataSource);
+    bind(DatabaseConfiguration.class).toInstance(databaseConfiguration);
 
     bind(AnomalyManager.class).to(AnomalyManagerImpl.class).in(
         Scopes.SINGLETON);
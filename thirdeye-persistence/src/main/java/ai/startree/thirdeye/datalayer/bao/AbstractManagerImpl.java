@@ -22,6 +22,7 @@ import com.google.inject.persist.Transactional;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
@@ -48,6 +49,13 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
     return id;
   }
 
+  @Override
+  public int save(final List<E> entities) {
+    final Map<Boolean, List<E>> isNew = entities.stream()
+        .collect(Collectors.partitioningBy(e -> e.getId() == null));
+    return genericPojoDao.create(isNew.get(true)) + genericPojoDao.update(isNew.get(false));
+  }
+
   @Override
   public int update(final E entity, final Predicate predicate) {
     return genericPojoDao.update(entity, predicate);
@@ -16,6 +16,7 @@ package ai.startree.thirdeye.datalayer.bao;
 import static ai.startree.thirdeye.spi.Constants.METRICS_CACHE_TIMEOUT;
 
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
@@ -24,6 +25,7 @@ import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -90,4 +92,19 @@ public class AlertManagerImpl extends AbstractManagerImpl<AlertDTO> implements
   public Long countActive() {
     return count(Predicate.EQ("active", true));
   }
+
+  @Override
+  public List<Long> findAllActiveIds() {
+    return genericPojoDao.filterIds(new DaoFilter()
+        .setPredicate(Predicate.EQ("active", true))
+        .setBeanClass(AlertDTO.class));
+  }
+
+  @Override
+  public List<AlertDTO> findUpdatedSince(final Timestamp timestamp) {
+    // the update_time of the index is not set on create, hence the create_time check
+    return filter(new DaoFilter().setPredicate(Predicate.OR(
+        Predicate.GT("updateTime", timestamp),
+        Predicate.GT("createTime", timestamp))));
+  }
 }
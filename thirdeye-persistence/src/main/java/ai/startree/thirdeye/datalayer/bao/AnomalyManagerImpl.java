@@ -21,27 +21,25 @@ import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
@@ -61,9 +59,10 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   private static final String FIND_BY_FUNCTION_ID = "where functionId=:functionId";
 
-  // TODO inject as dependency
-  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(10,
-      new ThreadFactoryBuilder().setNameFormat("anomaly-manager-%d").build());
+  // max number of ids in a single IN query when loading children and feedbacks
+  private static final int HYDRATION_BATCH_SIZE = 1000;
+  // max number of anomaly filters OR-ed in a single query
+  private static final int FILTER_BATCH_SIZE = 100;
 
   @Inject
   public AnomalyManagerImpl(final GenericPojoDao genericPojoDao) {
@@ -78,6 +77,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   @Override
   public List<AnomalyDTO> filter(final DaoFilter daoFilter) {
+    // children are not loaded: the API listings do not return them
     final List<AnomalyDTO> anomalies = super.filter(daoFilter);
     return decorateWithFeedback(anomalies);
   }
@@ -105,6 +105,39 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     }
   }
 
+  /**
+   * Anomalies without children are created and updated with JDBC batches. Anomalies with
+   * children are saved one by one, after their children.
+   */
+  @Override
+  public int save(final List<AnomalyDTO> anomalies) {
+    final List<AnomalyDTO> toCreate = new ArrayList<>();
+    final List<AnomalyDTO> toUpdate = new ArrayList<>();
+    int saveCounter = 0;
+    for (final AnomalyDTO anomaly : anomalies) {
+      if (CollectionUtils.isNotEmpty(anomaly.getChildren())) {
+        if (save(anomaly) != null) {
+          saveCounter++;
+        }
+        continue;
+      }
+      final AnomalyDTO mergeAnomalyBean = convertMergeAnomalyDTO2Bean(anomaly);
+      mergeAnomalyBean.setChildIds(new HashSet<>());
+      if (anomaly.getId() == null) {
+        toCreate.add(mergeAnomalyBean);
+      } else {
+        toUpdate.add(mergeAnomalyBean);
+      }
+    }
+    saveCounter += genericPojoDao.create(toCreate);
+    for (final AnomalyDTO anomaly : toCreate) {
+      if (anomaly.getId() == null) {
+        LOG.error("Failed to store anomaly: {}", anomaly);
+      }
+    }
+    return saveCounter + genericPojoDao.update(toUpdate);
+  }
+
   private Long saveAnomaly(final AnomalyDTO anomalyDTO,
       final Set<AnomalyDTO> visitedAnomalies) {
     Preconditions.checkNotNull(anomalyDTO);
@@ -297,63 +330,99 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   public AnomalyDTO decorate(final AnomalyDTO anomaly,
       final Set<Long> visitedAnomalyIds) {
+    hydrate(List.of(anomaly), true, visitedAnomalyIds);
+    return anomaly;
+  }
+
+  @Override
+  public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
+    return hydrate(l, true, Set.of());
+  }
 
-    if (anomaly.getAnomalyFeedbackId() != null) {
-      final AnomalyFeedbackDTO anomalyFeedbackDTO = genericPojoDao
-          .get(anomaly.getAnomalyFeedbackId(), AnomalyFeedbackDTO.class);
-      anomaly.setFeedback(anomalyFeedbackDTO);
+  /**
+   * Loads the feedback and the children of the anomalies.
+   *
+   * The anomaly trees are loaded breadth-first: the children of all the anomalies of a level are
+   * loaded with a single query, then the feedbacks of all the anomalies are loaded with a single
+   * query. The trees are built in memory. A child is not attached to an anomaly if it is already
+   * an ancestor of this anomaly, or if its id is in excludedIds.
+   *
+   * @param withChildren if false, only the feedbacks are loaded
+   */
+  private List<AnomalyDTO> hydrate(final List<AnomalyDTO> anomalies, final boolean withChildren,
+      final Set<Long> excludedIds) {
+    final Map<Long, AnomalyDTO> descendants = new HashMap<>();
+    if (withChildren) {
+      Collection<AnomalyDTO> level = anomalies;
+      while (!level.isEmpty()) {
+        final List<Long> childIds = level.stream()
+            .map(AnomalyDTO::getChildIds)
+            .filter(Objects::nonNull)
+            .flatMap(Collection::stream)
+            .filter(id -> id != null && !descendants.containsKey(id) && !excludedIds.contains(id))
+            .distinct()
+            .collect(Collectors.toList());
+        level = getByIds(childIds, AnomalyDTO.class);
+        level.forEach(child -> descendants.put(child.getId(), child));
+      }
     }
 
-    visitedAnomalyIds.add(anomaly.getId());
-    anomaly
-        .setChildren(getChildAnomalies(anomaly, visitedAnomalyIds));
+    final List<AnomalyDTO> all = new ArrayList<>(anomalies);
+    all.addAll(descendants.values());
+    decorateWithFeedback(all);
 
-    return anomaly;
+    if (withChildren) {
+      final Set<AnomalyDTO> linked = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (final AnomalyDTO anomaly : anomalies) {
+        final Set<Long> ancestors = new HashSet<>(excludedIds);
+        linkChildren(anomaly, descendants, ancestors, linked);
+      }
+    }
+    return anomalies;
   }
 
-  private Set<AnomalyDTO> getChildAnomalies(
-      final AnomalyDTO anomalyDTO, final Set<Long> visitedAnomalyIds) {
+  /**
+   * Sets the children of an anomaly, depth-first. Children are linked before being added to the
+   * children set of their parent, because the set is hash based.
+   */
+  private static void linkChildren(final AnomalyDTO anomaly,
+      final Map<Long, AnomalyDTO> descendants, final Set<Long> ancestors,
+      final Set<AnomalyDTO> linked) {
+    final boolean added = ancestors.add(anomaly.getId());
     final Set<AnomalyDTO> children = new HashSet<>();
-    if (anomalyDTO.getChildIds() != null) {
-      for (final Long id : anomalyDTO.getChildIds()) {
-        if (id == null || visitedAnomalyIds.contains(id)) {
-          continue;
-        }
-
-        final AnomalyDTO childBean = genericPojoDao.get(id,
-            AnomalyDTO.class);
-        final AnomalyDTO child = decorate(childBean, visitedAnomalyIds);
-        children.add(child);
+    for (final Long id : optional(anomaly.getChildIds()).orElse(Set.of())) {
+      final AnomalyDTO child = descendants.get(id);
+      if (child == null || ancestors.contains(id)) {
+        continue;
+      }
+      if (!linked.contains(child)) {
+        linkChildren(child, descendants, ancestors, linked);
       }
+      children.add(child);
+    }
+    anomaly.setChildren(children);
+    linked.add(anomaly);
+    if (added) {
+      ancestors.remove(anomaly.getId());
     }
-    return children;
   }
 
-  @Override
-  public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
-    final List<Future<AnomalyDTO>> fList = l.stream()
-        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorate(anomalyDTO, new HashSet<>())))
-        .collect(Collectors.toList());
-
-    final List<AnomalyDTO> outList = new ArrayList<>(l.size());
-    for (final Future<AnomalyDTO> f : fList) {
-      try {
-        outList.add(f.get(60, TimeUnit.SECONDS));
-      } catch (final InterruptedException | TimeoutException | ExecutionException e) {
-        LOG.warn("Failed to convert MergedAnomalyResultDTO from bean: {}", e.toString());
-      }
+  private <E extends AbstractDTO> List<E> getByIds(final List<Long> ids, final Class<E> clazz) {
+    final List<E> out = new ArrayList<>(ids.size());
+    for (final List<Long> batch : Lists.partition(ids, HYDRATION_BATCH_SIZE)) {
+      out.addAll(genericPojoDao.get(batch, clazz));
     }
-
-    return outList;
+    return out;
   }
 
   private List<AnomalyDTO> decorateWithFeedback(final List<AnomalyDTO> anomalies) {
     final List<Long> feedbackIds = anomalies.stream()
         .map(AnomalyDTO::getAnomalyFeedbackId)
         .filter(Objects::nonNull)
+        .distinct()
         .collect(Collectors.toList());
 
-    final List<AnomalyFeedbackDTO> feedbacks = genericPojoDao.get(feedbackIds, AnomalyFeedbackDTO.class);
+    final List<AnomalyFeedbackDTO> feedbacks = getByIds(feedbackIds, AnomalyFeedbackDTO.class);
     final Map<Long, AnomalyFeedbackDTO> feedbackMap = feedbacks.stream()
         .collect(Collectors.toMap(AnomalyFeedbackDTO::getId, Function.identity()));
     anomalies.stream()
@@ -386,13 +455,33 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     if (filters != null && filters.getPredicate() != null) {
       predicate = Predicate.AND(predicate, filters.getPredicate());
     }
-    return findByPredicate(predicate).stream()
-        .map(anomaly -> decorate(anomaly, new HashSet<>()))
-        .collect(Collectors.toList());
+    return findByPredicate(predicate);
   }
 
   @Override
   public List<AnomalyDTO> filter(final AnomalyFilter af) {
+    final List<AnomalyDTO> list = super.filter(new DaoFilter().setPredicate(toPredicate(af)));
+    return hydrate(list, af.isWithChildren(), Set.of());
+  }
+
+  @Override
+  public List<AnomalyDTO> filterParents(final Collection<AnomalyFilter> anomalyFilters) {
+    final Map<Long, AnomalyDTO> anomalies = new LinkedHashMap<>();
+    for (final List<AnomalyFilter> batch : Lists.partition(List.copyOf(anomalyFilters),
+        FILTER_BATCH_SIZE)) {
+      final Predicate predicate = Predicate.AND(
+          Predicate.EQ("child", false),
+          Predicate.EQ("ignored", false),
+          Predicate.OR(batch.stream()
+              .map(AnomalyManagerImpl::toPredicate)
+              .toArray(Predicate[]::new)));
+      super.filter(new DaoFilter().setPredicate(predicate))
+          .forEach(anomaly -> anomalies.putIfAbsent(anomaly.getId(), anomaly));
+    }
+    return hydrate(new ArrayList<>(anomalies.values()), false, Set.of());
+  }
+
+  private static Predicate toPredicate(final AnomalyFilter af) {
     final List<Predicate> predicates = new ArrayList<>();
 
     optional(af.getCreateTimeWindow())
@@ -415,8 +504,6 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
         .map(id -> Predicate.EQ("enumerationItemId", id))
         .ifPresent(predicates::add);
 
-    final Predicate predicate = Predicate.AND(predicates.toArray(new Predicate[]{}));
-    final List<AnomalyDTO> list = filter(new DaoFilter().setPredicate(predicate));
-    return decorate(list);
+    return Predicate.AND(predicates.toArray(new Predicate[]{}));
   }
 }
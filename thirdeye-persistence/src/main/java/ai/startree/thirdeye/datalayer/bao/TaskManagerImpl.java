@@ -18,6 +18,7 @@ import static ai.startree.thirdeye.spi.Constants.TASK_EXPIRY_DURATION;
 import static ai.startree.thirdeye.spi.Constants.TASK_MAX_DELETES_PER_CLEANUP;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
+import ai.startree.thirdeye.datalayer.core.TaskAvailabilitySignal;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -72,11 +73,14 @@ public class TaskManagerImpl implements TaskManager {
 
   private final Meter orphanTasksCount;
   private final MetricRegistry metricRegistry;
+  private final TaskAvailabilitySignal taskAvailabilitySignal;
 
   @Inject
   public TaskManagerImpl(final TaskDao dao,
-      final MetricRegistry metricRegistry) {
+      final MetricRegistry metricRegistry,
+      final TaskAvailabilitySignal taskAvailabilitySignal) {
     this.dao = dao;
+    this.taskAvailabilitySignal = taskAvailabilitySignal;
     orphanTasksCount = metricRegistry.meter("orphanTasksCount");
     this.metricRegistry = metricRegistry;
     registerMetrics();
@@ -105,6 +109,9 @@ public class TaskManagerImpl implements TaskManager {
     }
     final Long id = dao.put(entity);
     entity.setId(id);
+    if (id != null && entity.getStatus() == TaskStatus.WAITING) {
+      taskAvailabilitySignal.signal();
+    }
     return id;
   }
 
@@ -157,6 +164,11 @@ public class TaskManagerImpl implements TaskManager {
     }
   }
 
+  @Override
+  public List<TaskDTO> acquireTasks(final Long workerId, final int limit) {
+    return dao.acquireTasks(workerId, limit);
+  }
+
   @Override
   public void updateStatusAndTaskEndTime(final Long id, final TaskStatus oldStatus,
       final TaskStatus newStatus,
@@ -340,6 +352,17 @@ public class TaskManagerImpl implements TaskManager {
         });
   }
 
+  @Override
+  public int save(final List<TaskDTO> entities) {
+    int saveCounter = 0;
+    for (final TaskDTO entity : entities) {
+      if (save(entity) != null) {
+        saveCounter++;
+      }
+    }
+    return saveCounter;
+  }
+
   @Override
   public int update(final TaskDTO entity, final Predicate predicate) {
     return dao.update(entity, predicate);
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process notification raised when an alert is created, updated or deleted.
+ *
+ * The detection cron scheduler listens to it to apply schedule changes right away instead of
+ * waiting for its next sweep. Schedulers running in other processes are not notified and pick up
+ * the change on their next incremental sweep.
+ */
+@Singleton
+public class AlertChangeNotifier {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AlertChangeNotifier.class);
+
+  private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+  public void addListener(final Consumer<Long> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(final Consumer<Long> listener) {
+    listeners.remove(listener);
+  }
+
+  public void notifyChanged(final Long alertId) {
+    for (final Consumer<Long> listener : listeners) {
+      try {
+        listener.accept(alertId);
+      } catch (final Exception e) {
+        LOG.error("Error notifying change of alert {}", alertId, e);
+      }
+    }
+  }
+}
@@ -36,6 +36,7 @@ import ai.startree.thirdeye.spi.util.ExceptionHandledRunnable;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -125,15 +126,51 @@ public class EnumerationItemMaintainer {
     final List<EnumerationItemDTO> existing = enumerationItemManager.filter(
         new EnumerationItemFilter().setAlertId(alertId));
 
-    final List<EnumerationItemDTO> synced = enumerationItems.stream()
-        .map(source -> source.setAlert(alertRef(alertId)))
-        .map(source -> findExistingOrCreate(source, idKeys, existing))
-        .collect(toList());
+    final List<EnumerationItemDTO> synced;
+    if (idKeys != null && !idKeys.isEmpty()) {
+      synced = syncUsingIdKeys(enumerationItems, idKeys, alertId, existing);
+    } else {
+      synced = enumerationItems.stream()
+          .map(source -> source.setAlert(alertRef(alertId)))
+          .map(source -> findExistingOrCreate(source, idKeys, existing))
+          .collect(toList());
+    }
 
     runAsync(() -> performCleanup(existing, synced));
     return synced;
   }
 
+  /**
+   * Same as {@link #findExistingOrCreate(EnumerationItemDTO, List, List)} for each enumeration
+   * item, but the created and updated enumeration items are written in bulk.
+   */
+  private List<EnumerationItemDTO> syncUsingIdKeys(
+      final List<EnumerationItemDTO> enumerationItems,
+      final List<String> idKeys,
+      final Long alertId,
+      final List<EnumerationItemDTO> existingEnumerationItems) {
+    final List<EnumerationItemDTO> synced = new ArrayList<>(enumerationItems.size());
+    final List<EnumerationItemDTO> toSave = new ArrayList<>();
+    for (final EnumerationItemDTO source : enumerationItems) {
+      requireNonNull(source.getName(), "enumeration item name does not exist!");
+      source.setAlert(alertRef(alertId));
+      final EnumerationItemDTO existing = findUsingIdKeys(source, idKeys,
+          existingEnumerationItems);
+      if (existing == null) {
+        toSave.add(source);
+        synced.add(source);
+      } else {
+        if (overwriteIfReqd(existing, source)) {
+          toSave.add(existing);
+        }
+        synced.add(existing);
+      }
+    }
+    enumerationItemManager.save(toSave);
+    synced.forEach(ei -> requireNonNull(ei.getId(), "expecting a generated ID"));
+    return synced;
+  }
+
   private void runAsync(final Runnable runnable) {
     executorService.submit(new ExceptionHandledRunnable(runnable));
   }
@@ -228,6 +265,16 @@ public class EnumerationItemMaintainer {
 
   private void updateExistingIfReqd(final EnumerationItemDTO existing,
       final EnumerationItemDTO source) {
+    if (overwriteIfReqd(existing, source)) {
+      enumerationItemManager.save(existing);
+    }
+  }
+
+  /**
+   * @return true if the existing enumeration item was changed and needs to be saved
+   */
+  private static boolean overwriteIfReqd(final EnumerationItemDTO existing,
+      final EnumerationItemDTO source) {
     if (!existing.getParams().equals(source.getParams()) ||
         !existing.getName().equals(source.getName()) ||
         !Objects.equals(existing.getAuth(), source.getAuth()) // auth can be null
@@ -236,13 +283,14 @@ public class EnumerationItemMaintainer {
        * Overwrite existing params with new params for the same key. The alert is the
        * source of truth.
        */
-      final EnumerationItemDTO updated = existing
+      existing
           .setParams(source.getParams())
           .setName(source.getName());
 
-      updated.setAuth(source.getAuth());
-      enumerationItemManager.save(updated);
+      existing.setAuth(source.getAuth());
+      return true;
     }
+    return false;
   }
 
   @VisibleForTesting
@@ -316,10 +364,10 @@ public class EnumerationItemMaintainer {
         .setEnumerationItemId(from.getId())
         .setAlertId(alertId);
 
-    anomalyManager.filter(filter).stream()
+    anomalyManager.save(anomalyManager.filter(filter).stream()
         .filter(Objects::nonNull)
         .map(a -> a.setEnumerationItem(enumerationItemRef(toId)))
-        .forEach(anomalyManager::update);
+        .collect(toList()));
 
     /* Migrate subscription groups */
     migrateSubscriptionGroups(from.getId(), toId, alertId);
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import com.google.inject.Singleton;
+import java.time.Duration;
+
+/**
+ * In-process signal raised when a new task is created.
+ *
+ * Task drivers running in the same process as the task producer (scheduler, api) wait on this
+ * signal instead of sleeping, so that a new task is picked up immediately. Task drivers in other
+ * processes are not notified and fall back to waiting for the configured delay.
+ *
+ * A generation counter is used to avoid lost wake-ups: a waiter reads the generation before
+ * looking for tasks and only waits if no signal was raised since.
+ */
+@Singleton
+public class TaskAvailabilitySignal {
+
+  private long generation = 0;
+
+  public synchronized long generation() {
+    return generation;
+  }
+
+  public synchronized void signal() {
+    generation++;
+    notifyAll();
+  }
+
+  /**
+   * Waits until a signal is raised after {@code sinceGeneration} or until the timeout elapses.
+   *
+   * @return true if a signal was raised, false if the timeout elapsed.
+   */
+  public synchronized boolean await(final long sinceGeneration, final Duration timeout)
+      throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + timeout.toMillis();
+    while (generation == sinceGeneration) {
+      final long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      wait(remaining);
+    }
+    return true;
+  }
+}
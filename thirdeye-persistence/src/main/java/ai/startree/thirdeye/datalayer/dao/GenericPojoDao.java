@@ -33,6 +33,7 @@ import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
 import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.util.DatabaseConfiguration;
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.ThirdEyeStatus;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
@@ -40,12 +41,15 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -63,12 +67,15 @@ public class GenericPojoDao {
 
   private final DatabaseService databaseService;
   private final DatabaseTransactionService transactionService;
+  private final int writeBatchSize;
 
   @Inject
   public GenericPojoDao(final DatabaseService databaseService,
-      final DatabaseTransactionService transactionService) {
+      final DatabaseTransactionService transactionService,
+      final DatabaseConfiguration databaseConfiguration) {
     this.databaseService = databaseService;
     this.transactionService = transactionService;
+    writeBatchSize = Math.max(1, databaseConfiguration.getWriteBatchSize());
 
     checkState(BEAN_INDEX_MAP.size() == SubEntities.BEAN_TYPE_MAP.size(),
         "Entity Metadata is inconsistent!");
@@ -131,16 +138,91 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Create the list of pojos with JDBC batches. Every transaction contains at most
+   * writeBatchSize entries. If a batch fails, its entries are created one-by-one (i.e., in
+   * separated transactions) and the ones that cause exceptions are skipped.
+   *
+   * @param pojos the pojos to be created, whose ID must be null. IDs are set on success.
+   * @return the number of entities created.
+   */
+  public <E extends AbstractDTO> int create(final List<E> pojos) {
+    if (CollectionUtils.isEmpty(pojos)) {
+      return 0;
+    }
+    int createCounter = 0;
+    for (final List<E> batch : batchesByClass(pojos)) {
+      createCounter += createBatch(batch);
+    }
+    return createCounter;
+  }
+
+  private <E extends AbstractDTO> int createBatch(final List<E> pojos) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
+        pojos.get(0).getClass());
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (final E pojo : pojos) {
+      checkArgument(pojo.getId() == null, "id must be null for create flow.");
+      /* Populate createTime before DB insert if not present already */
+      if (pojo.getCreateTime() == null) {
+        pojo.setCreateTime(now);
+      }
+    }
+    List<Long> ids = null;
+    try {
+      ids = transactionService.executeTransaction((connection) -> {
+        final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+        for (final E pojo : pojos) {
+          entities.add(toGenericJsonEntity(pojo));
+        }
+        final List<Long> generatedKeys = databaseService.saveBatch(entities, connection);
+        if (indexClass != null) {
+          final List<AbstractIndexEntity> indexEntities = new ArrayList<>(pojos.size());
+          for (int i = 0; i < pojos.size(); i++) {
+            final E pojo = pojos.get(i);
+            pojo.setId(generatedKeys.get(i));
+            final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
+                indexClass,
+                entities.get(i).getJsonVal());
+            abstractIndexEntity.setVersion(1);
+            abstractIndexEntity.setCreateTime(pojo.getCreateTime());
+            indexEntities.add(abstractIndexEntity);
+          }
+          databaseService.saveBatch(indexEntities, connection);
+        }
+        return generatedKeys;
+      }, null);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+    }
+    if (ids != null) {
+      for (int i = 0; i < pojos.size(); i++) {
+        pojos.get(i).setId(ids.get(i));
+      }
+      return pojos.size();
+    }
+
+    LOG.warn("Batch create of {} entities failed. Creating entities one by one.", pojos.size());
+    int createCounter = 0;
+    for (final E pojo : pojos) {
+      pojo.setId(null);
+      if (create(pojo) != null) {
+        createCounter++;
+      } else {
+        pojo.setId(null);
+      }
+    }
+    return createCounter;
+  }
+
   public <E extends AbstractDTO> int update(final E pojo) {
     return update(List.of(pojo));
   }
 
   /**
-   * Update the list of pojos in transaction mode. Every transaction contains MAX_BATCH_SIZE of
-   * entries. By default,
-   * this method update the entries in one transaction. If any entries cause an exception, this
-   * method will
-   * update the entries one-by-one (i.e., in separated transactions) and skip the one that causes
+   * Update the list of pojos in transaction mode. Every transaction contains at most
+   * writeBatchSize entries, written with JDBC batches. If a batch fails, this method updates
+   * its entries one-by-one (i.e., in separated transactions) and skips the ones that cause
    * exceptions.
    *
    * @param pojos the pojo to be updated, whose ID cannot be null; otherwise, it will be
@@ -152,16 +234,90 @@ public class GenericPojoDao {
       return 0;
     }
     int updateCounter = 0;
-    for (final E pojo : pojos) {
-      try {
-        updateCounter += update(pojo, null);
-      } catch (final Exception e) {
-        LOG.error("Could not update entity : {}", pojo, e);
-      }
+    for (final List<E> batch : batchesByClass(pojos)) {
+      updateCounter += updateBatch(batch);
     }
     return updateCounter;
   }
 
+  private <E extends AbstractDTO> int updateBatch(final List<E> batch) {
+    final List<E> pojos = new ArrayList<>(batch.size());
+    for (final E pojo : batch) {
+      if (pojo.getId() == null) {
+        LOG.error("Could not update entity : {}. An id is required to update the entity.", pojo);
+      } else {
+        pojos.add(pojo);
+      }
+    }
+    if (pojos.size() <= 1) {
+      return pojos.isEmpty() ? 0 : update(pojos.get(0), null);
+    }
+
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
+        pojos.get(0).getClass());
+    /* Update updateTime before DB update. Restore if update fails */
+    final List<Timestamp> lastUpdateTimes = new ArrayList<>(pojos.size());
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (final E pojo : pojos) {
+      lastUpdateTimes.add(pojo.getUpdateTime());
+      pojo.setUpdateTime(now);
+    }
+    Integer updateCounter = null;
+    try {
+      updateCounter = transactionService.executeTransaction((connection) -> {
+        final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+        for (final E pojo : pojos) {
+          entities.add(toGenericJsonEntity(pojo));
+        }
+        final int[] updateCounts = databaseService.updateBatch(entities, connection);
+        // like update(pojo, predicate): indexes are only updated if the entity was updated
+        final List<AbstractIndexEntity> indexEntities = new ArrayList<>(pojos.size());
+        int rowsUpdated = 0;
+        for (int i = 0; i < pojos.size(); i++) {
+          if (updateCounts[i] == 1 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+            rowsUpdated++;
+            if (indexClass != null) {
+              indexEntities.add(toAbstractIndexEntity(pojos.get(i),
+                  indexClass,
+                  entities.get(i).getJsonVal()));
+            }
+          }
+        }
+        databaseService.updateBatch(indexEntities, connection);
+        return rowsUpdated;
+      }, null);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+    }
+    if (updateCounter != null) {
+      return updateCounter;
+    }
+
+    LOG.warn("Batch update of {} entities failed. Updating entities one by one.", pojos.size());
+    int fallbackUpdateCounter = 0;
+    for (int i = 0; i < pojos.size(); i++) {
+      final E pojo = pojos.get(i);
+      pojo.setUpdateTime(lastUpdateTimes.get(i));
+      fallbackUpdateCounter += update(pojo, null);
+    }
+    return fallbackUpdateCounter;
+  }
+
+  /**
+   * Splits the pojos in batches of at most writeBatchSize pojos of the same class.
+   */
+  private <E extends AbstractDTO> List<List<E>> batchesByClass(final List<E> pojos) {
+    final Map<Class<?>, List<E>> pojosByClass = new LinkedHashMap<>();
+    for (final E pojo : pojos) {
+      pojosByClass.computeIfAbsent(pojo.getClass(), k -> new ArrayList<>()).add(pojo);
+    }
+    final List<List<E>> batches = new ArrayList<>();
+    for (final List<E> pojosOfClass : pojosByClass.values()) {
+      batches.addAll(Lists.partition(pojosOfClass, writeBatchSize));
+    }
+    return batches;
+  }
+
   public <E extends AbstractDTO> int update(final E pojo, final Predicate predicate) {
     checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
 
@@ -321,20 +477,27 @@ public class GenericPojoDao {
   /**
    * Use this method when you want to filter out a subset of the entities based on predicates,
    * limits, offsets, etc.
-   * If you wish to get all the entities then please use {@link #getAll} as the filter method does a
-   * two-step operation to get the entities whereas {@link #getAll} gets the entities in a single
-   * operation.
+   * The index table and the entity table are read in a single query. Entities are ordered by id.
    *
    * @param daoFilter required filters to filter the result
    */
   @SuppressWarnings("unchecked")
   public <E extends AbstractDTO> List<E> filter(final DaoFilter daoFilter) {
-    final Class<? extends AbstractDTO> beanClass = daoFilter.getBeanClass();
-    final List<Long> ids = filterIds(daoFilter);
-    if (ids.isEmpty()) {
+    final Class<E> beanClass = (Class<E>) daoFilter.getBeanClass();
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+    try {
+      validate(daoFilter);
+      return transactionService.executeTransaction(
+          (connection) -> databaseService.findJsonEntitiesByIndex(daoFilter.getPredicate(),
+              daoFilter.getLimit(),
+              daoFilter.getOffset(),
+              indexClass,
+              entity -> toDto(entity, beanClass),
+              connection), emptyList());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
       return emptyList();
     }
-    return (List<E>) get(ids, beanClass);
   }
 
   /**
@@ -378,8 +541,7 @@ public class GenericPojoDao {
   }
 
   public <E extends AbstractDTO> List<E> get(final Predicate predicate, final Class<E> pojoClass) {
-    final List<Long> idsToFind = getIdsByPredicate(predicate, pojoClass);
-    return get(idsToFind, pojoClass);
+    return filter(new DaoFilter().setPredicate(predicate).setBeanClass(pojoClass));
   }
 
   public <E extends AbstractDTO> List<Long> getIdsByPredicate(final Predicate predicate,
@@ -393,19 +555,12 @@ public class GenericPojoDao {
     try {
       validate(daoFilter);
       //find the matching ids
-      final List<? extends AbstractIndexEntity> indexEntities = transactionService.executeTransaction(
-          (connection) -> databaseService.findAll(daoFilter.getPredicate(),
+      return transactionService.executeTransaction(
+          (connection) -> databaseService.findBaseIds(daoFilter.getPredicate(),
               daoFilter.getLimit(),
               daoFilter.getOffset(),
               indexClass,
               connection), emptyList());
-      final List<Long> idsToReturn = new ArrayList<>();
-      if (CollectionUtils.isNotEmpty(indexEntities)) {
-        for (final AbstractIndexEntity entity : indexEntities) {
-          idsToReturn.add(entity.getBaseId());
-        }
-      }
-      return idsToReturn;
     } catch (final SQLException e) {
       LOG.error(e.getMessage(), e);
       return emptyList();
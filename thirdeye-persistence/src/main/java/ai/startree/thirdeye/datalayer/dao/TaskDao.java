@@ -23,11 +23,16 @@ import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import ai.startree.thirdeye.spi.task.TaskStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -46,9 +51,16 @@ public class TaskDao {
   private static final boolean IS_DEBUG = LOG.isDebugEnabled();
   private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
 
+  private static final String LOCK_WAITING_TASKS_SQL =
+      "SELECT id FROM task_entity WHERE status = ? ORDER BY create_time ASC LIMIT ? FOR UPDATE";
+  private static final String SKIP_LOCKED = " SKIP LOCKED";
+
   private final DatabaseService databaseService;
   private final DatabaseTransactionService transactionService;
 
+  /* Whether the database supports FOR UPDATE SKIP LOCKED. Lazily resolved. */
+  private volatile Boolean skipLockedSupported;
+
   @Inject
   public TaskDao(final DatabaseService databaseService,
       final DatabaseTransactionService transactionService) {
@@ -272,6 +284,77 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Claims up to {@code limit} WAITING tasks for a worker in a single transaction.
+   * The task rows are locked with SELECT ... FOR UPDATE, then updated to RUNNING with the
+   * worker id. On MySQL 8+, SKIP LOCKED is used so that concurrent workers claim disjoint
+   * batches without waiting on each other. On other databases, concurrent claims are serialized
+   * by the row locks.
+   *
+   * @return the claimed tasks. Empty if there is no WAITING task or if the claim failed.
+   */
+  public List<TaskDTO> acquireTasks(final long workerId, final int limit) {
+    try {
+      return transactionService.executeTransaction(
+          (connection) -> acquireTasks(workerId, limit, connection),
+          Collections.emptyList());
+    } catch (SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyList();
+    }
+  }
+
+  private List<TaskDTO> acquireTasks(final long workerId, final int limit,
+      final Connection connection) throws Exception {
+    final List<Long> ids = lockWaitingTaskIds(limit, connection);
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<TaskEntity> entities = databaseService.findAll(
+        Predicate.IN("id", ids.toArray()), null, null, TaskEntity.class, connection);
+    final long now = System.currentTimeMillis();
+    final List<TaskDTO> claimed = new ArrayList<>(entities.size());
+    for (final TaskEntity entity : entities) {
+      final TaskDTO dto = toDto(entity);
+      dto.setStatus(TaskStatus.RUNNING)
+          .setWorkerId(workerId)
+          .setStartTime(now)
+          .setLastActive(new Timestamp(now));
+      dto.setVersion(dto.getVersion() + 1);
+      databaseService.update(toEntity(dto), null, connection);
+      claimed.add(dto);
+    }
+    return claimed;
+  }
+
+  private List<Long> lockWaitingTaskIds(final int limit, final Connection connection)
+      throws SQLException {
+    final String sql = isSkipLockedSupported(connection)
+        ? LOCK_WAITING_TASKS_SQL + SKIP_LOCKED
+        : LOCK_WAITING_TASKS_SQL;
+    try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, TaskStatus.WAITING.toString());
+      statement.setInt(2, limit);
+      try (final ResultSet resultSet = statement.executeQuery()) {
+        final List<Long> ids = new ArrayList<>();
+        while (resultSet.next()) {
+          ids.add(resultSet.getLong(1));
+        }
+        return ids;
+      }
+    }
+  }
+
+  private boolean isSkipLockedSupported(final Connection connection) throws SQLException {
+    if (skipLockedSupported == null) {
+      final DatabaseMetaData metaData = connection.getMetaData();
+      skipLockedSupported = "MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())
+          && metaData.getDatabaseMajorVersion() >= 8;
+      LOG.info("Task claim uses SKIP LOCKED: {}", skipLockedSupported);
+    }
+    return skipLockedSupported;
+  }
+
   /**
    * Dump all entities of type entityClass to logger
    * This utility is useful to dump the entire table. However, it gets executed in code regularly in
@@ -25,6 +25,11 @@ public class DatabaseConfiguration {
   private String url;
   private String driver;
   private Map<String, String> properties = Maps.newLinkedHashMap();
+  /**
+   * Max number of entities written in a single JDBC batch and transaction by bulk create and
+   * update operations.
+   */
+  private int writeBatchSize = 100;
 
   public String getUser() {
     return user;
@@ -71,4 +76,13 @@ public class DatabaseConfiguration {
     this.properties = properties;
     return this;
   }
+
+  public int getWriteBatchSize() {
+    return writeBatchSize;
+  }
+
+  public DatabaseConfiguration setWriteBatchSize(final int writeBatchSize) {
+    this.writeBatchSize = writeBatchSize;
+    return this;
+  }
 }
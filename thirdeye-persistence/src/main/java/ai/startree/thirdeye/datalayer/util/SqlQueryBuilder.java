@@ -26,6 +26,8 @@ import java.lang.reflect.Array;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -53,6 +55,18 @@ public class SqlQueryBuilder {
       Pattern.compile(PARAM_REGEX, Pattern.CASE_INSENSITIVE);
   private static final Set<String> AUTO_UPDATE_COLUMN_SET =
       Sets.newHashSet("id", "last_modified");
+  public static final String GENERIC_JSON_ENTITY_TABLE = "generic_json_entity";
+  /**
+   * Columns of generic_json_entity needed to build a dto. In this order.
+   */
+  public static final String JSON_ENTITY_COLUMNS =
+      "g.id, g.json_val, g.version, g.create_time, g.update_time";
+  /**
+   * Hint for drivers that support fetching rows by chunks. Eg: MySQL with useCursorFetch=true.
+   */
+  private static final int FETCH_SIZE = 1000;
+  private static final Set<String> BATCH_UPDATE_SKIPPED_COLUMN_SET =
+      Sets.newHashSet("id", "base_id", "last_modified", "create_time");
   //insert sql per table
   private final Map<String, String> insertSqlMap = new HashMap<>();
   private final EntityMappingHolder entityMappingHolder;
@@ -104,6 +118,34 @@ public class SqlQueryBuilder {
     final String sql = insertSqlMap.get(tableName);
     final PreparedStatement preparedStatement =
         conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    bindInsertParameters(conn, preparedStatement, tableName, entity);
+    return preparedStatement;
+  }
+
+  /**
+   * Returns an insert statement without parameters. Entities are added to the batch with
+   * {@link #addBatchInsert}. Generated keys are returned.
+   */
+  public PreparedStatement createBatchInsertStatement(final Connection conn,
+      final Class<? extends AbstractEntity> entityClass) throws SQLException {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName()));
+    final String sql = generateInsertSql(tableName,
+        entityMappingHolder.columnInfoPerTable.get(tableName));
+    return conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+  }
+
+  public void addBatchInsert(final Connection conn, final PreparedStatement preparedStatement,
+      final AbstractEntity entity) throws Exception {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName()));
+    bindInsertParameters(conn, preparedStatement, tableName, entity);
+    preparedStatement.addBatch();
+  }
+
+  private void bindInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final String tableName,
+      final AbstractEntity entity) throws Exception {
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
     int parameterIndex = 1;
@@ -126,7 +168,68 @@ public class SqlQueryBuilder {
         }
       }
     }
-    return preparedStatement;
+  }
+
+  /**
+   * Returns the update statement of the entity, without parameters, updating a row by id.
+   * Entities with the same statement can be added to a single batch with {@link #addBatchUpdate}.
+   * Like {@link #createUpdateStatement}, only non-null fields are updated: the statement depends
+   * on the null fields of the entity. The create time is never updated.
+   */
+  public String batchUpdateSql(final AbstractEntity entity) throws Exception {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName()));
+    final StringBuilder sqlBuilder = new StringBuilder("UPDATE " + tableName + " SET ");
+    String delim = "";
+    for (final ColumnInfo columnInfo : entityMappingHolder.columnInfoPerTable.get(tableName)
+        .values()) {
+      if (isBatchUpdated(columnInfo, entity)) {
+        sqlBuilder.append(delim).append(columnInfo.getColumnNameInDB()).append("=?");
+        delim = ",";
+      }
+    }
+    return sqlBuilder.append(" WHERE ").append(batchUpdateIdColumn(tableName)).append("=?")
+        .toString();
+  }
+
+  /**
+   * Binds the entity to a statement of {@link #batchUpdateSql} and adds it to the batch.
+   */
+  public void addBatchUpdate(final PreparedStatement preparedStatement,
+      final AbstractEntity entity) throws Exception {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName()));
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(tableName);
+    int parameterIndex = 1;
+    ColumnInfo idColumnInfo = null;
+    for (final ColumnInfo columnInfo : columnInfoMap.values()) {
+      if (columnInfo.getColumnNameInDB().toLowerCase().equals(batchUpdateIdColumn(tableName))) {
+        idColumnInfo = columnInfo;
+      }
+      if (isBatchUpdated(columnInfo, entity)) {
+        Object val = columnInfo.getField().get(entity);
+        if (Enum.class.isAssignableFrom(val.getClass())) {
+          val = val.toString();
+        }
+        preparedStatement.setObject(parameterIndex++, val, columnInfo.getSqlType());
+      }
+    }
+    requireNonNull(idColumnInfo, "no id column in table " + tableName);
+    preparedStatement.setObject(parameterIndex, idColumnInfo.getField().get(entity),
+        idColumnInfo.getSqlType());
+    preparedStatement.addBatch();
+  }
+
+  private static boolean isBatchUpdated(final ColumnInfo columnInfo, final AbstractEntity entity)
+      throws IllegalAccessException {
+    return columnInfo.getField() != null
+        && !BATCH_UPDATE_SKIPPED_COLUMN_SET.contains(columnInfo.getColumnNameInDB().toLowerCase())
+        && columnInfo.getField().get(entity) != null;
+  }
+
+  private String batchUpdateIdColumn(final String tableName) {
+    return GENERIC_JSON_ENTITY_TABLE.equals(tableName) ? "id" : "base_id";
   }
 
   public PreparedStatement createUpdateStatement(final Connection connection, final AbstractEntity entity,
@@ -235,6 +338,76 @@ public class SqlQueryBuilder {
     return prepareStatement;
   }
 
+  /**
+   * Returns a statement selecting the json entities whose index rows match the predicate, in a
+   * single query joining the index table and the generic_json_entity table.
+   * Only the columns needed to build the entity are selected. See {@link #JSON_ENTITY_COLUMNS}.
+   * Rows are ordered by id to make pagination deterministic.
+   */
+  public PreparedStatement createFindJsonEntitiesByIndexStatement(final Connection connection,
+      final Class<? extends AbstractEntity> indexEntityClass, final Predicate predicate,
+      final Long limit, final Long offset) throws Exception {
+    final String indexTableName = entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(indexEntityClass.getSimpleName());
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+        .append(JSON_ENTITY_COLUMNS)
+        .append(" FROM ").append(indexTableName).append(" i")
+        .append(" JOIN ").append(GENERIC_JSON_ENTITY_TABLE).append(" g ON g.id = i.base_id");
+    return createFilterStatement(connection, sqlBuilder, indexTableName, "i.", predicate,
+        " ORDER BY i.base_id", limit, offset);
+  }
+
+  /**
+   * Returns a statement selecting only the base_id column of the index rows matching the
+   * predicate. Rows are ordered by base_id, so that pages of limit and offset are stable.
+   */
+  public PreparedStatement createFindBaseIdsStatement(final Connection connection,
+      final Class<? extends AbstractEntity> indexEntityClass, final Predicate predicate,
+      final Long limit, final Long offset) throws Exception {
+    final String indexTableName = entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(indexEntityClass.getSimpleName());
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT base_id FROM " + indexTableName);
+    return createFilterStatement(connection, sqlBuilder, indexTableName, "", predicate,
+        " ORDER BY base_id", limit, offset);
+  }
+
+  private PreparedStatement createFilterStatement(final Connection connection,
+      final StringBuilder sqlBuilder, final String tableName, final String columnPrefix,
+      final Predicate predicate, final String orderBy, final Long limit, final Long offset)
+      throws Exception {
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    if (predicate != null) {
+      final BiMap<String, String> entityNameToDBNameMapping =
+          entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
+      final StringBuilder whereClause = new StringBuilder(" WHERE ");
+      generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause,
+          columnPrefix);
+      sqlBuilder.append(whereClause);
+    }
+    sqlBuilder.append(orderBy);
+    if (limit != null) {
+      sqlBuilder.append(" LIMIT ").append(limit);
+    }
+    if (offset != null) {
+      sqlBuilder.append(" OFFSET ").append(offset);
+    }
+    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString(),
+        ResultSet.TYPE_FORWARD_ONLY,
+        ResultSet.CONCUR_READ_ONLY);
+    prepareStatement.setFetchSize(FETCH_SIZE);
+    int parameterIndex = 1;
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(tableName);
+    for (final Pair<String, Object> pair : parametersList) {
+      final String dbFieldName = pair.getKey();
+      final ColumnInfo info = columnInfoMap.get(dbFieldName);
+      checkNotNull(info,
+          "Found field '%s' but expected %s", dbFieldName, columnInfoMap.keySet());
+      prepareStatement.setObject(parameterIndex++, pair.getValue(), info.getSqlType());
+    }
+    return prepareStatement;
+  }
+
   public PreparedStatement createCountStatement(final Connection connection, final Predicate predicate,
       final Class<? extends AbstractEntity> entityClass) throws Exception {
     final String tableName =
@@ -272,6 +445,15 @@ public class SqlQueryBuilder {
 
   private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
       final Predicate predicate, final List<Pair<String, Object>> parametersList, final StringBuilder whereClause) {
+    generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause, "");
+  }
+
+  /**
+   * @param columnPrefix prepended to column names in the where clause. Eg: a table alias.
+   */
+  private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
+      final Predicate predicate, final List<Pair<String, Object>> parametersList,
+      final StringBuilder whereClause, final String columnPrefix) {
     String columnName = null;
 
     if (predicate.getLhs() != null) {
@@ -289,7 +471,7 @@ public class SqlQueryBuilder {
         for (final Predicate childPredicate : predicate.getChildPredicates()) {
           whereClause.append(delim);
           generateWhereClause(entityNameToDBNameMapping, childPredicate, parametersList,
-              whereClause);
+              whereClause, columnPrefix);
           delim = "  " + predicate.getOper().toString() + " ";
         }
         whereClause.append(")");
@@ -301,8 +483,8 @@ public class SqlQueryBuilder {
       case NEQ:
       case LE:
       case GE:
-        whereClause.append(columnName).append(" ").append(predicate.getOper().toString())
-            .append(" ?");
+        whereClause.append(columnPrefix).append(columnName).append(" ")
+            .append(predicate.getOper().toString()).append(" ?");
         parametersList.add(ImmutablePair.of(columnName, predicate.getRhs()));
         break;
       case IN:
@@ -311,8 +493,8 @@ public class SqlQueryBuilder {
           if (!rhs.getClass().isArray()) {
             rhs = rhs.toString().split(",");
           }
-          whereClause.append(columnName).append(" ").append(Predicate.OPER.IN)
-              .append("(");
+          whereClause.append(columnPrefix).append(columnName).append(" ")
+              .append(Predicate.OPER.IN).append("(");
           delim = "";
           final int length = Array.getLength(rhs);
           if (length > 0) {
@@ -328,7 +510,8 @@ public class SqlQueryBuilder {
         }
         break;
       case BETWEEN:
-        whereClause.append(columnName).append(predicate.getOper().toString()).append("? AND ?");
+        whereClause.append(columnPrefix).append(columnName).append(predicate.getOper().toString())
+            .append("? AND ?");
         final ImmutablePair<Object, Object> pair = (ImmutablePair<Object, Object>) predicate.getRhs();
         parametersList.add(ImmutablePair.of(columnName, pair.getLeft()));
         parametersList.add(ImmutablePair.of(columnName, pair.getRight()));
@@ -152,7 +152,7 @@ public class MySqlTestDatabase {
   private static Injector buildInjector(final DatabaseConfiguration configuration) {
     try {
       final DataSource dataSource = newDataSource(configuration);
-      return Guice.createInjector(new ThirdEyePersistenceModule(dataSource));
+      return Guice.createInjector(new ThirdEyePersistenceModule(dataSource, configuration));
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
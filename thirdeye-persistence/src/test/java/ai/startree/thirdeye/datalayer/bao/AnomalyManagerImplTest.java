@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AnomalyManagerImplTest {
+
+  private GenericPojoDao genericPojoDao;
+  private AnomalyManagerImpl anomalyManager;
+  private Map<Long, AnomalyDTO> anomalies;
+
+  private static AnomalyDTO anomaly(final long id, final Long... childIds) {
+    final AnomalyDTO anomaly = new AnomalyDTO().setChildIds(Set.of(childIds));
+    anomaly.setId(id);
+    return anomaly;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    genericPojoDao = mock(GenericPojoDao.class);
+    anomalyManager = new AnomalyManagerImpl(genericPojoDao);
+    anomalies = new HashMap<>();
+    when(genericPojoDao.get(anyList(), eq(AnomalyDTO.class))).thenAnswer(i -> {
+      final List<Long> ids = i.getArgument(0);
+      // return copies: the dao returns new instances at each call
+      return ids.stream()
+          .filter(anomalies::containsKey)
+          .map(id -> anomaly(id, anomalies.get(id).getChildIds().toArray(new Long[]{})))
+          .collect(Collectors.toList());
+    });
+    when(genericPojoDao.get(anyList(), eq(AnomalyFeedbackDTO.class))).thenAnswer(i -> {
+      final List<Long> ids = i.getArgument(0);
+      return ids.stream().map(id -> {
+        final AnomalyFeedbackDTO feedback = new AnomalyFeedbackDTO();
+        feedback.setId(id);
+        return feedback;
+      }).collect(Collectors.toList());
+    });
+  }
+
+  private void store(final AnomalyDTO... toStore) {
+    for (final AnomalyDTO anomaly : toStore) {
+      anomalies.put(anomaly.getId(), anomaly);
+    }
+  }
+
+  @Test
+  public void testDecorateLoadsOneLevelPerQuery() {
+    store(anomaly(1L, 2L, 3L), anomaly(2L, 4L), anomaly(3L, 5L), anomaly(4L), anomaly(5L));
+    final AnomalyDTO root = anomaly(1L, 2L, 3L);
+    root.setAnomalyFeedbackId(10L);
+
+    anomalyManager.decorate(List.of(root));
+
+    // levels {2, 3} and {4, 5}. The last level has no children: no query
+    verify(genericPojoDao, times(2)).get(anyList(), eq(AnomalyDTO.class));
+    verify(genericPojoDao, times(1)).get(anyList(), eq(AnomalyFeedbackDTO.class));
+    verify(genericPojoDao, never()).get(any(Long.class), any());
+
+    assertThat(((AnomalyFeedbackDTO) root.getFeedback()).getId()).isEqualTo(10L);
+    assertThat(root.getChildren()).extracting(AnomalyDTO::getId).containsExactlyInAnyOrder(2L, 3L);
+    for (final AnomalyDTO child : root.getChildren()) {
+      assertThat(child.getChildren()).hasSize(1);
+      assertThat(child.getChildren().iterator().next().getChildren()).isEmpty();
+    }
+  }
+
+  @Test
+  public void testDecorateWithCycle() {
+    store(anomaly(1L, 2L), anomaly(2L, 1L, 3L), anomaly(3L, 2L));
+    final AnomalyDTO root = anomaly(1L, 2L);
+
+    anomalyManager.decorate(List.of(root));
+
+    assertThat(root.getChildren()).hasSize(1);
+    final AnomalyDTO child = root.getChildren().iterator().next();
+    assertThat(child.getId()).isEqualTo(2L);
+    // 1 is an ancestor of 2
+    assertThat(child.getChildren()).extracting(AnomalyDTO::getId).containsExactly(3L);
+    // 2 is an ancestor of 3
+    assertThat(child.getChildren().iterator().next().getChildren()).isEmpty();
+  }
+
+  @Test
+  public void testDecorateWithExcludedIds() {
+    store(anomaly(1L, 2L), anomaly(2L, 1L));
+    final AnomalyDTO root = anomaly(1L, 2L);
+
+    anomalyManager.decorate(root, Set.of(2L));
+
+    assertThat(root.getChildren()).isEmpty();
+    verify(genericPojoDao, never()).get(anyList(), eq(AnomalyDTO.class));
+  }
+
+  @Test
+  public void testFilterWithoutChildren() {
+    final AnomalyDTO root = anomaly(1L, 2L);
+    root.setAnomalyFeedbackId(10L);
+    when(genericPojoDao.filter(any(DaoFilter.class))).thenReturn(List.of(root));
+
+    final List<AnomalyDTO> result = anomalyManager.filter(new AnomalyFilter()
+        .setAlertId(1L)
+        .setWithChildren(false));
+
+    assertThat(result).containsExactly(root);
+    assertThat(((AnomalyFeedbackDTO) root.getFeedback()).getId()).isEqualTo(10L);
+    verify(genericPojoDao, never()).get(anyList(), eq(AnomalyDTO.class));
+  }
+
+  @Test
+  public void testFilterParentsBatchesFiltersAndDeduplicates() {
+    final AnomalyDTO a1 = anomaly(1L);
+    final AnomalyDTO a2 = anomaly(2L);
+    when(genericPojoDao.filter(any(DaoFilter.class)))
+        .thenReturn(List.of(a1, a2))
+        .thenReturn(List.of(a2));
+    final List<AnomalyFilter> filters = LongStream.range(0, 150)
+        .mapToObj(alertId -> new AnomalyFilter().setAlertId(alertId))
+        .collect(Collectors.toList());
+
+    final List<AnomalyDTO> result = anomalyManager.filterParents(filters);
+
+    assertThat(result).containsExactly(a1, a2);
+    // 150 filters: 2 batches
+    verify(genericPojoDao, times(2)).filter(any(DaoFilter.class));
+    verify(genericPojoDao, never()).get(anyList(), eq(AnomalyDTO.class));
+  }
+}
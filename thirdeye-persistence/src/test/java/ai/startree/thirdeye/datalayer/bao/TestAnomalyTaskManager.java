@@ -188,6 +188,25 @@ public class TestAnomalyTaskManager {
     Assert.assertTrue(timeoutTasksWithinOneDays.size() > 0);
   }
 
+  @Test(dependsOnMethods = {"testFindByStatusWithinDays", "testFindTimeoutTasksWithinDays"})
+  public void testAcquireTasks() {
+    final Long workerId = 2L;
+    final List<TaskDTO> claimed = taskDAO.acquireTasks(workerId, 10);
+    assertThat(claimed).isNotEmpty();
+    for (final TaskDTO task : claimed) {
+      assertThat(task.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(task.getWorkerId()).isEqualTo(workerId);
+      final TaskDTO persisted = taskDAO.findById(task.getId());
+      assertThat(persisted.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(persisted.getWorkerId()).isEqualTo(workerId);
+      assertThat(persisted.getVersion()).isEqualTo(task.getVersion());
+    }
+
+    // all WAITING tasks were claimed
+    assertThat(taskDAO.findByStatusOrderByCreateTime(TaskStatus.WAITING, 10, true)).isEmpty();
+    assertThat(taskDAO.acquireTasks(workerId, 10)).isEmpty();
+  }
+
   TaskDTO getTestTaskSpec(JobDTO anomalyJobSpec) throws JsonProcessingException {
     TaskDTO jobSpec = new TaskDTO();
     jobSpec.setJobName("Test_Anomaly_Task");
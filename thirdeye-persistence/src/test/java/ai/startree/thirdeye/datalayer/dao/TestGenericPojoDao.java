@@ -26,6 +26,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -201,4 +202,56 @@ public class TestGenericPojoDao {
     }
     assertThat(entryCount).isEqualTo(TOTAL_ANOMALIES);
   }
+
+  @Test
+  public void filterIsOrderedByIdAndMatchesFilterIdsTest() {
+    final DaoFilter filter = new DaoFilter()
+        .setBeanClass(AnomalyDTO.class)
+        .setLimit((long) TOTAL_ANOMALIES / 2)
+        .setOffset((long) TOTAL_ANOMALIES / 4);
+    final List<AnomalyDTO> anomalies = dao.filter(filter);
+    final List<Long> ids = anomalies.stream().map(AnomalyDTO::getId).collect(Collectors.toList());
+    assertThat(ids).isSorted();
+    assertThat(dao.filterIds(filter)).containsExactlyElementsOf(ids);
+    assertThat(anomalies).allSatisfy(a -> {
+      assertThat(a.getVersion()).isEqualTo(1);
+      assertThat(a.getCreateTime()).isNotNull();
+    });
+  }
+
+  @Test
+  public void batchCreateAndUpdateTest() {
+    final List<DataSourceDTO> dtos = List.of(
+        new DataSourceDTO().setName("batch1").setType(TEST_TYPES.get(0)),
+        new DataSourceDTO().setName("batch2").setType(TEST_TYPES.get(0)),
+        new DataSourceDTO().setName("batch3").setType(TEST_TYPES.get(0)));
+    assertThat(dao.create(dtos)).isEqualTo(dtos.size());
+    assertThat(dtos).allSatisfy(dto -> assertThat(dto.getId()).isNotNull());
+
+    dtos.forEach(dto -> dto.setType(TEST_TYPES.get(1)));
+    assertThat(dao.update(dtos)).isEqualTo(dtos.size());
+    final List<DataSourceDTO> updated = dao.get(Predicate.IN(NAME,
+        new Object[]{"batch1", "batch2", "batch3"}), DataSourceDTO.class);
+    assertThat(updated).hasSize(dtos.size());
+    assertThat(updated).allSatisfy(dto -> {
+      assertThat(dto.getType()).isEqualTo(TEST_TYPES.get(1));
+      assertThat(dto.getCreateTime()).isNotNull();
+    });
+
+    dao.deleteByPredicate(Predicate.IN(NAME, new Object[]{"batch1", "batch2", "batch3"}),
+        DataSourceDTO.class);
+  }
+
+  @Test
+  public void batchCreateFallsBackToSingleCreateTest() {
+    final List<DataSourceDTO> dtos = List.of(
+        new DataSourceDTO().setName("duplicate").setType(TEST_TYPES.get(0)),
+        new DataSourceDTO().setName("duplicate").setType(TEST_TYPES.get(0)));
+    // the unique name constraint fails the batch: entities are created one by one
+    assertThat(dao.create(dtos)).isEqualTo(1);
+    assertThat(dtos.get(0).getId()).isNotNull();
+    assertThat(dtos.get(1).getId()).isNull();
+
+    dao.deleteByPredicate(Predicate.EQ(NAME, "duplicate"), DataSourceDTO.class);
+  }
 }
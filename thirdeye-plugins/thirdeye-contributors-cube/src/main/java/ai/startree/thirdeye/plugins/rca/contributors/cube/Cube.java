@@ -0,0 +1,343 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
+import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL_OTHERS;
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionChangePercentage;
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionToOverallChangePercentage;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory cube of an additive metric, grouped by a small set of dimensions, for a current and a
+ * baseline interval.
+ *
+ * Dimension values are dictionary encoded: each row holds one int code per dimension. Code
+ * {@link #ALL_CODE} means "not constrained", codes 1..n are the dictionary values, and code n+1
+ * gathers all the values that are not in the dictionary. The drill-down aggregates the children
+ * of a node with code-indexed arrays, so no dimension value is hashed after the cube is built.
+ */
+class Cube {
+
+  static final int ALL_CODE = 0;
+  private static final Logger LOG = LoggerFactory.getLogger(Cube.class);
+  private static final double MINIMUM_CONTRIBUTION_OF_INTEREST_PERCENTAGE = 3;
+
+  private final List<String> dimensions;
+  // dictionaries.get(d).get(code - 1) is the value of code for dimension d
+  private final List<List<String>> dictionaries;
+  // codes[d][row] is the code of row for dimension d
+  private final int[][] codes;
+  private final double[] currentValues;
+  private final double[] baselineValues;
+  private final double currentTotal;
+  private final double baselineTotal;
+  // dimensions of a same hierarchy are not combined: the finer value determines the coarser one
+  private final boolean[][] sameHierarchy;
+
+  private Cube(final List<String> dimensions, final List<List<String>> dictionaries,
+      final int[][] codes, final double[] currentValues, final double[] baselineValues,
+      final double currentTotal, final double baselineTotal, final boolean[][] sameHierarchy) {
+    this.dimensions = dimensions;
+    this.dictionaries = dictionaries;
+    this.codes = codes;
+    this.currentValues = currentValues;
+    this.baselineValues = baselineValues;
+    this.currentTotal = currentTotal;
+    this.baselineTotal = baselineTotal;
+    this.sameHierarchy = sameHierarchy;
+  }
+
+  /**
+   * @param dimensions the dimensions of the cube
+   * @param dictionaries the values of interest of each dimension. Other values are grouped in
+   *     {@link ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi#ALL_OTHERS}.
+   * @param current group by of the current interval, with the dimensions and COL_VALUE
+   * @param baseline group by of the baseline interval, with the dimensions and COL_VALUE
+   * @param hierarchies dimensions that are not combined with each other
+   */
+  static Cube from(final List<String> dimensions, final Map<String, List<String>> dictionaries,
+      final DataFrame current, final DataFrame baseline, final double currentTotal,
+      final double baselineTotal, final List<List<String>> hierarchies) {
+    // rows of both intervals are appended: a node sums the current and baseline rows separately
+    final int size = current.size() + baseline.size();
+    final List<List<String>> dimensionDictionaries = new ArrayList<>(dimensions.size());
+    final int[][] codes = new int[dimensions.size()][];
+    for (int d = 0; d < dimensions.size(); d++) {
+      final String dimension = dimensions.get(d);
+      final List<String> dictionary = dictionaries.getOrDefault(dimension, List.of());
+      final Map<String, Integer> valueToCode = new HashMap<>();
+      for (int i = 0; i < dictionary.size(); i++) {
+        valueToCode.put(dictionary.get(i), i + 1);
+      }
+      final int otherCode = dictionary.size() + 1;
+      final int[] dimensionCodes = new int[size];
+      for (int i = 0; i < current.size(); i++) {
+        dimensionCodes[i] = valueToCode.getOrDefault(current.getString(dimension, i), otherCode);
+      }
+      for (int i = 0; i < baseline.size(); i++) {
+        dimensionCodes[current.size() + i] = valueToCode.getOrDefault(
+            baseline.getString(dimension, i), otherCode);
+      }
+      dimensionDictionaries.add(dictionary);
+      codes[d] = dimensionCodes;
+    }
+
+    final double[] currentValues = new double[size];
+    final double[] baselineValues = new double[size];
+    for (int i = 0; i < current.size(); i++) {
+      currentValues[i] = valueOrZero(current.getDouble(COL_VALUE, i));
+    }
+    for (int i = 0; i < baseline.size(); i++) {
+      baselineValues[current.size() + i] = valueOrZero(baseline.getDouble(COL_VALUE, i));
+    }
+
+    final boolean[][] sameHierarchy = new boolean[dimensions.size()][dimensions.size()];
+    for (final List<String> hierarchy : hierarchies) {
+      for (int i = 0; i < dimensions.size(); i++) {
+        for (int j = 0; j < dimensions.size(); j++) {
+          sameHierarchy[i][j] |= i != j
+              && hierarchy.contains(dimensions.get(i))
+              && hierarchy.contains(dimensions.get(j));
+        }
+      }
+    }
+
+    return new Cube(dimensions, dimensionDictionaries, codes, currentValues, baselineValues,
+        currentTotal, baselineTotal, sameHierarchy);
+  }
+
+  private static double valueOrZero(final double value) {
+    return Double.isNaN(value) ? 0 : value;
+  }
+
+  /**
+   * Cost of a node: its contribution to the overall change, plus the change of its contribution.
+   * Nodes that contribute less than {@link #MINIMUM_CONTRIBUTION_OF_INTEREST_PERCENTAGE} to the
+   * overall change have a cost of 0.
+   */
+  static double cost(final double baseline, final double current, final double baselineTotal,
+      final double currentTotal) {
+    final double contributionToOverallChange = computeContributionToOverallChangePercentage(
+        baseline, current, baselineTotal, currentTotal);
+    if (!Double.isFinite(contributionToOverallChange)
+        || Math.abs(contributionToOverallChange) < MINIMUM_CONTRIBUTION_OF_INTEREST_PERCENTAGE) {
+      // users don't care about nodes with small contribution to overall change
+      return 0;
+    }
+    final double contributionChange = computeContributionChangePercentage(baseline, current,
+        baselineTotal, currentTotal);
+    return Math.abs(contributionToOverallChange) + valueOrZero(Math.abs(contributionChange));
+  }
+
+  /**
+   * Breadth-first drill-down of the dimension combinations, starting from the whole cube.
+   *
+   * Each combination is visited at most once: a node is only refined on the dimensions after its
+   * last constrained dimension. Children with a cost of 0 are pruned, and only the
+   * maxChildrenPerDimension most costly children of a node are kept for each dimension. The
+   * search stops when the deadline is reached, returning the nodes visited so far.
+   *
+   * @return the visited nodes, excluding the root, in visit order
+   */
+  List<Node> drillDown(final int maxChildrenPerDimension, final long deadline) {
+    final int size = currentValues.length;
+    double currentSum = 0;
+    double baselineSum = 0;
+    for (int row = 0; row < size; row++) {
+      currentSum += currentValues[row];
+      baselineSum += baselineValues[row];
+    }
+    final Node root = new Node(new int[dimensions.size()], -1,
+        IntStream.range(0, size).toArray(), currentSum, baselineSum, 0);
+
+    final List<Node> visited = new ArrayList<>();
+    final Deque<Node> queue = new ArrayDeque<>();
+    queue.add(root);
+    while (!queue.isEmpty()) {
+      if (System.currentTimeMillis() > deadline) {
+        LOG.warn("Cube drill-down stopped by time budget after visiting {} nodes.",
+            visited.size());
+        break;
+      }
+      final Node node = queue.poll();
+      for (int d = node.lastDimension + 1; d < dimensions.size(); d++) {
+        if (isInSameHierarchy(node, d)) {
+          continue;
+        }
+        final List<Node> children = children(node, d, maxChildrenPerDimension);
+        visited.addAll(children);
+        queue.addAll(children);
+      }
+    }
+    return visited;
+  }
+
+  private boolean isInSameHierarchy(final Node node, final int dimension) {
+    for (int d = 0; d <= node.lastDimension; d++) {
+      if (node.values[d] != ALL_CODE && sameHierarchy[d][dimension]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<Node> children(final Node node, final int dimension, final int limit) {
+    final int[] dimensionCodes = codes[dimension];
+    final int cardinality = dictionaries.get(dimension).size() + 2;
+    final double[] current = new double[cardinality];
+    final double[] baseline = new double[cardinality];
+    final boolean[] observed = new boolean[cardinality];
+    for (final int row : node.rows) {
+      final int code = dimensionCodes[row];
+      current[code] += currentValues[row];
+      baseline[code] += baselineValues[row];
+      observed[code] = true;
+    }
+
+    final double[] costs = new double[cardinality];
+    final List<Integer> candidates = new ArrayList<>();
+    for (int code = ALL_CODE + 1; code < cardinality; code++) {
+      if (observed[code]) {
+        costs[code] = cost(baseline[code], current[code], baselineTotal, currentTotal);
+        if (costs[code] > 0) {
+          candidates.add(code);
+        }
+      }
+    }
+    candidates.sort(Comparator.comparingDouble((Integer code) -> costs[code]).reversed());
+
+    final List<Node> children = new ArrayList<>(Math.min(limit, candidates.size()));
+    for (final int code : candidates.subList(0, Math.min(limit, candidates.size()))) {
+      final int[] values = node.values.clone();
+      values[dimension] = code;
+      final int[] rows = IntStream.of(node.rows)
+          .filter(row -> dimensionCodes[row] == code)
+          .toArray();
+      children.add(new Node(values, dimension, rows, current[code], baseline[code], costs[code]));
+    }
+    return children;
+  }
+
+  List<String> getDimensions() {
+    return dimensions;
+  }
+
+  double getCurrentTotal() {
+    return currentTotal;
+  }
+
+  double getBaselineTotal() {
+    return baselineTotal;
+  }
+
+  /**
+   * @return the dimension values of the node, in the order of the dimensions of the cube.
+   *     Unconstrained dimensions are {@link
+   *     ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi#ALL}.
+   */
+  List<String> names(final Node node) {
+    final List<String> names = new ArrayList<>(dimensions.size());
+    for (int d = 0; d < dimensions.size(); d++) {
+      names.add(name(d, node.values[d]));
+    }
+    return names;
+  }
+
+  String name(final int dimension, final int code) {
+    final List<String> dictionary = dictionaries.get(dimension);
+    if (code == ALL_CODE) {
+      return ALL;
+    } else if (code > dictionary.size()) {
+      return ALL_OTHERS;
+    }
+    return dictionary.get(code - 1);
+  }
+
+  static class Node {
+
+    // code of each dimension, ALL_CODE if the dimension is not constrained
+    private final int[] values;
+    private final int lastDimension;
+    private final int[] rows;
+    private final double currentValue;
+    private final double baselineValue;
+    private final double cost;
+
+    private Node(final int[] values, final int lastDimension, final int[] rows,
+        final double currentValue, final double baselineValue, final double cost) {
+      this.values = values;
+      this.lastDimension = lastDimension;
+      this.rows = rows;
+      this.currentValue = currentValue;
+      this.baselineValue = baselineValue;
+      this.cost = cost;
+    }
+
+    /**
+     * @return true if this node is a strict sub-slice of other
+     */
+    boolean refines(final Node other) {
+      boolean strict = false;
+      for (int d = 0; d < values.length; d++) {
+        if (other.values[d] == ALL_CODE) {
+          strict |= values[d] != ALL_CODE;
+        } else if (other.values[d] != values[d]) {
+          return false;
+        }
+      }
+      return strict;
+    }
+
+    int level() {
+      return (int) IntStream.of(values).filter(v -> v != ALL_CODE).count();
+    }
+
+    int lastDimension() {
+      return lastDimension;
+    }
+
+    int lastValue() {
+      return values[lastDimension];
+    }
+
+    double getCurrentValue() {
+      return currentValue;
+    }
+
+    double getBaselineValue() {
+      return baselineValue;
+    }
+
+    double getChange() {
+      return currentValue - baselineValue;
+    }
+
+    double getCost() {
+      return cost;
+    }
+  }
+}
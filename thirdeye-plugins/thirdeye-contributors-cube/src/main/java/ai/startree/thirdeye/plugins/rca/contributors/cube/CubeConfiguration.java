@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CubeConfiguration {
+
+  /**
+   * Maximum number of dimensions combined in the drill-down. The depth of a search request is
+   * capped by this value.
+   */
+  private int maxDepth = 3;
+  /**
+   * Number of values of each dimension tracked by the cube. Other values are grouped together.
+   */
+  private int maxCardinality = 100;
+  /**
+   * Number of children of a node explored for each dimension.
+   */
+  private int maxChildrenPerDimension = 10;
+  /**
+   * Maximum number of rows of the multi-dimension group by of each interval.
+   */
+  private int maxRows = 100_000;
+  /**
+   * Time budget of a search: data loading and drill-down.
+   */
+  private long timeBudgetMillis = 30_000;
+  /**
+   * A node is not reported if a finer node explains at least this ratio of its change.
+   */
+  private double minExplainedChangeRatio = 0.8;
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public CubeConfiguration setMaxDepth(final int maxDepth) {
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  public int getMaxCardinality() {
+    return maxCardinality;
+  }
+
+  public CubeConfiguration setMaxCardinality(final int maxCardinality) {
+    this.maxCardinality = maxCardinality;
+    return this;
+  }
+
+  public int getMaxChildrenPerDimension() {
+    return maxChildrenPerDimension;
+  }
+
+  public CubeConfiguration setMaxChildrenPerDimension(final int maxChildrenPerDimension) {
+    this.maxChildrenPerDimension = maxChildrenPerDimension;
+    return this;
+  }
+
+  public int getMaxRows() {
+    return maxRows;
+  }
+
+  public CubeConfiguration setMaxRows(final int maxRows) {
+    this.maxRows = maxRows;
+    return this;
+  }
+
+  public long getTimeBudgetMillis() {
+    return timeBudgetMillis;
+  }
+
+  public CubeConfiguration setTimeBudgetMillis(final long timeBudgetMillis) {
+    this.timeBudgetMillis = timeBudgetMillis;
+    return this;
+  }
+
+  public double getMinExplainedChangeRatio() {
+    return minExplainedChangeRatio;
+  }
+
+  public CubeConfiguration setMinExplainedChangeRatio(final double minExplainedChangeRatio) {
+    this.minExplainedChangeRatio = minExplainedChangeRatio;
+    return this;
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
+import ai.startree.thirdeye.plugins.rca.contributors.cube.Cube.Node;
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.api.cube.DimensionCost;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.rca.ContributorsFinder;
+import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
+import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the dimension combinations that explain the change of a metric, with a drill-down of a
+ * {@link Cube}.
+ *
+ * The dimensions of the cube are the most costly dimensions of a one-level breakdown. Their
+ * multi-dimension group by is loaded once per interval, then the drill-down runs in memory. The
+ * metric is assumed additive: the value of a combination is the sum of the values of its rows.
+ */
+public class CubeContributorsFinder implements ContributorsFinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CubeContributorsFinder.class);
+
+  private final AggregationLoader aggregationLoader;
+  private final CubeConfiguration configuration;
+
+  public CubeContributorsFinder(final AggregationLoader aggregationLoader,
+      final CubeConfiguration configuration) {
+    this.aggregationLoader = aggregationLoader;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public ContributorsFinderResult search(final ContributorsSearchConfiguration searchConfiguration)
+      throws Exception {
+    final long deadline = System.currentTimeMillis() + configuration.getTimeBudgetMillis();
+    final MetricSlice currentSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
+        searchConfiguration.getCurrentInterval(),
+        searchConfiguration.getFilters(),
+        searchConfiguration.getDatasetConfigDTO());
+    final MetricSlice baselineSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
+        searchConfiguration.getBaselineInterval(),
+        searchConfiguration.getFilters(),
+        searchConfiguration.getDatasetConfigDTO());
+
+    final Future<DataFrame> currentAggregate = aggregationLoader.loadAggregateAsync(currentSlice,
+        List.of(), 1);
+    final Future<DataFrame> baselineAggregate = aggregationLoader.loadAggregateAsync(baselineSlice,
+        List.of(), 1);
+    final BreakdownComparison comparison = aggregationLoader.loadBreakdown(currentSlice,
+        searchConfiguration.getBaselineInterval(),
+        configuration.getMaxCardinality(),
+        remainingMillis(deadline));
+    final DataFrame breakdown = comparison.getBreakdown();
+
+    final double baselineTotal;
+    final double currentTotal;
+    try {
+      baselineTotal = fetch(baselineAggregate, deadline).getDouble(COL_VALUE, 0);
+      currentTotal = fetch(currentAggregate, deadline).getDouble(COL_VALUE, 0);
+    } catch (final TimeoutException e) {
+      currentAggregate.cancel(true);
+      return timeoutResult();
+    }
+    if (Double.isNaN(baselineTotal) || baselineTotal == 0) {
+      return cannotComputeResult(
+          "No data in the baseline timeframe. Cannot compute top contributors. You may try with a different baseline offset.");
+    }
+    if (Double.isNaN(currentTotal)) {
+      return cannotComputeResult(
+          "No data in the current timeframe. Cannot compute top contributors. Data collect is stopped or broken for this metric.");
+    }
+
+    final List<DimensionCost> dimensionCosts = dimensionCosts(breakdown, baselineTotal,
+        currentTotal);
+    final int depth = searchConfiguration.getDepth() > 0
+        ? Math.min(searchConfiguration.getDepth(), configuration.getMaxDepth())
+        : configuration.getMaxDepth();
+    final List<String> dimensions = dimensionCosts.stream()
+        .filter(c -> c.getCost() > 0)
+        .limit(depth)
+        .map(DimensionCost::getName)
+        .collect(Collectors.toList());
+
+    final DataFrame current;
+    final DataFrame baseline;
+    if (dimensions.isEmpty()) {
+      current = new DataFrame();
+      baseline = new DataFrame();
+    } else {
+      final Future<DataFrame> currentGroupBy = aggregationLoader.loadAggregateAsync(currentSlice,
+          dimensions, configuration.getMaxRows());
+      final Future<DataFrame> baselineGroupBy = aggregationLoader.loadAggregateAsync(baselineSlice,
+          dimensions, configuration.getMaxRows());
+      try {
+        current = fetch(currentGroupBy, deadline);
+        baseline = fetch(baselineGroupBy, deadline);
+      } catch (final TimeoutException e) {
+        currentGroupBy.cancel(true);
+        baselineGroupBy.cancel(true);
+        return timeoutResult();
+      }
+      if (current.size() >= configuration.getMaxRows()
+          || baseline.size() >= configuration.getMaxRows()) {
+        LOG.warn("Cube group by on {} reached the limit of {} rows. Drill-down values are partial.",
+            dimensions, configuration.getMaxRows());
+      }
+    }
+
+    final Cube cube = Cube.from(dimensions, dictionaries(breakdown), current, baseline,
+        currentTotal, baselineTotal,
+        optional(searchConfiguration.getHierarchies()).orElse(List.of()));
+    final List<Node> nodes = cube.drillDown(configuration.getMaxChildrenPerDimension(), deadline);
+    final List<Node> summary = summarize(nodes,
+        configuration.getMinExplainedChangeRatio(),
+        searchConfiguration.isDoOneSideError() ? Math.signum(currentTotal - baselineTotal) : 0,
+        searchConfiguration.getSummarySize());
+
+    return new CubeContributorsFinderResult(cube,
+        nodes,
+        summary,
+        dimensionCosts,
+        searchConfiguration.getSummarySize(),
+        searchConfiguration.getMetricConfigDTO().getName(),
+        searchConfiguration.getDatasetConfigDTO().getDataset(),
+        analysisRunInfo(comparison));
+  }
+
+  private static long remainingMillis(final long deadline) {
+    return Math.max(0, deadline - System.currentTimeMillis());
+  }
+
+  private static DataFrame fetch(final Future<DataFrame> future, final long deadline)
+      throws Exception {
+    try {
+      final DataFrame df = future.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+      return df.isEmpty() ? new DataFrame().addSeries(COL_VALUE, Double.NaN) : df;
+    } catch (final TimeoutException e) {
+      future.cancel(true);
+      throw e;
+    }
+  }
+
+  private ContributorsFinderResult cannotComputeResult(final String message) {
+    return () -> new DimensionAnalysisResultApi()
+        .setAnalysisRunInfo(AnalysisRunInfo.failure(message));
+  }
+
+  private AnalysisRunInfo analysisRunInfo(final BreakdownComparison breakdown) {
+    if (!breakdown.isPartial()) {
+      return AnalysisRunInfo.success();
+    }
+    return AnalysisRunInfo.partial(String.format(
+        "The breakdown of dimensions %s could not be loaded within the time budget of %d ms. They are not in the top contributors.",
+        breakdown.getTimedOutDimensions(),
+        configuration.getTimeBudgetMillis()));
+  }
+
+  private ContributorsFinderResult timeoutResult() {
+    return cannotComputeResult(String.format(
+        "Top contributors data could not be loaded within the time budget of %d ms.",
+        configuration.getTimeBudgetMillis()));
+  }
+
+  /**
+   * @return the cost of each dimension of the breakdown: the sum of the costs of its values,
+   *     sorted by decreasing cost
+   */
+  private static List<DimensionCost> dimensionCosts(final DataFrame breakdown,
+      final double baselineTotal, final double currentTotal) {
+    final Map<String, Double> costs = new LinkedHashMap<>();
+    for (int i = 0; i < breakdown.size(); i++) {
+      final double cost = Cube.cost(valueOrZero(breakdown.getDouble(COL_BASELINE_VALUE, i)),
+          valueOrZero(breakdown.getDouble(COL_CURRENT_VALUE, i)),
+          baselineTotal,
+          currentTotal);
+      costs.merge(breakdown.getString(COL_DIMENSION_NAME, i), cost, Double::sum);
+    }
+    return costs.entrySet().stream()
+        .map(e -> new DimensionCost(e.getKey(), e.getValue()))
+        .sorted(Comparator.comparingDouble(DimensionCost::getCost).reversed())
+        .collect(Collectors.toList());
+  }
+
+  private static double valueOrZero(final double value) {
+    return Double.isNaN(value) ? 0 : value;
+  }
+
+  private static Map<String, List<String>> dictionaries(final DataFrame breakdown) {
+    final Map<String, List<String>> dictionaries = new LinkedHashMap<>();
+    for (int i = 0; i < breakdown.size(); i++) {
+      final String value = breakdown.getString(COL_DIMENSION_VALUE, i);
+      if (value != null) {
+        dictionaries.computeIfAbsent(breakdown.getString(COL_DIMENSION_NAME, i),
+            k -> new ArrayList<>()).add(value);
+      }
+    }
+    return dictionaries;
+  }
+
+  /**
+   * Selects the nodes to report, by decreasing cost. A node is not reported if a finer node
+   * explains at least minExplainedChangeRatio of its change.
+   *
+   * @param changeSide if not 0, only the nodes that change in the direction of its sign are
+   *     reported
+   */
+  static List<Node> summarize(final List<Node> nodes, final double minExplainedChangeRatio,
+      final double changeSide, final int size) {
+    final List<Node> candidates = nodes.stream()
+        .filter(n -> changeSide == 0 || Math.signum(n.getChange()) == changeSide)
+        .sorted(Comparator.comparingDouble(Node::getCost).reversed())
+        .collect(Collectors.toList());
+    final List<Node> summary = new ArrayList<>();
+    for (final Node node : candidates) {
+      if (summary.size() >= size) {
+        break;
+      }
+      if (!isExplainedByFinerNode(node, candidates, minExplainedChangeRatio)) {
+        summary.add(node);
+      }
+    }
+    return summary;
+  }
+
+  private static boolean isExplainedByFinerNode(final Node node, final List<Node> candidates,
+      final double minExplainedChangeRatio) {
+    if (node.getChange() == 0) {
+      return false;
+    }
+    for (final Node other : candidates) {
+      if (other.refines(node)
+          && other.getChange() / node.getChange() >= minExplainedChangeRatio) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
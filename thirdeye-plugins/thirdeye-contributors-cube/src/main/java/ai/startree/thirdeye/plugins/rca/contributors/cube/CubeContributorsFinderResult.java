@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionChangePercentage;
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionToOverallChangePercentage;
+import static ai.startree.thirdeye.spi.rca.Stats.computeValueChangePercentage;
+
+import ai.startree.thirdeye.plugins.rca.contributors.cube.Cube.Node;
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
+import ai.startree.thirdeye.spi.api.DatasetApi;
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.api.MetricApi;
+import ai.startree.thirdeye.spi.api.cube.BaseResponseRow;
+import ai.startree.thirdeye.spi.api.cube.DimensionCost;
+import ai.startree.thirdeye.spi.api.cube.SummaryGainerLoserResponseRow;
+import ai.startree.thirdeye.spi.api.cube.SummaryResponseRow;
+import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CubeContributorsFinderResult implements ContributorsFinderResult {
+
+  private final Cube cube;
+  private final List<Node> nodes;
+  private final List<Node> summary;
+  private final List<DimensionCost> dimensionCosts;
+  private final int summarySize;
+  private final String metricName;
+  private final String datasetName;
+  private final AnalysisRunInfo analysisRunInfo;
+
+  CubeContributorsFinderResult(final Cube cube, final List<Node> nodes,
+      final List<Node> summary, final List<DimensionCost> dimensionCosts, final int summarySize,
+      final String metricName, final String datasetName, final AnalysisRunInfo analysisRunInfo) {
+    this.cube = cube;
+    this.nodes = nodes;
+    this.summary = summary;
+    this.dimensionCosts = dimensionCosts;
+    this.summarySize = summarySize;
+    this.metricName = metricName;
+    this.datasetName = datasetName;
+    this.analysisRunInfo = analysisRunInfo;
+  }
+
+  @Override
+  public DimensionAnalysisResultApi getDimensionAnalysisResult() {
+    final List<SummaryResponseRow> responseRows = summary.stream()
+        .map(this::toResponseRow)
+        .collect(Collectors.toList());
+
+    // gainers and losers are the single dimension values with the biggest changes
+    final List<Node> singleDimensionNodes = nodes.stream()
+        .filter(n -> n.level() == 1)
+        .collect(Collectors.toList());
+    final List<SummaryGainerLoserResponseRow> gainer = singleDimensionNodes.stream()
+        .filter(n -> n.getChange() > 0)
+        .sorted(Comparator.comparingDouble(Node::getChange).reversed())
+        .limit(summarySize)
+        .map(this::toGainerLoserRow)
+        .collect(Collectors.toList());
+    final List<SummaryGainerLoserResponseRow> loser = singleDimensionNodes.stream()
+        .filter(n -> n.getChange() < 0)
+        .sorted(Comparator.comparingDouble(Node::getChange))
+        .limit(summarySize)
+        .map(this::toGainerLoserRow)
+        .collect(Collectors.toList());
+
+    return new DimensionAnalysisResultApi()
+        .setDimensions(cube.getDimensions())
+        .setResponseRows(responseRows)
+        .setGainer(gainer)
+        .setLoser(loser)
+        .setDimensionCosts(dimensionCosts)
+        .setBaselineTotal(cube.getBaselineTotal())
+        .setCurrentTotal(cube.getCurrentTotal())
+        .setMetric(new MetricApi().setDataset(new DatasetApi().setName(datasetName))
+            .setName(metricName))
+        .setAnalysisRunInfo(analysisRunInfo);
+  }
+
+  private SummaryResponseRow toResponseRow(final Node node) {
+    final SummaryResponseRow row = new SummaryResponseRow()
+        .setNames(cube.names(node))
+        .setCost(node.getCost());
+    setStats(row, node);
+    return row;
+  }
+
+  private SummaryGainerLoserResponseRow toGainerLoserRow(final Node node) {
+    final SummaryGainerLoserResponseRow row = new SummaryGainerLoserResponseRow()
+        .setDimensionName(cube.getDimensions().get(node.lastDimension()))
+        .setDimensionValue(cube.name(node.lastDimension(), node.lastValue()))
+        .setCost(node.getCost());
+    setStats(row, node);
+    return row;
+  }
+
+  private void setStats(final BaseResponseRow row, final Node node) {
+    row.setBaselineValue(node.getBaselineValue())
+        .setCurrentValue(node.getCurrentValue())
+        .setChangePercentage(computeValueChangePercentage(node.getBaselineValue(),
+            node.getCurrentValue()))
+        .setContributionChangePercentage(computeContributionChangePercentage(
+            node.getBaselineValue(),
+            node.getCurrentValue(),
+            cube.getBaselineTotal(),
+            cube.getCurrentTotal()))
+        .setContributionToOverallChangePercentage(computeContributionToOverallChangePercentage(
+            node.getBaselineValue(),
+            node.getCurrentValue(),
+            cube.getBaselineTotal(),
+            cube.getCurrentTotal()));
+  }
+}
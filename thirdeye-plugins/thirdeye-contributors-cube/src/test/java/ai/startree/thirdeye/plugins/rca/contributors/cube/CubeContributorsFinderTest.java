@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.api.cube.SummaryResponseRow;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.Test;
+
+public class CubeContributorsFinderTest {
+
+  private static final Interval BASELINE_INTERVAL = new Interval(
+      new DateTime(2022, 1, 1, 0, 0, 0, DateTimeZone.UTC),
+      new DateTime(2022, 2, 1, 0, 0, 0, DateTimeZone.UTC));
+  private static final Interval CURRENT_INTERVAL = new Interval(
+      new DateTime(2022, 2, 1, 0, 0, 0, DateTimeZone.UTC),
+      new DateTime(2022, 3, 1, 0, 0, 0, DateTimeZone.UTC));
+
+  private static final MetricConfigDTO METRIC_CONFIG_DTO = new MetricConfigDTO().setName("views");
+  private static final DatasetConfigDTO DATASET_CONFIG_DTO = new DatasetConfigDTO().setDataset(
+      "traffic");
+  private static final List<Predicate> FILTERS = List.of();
+
+  private static final MetricSlice CURRENT_SLICE = MetricSlice.from(METRIC_CONFIG_DTO,
+      CURRENT_INTERVAL,
+      FILTERS,
+      DATASET_CONFIG_DTO);
+  private static final MetricSlice BASELINE_SLICE = MetricSlice.from(METRIC_CONFIG_DTO,
+      BASELINE_INTERVAL,
+      FILTERS,
+      DATASET_CONFIG_DTO);
+  private static final List<String> DIMENSIONS = List.of("country", "browser");
+
+  private static ContributorsSearchConfiguration searchConfiguration(
+      final List<List<String>> hierarchies) {
+    return new ContributorsSearchConfiguration(METRIC_CONFIG_DTO,
+        DATASET_CONFIG_DTO,
+        CURRENT_INTERVAL,
+        BASELINE_INTERVAL,
+        3,
+        3,
+        false,
+        FILTERS,
+        hierarchies);
+  }
+
+  /**
+   * Every (country, browser) combination has a value of 100 in the baseline. In the current
+   * interval, only (US, Safari) drops to 20.
+   */
+  private static AggregationLoader aggregationLoader() throws Exception {
+    final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    final DataFrame breakdown = new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, "country", "country", "browser", "browser")
+        .addSeries(COL_DIMENSION_VALUE, "US", "FR", "Safari", "Chrome")
+        .addSeries(COL_CURRENT_VALUE, 120, 200, 120, 200)
+        .addSeries(COL_BASELINE_VALUE, 200, 200, 200, 200);
+    when(aggregationLoader.loadBreakdown(eq(CURRENT_SLICE),
+        eq(BASELINE_INTERVAL),
+        anyInt(),
+        anyLong())).thenReturn(new BreakdownComparison(breakdown, List.of()));
+
+    when(aggregationLoader.loadAggregateAsync(CURRENT_SLICE, List.of(), 1)).thenReturn(
+        CompletableFuture.completedFuture(new DataFrame().addSeries(COL_VALUE, 320.)));
+    when(aggregationLoader.loadAggregateAsync(BASELINE_SLICE, List.of(), 1)).thenReturn(
+        CompletableFuture.completedFuture(new DataFrame().addSeries(COL_VALUE, 400.)));
+
+    when(aggregationLoader.loadAggregateAsync(eq(CURRENT_SLICE), eq(DIMENSIONS), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(new DataFrame()
+            .addSeries("country", "US", "US", "FR", "FR")
+            .addSeries("browser", "Safari", "Chrome", "Safari", "Chrome")
+            .addSeries(COL_VALUE, 20., 100., 100., 100.)));
+    when(aggregationLoader.loadAggregateAsync(eq(BASELINE_SLICE), eq(DIMENSIONS), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(new DataFrame()
+            .addSeries("country", "US", "US", "FR", "FR")
+            .addSeries("browser", "Safari", "Chrome", "Safari", "Chrome")
+            .addSeries(COL_VALUE, 100., 100., 100., 100.)));
+    return aggregationLoader;
+  }
+
+  @Test
+  public void testSearchFindsDimensionCombination() throws Exception {
+    final CubeContributorsFinder finder = new CubeContributorsFinder(aggregationLoader(),
+        new CubeConfiguration());
+
+    final DimensionAnalysisResultApi result = finder.search(searchConfiguration(null))
+        .getDimensionAnalysisResult();
+
+    assertThat(result.getAnalysisRunInfo().isSuccess()).isTrue();
+    assertThat(result.getDimensions()).isEqualTo(DIMENSIONS);
+    assertThat(result.getBaselineTotal()).isEqualTo(400);
+    assertThat(result.getCurrentTotal()).isEqualTo(320);
+    // country=US and browser=Safari are fully explained by their combination
+    assertThat(result.getResponseRows()).hasSize(1);
+    final SummaryResponseRow row = result.getResponseRows().get(0);
+    assertThat(row.getNames()).isEqualTo(List.of("US", "Safari"));
+    assertThat(row.getBaselineValue()).isEqualTo(100);
+    assertThat(row.getCurrentValue()).isEqualTo(20);
+    assertThat(row.getContributionToOverallChangePercentage()).isEqualTo(-100);
+
+    assertThat(result.getLoser()).hasSize(2);
+    assertThat(result.getGainer()).isEmpty();
+  }
+
+  @Test
+  public void testSearchDoesNotCombineDimensionsOfSameHierarchy() throws Exception {
+    final CubeContributorsFinder finder = new CubeContributorsFinder(aggregationLoader(),
+        new CubeConfiguration());
+
+    final DimensionAnalysisResultApi result = finder.search(
+            searchConfiguration(List.of(DIMENSIONS)))
+        .getDimensionAnalysisResult();
+
+    assertThat(result.getResponseRows()).extracting(SummaryResponseRow::getNames)
+        .containsExactlyInAnyOrder(List.of("US", ALL), List.of(ALL, "Safari"));
+  }
+
+  @Test
+  public void testSearchDepthLimitsDimensions() throws Exception {
+    final AggregationLoader aggregationLoader = aggregationLoader();
+    when(aggregationLoader.loadAggregateAsync(eq(CURRENT_SLICE), eq(List.of("country")), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(new DataFrame()
+            .addSeries("country", "US", "FR")
+            .addSeries(COL_VALUE, 120., 200.)));
+    when(aggregationLoader.loadAggregateAsync(eq(BASELINE_SLICE), eq(List.of("country")), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(new DataFrame()
+            .addSeries("country", "US", "FR")
+            .addSeries(COL_VALUE, 200., 200.)));
+    final CubeContributorsFinder finder = new CubeContributorsFinder(aggregationLoader,
+        new CubeConfiguration().setMaxDepth(1));
+
+    final DimensionAnalysisResultApi result = finder.search(searchConfiguration(null))
+        .getDimensionAnalysisResult();
+
+    assertThat(result.getDimensions()).isEqualTo(List.of("country"));
+    assertThat(result.getDimensionCosts()).hasSize(2);
+    assertThat(result.getResponseRows()).extracting(SummaryResponseRow::getNames)
+        .containsExactly(List.of("US"));
+  }
+}
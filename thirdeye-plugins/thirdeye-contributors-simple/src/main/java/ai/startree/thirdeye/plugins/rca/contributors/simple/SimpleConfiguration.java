@@ -21,6 +21,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 public class SimpleConfiguration {
 
   private Cost costFunction = BAlANCED_SIMPLE;
+  /* maximum time to load the breakdowns - dimensions not loaded in time are skipped */
+  private long timeoutMillis = 60_000;
 
   public Cost getCostFunction() {
     return costFunction;
@@ -31,4 +33,13 @@ public class SimpleConfiguration {
     this.costFunction = costFunction;
     return this;
   }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public SimpleConfiguration setTimeoutMillis(final long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    return this;
+  }
 }
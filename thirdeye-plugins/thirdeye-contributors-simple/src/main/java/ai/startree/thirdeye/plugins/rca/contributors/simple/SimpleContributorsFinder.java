@@ -13,7 +13,6 @@
  */
 package ai.startree.thirdeye.plugins.rca.contributors.simple;
 
-import static ai.startree.thirdeye.spi.Constants.COL_TIME;
 import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
@@ -27,6 +26,7 @@ import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.Series.DoubleConditional;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
 import ai.startree.thirdeye.spi.rca.ContributorsFinder;
 import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
@@ -63,30 +63,28 @@ public class SimpleContributorsFinder implements ContributorsFinder {
 
   public ContributorsFinderResult search(final ContributorsSearchConfiguration searchConfiguration)
       throws Exception {
-    final MetricSlice baselineSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
-        searchConfiguration.getBaselineInterval(),
-        searchConfiguration.getFilters(),
-        searchConfiguration.getDatasetConfigDTO());
-
     final MetricSlice currentSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
         searchConfiguration.getCurrentInterval(),
         searchConfiguration.getFilters(),
         searchConfiguration.getDatasetConfigDTO());
 
-    final DataFrame baseline = aggregationLoader.loadBreakdown(baselineSlice, LIMIT_DEFAULT);
+    final BreakdownComparison breakdown = aggregationLoader.loadBreakdown(currentSlice,
+        searchConfiguration.getBaselineInterval(),
+        LIMIT_DEFAULT,
+        simpleConfiguration.getTimeoutMillis());
+
+    final DataFrame baseline = breakdown.getBaselineBreakdown();
     if (baseline.size() <= 0) {
       return cannotComputeResult(
           "No data in the baseline timeframe. Cannot compute top contributors. You may try with a different baseline offset.");
     }
-    baseline.dropSeries(COL_TIME);
     final double baselineTotal = getTotalFromBreakdown(baseline);
 
-    final DataFrame current = aggregationLoader.loadBreakdown(currentSlice, LIMIT_DEFAULT);
+    final DataFrame current = breakdown.getCurrentBreakdown();
     if (current.size() <= 0) {
       return cannotComputeResult(
           "No data in the current timeframe. Cannot compute top contributors. Data collect is stopped or broken for this metric.");
     }
-    current.dropSeries(COL_TIME);
     final double currentTotal = getTotalFromBreakdown(current);
 
     DataFrame stats = computeStats(baseline,
@@ -107,7 +105,18 @@ public class SimpleContributorsFinder implements ContributorsFinder {
 
     return new SimpleContributorsFinderResult(stats,
         searchConfiguration.getMetricConfigDTO().getName(),
-        searchConfiguration.getDatasetConfigDTO().getDataset());
+        searchConfiguration.getDatasetConfigDTO().getDataset(),
+        analysisRunInfo(breakdown));
+  }
+
+  private AnalysisRunInfo analysisRunInfo(final BreakdownComparison breakdown) {
+    if (!breakdown.isPartial()) {
+      return AnalysisRunInfo.success();
+    }
+    return AnalysisRunInfo.partial(String.format(
+        "The breakdown of dimensions %s could not be loaded within %d ms. They are not in the top contributors.",
+        breakdown.getTimedOutDimensions(),
+        simpleConfiguration.getTimeoutMillis()));
   }
 
   private ContributorsFinderResult cannotComputeResult(final String message) {
@@ -23,6 +23,7 @@ import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
 
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
 import ai.startree.thirdeye.spi.api.DatasetApi;
 import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
 import ai.startree.thirdeye.spi.api.MetricApi;
@@ -40,12 +41,14 @@ public class SimpleContributorsFinderResult implements ContributorsFinderResult
   private final DataFrame stats;
   private final String metricName;
   private final String datasetName;
+  private final AnalysisRunInfo analysisRunInfo;
 
   public SimpleContributorsFinderResult(final DataFrame stats, final String metricName,
-      final String datasetName) {
+      final String datasetName, final AnalysisRunInfo analysisRunInfo) {
     this.stats = stats;
     this.metricName = metricName;
     this.datasetName = datasetName;
+    this.analysisRunInfo = analysisRunInfo;
   }
 
   @Override
@@ -88,6 +91,7 @@ public class SimpleContributorsFinderResult implements ContributorsFinderResult
 
     dimensionAnalysisResultApi.setMetric(new MetricApi().setDataset(new DatasetApi().setName(
         datasetName)).setName(metricName));
+    dimensionAnalysisResultApi.setAnalysisRunInfo(analysisRunInfo);
 
     return dimensionAnalysisResultApi;
   }
@@ -15,13 +15,15 @@ package ai.startree.thirdeye.plugins.rca.contributors.simple;
 
 import static ai.startree.thirdeye.plugins.rca.contributors.simple.SimpleContributorsFinder.COL_CONTRIBUTION_CHANGE_PERCENTAGE;
 import static ai.startree.thirdeye.plugins.rca.contributors.simple.SimpleContributorsFinder.COL_VALUE_CHANGE_PERCENTAGE;
-import static ai.startree.thirdeye.spi.Constants.COL_TIME;
 import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
 import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -29,17 +31,16 @@ import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
 import ai.startree.thirdeye.spi.api.cube.SummaryResponseRow;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
-import ai.startree.thirdeye.spi.dataframe.LongSeries;
 import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
 import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
 import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
 import java.util.List;
-import java.util.function.Supplier;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
@@ -48,7 +49,6 @@ import org.testng.annotations.Test;
 
 public class SimpleContributorsFinderTest {
 
-  public static final DataFrame EMPTY_DATA_FRAME = DataFrame.builder(COL_TIME + ":LONG").build();
   private static final DateTime BASELINE_START = new DateTime(2022,
       1,
       1,
@@ -71,38 +71,44 @@ public class SimpleContributorsFinderTest {
   private static final List<Predicate> FILTERS = List.of();
   private static final List<List<String>> HIERARCHIES = null;
 
-  private static final MetricSlice BASELINE_SLICE = MetricSlice.from(METRIC_CONFIG_DTO,
-      BASELINE_INTERVAL,
-      FILTERS,
-      DATASET_CONFIG_DTO);
   private static final MetricSlice CURRENT_SLICE = MetricSlice.from(METRIC_CONFIG_DTO,
       CURRENT_INTERVAL,
       FILTERS,
       DATASET_CONFIG_DTO);
 
+  private static final double[] BASELINE_VALUES = {40, 60, 80, 20};
+  private static final double[] CURRENT_VALUES = {50, 70, 50, 70};
+  private static final double[] NULL_VALUES = {DoubleSeries.NULL, DoubleSeries.NULL,
+      DoubleSeries.NULL, DoubleSeries.NULL};
+
   // os in android, osx. browser in chrome, safari
-  private static final Supplier<DataFrame> BASELINE_DATAFRAME = () -> new DataFrame().addSeries(
-          COL_DIMENSION_NAME,
-          StringSeries.buildFrom("os", "os", "browser", "browser"))
-      .addSeries(COL_DIMENSION_VALUE, StringSeries.buildFrom("android", "osx", "chrome", "safari"))
-      .addSeries(COL_VALUE, DoubleSeries.buildFrom(40, 60, 80, 20))
-      .addSeries(COL_TIME, LongSeries.buildFrom(1L, 1L, 1L, 1L));
-
-  private static final Supplier<DataFrame> CURRENT_DATAFRAME = () -> new DataFrame().addSeries(
-          COL_DIMENSION_NAME,
-          StringSeries.buildFrom("os", "os", "browser", "browser"))
-      .addSeries(COL_DIMENSION_VALUE, StringSeries.buildFrom("android", "osx", "chrome", "safari"))
-      .addSeries(COL_VALUE, DoubleSeries.buildFrom(50, 70, 50, 70))
-      .addSeries(COL_TIME, LongSeries.buildFrom(2L, 2L, 2L, 2L));
+  private static DataFrame breakdown(final double[] currentValues, final double[] baselineValues) {
+    return new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, StringSeries.buildFrom("os", "os", "browser", "browser"))
+        .addSeries(COL_DIMENSION_VALUE,
+            StringSeries.buildFrom("android", "osx", "chrome", "safari"))
+        .addSeries(COL_CURRENT_VALUE, DoubleSeries.buildFrom(currentValues))
+        .addSeries(COL_BASELINE_VALUE, DoubleSeries.buildFrom(baselineValues));
+  }
 
-  @Test
-  public void testSearchNominalCase() throws Exception {
+  private static AggregationLoader aggregationLoader(final DataFrame breakdown) throws Exception {
+    return aggregationLoader(new BreakdownComparison(breakdown, List.of()));
+  }
+
+  private static AggregationLoader aggregationLoader(final BreakdownComparison breakdown)
+      throws Exception {
     final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(CURRENT_SLICE),
+        ArgumentMatchers.eq(BASELINE_INTERVAL),
+        anyInt(),
+        anyLong())).thenReturn(breakdown);
+    return aggregationLoader;
+  }
 
-    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
-        BASELINE_DATAFRAME.get());
-    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(CURRENT_SLICE), anyInt())).thenReturn(
-        CURRENT_DATAFRAME.get());
+  @Test
+  public void testSearchNominalCase() throws Exception {
+    final AggregationLoader aggregationLoader = aggregationLoader(
+        breakdown(CURRENT_VALUES, BASELINE_VALUES));
 
     final SimpleContributorsFinder contributorsFinder = new SimpleContributorsFinder(
         aggregationLoader,
@@ -134,11 +140,35 @@ public class SimpleContributorsFinderTest {
   }
 
   @Test
-  public void testSearchThrowsErrorIfEmptyDataForBaselineTimeframe() throws Exception {
-    final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+  public void testSearchFlagsPartialResultOnTimeout() throws Exception {
+    final AggregationLoader aggregationLoader = aggregationLoader(new BreakdownComparison(
+        breakdown(CURRENT_VALUES, BASELINE_VALUES).filterEquals(COL_DIMENSION_NAME, "os")
+            .dropNull(),
+        List.of("browser")));
+    final SimpleContributorsFinder contributorsFinder = new SimpleContributorsFinder(
+        aggregationLoader,
+        new SimpleConfiguration());
 
-    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
-        EMPTY_DATA_FRAME);
+    final DimensionAnalysisResultApi res = contributorsFinder.search(new ContributorsSearchConfiguration(
+        METRIC_CONFIG_DTO,
+        DATASET_CONFIG_DTO,
+        CURRENT_INTERVAL,
+        BASELINE_INTERVAL,
+        SUMMARY_SIZE,
+        DEPTH,
+        DO_ONE_SIDE_ERROR,
+        FILTERS,
+        HIERARCHIES)).getDimensionAnalysisResult();
+    assertThat(res.getAnalysisRunInfo().isSuccess()).isTrue();
+    assertThat(res.getAnalysisRunInfo().isPartial()).isTrue();
+    assertThat(res.getAnalysisRunInfo().getMessage()).contains("browser");
+    assertThat(res.getDimensions()).containsExactly("os");
+  }
+
+  @Test
+  public void testSearchThrowsErrorIfEmptyDataForBaselineTimeframe() throws Exception {
+    final AggregationLoader aggregationLoader = aggregationLoader(
+        breakdown(CURRENT_VALUES, NULL_VALUES));
     final SimpleContributorsFinder contributorsFinder = new SimpleContributorsFinder(
         aggregationLoader,
         new SimpleConfiguration());
@@ -159,11 +189,8 @@ public class SimpleContributorsFinderTest {
 
   @Test
   public void testSearchThrowsErrorIfEmptyDataForCurrentTimeFrame() throws Exception {
-    final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
-    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
-        BASELINE_DATAFRAME.get());
-    when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(CURRENT_SLICE), anyInt())).thenReturn(
-        EMPTY_DATA_FRAME);
+    final AggregationLoader aggregationLoader = aggregationLoader(
+        breakdown(NULL_VALUES, BASELINE_VALUES));
     final SimpleContributorsFinder contributorsFinder = new SimpleContributorsFinder(
         aggregationLoader,
         new SimpleConfiguration());
@@ -34,10 +34,9 @@ import ai.startree.thirdeye.spi.detection.AnomalyDetector;
 import ai.startree.thirdeye.spi.detection.AnomalyDetectorResult;
 import ai.startree.thirdeye.spi.detection.Pattern;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.joda.time.ReadableInterval;
@@ -177,16 +176,31 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     final double[] lowerBoundArray = new double[size];
     final long[] resultTimeArray = new long[size];
 
-    // todo cyril compute mean and std in a single pass
-    // https://nestedsoftware.com/2018/03/20/calculating-a-moving-average-on-streaming-data-5a7k.22879.html
-    // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
+    final LongSeries timeSeries = inputDF.getLongs(COL_TIME);
+    final long[] times = timeSeries.values();
+    final double[] values = inputDF.getDoubles(COL_VALUE).values();
+    final boolean isSorted = isStrictlyIncreasing(times);
+    // mean and variance of the lookback values, per seasonality phase. Updated incrementally
+    // when the lookback window slides.
+    final int[] phases = phases(times);
+    final RollingStatistics statistics = new RollingStatistics(phases, values);
+    // todo cyril implement median
     for (int k = 0; k < size; k++) {
       final long forecastTime = forecastDF.getLong(COL_TIME, k);
-      final DataFrame lookbackDf = getLookbackDf(inputDF, forecastTime);
-      final DoubleSeries periodMask = buildPeriodMask(lookbackDf, forecastTime);
-      // todo cyril implement median
-      final double mean = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask).mean().value();
-      final double std = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask).std().value();
+      final int indexEnd = isSorted
+          ? Arrays.binarySearch(times, forecastTime)
+          : timeSeries.find(forecastTime);
+      checkArgument(indexEnd >= 0,
+          "Could not find index of endTime. endTime should exist in inputDf. This should not happen.");
+      final int indexStart = indexEnd - lookback;
+      checkArgument(indexStart >= 0,
+          "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
+              + indexStart);
+      statistics.slide(indexStart, indexEnd);
+
+      final int phase = phases[indexEnd];
+      final double mean = statistics.mean(phase);
+      final double std = statistics.std(phase);
       //calculate baseline, error , upper and lower bound for prediction window.
       resultTimeArray[k] = forecastTime;
       baselineArray[k] = mean;
@@ -207,47 +221,124 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     return resultDF;
   }
 
-  private DoubleSeries buildPeriodMask(final DataFrame lookbackDf, final long forecastTime) {
+  private static boolean isStrictlyIncreasing(final long[] times) {
+    for (int i = 1; i < times.length; i++) {
+      if (times[i] <= times[i - 1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the seasonality phase of each timestamp, as a dense index. Two timestamps are in the
+   * same phase if they have the same time of day (daily seasonality), the same time of day and
+   * day of week (weekly seasonality). With no seasonality, all timestamps are in the same phase.
+   */
+  private int[] phases(final long[] times) {
+    final int[] phases = new int[times.length];
     if (seasonality.equals(Period.ZERO)) {
-      // no seasonality --> no mask
-      return DoubleSeries.fillValues(lookbackDf.size(), 1);
+      // no seasonality --> a single phase
+      return phases;
     }
     // fixme cyril this implem does not not fail at DST - but datetimeZone is hardcoded to UTC so not DST
-    DateTime forecastDateTime = new DateTime(forecastTime, DateTimeZone.UTC);
-    DoubleSeries.Builder mask = DoubleSeries.builder();
-    LongSeries lookbackEpochs = lookbackDf.get(COL_TIME).getLongs();
-    for (int idx = 0; idx < lookbackEpochs.size(); idx++) {
-      DateTime lookbackDateTime = new DateTime(lookbackEpochs.get(idx), DateTimeZone.UTC);
-      mask.addValues(isSeasonalityMatch(forecastDateTime, lookbackDateTime) ? 1. : null);
+    // in UTC, same time of day and same day of week <=> same epoch millis modulo 7 days
+    final long seasonalityMillis = seasonality.toStandardDuration().getMillis();
+    final long[] residues = new long[times.length];
+    for (int i = 0; i < times.length; i++) {
+      residues[i] = Math.floorMod(times[i], seasonalityMillis);
     }
-    return mask.build();
+    final long[] distinctResidues = Arrays.stream(residues).distinct().sorted().toArray();
+    for (int i = 0; i < times.length; i++) {
+      phases[i] = Arrays.binarySearch(distinctResidues, residues[i]);
+    }
+    return phases;
   }
 
-  private boolean isSeasonalityMatch(final DateTime dt1, final DateTime dt2) {
-    final boolean isSameTimeInDay =
-        dt1.getHourOfDay() == dt2.getHourOfDay() && dt1.getMinuteOfHour() == dt2.getMinuteOfHour()
-            && dt1.getSecondOfMinute() == dt2.getSecondOfMinute()
-            && dt1.getMillisOfSecond() == dt2.getMillisOfSecond();
-    if (seasonality.equals(Period.days(7))) {
-      return isSameTimeInDay && dt1.getDayOfWeek() == dt2.getDayOfWeek();
-    } else if (seasonality.equals(Period.days(1))) {
-      return isSameTimeInDay;
-    } else {
-      throw new UnsupportedOperationException();
+  /**
+   * Mean and variance of the non-null values in a sliding window of rows, per phase.
+   * Uses Welford's online algorithm, with removal of the values leaving the window.
+   * See https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
+   */
+  private static class RollingStatistics {
+
+    private final int[] phases;
+    private final double[] values;
+    private final int[] counts;
+    private final double[] means;
+    private final double[] m2s;
+    private int start = 0;
+    private int end = 0;
+
+    private RollingStatistics(final int[] phases, final double[] values) {
+      this.phases = phases;
+      this.values = values;
+      final int phaseCount = Arrays.stream(phases).max().orElse(0) + 1;
+      counts = new int[phaseCount];
+      means = new double[phaseCount];
+      m2s = new double[phaseCount];
+    }
+
+    /**
+     * Moves the window to the rows [newStart, newEnd).
+     */
+    private void slide(final int newStart, final int newEnd) {
+      if (newStart < start || newEnd < end || newStart >= end) {
+        // not a forward move on an overlapping window - reset
+        Arrays.fill(counts, 0);
+        Arrays.fill(means, 0);
+        Arrays.fill(m2s, 0);
+        start = newStart;
+        end = newStart;
+      }
+      for (; start < newStart; start++) {
+        remove(start);
+      }
+      for (; end < newEnd; end++) {
+        add(end);
+      }
+    }
+
+    private void add(final int index) {
+      final double value = values[index];
+      if (DoubleSeries.isNull(value)) {
+        return;
+      }
+      final int phase = phases[index];
+      counts[phase]++;
+      final double delta = value - means[phase];
+      means[phase] += delta / counts[phase];
+      m2s[phase] += delta * (value - means[phase]);
     }
-  }
 
-  private DataFrame getLookbackDf(final DataFrame inputDF, final long endTimeMillis) {
-    final int indexEnd = inputDF.getLongs(COL_TIME).find(endTimeMillis);
-    checkArgument(indexEnd != -1,
-        "Could not find index of endTime. endTime should exist in inputDf. This should not happen.");
-
-    DataFrame loobackDf = DataFrame.builder(COL_TIME, COL_VALUE).build();
-    final int indexStart = indexEnd - lookback;
-    checkArgument(indexStart >= 0,
-        "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
-            + indexStart);
-    loobackDf = loobackDf.append(inputDF.slice(indexStart, indexEnd));
-    return loobackDf;
+    private void remove(final int index) {
+      final double value = values[index];
+      if (DoubleSeries.isNull(value)) {
+        return;
+      }
+      final int phase = phases[index];
+      counts[phase]--;
+      if (counts[phase] == 0) {
+        means[phase] = 0;
+        m2s[phase] = 0;
+        return;
+      }
+      final double delta = value - means[phase];
+      means[phase] -= delta / counts[phase];
+      m2s[phase] -= delta * (value - means[phase]);
+    }
+
+    private double mean(final int phase) {
+      return counts[phase] > 0 ? means[phase] : DoubleSeries.NULL;
+    }
+
+    /**
+     * Sample standard deviation. Same as {@link DoubleSeries#std()}.
+     */
+    private double std(final int phase) {
+      return counts[phase] > 1
+          ? Math.sqrt(Math.max(0, m2s[phase]) / (counts[phase] - 1))
+          : DoubleSeries.NULL;
+    }
   }
 }
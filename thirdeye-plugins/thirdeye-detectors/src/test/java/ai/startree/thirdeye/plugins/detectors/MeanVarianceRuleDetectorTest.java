@@ -14,7 +14,9 @@
 package ai.startree.thirdeye.plugins.detectors;
 
 import static ai.startree.thirdeye.plugins.detectors.MeanVarianceRuleDetector.computeSteps;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
@@ -28,8 +30,12 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 public class MeanVarianceRuleDetectorTest {
@@ -441,4 +447,92 @@ public class MeanVarianceRuleDetectorTest {
     int output = computeSteps(period, monitoringGranularity);
     assertThat(output).isEqualTo(365);
   }
+
+  @DataProvider
+  public static Object[][] regressionCases() {
+    return new Object[][]{
+        // granularity, lookback, seasonality
+        {"PT15M", "P3D", null},
+        {"PT15M", "P3D", "P1D"},
+        {"PT1H", "P14D", "P7D"},
+        {"PT5M", "P2D", "P1D"},
+    };
+  }
+
+  /**
+   * Compares the incremental computation of the detector with the previous implementation, that
+   * computed mean and std on a new lookback dataframe for each point.
+   */
+  @Test(dataProvider = "regressionCases")
+  public void testSameResultsAsLookbackDataframeImplementation(final String granularity,
+      final String lookbackPeriod, final String seasonalityPeriod) {
+    final long granularityMillis = isoPeriod(granularity).toStandardDuration().getMillis();
+    final int lookback = computeSteps(lookbackPeriod, granularity);
+    final int size = lookback + computeSteps("P2D", granularity);
+    final Random random = new Random(42);
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = DECEMBER_18_2020 + i * granularityMillis;
+      // some nulls, a daily pattern and noise
+      values[i] = random.nextInt(50) == 0
+          ? DoubleSeries.NULL
+          : 1000 + 100 * Math.sin(i * 2 * Math.PI * granularityMillis / 86_400_000L)
+              + 10 * random.nextGaussian();
+    }
+    final DataFrame currentDf = new DataFrame()
+        .addSeries(Constants.COL_TIME, times)
+        .addSeries(Constants.COL_VALUE, values);
+    final Interval interval = new Interval(times[lookback], times[size - 1] + granularityMillis,
+        DateTimeZone.UTC);
+
+    final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+    spec.setMonitoringGranularity(granularity);
+    spec.setLookbackPeriod(lookbackPeriod);
+    spec.setSeasonalityPeriod(seasonalityPeriod);
+    spec.setSensitivity(3);
+    final MeanVarianceRuleDetector detector = new MeanVarianceRuleDetector();
+    detector.init(spec);
+    final DataFrame outputDf = detector.runDetection(interval,
+            Map.of(AnomalyDetector.KEY_CURRENT, SimpleDataTable.fromDataFrame(currentDf)))
+        .getDataFrame();
+
+    final Period seasonality = seasonalityPeriod == null ? Period.ZERO
+        : isoPeriod(seasonalityPeriod);
+    final double sigma = 0.5 + 0.1 * (10 - 3);
+    for (int k = lookback; k < size; k++) {
+      if (DoubleSeries.isNull(values[k])) {
+        assertThat(outputDf.getDoubles(Constants.COL_VALUE).isNull(k)).isTrue();
+        continue;
+      }
+      final DoubleSeries lookbackValues = currentDf.slice(k - lookback, k)
+          .getDoubles(Constants.COL_VALUE)
+          .multiply(seasonalityMask(currentDf.slice(k - lookback, k), times[k], seasonality));
+      final double mean = lookbackValues.mean().value();
+      final double std = lookbackValues.std().value();
+      assertThat(outputDf.getDouble(Constants.COL_VALUE, k)).isCloseTo(mean, within(1e-6));
+      assertThat(outputDf.getDouble(Constants.COL_UPPER_BOUND, k))
+          .isCloseTo(mean + sigma * std, within(1e-6));
+      assertThat(outputDf.getDouble(Constants.COL_LOWER_BOUND, k))
+          .isCloseTo(mean - sigma * std, within(1e-6));
+    }
+  }
+
+  private static DoubleSeries seasonalityMask(final DataFrame lookbackDf, final long forecastTime,
+      final Period seasonality) {
+    if (seasonality.equals(Period.ZERO)) {
+      return DoubleSeries.fillValues(lookbackDf.size(), 1);
+    }
+    final DateTime forecastDateTime = new DateTime(forecastTime, DateTimeZone.UTC);
+    final DoubleSeries.Builder mask = DoubleSeries.builder();
+    for (final long epoch : lookbackDf.getLongs(Constants.COL_TIME).values()) {
+      final DateTime dt = new DateTime(epoch, DateTimeZone.UTC);
+      final boolean isSameTimeInDay = dt.getMillisOfDay() == forecastDateTime.getMillisOfDay();
+      final boolean isMatch = seasonality.equals(Period.days(7))
+          ? isSameTimeInDay && dt.getDayOfWeek() == forecastDateTime.getDayOfWeek()
+          : isSameTimeInDay;
+      mask.addValues(isMatch ? 1. : null);
+    }
+    return mask.build();
+  }
 }
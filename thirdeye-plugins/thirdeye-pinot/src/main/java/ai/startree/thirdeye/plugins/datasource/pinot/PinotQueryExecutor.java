@@ -14,6 +14,11 @@
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.ObjectSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSet;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
@@ -141,45 +146,89 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
             groupKeyColumnTypes,
             metricColumnTypes);
 
-    // Build the DataFrame
-    final List<String> columnNameWithDataType = new ArrayList<>();
-    //   Always cast dimension values to STRING type
-    for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
-      columnNameWithDataType.add(groupColumnName + ":STRING");
-    }
-    columnNameWithDataType.addAll(thirdEyeResultSetMetaData.getMetricColumnNames());
-    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
+    final DataFrame dataFrame = toDataFrame(resultSet, groupByColumnCount);
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  /**
+   * Converts a Pinot {@link ResultSet} to a {@link DataFrame} column by column.
+   *
+   * Group by columns are always STRING. Metric columns with a numeric Pinot type are read into
+   * primitive arrays. The type of other metric columns is inferred from their string values, like
+   * {@link DataFrame.Builder} does. Values that cannot be read are set to null.
+   */
+  @VisibleForTesting
+  static DataFrame toDataFrame(final ResultSet resultSet, final int groupByColumnCount) {
     final int rowCount = resultSet.getRowCount();
-    final int metricColumnCount = resultSet.getColumnCount();
-    final int totalColumnCount = groupByColumnCount + metricColumnCount;
-    // Dump the values in ResultSet to the DataFrame
-    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-      final String[] columnsOfTheRow = new String[totalColumnCount];
-      // GroupBy column value(i.e., dimension values)
-      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
-        String valueString = null;
+    final DataFrame dataFrame = new DataFrame();
+    for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
+      final String[] values = new String[rowCount];
+      for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
         try {
-          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
+          values[rowIdx] = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
         } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
+          // Do nothing. The value stays null.
         }
-        columnsOfTheRow[groupByColumnIdx] = valueString;
       }
-      // Metric column's value
-      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
-        String valueString = null;
+      dataFrame.addSeries(resultSet.getGroupKeyColumnName(groupByColumnIdx),
+          StringSeries.buildFrom(values));
+    }
+    for (int metricColumnIdx = 0; metricColumnIdx < resultSet.getColumnCount(); metricColumnIdx++) {
+      dataFrame.addSeries(resultSet.getColumnName(metricColumnIdx),
+          toSeries(resultSet, metricColumnIdx, rowCount));
+    }
+    return dataFrame;
+  }
+
+  private static Series toSeries(final ResultSet resultSet, final int columnIdx,
+      final int rowCount) {
+    final ColumnDataType dataType = pinotColumnDataType(resultSet, columnIdx);
+    if (dataType == ColumnDataType.INT || dataType == ColumnDataType.LONG) {
+      final long[] values = new long[rowCount];
+      for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
         try {
-          valueString = resultSet.getString(rowIdx, metricColumnIdx);
+          values[rowIdx] = resultSet.getLong(rowIdx, columnIdx);
         } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
+          values[rowIdx] = LongSeries.NULL;
         }
-        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
       }
-      dfBuilder.append(columnsOfTheRow);
+      return LongSeries.buildFrom(values);
+    }
+    if (dataType == ColumnDataType.FLOAT || dataType == ColumnDataType.DOUBLE) {
+      final double[] values = new double[rowCount];
+      for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+        try {
+          values[rowIdx] = resultSet.getDouble(rowIdx, columnIdx);
+        } catch (final Exception e) {
+          values[rowIdx] = DoubleSeries.NULL;
+        }
+      }
+      return DoubleSeries.buildFrom(values);
+    }
+
+    final Object[] values = new Object[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      try {
+        values[rowIdx] = resultSet.getString(rowIdx, columnIdx);
+      } catch (final Exception e) {
+        // Do nothing. The value stays null.
+      }
+    }
+    return ObjectSeries.buildFrom(values).toInferredType();
+  }
+
+  /**
+   * @return the Pinot data type of the column, null if it is not provided or not supported.
+   *     Pinot client doesn't provide types for pql.
+   */
+  private static ColumnDataType pinotColumnDataType(final ResultSet resultSet,
+      final int columnIdx) {
+    try {
+      return ColumnDataType.valueOf(resultSet.getColumnDataType(columnIdx));
+    } catch (final Exception e) {
+      return null;
     }
-    final DataFrame dataFrame = dfBuilder.build();
-    // Build ThirdEye's result set
-    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
   }
 
   private static List<Pair<Integer, Integer>> rowColCounts(final ResultSetGroup resultSetGroup) {
@@ -14,9 +14,22 @@
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
 import org.testng.annotations.Test;
 
 public class PinotQueryExecutorTest {
@@ -56,4 +69,139 @@ public class PinotQueryExecutorTest {
     assertThat(output).isEqualTo(expectedOptionString+BASE_QUERY);
 
   }
+
+  /**
+   * Row based conversion of a Pinot {@link ResultSet}: every value is read as a String and parsed
+   * again by the {@link DataFrame.Builder}. Former implementation, reference for
+   * {@link PinotQueryExecutor#toDataFrame(ResultSet, int)}.
+   */
+  private static DataFrame toDataFrameByRow(final ResultSet resultSet, final int groupByColumnCount) {
+    final List<String> columnNameWithDataType = new ArrayList<>();
+    //   Always cast dimension values to STRING type
+    for (int groupKeyColumnIdx = 0; groupKeyColumnIdx < groupByColumnCount; groupKeyColumnIdx++) {
+      columnNameWithDataType.add(resultSet.getGroupKeyColumnName(groupKeyColumnIdx) + ":STRING");
+    }
+    for (int columnIdx = 0; columnIdx < resultSet.getColumnCount(); columnIdx++) {
+      columnNameWithDataType.add(resultSet.getColumnName(columnIdx));
+    }
+    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
+    final int rowCount = resultSet.getRowCount();
+    final int metricColumnCount = resultSet.getColumnCount();
+    final int totalColumnCount = groupByColumnCount + metricColumnCount;
+    // Dump the values in ResultSet to the DataFrame
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      final String[] columnsOfTheRow = new String[totalColumnCount];
+      // GroupBy column value(i.e., dimension values)
+      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
+        String valueString = null;
+        try {
+          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
+        } catch (final Exception e) {
+          // Do nothing and subsequently insert a null value to the current series.
+        }
+        columnsOfTheRow[groupByColumnIdx] = valueString;
+      }
+      // Metric column's value
+      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
+        String valueString = null;
+        try {
+          valueString = resultSet.getString(rowIdx, metricColumnIdx);
+        } catch (final Exception e) {
+          // Do nothing and subsequently insert a null value to the current series.
+        }
+        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
+      }
+      dfBuilder.append(columnsOfTheRow);
+    }
+    return dfBuilder.build();
+  }
+
+  private static ResultSet resultSet(final String resultTableJson) throws Exception {
+    return new ResultTableResultSet(new ObjectMapper().readTree(resultTableJson));
+  }
+
+  @Test
+  public void testToDataFrameIsConsistentWithRowBasedConversion() throws Exception {
+    final ResultSet resultSet = resultSet("{"
+        + "\"dataSchema\": {"
+        + "  \"columnNames\": [\"country\", \"zipCode\", \"views\", \"revenue\", \"ratio\", \"flag\"],"
+        + "  \"columnDataTypes\": [\"STRING\", \"STRING\", \"LONG\", \"DOUBLE\", \"FLOAT\", \"BOOLEAN\"]"
+        + "},"
+        + "\"rows\": ["
+        + "  [\"US\", \"94105\", 1200, 12.5, 0.25, true],"
+        + "  [\"FR\", \"75001\", 300, 3.0, 0.5, false],"
+        + "  [\"\", \"10001\", 0, -1.0E10, 1.0, true]"
+        + "]}");
+
+    final DataFrame columnar = PinotQueryExecutor.toDataFrame(resultSet, 0);
+    final DataFrame byRow = toDataFrameByRow(resultSet, 0);
+
+    assertThat(columnar).isEqualTo(byRow);
+    assertThat(columnar.get("country").type()).isEqualTo(SeriesType.STRING);
+    assertThat(columnar.get("zipCode").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columnar.get("views").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columnar.get("revenue").type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(columnar.get("ratio").type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(columnar.get("flag").type()).isEqualTo(SeriesType.BOOLEAN);
+  }
+
+  @Test
+  public void testToDataFrameWithNullNumericValues() throws Exception {
+    final ResultSet resultSet = resultSet("{"
+        + "\"dataSchema\": {"
+        + "  \"columnNames\": [\"views\", \"revenue\"],"
+        + "  \"columnDataTypes\": [\"INT\", \"DOUBLE\"]"
+        + "},"
+        + "\"rows\": ["
+        + "  [1, 1.5],"
+        + "  [null, null]"
+        + "]}");
+
+    final DataFrame dataFrame = PinotQueryExecutor.toDataFrame(resultSet, 0);
+
+    assertThat(dataFrame.get("views")).isEqualTo(LongSeries.buildFrom(1L, LongSeries.NULL));
+    assertThat(dataFrame.get("revenue")).isEqualTo(DoubleSeries.buildFrom(1.5, DoubleSeries.NULL));
+  }
+
+  @Test
+  public void testToDataFrameWithEmptyResult() throws Exception {
+    final ResultSet resultSet = resultSet("{"
+        + "\"dataSchema\": {"
+        + "  \"columnNames\": [\"country\", \"views\"],"
+        + "  \"columnDataTypes\": [\"STRING\", \"LONG\"]"
+        + "},"
+        + "\"rows\": []}");
+
+    final DataFrame dataFrame = PinotQueryExecutor.toDataFrame(resultSet, 0);
+
+    assertThat(dataFrame.size()).isEqualTo(0);
+    assertThat(dataFrame.getSeriesNames()).containsExactlyInAnyOrder("country", "views");
+  }
+
+  @Test
+  public void testToDataFrameWithGroupByColumns() {
+    // pql group by result set: the metric data type is not provided
+    final String[][] groupKeys = {{"US", "94105"}, {"FR", null}, {"", "10001"}};
+    final String[] views = {"1200", "300", "0"};
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getRowCount()).thenReturn(groupKeys.length);
+    when(resultSet.getColumnCount()).thenReturn(1);
+    when(resultSet.getGroupKeyLength()).thenReturn(2);
+    when(resultSet.getGroupKeyColumnName(0)).thenReturn("country");
+    when(resultSet.getGroupKeyColumnName(1)).thenReturn("zipCode");
+    when(resultSet.getColumnName(0)).thenReturn("sum_views");
+    when(resultSet.getColumnDataType(0)).thenThrow(new UnsupportedOperationException());
+    when(resultSet.getGroupKeyString(anyInt(), anyInt())).thenAnswer(
+        i -> groupKeys[(int) i.getArgument(0)][(int) i.getArgument(1)]);
+    when(resultSet.getString(anyInt(), eq(0))).thenAnswer(i -> views[(int) i.getArgument(0)]);
+
+    final DataFrame columnar = PinotQueryExecutor.toDataFrame(resultSet, 2);
+
+    assertThat(columnar).isEqualTo(toDataFrameByRow(resultSet, 2));
+    assertThat(columnar.getSeriesNames()).containsExactly("country", "zipCode", "sum_views");
+    // group by columns are always STRING, even with numeric values
+    assertThat(columnar.get("zipCode").type()).isEqualTo(SeriesType.STRING);
+    assertThat(columnar.getStrings("zipCode").isNull(1)).isTrue();
+    assertThat(columnar.get("sum_views").type()).isEqualTo(SeriesType.LONG);
+  }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datastructures;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.testng.annotations.Test;
+
+public class IntervalSearchTreeTest {
+
+  @Test
+  public void testPutOnExistingIntervalAddsTheValue() {
+    final IntervalSearchTree<String> tree = new IntervalSearchTree<>();
+    tree.put(Interval1D.of(10, 20), "a");
+    tree.put(Interval1D.of(10, 20), "b");
+
+    assertThat(tree.size()).isEqualTo(1);
+    assertThat(tree.get(Interval1D.of(10, 20))).containsExactlyInAnyOrder("a", "b");
+    assertThat(tree.check()).isTrue();
+  }
+
+  @Test
+  public void testSearchAllIgnoresIntervalsEndingAtTheQueryStart() {
+    final IntervalSearchTree<String> tree = new IntervalSearchTree<>();
+    tree.put(Interval1D.of(0, 10), "left");
+    tree.put(Interval1D.of(10, 20), "match");
+    tree.put(Interval1D.of(20, 30), "right");
+
+    final Set<String> found = new HashSet<>();
+    tree.searchAll(Interval1D.of(10, 20)).values().forEach(found::addAll);
+
+    assertThat(found).containsExactly("match");
+  }
+
+  @Test
+  public void testSearchAllMatchesBruteForce() {
+    final Random random = new Random(42);
+    for (int run = 0; run < 20; run++) {
+      final IntervalSearchTree<Integer> tree = new IntervalSearchTree<>();
+      final Interval1D[] intervals = new Interval1D[100];
+      for (int i = 0; i < intervals.length; i++) {
+        final long min = random.nextInt(100);
+        intervals[i] = Interval1D.of(min, min + 1 + random.nextInt(10));
+        tree.put(intervals[i], i);
+      }
+      for (int q = 0; q < 50; q++) {
+        final long min = random.nextInt(100);
+        final Interval1D query = Interval1D.of(min, min + 1 + random.nextInt(10));
+
+        final Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < intervals.length; i++) {
+          if (intervals[i].intersects(query)) {
+            expected.add(i);
+          }
+        }
+        final Set<Integer> found = new HashSet<>();
+        tree.searchAll(query).values().forEach(found::addAll);
+
+        assertThat(found).isEqualTo(expected);
+      }
+    }
+  }
+}
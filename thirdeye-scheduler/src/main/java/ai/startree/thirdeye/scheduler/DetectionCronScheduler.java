@@ -17,6 +17,7 @@ import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecu
 import static ai.startree.thirdeye.scheduler.JobSchedulerService.getIdFromJobKey;
 import static ai.startree.thirdeye.spi.Constants.CRON_TIMEZONE;
 
+import ai.startree.thirdeye.datalayer.core.AlertChangeNotifier;
 import ai.startree.thirdeye.scheduler.job.DetectionPipelineJob;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -25,12 +26,17 @@ import ai.startree.thirdeye.spi.task.TaskType;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
 import org.quartz.JobBuilder;
@@ -45,6 +51,14 @@ import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps the quartz detection jobs in sync with the alerts.
+ *
+ * The first sweep reads all the alerts. The next sweeps only read the alerts created or updated
+ * since the previous sweep started, minus {@link #SWEEP_OVERLAP} to tolerate clock skew between
+ * nodes and transactions committed late. Changes made through the api in the same process are
+ * applied right away via the {@link AlertChangeNotifier}.
+ */
 @Singleton
 public class DetectionCronScheduler implements Runnable {
 
@@ -52,15 +66,24 @@ public class DetectionCronScheduler implements Runnable {
   public static final String QUARTZ_DETECTION_GROUPER = TaskType.DETECTION.toString();
 
   private static final Logger LOG = LoggerFactory.getLogger(DetectionCronScheduler.class);
+  private static final Duration SWEEP_OVERLAP = Duration.ofMinutes(1);
 
   private final AlertManager alertManager;
+  private final AlertChangeNotifier alertChangeNotifier;
   private final Scheduler scheduler;
   private final ScheduledExecutorService executorService;
   private final int alertDelay;
+  private final Consumer<Long> alertChangeListener = this::onAlertChanged;
+
+  // only accessed from the executor thread
+  private Timestamp lastSweepStart = null;
 
   @Inject
-  public DetectionCronScheduler(final ThirdEyeSchedulerConfiguration thirdEyeSchedulerConfiguration, final AlertManager alertManager) {
+  public DetectionCronScheduler(final ThirdEyeSchedulerConfiguration thirdEyeSchedulerConfiguration,
+      final AlertManager alertManager,
+      final AlertChangeNotifier alertChangeNotifier) {
     this.alertManager = alertManager;
+    this.alertChangeNotifier = alertChangeNotifier;
     alertDelay = thirdEyeSchedulerConfiguration.getAlertUpdateDelay();
     executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("detection-cron-%d").build());
     try {
@@ -80,6 +103,7 @@ public class DetectionCronScheduler implements Runnable {
 
   public void start() throws SchedulerException {
     scheduler.start();
+    alertChangeNotifier.addListener(alertChangeListener);
     executorService
         .scheduleWithFixedDelay(this, 0, alertDelay, ALERT_DELAY_UNIT);
   }
@@ -87,13 +111,45 @@ public class DetectionCronScheduler implements Runnable {
   @Override
   public void run() {
     try {
-      alertManager.findAll().forEach(this::processAlert);
+      final Timestamp sweepStart = new Timestamp(System.currentTimeMillis());
+      final List<AlertDTO> alerts = lastSweepStart == null
+          ? alertManager.findAll()
+          : alertManager.findUpdatedSince(
+              new Timestamp(lastSweepStart.getTime() - SWEEP_OVERLAP.toMillis()));
+      alerts.forEach(this::processAlert);
       processScheduledJobs();
+      lastSweepStart = sweepStart;
     } catch (final SchedulerException e) {
       LOG.error("Error while scheduling detection pipeline", e);
     }
   }
 
+  private void onAlertChanged(final Long alertId) {
+    try {
+      executorService.execute(() -> syncAlert(alertId));
+    } catch (final RejectedExecutionException e) {
+      LOG.warn("Detection cron scheduler is shut down. Ignoring change of alert {}", alertId);
+    }
+  }
+
+  void syncAlert(final Long alertId) {
+    try {
+      final AlertDTO alert = alertManager.findById(alertId);
+      if (alert != null && alert.isActive()) {
+        processAlert(alert);
+        return;
+      }
+      final JobKey jobKey = new JobKey(getJobKey(alertId, TaskType.DETECTION),
+          QUARTZ_DETECTION_GROUPER);
+      if (scheduler.checkExists(jobKey)) {
+        LOG.info("Alert {} has been deleted or deactivated", alertId);
+        stopJob(jobKey);
+      }
+    } catch (final Exception e) {
+      LOG.error("Error syncing detection job of alert {}", alertId, e);
+    }
+  }
+
   private void processAlert(final AlertDTO alert) {
     if (!alert.isActive()) {
       LOG.debug("Alert: " + alert.getId() + " is inactive. Skipping.");
@@ -125,6 +181,30 @@ public class DetectionCronScheduler implements Runnable {
 
   private void processScheduledJobs() throws SchedulerException {
     final Set<JobKey> scheduledJobs = getScheduledJobs();
+    if (scheduledJobs.isEmpty()) {
+      return;
+    }
+    final Set<Long> activeIds = new HashSet<>(alertManager.findAllActiveIds());
+    if (activeIds.isEmpty()) {
+      // an empty result may be a swallowed db error: check the jobs one by one
+      checkScheduledJobsOneByOne(scheduledJobs);
+      return;
+    }
+    for (final JobKey jobKey : scheduledJobs) {
+      try {
+        final Long id = getIdFromJobKey(jobKey.getName());
+        if (!activeIds.contains(id)) {
+          LOG.info("Found a scheduled detection config task, but it is deleted or inactive {}",
+              id);
+          stopJob(jobKey);
+        }
+      } catch (final Exception e) {
+        LOG.error("Error removing job key {}", jobKey);
+      }
+    }
+  }
+
+  private void checkScheduledJobsOneByOne(final Set<JobKey> scheduledJobs) {
     for (final JobKey jobKey : scheduledJobs) {
       try {
         final Long id = getIdFromJobKey(jobKey.getName());
@@ -153,6 +233,7 @@ public class DetectionCronScheduler implements Runnable {
   }
 
   public void shutdown() throws SchedulerException {
+    alertChangeNotifier.removeListener(alertChangeListener);
     shutdownExecutionService(executorService);
     scheduler.shutdown();
   }
@@ -161,7 +161,8 @@ public class JobSchedulerService {
       long lastNotifiedTime = e.getValue();
       if (anomalyManager.filter(new AnomalyFilter()
               .setCreateTimeWindow(new Interval(lastNotifiedTime, System.currentTimeMillis()))
-              .setAlertId(configId))
+              .setAlertId(configId)
+              .setWithChildren(false))
           .stream().anyMatch(x -> !x.isChild())) {
         return true;
       }
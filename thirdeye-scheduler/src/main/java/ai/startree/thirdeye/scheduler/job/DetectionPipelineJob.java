@@ -13,11 +13,11 @@
  */
 package ai.startree.thirdeye.scheduler.job;
 
+import static ai.startree.thirdeye.scheduler.JobSchedulerService.getIdFromJobKey;
+
 import ai.startree.thirdeye.scheduler.JobSchedulerService;
-import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
-import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
-import ai.startree.thirdeye.spi.task.TaskType;
+import ai.startree.thirdeye.worker.task.runner.DetectionReplayCoordinator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
@@ -30,6 +30,22 @@ public class DetectionPipelineJob extends ThirdEyeAbstractJob {
   @Override
   public void execute(JobExecutionContext ctx) {
     final JobSchedulerService service = getInstance(ctx, JobSchedulerService.class);
+    final DetectionReplayCoordinator replayCoordinator = getInstance(ctx,
+        DetectionReplayCoordinator.class);
+
+    // if a task is pending and not time out yet, don't schedule more
+    String jobName = ctx.getJobDetail().getKey().getName();
+    if (service.taskAlreadyRunning(jobName)) {
+      LOG.info("Skip scheduling detection task for {}. Task is already in the queue.", jobName);
+      return;
+    }
+
+    // a replay is finalized or its failed chunks are resumed before new tasks are created
+    if (replayCoordinator.resume(getIdFromJobKey(jobName))) {
+      LOG.info("Skip scheduling detection task for {}. A replay is in progress.", jobName);
+      return;
+    }
+
     final DetectionPipelineTaskInfo taskInfo = service.buildTaskInfo(ctx.getJobDetail().getKey(),
         ctx.getScheduledFireTime().getTime());
 
@@ -38,23 +54,10 @@ public class DetectionPipelineJob extends ThirdEyeAbstractJob {
       return;
     }
 
-    // if a task is pending and not time out yet, don't schedule more
-    String jobName = ctx.getJobDetail().getKey().getName();
-    if (service.taskAlreadyRunning(jobName)) {
-      LOG.info(
-          "Skip scheduling detection task for {} with start time {} and end time {}. Task is already in the queue.",
-          jobName,
+    try {
+      replayCoordinator.createDetectionTasks(taskInfo.getConfigId(),
           taskInfo.getStart(),
           taskInfo.getEnd());
-      return;
-    }
-
-    try {
-      final TaskManager taskManager = getInstance(ctx, TaskManager.class);
-      final TaskDTO taskDTO = taskManager.createTaskDto(taskInfo.getConfigId(),
-          taskInfo,
-          TaskType.DETECTION);
-      LOG.info("Created {} task {} with settings {}", TaskType.DETECTION, taskDTO.getId(), taskDTO);
     } catch (JsonProcessingException e) {
       LOG.error("Exception when converting DetectionPipelineTaskInfo {} to jsonString",
           taskInfo,
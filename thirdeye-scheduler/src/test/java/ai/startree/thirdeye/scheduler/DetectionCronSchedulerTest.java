@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.core.AlertChangeNotifier;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import java.util.List;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DetectionCronSchedulerTest {
+
+  private static final String CRON = "0 0 * * * ? *";
+
+  private AlertManager alertManager;
+  private DetectionCronScheduler detectionCronScheduler;
+
+  @BeforeMethod
+  public void setUp() {
+    alertManager = mock(AlertManager.class);
+    detectionCronScheduler = new DetectionCronScheduler(new ThirdEyeSchedulerConfiguration(),
+        alertManager,
+        new AlertChangeNotifier());
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown() throws SchedulerException {
+    detectionCronScheduler.shutdown();
+  }
+
+  private static AlertDTO alert(final long id, final boolean active) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setCron(CRON);
+    alert.setActive(active);
+    alert.setId(id);
+    return alert;
+  }
+
+  private static JobKey jobKey(final long id) {
+    return new JobKey("DETECTION_" + id, DetectionCronScheduler.QUARTZ_DETECTION_GROUPER);
+  }
+
+  @Test
+  public void testOnlyFirstSweepReadsAllAlerts() throws SchedulerException {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1L, true)));
+    when(alertManager.findUpdatedSince(any())).thenReturn(List.of(alert(2L, true)));
+    when(alertManager.findAllActiveIds()).thenReturn(List.of(1L, 2L));
+
+    detectionCronScheduler.run();
+    assertThat(detectionCronScheduler.getScheduledJobs()).containsExactly(jobKey(1L));
+
+    detectionCronScheduler.run();
+    assertThat(detectionCronScheduler.getScheduledJobs())
+        .containsExactlyInAnyOrder(jobKey(1L), jobKey(2L));
+    verify(alertManager, times(1)).findAll();
+    verify(alertManager, times(1)).findUpdatedSince(any());
+    verify(alertManager, never()).findById(any());
+  }
+
+  @Test
+  public void testSweepStopsJobsOfInactiveAlerts() throws SchedulerException {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1L, true), alert(2L, true)));
+    when(alertManager.findAllActiveIds()).thenReturn(List.of(1L, 2L));
+    detectionCronScheduler.run();
+
+    when(alertManager.findUpdatedSince(any())).thenReturn(List.of(alert(2L, false)));
+    when(alertManager.findAllActiveIds()).thenReturn(List.of(1L));
+    detectionCronScheduler.run();
+
+    assertThat(detectionCronScheduler.getScheduledJobs()).containsExactly(jobKey(1L));
+  }
+
+  @Test
+  public void testSyncAlert() throws SchedulerException {
+    when(alertManager.findById(1L)).thenReturn(alert(1L, true));
+    detectionCronScheduler.syncAlert(1L);
+    assertThat(detectionCronScheduler.getScheduledJobs()).containsExactly(jobKey(1L));
+
+    when(alertManager.findById(1L)).thenReturn(null);
+    detectionCronScheduler.syncAlert(1L);
+    assertThat(detectionCronScheduler.getScheduledJobs()).isEmpty();
+  }
+}
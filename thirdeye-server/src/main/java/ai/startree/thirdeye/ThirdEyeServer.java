@@ -13,6 +13,10 @@
  */
 package ai.startree.thirdeye;
 
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryLimiter.QUERY_LIMIT_METRIC_PREFIX;
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryTelemetry.QUERY_CACHE_METRIC_PREFIX;
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryTelemetry.QUERY_ERROR_METRIC_PREFIX;
+import static ai.startree.thirdeye.datasource.cache.DataSourceQueryTelemetry.QUERY_METRIC_PREFIX;
 import static ai.startree.thirdeye.spi.Constants.CTX_INJECTOR;
 import static ai.startree.thirdeye.spi.Constants.ENV_THIRDEYE_PLUGINS_DIR;
 import static ai.startree.thirdeye.spi.Constants.SYS_PROP_THIRDEYE_PLUGINS_DIR;
@@ -35,6 +39,8 @@ import ai.startree.thirdeye.scheduler.events.MockEventsLoader;
 import ai.startree.thirdeye.service.ResourcesBootstrapService;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
 import ai.startree.thirdeye.worker.task.TaskDriver;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.dropwizard.Application;
@@ -51,8 +57,12 @@ import io.federecio.dropwizard.swagger.SwaggerBundle;
 import io.federecio.dropwizard.swagger.SwaggerBundleConfiguration;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.dropwizard.DropwizardExports;
+import io.prometheus.client.dropwizard.samplebuilder.CustomMappingSampleBuilder;
+import io.prometheus.client.dropwizard.samplebuilder.MapperConfig;
+import io.prometheus.client.dropwizard.samplebuilder.SampleBuilder;
 import io.prometheus.client.exporter.MetricsServlet;
 import java.util.EnumSet;
+import java.util.List;
 import javax.servlet.DispatcherType;
 import javax.servlet.FilterRegistration;
 import org.apache.tomcat.jdbc.pool.DataSource;
@@ -120,7 +130,7 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
     // Expose dropwizard metrics in prometheus compatible format
     if (configuration.getPrometheusConfiguration().isEnabled()) {
       final CollectorRegistry collectorRegistry = new CollectorRegistry();
-      collectorRegistry.register(new DropwizardExports(env.metrics()));
+      collectorRegistry.register(new DropwizardExports(env.metrics(), prometheusSampleBuilder()));
       env.admin()
           .addServlet("prometheus", new MetricsServlet(collectorRegistry))
           .addMapping("/prometheus");
@@ -147,6 +157,28 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
     injector.getInstance(PluginLoader.class).loadPlugins();
   }
 
+  /**
+   * Maps the tags encoded in the names of the datasource query metrics to prometheus labels.
+   * Other metrics are exported with the default naming.
+   */
+  @VisibleForTesting
+  static SampleBuilder prometheusSampleBuilder() {
+    return new CustomMappingSampleBuilder(List.of(
+        new MapperConfig(QUERY_METRIC_PREFIX + ".*.*.*",
+            "thirdeye_datasource_query_${0}",
+            ImmutableMap.of("datasource", "${1}", "dataset", "${2}")),
+        new MapperConfig(QUERY_ERROR_METRIC_PREFIX + ".*.*.*",
+            "thirdeye_datasource_query_errors",
+            ImmutableMap.of("datasource", "${0}", "dataset", "${1}", "error_class", "${2}")),
+        new MapperConfig(QUERY_CACHE_METRIC_PREFIX + ".*.*.*",
+            "thirdeye_datasource_query_cache_${0}",
+            ImmutableMap.of("datasource", "${1}", "dataset", "${2}")),
+        new MapperConfig(QUERY_LIMIT_METRIC_PREFIX + ".*.*",
+            "thirdeye_datasource_query_limit_${0}",
+            ImmutableMap.of("datasource", "${1}"))
+    ));
+  }
+
   private Managed lifecycleManager(final ThirdEyeServerConfiguration config) {
     return new Managed() {
       @Override
@@ -54,13 +54,17 @@ public class ThirdEyeServerModule extends AbstractModule {
     install(new ThirdEyeAuthModule(configuration.getAuthConfiguration()));
 
     install(new ThirdEyeCoreModule(dataSource,
+        configuration.getDatabaseConfiguration(),
         configuration.getCacheConfig(),
         configuration.getRcaConfiguration(),
         configuration.getUiConfiguration(),
-        configuration.getTimeConfiguration()));
+        configuration.getTimeConfiguration(),
+        configuration.getQueryLimiterConfiguration(),
+        configuration.getQueryTelemetryConfiguration()));
     install(new ThirdEyeNotificationModule(configuration.getNotificationConfiguration()));
     install(new ThirdEyeDetectionPipelineModule(configuration.getDetectionPipelineConfiguration()));
-    install(new ThirdEyeWorkerModule(configuration.getTaskDriverConfiguration()));
+    install(new ThirdEyeWorkerModule(configuration.getTaskDriverConfiguration(),
+        configuration.getDetectionReplayConfiguration()));
     install(new ThirdEyeSchedulerModule(configuration.getSchedulerConfiguration()));
 
     bind(AuthConfiguration.class).toInstance(configuration.getAuthConfiguration());
@@ -13,7 +13,6 @@
  */
 package ai.startree.thirdeye.alert;
 
-import static ai.startree.thirdeye.spi.task.TaskType.DETECTION;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.config.TimeConfiguration;
@@ -21,10 +20,9 @@ import ai.startree.thirdeye.mapper.ApiBeanMapper;
 import ai.startree.thirdeye.spi.api.AlertApi;
 import ai.startree.thirdeye.spi.api.AlertInsightsApi;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
-import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
-import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.worker.task.runner.DetectionReplayCoordinator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -37,16 +35,17 @@ public class AlertCreater {
 
   protected static final Logger LOG = LoggerFactory.getLogger(AlertCreater.class);
   private final AlertManager alertManager;
-  private final TaskManager taskManager;
+  private final DetectionReplayCoordinator detectionReplayCoordinator;
   private final AlertInsightsProvider alertInsightsProvider;
   private final long minimumOnboardingStartTime;
 
   @Inject
-  public AlertCreater(final AlertManager alertManager, final TaskManager taskManager,
+  public AlertCreater(final AlertManager alertManager,
+      final DetectionReplayCoordinator detectionReplayCoordinator,
       final AlertInsightsProvider alertInsightsProvider,
       final TimeConfiguration timeConfiguration) {
     this.alertManager = alertManager;
-    this.taskManager = taskManager;
+    this.detectionReplayCoordinator = detectionReplayCoordinator;
     this.alertInsightsProvider = alertInsightsProvider;
     this.minimumOnboardingStartTime = timeConfiguration.getMinimumOnboardingStartTime();
   }
@@ -112,16 +111,14 @@ public class AlertCreater {
   public void createDetectionTask(final Long alertId, final long start, final long end) {
     checkArgument(alertId != null && alertId >= 0);
     checkArgument(start <= end);
-    final DetectionPipelineTaskInfo info = new DetectionPipelineTaskInfo(alertId, start,
-        end);
 
     try {
-      final TaskDTO t = taskManager.createTaskDto(alertId, info, DETECTION);
-      LOG.info("Created {} task {} with settings {}", DETECTION, t.getId(), t);
+      // long intervals are split in chunks run in parallel
+      detectionReplayCoordinator.createDetectionTasks(alertId, start, end);
     } catch (JsonProcessingException e) {
       throw new RuntimeException(String.format("Error while serializing %s: %s",
           DetectionPipelineTaskInfo.class.getSimpleName(),
-          info), e);
+          new DetectionPipelineTaskInfo(alertId, start, end)), e);
     }
   }
 }
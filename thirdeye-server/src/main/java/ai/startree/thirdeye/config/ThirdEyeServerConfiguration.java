@@ -21,6 +21,7 @@ import ai.startree.thirdeye.notification.NotificationConfiguration;
 import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
 import ai.startree.thirdeye.scheduler.ThirdEyeSchedulerConfiguration;
 import ai.startree.thirdeye.scheduler.events.MockEventsConfiguration;
+import ai.startree.thirdeye.worker.task.DetectionReplayConfiguration;
 import ai.startree.thirdeye.worker.task.TaskDriverConfiguration;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
@@ -44,6 +45,9 @@ public class ThirdEyeServerConfiguration extends Configuration {
   @JsonProperty("taskDriver")
   private TaskDriverConfiguration taskDriverConfiguration = new TaskDriverConfiguration();
 
+  @JsonProperty("detectionReplay")
+  private DetectionReplayConfiguration detectionReplayConfiguration = new DetectionReplayConfiguration();
+
   @JsonProperty("scheduler")
   private ThirdEyeSchedulerConfiguration schedulerConfiguration = new ThirdEyeSchedulerConfiguration();
 
@@ -68,6 +72,12 @@ public class ThirdEyeServerConfiguration extends Configuration {
   @JsonProperty("time")
   private TimeConfiguration timeConfiguration = new TimeConfiguration();
 
+  @JsonProperty("queryLimiter")
+  private QueryLimiterConfiguration queryLimiterConfiguration = new QueryLimiterConfiguration();
+
+  @JsonProperty("queryTelemetry")
+  private QueryTelemetryConfiguration queryTelemetryConfiguration = new QueryTelemetryConfiguration();
+
   @JsonProperty("accessControl")
   private AccessControlConfiguration accessControlConfiguration = new AccessControlConfiguration();
 
@@ -126,6 +136,16 @@ public class ThirdEyeServerConfiguration extends Configuration {
     return this;
   }
 
+  public DetectionReplayConfiguration getDetectionReplayConfiguration() {
+    return detectionReplayConfiguration;
+  }
+
+  public ThirdEyeServerConfiguration setDetectionReplayConfiguration(
+      final DetectionReplayConfiguration detectionReplayConfiguration) {
+    this.detectionReplayConfiguration = detectionReplayConfiguration;
+    return this;
+  }
+
   public NotificationConfiguration getNotificationConfiguration() {
     return notificationConfiguration;
   }
@@ -242,6 +262,26 @@ public class ThirdEyeServerConfiguration extends Configuration {
     return this;
   }
 
+  public QueryLimiterConfiguration getQueryLimiterConfiguration() {
+    return queryLimiterConfiguration;
+  }
+
+  public ThirdEyeServerConfiguration setQueryLimiterConfiguration(
+      final QueryLimiterConfiguration queryLimiterConfiguration) {
+    this.queryLimiterConfiguration = queryLimiterConfiguration;
+    return this;
+  }
+
+  public QueryTelemetryConfiguration getQueryTelemetryConfiguration() {
+    return queryTelemetryConfiguration;
+  }
+
+  public ThirdEyeServerConfiguration setQueryTelemetryConfiguration(
+      final QueryTelemetryConfiguration queryTelemetryConfiguration) {
+    this.queryTelemetryConfiguration = queryTelemetryConfiguration;
+    return this;
+  }
+
   public DetectionPipelineConfiguration getDetectionPipelineConfiguration() {
     return detectionPipelineConfiguration;
   }
@@ -18,7 +18,9 @@ import static ai.startree.thirdeye.spi.datalayer.Predicate.parseAndCombinePredic
 import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 
 import ai.startree.thirdeye.datasource.loader.DefaultAggregationLoader;
+import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
 import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
 import ai.startree.thirdeye.spi.api.DatasetApi;
 import ai.startree.thirdeye.spi.api.HeatMapResponseApi;
 import ai.startree.thirdeye.spi.api.HeatMapResponseApi.HeatMapBreakdownApi;
@@ -28,8 +30,8 @@ import ai.startree.thirdeye.spi.dataframe.LongSeries;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Templatable;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
-import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.loader.BreakdownComparison;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
 import java.util.Collections;
 import java.util.HashMap;
@@ -38,6 +40,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
 import org.joda.time.Interval;
 import org.joda.time.Period;
@@ -50,16 +53,18 @@ public class HeatmapCalculator {
 
   public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormat.forStyle("LL");
   private static final Logger LOG = LoggerFactory.getLogger(HeatmapCalculator.class);
-  private static final long TIMEOUT_MILLIS = 60_000;
 
   private final RcaInfoFetcher rcaInfoFetcher;
   private final AggregationLoader aggregationLoader;
+  private final long timeoutMillis;
 
   @Inject
   public HeatmapCalculator(final RcaInfoFetcher rcaInfoFetcher,
-      final AggregationLoader aggregationLoader) {
+      final AggregationLoader aggregationLoader,
+      final RcaConfiguration rcaConfiguration) {
     this.rcaInfoFetcher = rcaInfoFetcher;
     this.aggregationLoader = aggregationLoader;
+    this.timeoutMillis = rcaConfiguration.getHeatmapTimeoutMillis();
   }
 
   public HeatMapResponseApi compute(final long anomalyId,
@@ -86,19 +91,34 @@ public class HeatmapCalculator {
         datasetConfigDTO);
     datasetConfigDTO.setDimensions(Templatable.of(rcaDimensions));
 
-    final Map<String, Map<String, Double>> anomalyBreakdown = computeBreakdown(
-        rcaInfo.getMetric(),
-        parseAndCombinePredicates(filters),
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    final List<Predicate> predicates = parseAndCombinePredicates(filters);
+    final MetricSlice currentSlice = MetricSlice.from(rcaInfo.getMetric(),
         currentInterval,
-        limit,
+        predicates,
         datasetConfigDTO);
-
-    final Map<String, Map<String, Double>> baselineBreakdown = computeBreakdown(
-        rcaInfo.getMetric(),
-        parseAndCombinePredicates(filters),
+    final MetricSlice baselineSlice = MetricSlice.from(rcaInfo.getMetric(),
         baselineInterval,
-        limit,
+        predicates,
         datasetConfigDTO);
+    LOG.info("RCA metric analysis - Current: {} - Baseline: {}",
+        DATE_TIME_FORMATTER.print(currentInterval.getStartMillis()),
+        DATE_TIME_FORMATTER.print(baselineInterval.getStartMillis()));
+
+    // totals are loaded while the breakdowns are computed
+    final Future<DataFrame> currentAggregate = loadAggregate(currentSlice);
+    final Future<DataFrame> baselineAggregate = loadAggregate(baselineSlice);
+    final BreakdownComparison breakdown = aggregationLoader.loadBreakdown(currentSlice,
+        baselineInterval,
+        limit,
+        timeoutMillis);
+
+    final Map<String, Map<String, Double>> anomalyBreakdown = DefaultAggregationLoader.makeBreakdownMap(
+        breakdown.getCurrentBreakdown(),
+        fetchAggregate(currentAggregate, currentSlice, deadline));
+    final Map<String, Map<String, Double>> baselineBreakdown = DefaultAggregationLoader.makeBreakdownMap(
+        breakdown.getBaselineBreakdown(),
+        fetchAggregate(baselineAggregate, baselineSlice, deadline));
 
     // if a dimension value is not observed in a breakdown but observed in the other, add it with a count of 0
     fillMissingKeysWithZeroes(baselineBreakdown, anomalyBreakdown);
@@ -109,7 +129,18 @@ public class HeatmapCalculator {
             .setName(rcaInfo.getMetric().getName())
             .setDataset(new DatasetApi().setName(datasetConfigDTO.getDataset())))
         .setCurrent(new HeatMapBreakdownApi().setBreakdown(anomalyBreakdown))
-        .setBaseline(new HeatMapBreakdownApi().setBreakdown(baselineBreakdown));
+        .setBaseline(new HeatMapBreakdownApi().setBreakdown(baselineBreakdown))
+        .setAnalysisRunInfo(analysisRunInfo(breakdown));
+  }
+
+  private AnalysisRunInfo analysisRunInfo(final BreakdownComparison breakdown) {
+    if (!breakdown.isPartial()) {
+      return AnalysisRunInfo.success();
+    }
+    return AnalysisRunInfo.partial(String.format(
+        "The breakdown of dimensions %s could not be loaded within %d ms. They are not in the heatmap.",
+        breakdown.getTimedOutDimensions(),
+        timeoutMillis));
   }
 
   /**
@@ -134,39 +165,27 @@ public class HeatmapCalculator {
     }
   }
 
-  public Map<String, Map<String, Double>> computeBreakdown(final MetricConfigDTO metricConfigDTO,
-      final List<Predicate> predicates,
-      final Interval interval,
-      final int limit,
-      final DatasetConfigDTO datasetConfigDTO) throws Exception {
-
-    final MetricSlice baseSlice = MetricSlice.from(metricConfigDTO,
-        interval,
-        predicates,
-        datasetConfigDTO);
-
-    LOG.info("RCA metric analysis - Slice: {} - {}",
-        DATE_TIME_FORMATTER.print(baseSlice.getInterval().getStartMillis()),
-        DATE_TIME_FORMATTER.print(baseSlice.getInterval().getStartMillis()));
-
-    final DataFrame dataBreakdown = aggregationLoader.loadBreakdown(baseSlice, limit);
-    final DataFrame dataAggregate = fetchAggregate(baseSlice);
-
-    return DefaultAggregationLoader.makeBreakdownMap(dataBreakdown, dataAggregate);
+  private Future<DataFrame> loadAggregate(final MetricSlice slice) throws Exception {
+    return aggregationLoader.loadAggregateAsync(slice, Collections.emptyList(), 2);
   }
 
   /**
-   * Returns aggregates for the given set of metric slices.
+   * Returns the aggregate of a slice. If the aggregate is not loaded before the deadline, the
+   * value is null: the breakdown is returned without rollup.
    *
-   * @param slice metric slice
-   * @return map of dataframes (keyed by metric slice, columns: [COL_TIME(1), COL_VALUE])
+   * @return dataframe with columns: [COL_TIME(1), COL_VALUE]
    * @throws Exception on catch-all execution failure
    */
-  private DataFrame fetchAggregate(final MetricSlice slice) throws Exception {
-    final Future<DataFrame> future = aggregationLoader.loadAggregateAsync(slice,
-        Collections.emptyList(),
-        2);
-    DataFrame df = future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  private DataFrame fetchAggregate(final Future<DataFrame> future, final MetricSlice slice,
+      final long deadline) throws Exception {
+    DataFrame df;
+    try {
+      df = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (final TimeoutException e) {
+      future.cancel(true);
+      LOG.warn("RCA metric analysis - aggregate of slice {} timed out. Skipping rollup.", slice);
+      df = new DataFrame();
+    }
     if (df.isEmpty()) {
       df = new DataFrame().addSeries(Constants.COL_VALUE, Double.NaN);
     } else if (df.size() > 1) {
@@ -36,12 +36,23 @@ import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EventContextDto;
 import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.Chronology;
 import org.joda.time.DateTimeZone;
@@ -55,6 +66,10 @@ public class RcaInfoFetcher {
   public static final Interval UNUSED_DETECTION_INTERVAL = new Interval(0L, 0L, DateTimeZone.UTC);
   private static final Logger LOG = LoggerFactory.getLogger(RcaInfoFetcher.class);
   public static final EventContextDto EMPTY_CONTEXT_DTO = new EventContextDto();
+  private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+  private static final int CACHE_MAX_SIZE = 1_000;
+  // bounds the staleness of the entities that are not versioned in the cache key
+  private static final long CACHE_EXPIRY_MINUTES = 10;
   private final AnomalyManager mergedAnomalyDAO;
   private final AlertManager alertDAO;
   private final DatasetConfigManager datasetDAO;
@@ -62,19 +77,40 @@ public class RcaInfoFetcher {
   private final AlertTemplateRenderer alertTemplateRenderer;
   private final EnumerationItemManager enumerationItemManager;
 
+  /**
+   * Resolved RcaInfo by anomaly id and alert version. The dataset version is checked on read.
+   */
+  private final Cache<CacheKey, RcaInfo> cache = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_MAX_SIZE)
+      .expireAfterWrite(CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+      .build();
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
   @Inject
   public RcaInfoFetcher(final AnomalyManager mergedAnomalyDAO,
       final AlertManager alertDAO,
       final DatasetConfigManager datasetDAO,
       final MetricConfigManager metricDAO,
       final AlertTemplateRenderer alertTemplateRenderer,
-      final EnumerationItemManager enumerationItemManager) {
+      final EnumerationItemManager enumerationItemManager,
+      final MetricRegistry metricRegistry) {
     this.mergedAnomalyDAO = mergedAnomalyDAO;
     this.alertDAO = alertDAO;
     this.datasetDAO = datasetDAO;
     this.metricDAO = metricDAO;
     this.alertTemplateRenderer = alertTemplateRenderer;
     this.enumerationItemManager = enumerationItemManager;
+
+    hitCounter = metricRegistry.counter("rcaInfoCacheHitCounter");
+    missCounter = metricRegistry.counter("rcaInfoCacheMissCounter");
+    metricRegistry.register("rcaInfoCacheSize", (Gauge<Long>) cache::size);
+    metricRegistry.register("rcaInfoCacheHitRatio", new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(hitCounter.getCount(), hitCounter.getCount() + missCounter.getCount());
+      }
+    });
   }
 
   @VisibleForTesting
@@ -115,6 +151,9 @@ public class RcaInfoFetcher {
    * template.
    * This method gets the metric and dataset info from the alert template.
    * It could be more intelligent: metric and dataset could be inferred from the query.
+   *
+   * The resolution renders the alert template. It is cached until the alert or the dataset is
+   * updated. The anomaly is always loaded fresh.
    */
   public RcaInfo getRcaInfo(final long anomalyId)
       throws IOException, ClassNotFoundException {
@@ -122,6 +161,38 @@ public class RcaInfoFetcher {
         String.format("Anomaly ID: %d", anomalyId));
     final long detectionConfigId = anomalyDTO.getDetectionConfigId();
     final AlertDTO alertDTO = alertDAO.findById(detectionConfigId);
+
+    final CacheKey key = new CacheKey(anomalyId,
+        optional(alertDTO).map(AbstractDTO::getUpdateTime).orElse(null));
+    final RcaInfo cached = cache.getIfPresent(key);
+    if (cached != null && isUpToDate(cached.getDataset())) {
+      hitCounter.inc();
+      return copy(cached, anomalyDTO);
+    }
+    missCounter.inc();
+    final RcaInfo rcaInfo = resolveRcaInfo(anomalyDTO, alertDTO);
+    cache.put(key, rcaInfo);
+    return copy(rcaInfo, anomalyDTO);
+  }
+
+  /**
+   * Callers override the dataset dimensions per request: cached DTOs are never handed out.
+   */
+  private static RcaInfo copy(final RcaInfo rcaInfo, final AnomalyDTO anomalyDTO) {
+    return new RcaInfo(anomalyDTO,
+        OBJECT_MAPPER.convertValue(rcaInfo.getMetric(), MetricConfigDTO.class),
+        OBJECT_MAPPER.convertValue(rcaInfo.getDataset(), DatasetConfigDTO.class),
+        rcaInfo.getChronology(),
+        OBJECT_MAPPER.convertValue(rcaInfo.getEventContext(), EventContextDto.class));
+  }
+
+  private boolean isUpToDate(final DatasetConfigDTO dataset) {
+    final DatasetConfigDTO persisted = datasetDAO.findById(dataset.getId());
+    return persisted != null && Objects.equals(persisted.getUpdateTime(), dataset.getUpdateTime());
+  }
+
+  private RcaInfo resolveRcaInfo(final AnomalyDTO anomalyDTO, final AlertDTO alertDTO)
+      throws IOException, ClassNotFoundException {
     final EnumerationItemDTO enumerationItemDTO = optional(anomalyDTO.getEnumerationItem())
         .map(AbstractDTO::getId)
         .map(enumerationItemManager::findById)
@@ -195,4 +266,33 @@ public class RcaInfoFetcher {
     }
     return null;
   }
+
+  private static class CacheKey {
+
+    private final long anomalyId;
+    private final Timestamp alertUpdateTime;
+
+    private CacheKey(final long anomalyId, final Timestamp alertUpdateTime) {
+      this.anomalyId = anomalyId;
+      this.alertUpdateTime = alertUpdateTime;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final CacheKey cacheKey = (CacheKey) o;
+      return anomalyId == cacheKey.anomalyId
+          && Objects.equals(alertUpdateTime, cacheKey.alertUpdateTime);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(anomalyId, alertUpdateTime);
+    }
+  }
 }
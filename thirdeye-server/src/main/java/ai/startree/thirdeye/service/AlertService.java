@@ -28,6 +28,7 @@ import ai.startree.thirdeye.alert.AlertEvaluator;
 import ai.startree.thirdeye.alert.AlertInsightsProvider;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
+import ai.startree.thirdeye.datalayer.core.AlertChangeNotifier;
 import ai.startree.thirdeye.mapper.ApiBeanMapper;
 import ai.startree.thirdeye.spi.accessControl.AccessType;
 import ai.startree.thirdeye.spi.api.AlertApi;
@@ -67,6 +68,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
   private final AlertEvaluator alertEvaluator;
   private final AppAnalyticsService analyticsService;
   private final AlertInsightsProvider alertInsightsProvider;
+  private final AlertChangeNotifier alertChangeNotifier;
 
   @Inject
   public AlertService(final AlertCreater alertCreater,
@@ -75,6 +77,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
       final AlertManager alertManager,
       final AppAnalyticsService analyticsService,
       final AlertInsightsProvider alertInsightsProvider,
+      final AlertChangeNotifier alertChangeNotifier,
       final AuthorizationManager authorizationManager) {
     super(authorizationManager, alertManager, ImmutableMap.of());
     this.alertCreater = alertCreater;
@@ -82,11 +85,13 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
     this.alertEvaluator = alertEvaluator;
     this.analyticsService = analyticsService;
     this.alertInsightsProvider = alertInsightsProvider;
+    this.alertChangeNotifier = alertChangeNotifier;
   }
 
   @Override
   protected void deleteDto(final AlertDTO dto) {
     alertDeleter.delete(dto);
+    alertChangeNotifier.notifyChanged(dto.getId());
   }
 
   @Override
@@ -133,8 +138,14 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
     }
   }
 
+  @Override
+  protected void postCreate(final AlertDTO dto) {
+    alertChangeNotifier.notifyChanged(dto.getId());
+  }
+
   @Override
   protected void postUpdate(final AlertDTO dto) {
+    alertChangeNotifier.notifyChanged(dto.getId());
     /*
      * Running the detection task after updating an alert ensures that enumeration items if
      * updated are reflected in the dtos as well. Enumeration Items are updated after executing
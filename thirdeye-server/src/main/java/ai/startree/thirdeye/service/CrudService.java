@@ -123,6 +123,7 @@ public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exten
         .map(dto -> createGateKeeper(principal, dto))
         .peek(dtoManager::save)
         .peek(dto -> Objects.requireNonNull(dto.getId(), "DB update failed!"))
+        .peek(this::postCreate)
         .map(dto -> toApi(dto, cache))
         .collect(Collectors.toList());
   }
@@ -286,6 +287,10 @@ public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exten
     return dto;
   }
 
+  protected void postCreate(final DtoT dto) {
+    // default is a no-op
+  }
+
   protected void postUpdate(final DtoT dto) {
     // default is a no-op
   }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.dropwizard.DropwizardExports;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class ThirdEyeServerTest {
+
+  private static Map<String, Sample> collect(final MetricRegistry metricRegistry) {
+    final List<MetricFamilySamples> families = new DropwizardExports(metricRegistry,
+        ThirdEyeServer.prometheusSampleBuilder()).collect();
+    return families.stream()
+        .flatMap(family -> family.samples.stream())
+        .collect(Collectors.toMap(sample -> sample.name + sample.labelValues, sample -> sample,
+            (s1, s2) -> s1));
+  }
+
+  @Test
+  public void testPrometheusSampleBuilderMapsDataSourceQueryTags() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    metricRegistry.histogram("dataSourceQuery.rows.pinot.table1").update(10);
+    metricRegistry.meter("dataSourceQueryError.pinot.table1.TimeoutException").mark();
+    metricRegistry.counter("dataSourceQueryCache.hit.pinot.table1").inc();
+    metricRegistry.register("dataSourceQueryLimit.waiting.pinot", (Gauge<Integer>) () -> 3);
+    metricRegistry.counter("fetchTableTimer").inc();
+
+    final Map<String, Sample> samples = collect(metricRegistry);
+
+    final Sample rows = samples.get("thirdeye_datasource_query_rows_count[pinot, table1]");
+    assertThat(rows).isNotNull();
+    assertThat(rows.labelNames).containsExactly("datasource", "dataset");
+    assertThat(rows.value).isEqualTo(1);
+
+    final Sample errors = samples.get(
+        "thirdeye_datasource_query_errors_total[pinot, table1, TimeoutException]");
+    assertThat(errors).isNotNull();
+    assertThat(errors.labelNames).containsExactly("datasource", "dataset", "error_class");
+
+    final Sample cacheHits = samples.get("thirdeye_datasource_query_cache_hit[pinot, table1]");
+    assertThat(cacheHits).isNotNull();
+    assertThat(cacheHits.value).isEqualTo(1);
+
+    final Sample waiting = samples.get("thirdeye_datasource_query_limit_waiting[pinot]");
+    assertThat(waiting).isNotNull();
+    assertThat(waiting.labelNames).containsExactly("datasource");
+    assertThat(waiting.value).isEqualTo(3);
+
+    // other metrics keep the default naming
+    assertThat(samples).containsKey("fetchTableTimer[]");
+  }
+}
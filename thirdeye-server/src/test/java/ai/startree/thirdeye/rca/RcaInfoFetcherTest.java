@@ -15,10 +15,30 @@ package ai.startree.thirdeye.rca;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.alert.AlertTemplateRenderer;
 import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
+import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
+import ai.startree.thirdeye.spi.datalayer.bao.MetricConfigManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
 import org.testng.annotations.Test;
 
 public class RcaInfoFetcherTest {
@@ -112,4 +132,109 @@ public class RcaInfoFetcherTest {
     RcaInfoFetcher.addCustomFields(updatedConfig,metadataConfig);
     assertThat(updatedConfig.getRcaExcludedDimensions()).isEqualTo(newExcludedDimensions);
   }
+
+  @Test
+  public void testGetRcaInfoIsCachedUntilAlertOrDatasetUpdate() throws Exception {
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    final AnomalyDTO anomaly = new AnomalyDTO().setDetectionConfigId(1L);
+    anomaly.setId(10L);
+    when(anomalyManager.findById(10L)).thenReturn(anomaly);
+
+    final AlertManager alertManager = mock(AlertManager.class);
+    final AlertDTO alert = new AlertDTO().setTemplateProperties(Map.of());
+    alert.setId(1L);
+    alert.setUpdateTime(new Timestamp(1000L));
+    when(alertManager.findById(1L)).thenReturn(alert);
+
+    final AlertTemplateRenderer alertTemplateRenderer = mock(AlertTemplateRenderer.class);
+    when(alertTemplateRenderer.renderAlert(eq(alert), any(), any())).thenReturn(
+        new AlertTemplateDTO().setMetadata(new AlertMetadataDTO()
+            .setMetric(new MetricConfigDTO().setName("metric"))
+            .setDataset(new DatasetConfigDTO().setDataset("dataset"))));
+
+    final MetricConfigManager metricConfigManager = mock(MetricConfigManager.class);
+    when(metricConfigManager.findByMetricAndDataset("metric", "dataset")).thenReturn(
+        new MetricConfigDTO().setName("metric").setDataset("dataset"));
+
+    final DatasetConfigManager datasetConfigManager = mock(DatasetConfigManager.class);
+    final DatasetConfigDTO dataset = new DatasetConfigDTO().setDataset("dataset");
+    dataset.setId(2L);
+    dataset.setUpdateTime(new Timestamp(1000L));
+    when(datasetConfigManager.findByDataset("dataset")).thenReturn(dataset);
+    when(datasetConfigManager.findById(2L)).thenReturn(dataset);
+
+    final RcaInfoFetcher rcaInfoFetcher = new RcaInfoFetcher(anomalyManager,
+        alertManager,
+        datasetConfigManager,
+        metricConfigManager,
+        alertTemplateRenderer,
+        mock(EnumerationItemManager.class),
+        new MetricRegistry());
+
+    final RcaInfo rcaInfo = rcaInfoFetcher.getRcaInfo(10L);
+    assertThat(rcaInfo.getAnomaly()).isSameAs(anomaly);
+    assertThat(rcaInfo.getMetric().getName()).isEqualTo("metric");
+    assertThat(rcaInfo.getDataset()).isEqualTo(dataset);
+    assertThat(rcaInfoFetcher.getRcaInfo(10L).getDataset()).isEqualTo(dataset);
+    verify(alertTemplateRenderer, times(1)).renderAlert(eq(alert), any(), any());
+
+    alert.setUpdateTime(new Timestamp(2000L));
+    rcaInfoFetcher.getRcaInfo(10L);
+    verify(alertTemplateRenderer, times(2)).renderAlert(eq(alert), any(), any());
+
+    final DatasetConfigDTO updatedDataset = new DatasetConfigDTO().setDataset("dataset");
+    updatedDataset.setId(2L);
+    updatedDataset.setUpdateTime(new Timestamp(2000L));
+    when(datasetConfigManager.findById(2L)).thenReturn(updatedDataset);
+    rcaInfoFetcher.getRcaInfo(10L);
+    verify(alertTemplateRenderer, times(3)).renderAlert(eq(alert), any(), any());
+  }
+
+  @Test
+  public void testGetRcaInfoCacheIsNotAffectedByDimensionOverrides() throws Exception {
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    final AnomalyDTO anomaly = new AnomalyDTO().setDetectionConfigId(1L);
+    when(anomalyManager.findById(10L)).thenReturn(anomaly);
+    final AlertManager alertManager = mock(AlertManager.class);
+    final AlertDTO alert = new AlertDTO().setTemplateProperties(Map.of());
+    alert.setUpdateTime(new Timestamp(1000L));
+    when(alertManager.findById(1L)).thenReturn(alert);
+    final AlertTemplateRenderer alertTemplateRenderer = mock(AlertTemplateRenderer.class);
+    when(alertTemplateRenderer.renderAlert(eq(alert), any(), any())).thenReturn(
+        new AlertTemplateDTO().setMetadata(new AlertMetadataDTO()
+            .setMetric(new MetricConfigDTO().setName("metric"))
+            .setDataset(new DatasetConfigDTO().setDataset("dataset"))));
+    final MetricConfigManager metricConfigManager = mock(MetricConfigManager.class);
+    when(metricConfigManager.findByMetricAndDataset("metric", "dataset")).thenReturn(
+        new MetricConfigDTO().setName("metric").setDataset("dataset"));
+    final DatasetConfigManager datasetConfigManager = mock(DatasetConfigManager.class);
+    final DatasetConfigDTO dataset = new DatasetConfigDTO().setDataset("dataset")
+        .setDimensions(Templatable.of(List.of(DIM_1, DIM_2)));
+    dataset.setId(2L);
+    dataset.setUpdateTime(new Timestamp(1000L));
+    when(datasetConfigManager.findByDataset("dataset")).thenReturn(dataset);
+    when(datasetConfigManager.findById(2L)).thenReturn(dataset);
+    final RcaInfoFetcher rcaInfoFetcher = new RcaInfoFetcher(anomalyManager,
+        alertManager,
+        datasetConfigManager,
+        metricConfigManager,
+        alertTemplateRenderer,
+        mock(EnumerationItemManager.class),
+        new MetricRegistry());
+
+    // request with dimensions=[dim1] - callers override the dimensions of the dataset
+    final DatasetConfigDTO overridden = rcaInfoFetcher.getRcaInfo(10L).getDataset();
+    overridden.setDimensions(Templatable.of(
+        RcaDimensionFilterHelper.getRcaDimensions(List.of(DIM_1), List.of(), overridden)));
+    // request with an exclusion list
+    final DatasetConfigDTO excluded = rcaInfoFetcher.getRcaInfo(10L).getDataset();
+    excluded.setDimensions(Templatable.of(
+        RcaDimensionFilterHelper.getRcaDimensions(List.of(), List.of(DIM_2), excluded)));
+
+    // request without dimensions
+    final DatasetConfigDTO full = rcaInfoFetcher.getRcaInfo(10L).getDataset();
+    assertThat(RcaDimensionFilterHelper.getRcaDimensions(List.of(), List.of(), full))
+        .containsExactly(DIM_1, DIM_2);
+    verify(alertTemplateRenderer, times(1)).renderAlert(eq(alert), any(), any());
+  }
 }
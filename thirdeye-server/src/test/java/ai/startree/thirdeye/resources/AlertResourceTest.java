@@ -26,6 +26,7 @@ import ai.startree.thirdeye.alert.AlertTemplateRenderer;
 import ai.startree.thirdeye.auth.AccessControlProvider;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
+import ai.startree.thirdeye.datalayer.core.AlertChangeNotifier;
 import ai.startree.thirdeye.service.AlertService;
 import ai.startree.thirdeye.service.AppAnalyticsService;
 import ai.startree.thirdeye.spi.accessControl.AccessControl;
@@ -80,6 +81,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        new AlertChangeNotifier(),
         authorizationManager
     );
   }
@@ -240,6 +242,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        new AlertChangeNotifier(),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("allowedNamespace")))
@@ -292,6 +295,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        new AlertChangeNotifier(),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 accessType == AccessType.READ && id.getNamespace().equals("allowedNamespace")))
@@ -337,6 +341,7 @@ public class AlertResourceTest {
         mock(AlertManager.class),
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        new AlertChangeNotifier(),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("readonlyNamespace") && accessType == AccessType.READ))
@@ -386,6 +391,7 @@ public class AlertResourceTest {
         mock(AlertManager.class),
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        new AlertChangeNotifier(),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("allowedNamespace")))
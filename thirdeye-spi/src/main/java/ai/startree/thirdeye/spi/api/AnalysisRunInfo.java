@@ -21,11 +21,17 @@ public class AnalysisRunInfo {
 
   private boolean success = true;
   private String message = "";
+  /* true if the analysis ran on part of the data only, for instance after a timeout */
+  private boolean partial = false;
 
   public static AnalysisRunInfo success() {
     return new AnalysisRunInfo().setSuccess(true).setMessage("");
   }
 
+  public static AnalysisRunInfo partial(final String message) {
+    return new AnalysisRunInfo().setSuccess(true).setPartial(true).setMessage(message);
+  }
+
   public static AnalysisRunInfo failure(final String message) {
     return new AnalysisRunInfo().setSuccess(false).setMessage(message);
   }
@@ -47,4 +53,13 @@ public class AnalysisRunInfo {
     this.message = message;
     return this;
   }
+
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public AnalysisRunInfo setPartial(final boolean partial) {
+    this.partial = partial;
+    return this;
+  }
 }
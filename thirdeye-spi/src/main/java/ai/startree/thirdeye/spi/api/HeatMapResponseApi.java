@@ -20,6 +20,7 @@ public class HeatMapResponseApi implements ThirdEyeApi {
   private MetricApi metric;
   private HeatMapBreakdownApi baseline;
   private HeatMapBreakdownApi current;
+  private AnalysisRunInfo analysisRunInfo = AnalysisRunInfo.success();
 
   public MetricApi getMetric() {
     return metric;
@@ -50,6 +51,15 @@ public class HeatMapResponseApi implements ThirdEyeApi {
     return this;
   }
 
+  public AnalysisRunInfo getAnalysisRunInfo() {
+    return analysisRunInfo;
+  }
+
+  public HeatMapResponseApi setAnalysisRunInfo(final AnalysisRunInfo analysisRunInfo) {
+    this.analysisRunInfo = analysisRunInfo;
+    return this;
+  }
+
   public static class HeatMapBreakdownApi {
 
     private Map<String, Map<String, Double>> breakdown;
@@ -21,6 +21,11 @@ public class AnomalyFilter {
   private Interval createTimeWindow;
   private Long alertId;
   private Long enumerationItemId;
+  /**
+   * If false, the children of the anomalies are not loaded. Useful for callers that only need
+   * the parent anomalies. Filtering with a DaoFilter, as the API listings do, never loads children.
+   */
+  private boolean withChildren = true;
 
   public Interval getCreateTimeWindow() {
     return createTimeWindow;
@@ -48,4 +53,13 @@ public class AnomalyFilter {
     this.enumerationItemId = enumerationItemId;
     return this;
   }
+
+  public boolean isWithChildren() {
+    return withChildren;
+  }
+
+  public AnomalyFilter setWithChildren(final boolean withChildren) {
+    this.withChildren = withChildren;
+    return this;
+  }
 }
@@ -23,6 +23,13 @@ public interface AbstractManager<E extends AbstractDTO> {
 
   Long save(E entity);
 
+  /**
+   * Save entities in bulk. Entities without id are created, others are updated.
+   *
+   * @return the number of entities saved
+   */
+  int save(List<E> entities);
+
   int update(E entity);
 
   int update(List<E> entities);
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.spi.datalayer.bao;
 
 import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import java.sql.Timestamp;
 import java.util.List;
 
 public interface AlertManager extends AbstractManager<AlertDTO> {
@@ -21,4 +22,11 @@ public interface AlertManager extends AbstractManager<AlertDTO> {
   List<AlertDTO> findAllActive();
 
   Long countActive();
+
+  List<Long> findAllActiveIds();
+
+  /**
+   * Returns the alerts created or updated strictly after the given timestamp.
+   */
+  List<AlertDTO> findUpdatedSince(Timestamp timestamp);
 }
@@ -16,6 +16,7 @@ package ai.startree.thirdeye.spi.datalayer.bao;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import java.util.Collection;
 import java.util.List;
 
 public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
@@ -47,5 +48,13 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
   long countParentAnomalies(DaoFilter filter);
 
   List<AnomalyDTO> filter(AnomalyFilter anomalyFilter);
+
+  /**
+   * Returns the parent anomalies that are not ignored and match any of the filters. The filters
+   * are applied in a single query per batch of filters. Children are not loaded. An anomaly
+   * matching multiple filters is returned once.
+   */
+  List<AnomalyDTO> filterParents(Collection<AnomalyFilter> anomalyFilters);
+
   List<AnomalyDTO> findParentAnomaliesWithFeedback(DaoFilter filter);
 }
@@ -46,6 +46,12 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
   boolean updateStatusAndWorkerId(Long workerId, Long id, Set<TaskStatus> allowedOldStatus,
       int expectedVersion);
 
+  /**
+   * Atomically claims up to {@code limit} WAITING tasks for the worker: the returned tasks are
+   * RUNNING and assigned to {@code workerId}.
+   */
+  List<TaskDTO> acquireTasks(Long workerId, int limit);
+
   void updateStatusAndTaskEndTime(Long id, TaskStatus oldStatus, TaskStatus newStatus,
       Long taskEndTime, String message);
 
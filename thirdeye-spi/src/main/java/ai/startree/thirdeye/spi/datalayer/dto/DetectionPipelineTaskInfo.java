@@ -14,13 +14,25 @@
 package ai.startree.thirdeye.spi.datalayer.dto;
 
 import ai.startree.thirdeye.spi.task.TaskInfo;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
+@JsonInclude(Include.NON_NULL)
 public class DetectionPipelineTaskInfo implements TaskInfo {
 
   long configId;
   long start;
   long end;
 
+  /**
+   * Replay fields. Set when the task is one chunk of a long detection interval split across
+   * multiple tasks. Null for regular detection tasks.
+   */
+  String replayId;
+  Long replayEnd;
+  Integer chunkIndex;
+  Integer chunkCount;
+
   public DetectionPipelineTaskInfo(long configId, long start, long end) {
     this.configId = configId;
     this.start = start;
@@ -57,4 +69,40 @@ public class DetectionPipelineTaskInfo implements TaskInfo {
     this.end = end;
     return this;
   }
+
+  public String getReplayId() {
+    return replayId;
+  }
+
+  public DetectionPipelineTaskInfo setReplayId(final String replayId) {
+    this.replayId = replayId;
+    return this;
+  }
+
+  public Long getReplayEnd() {
+    return replayEnd;
+  }
+
+  public DetectionPipelineTaskInfo setReplayEnd(final Long replayEnd) {
+    this.replayEnd = replayEnd;
+    return this;
+  }
+
+  public Integer getChunkIndex() {
+    return chunkIndex;
+  }
+
+  public DetectionPipelineTaskInfo setChunkIndex(final Integer chunkIndex) {
+    this.chunkIndex = chunkIndex;
+    return this;
+  }
+
+  public Integer getChunkCount() {
+    return chunkCount;
+  }
+
+  public DetectionPipelineTaskInfo setChunkCount(final Integer chunkCount) {
+    this.chunkCount = chunkCount;
+    return this;
+  }
 }
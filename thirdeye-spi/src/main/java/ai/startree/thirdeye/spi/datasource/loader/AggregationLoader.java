@@ -13,10 +13,12 @@
  */
 package ai.startree.thirdeye.spi.datasource.loader;
 
+import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
 import java.util.List;
 import java.util.concurrent.Future;
+import org.joda.time.Interval;
 
 public interface AggregationLoader {
 
@@ -24,6 +26,8 @@ public interface AggregationLoader {
   String COL_DIMENSION_VALUE = "dimValue";
   String COL_AGGREGATION_ONLY_ROWS_COUNT = "rowsCount";
   String COL_AGGREGATION_ONLY_NON_NULL_ROWS_COUNT = "nonNullRowsCount";
+  String COL_CURRENT_VALUE = "currentValue";
+  String COL_BASELINE_VALUE = "baselineValue";
 
   /**
    * Returns a de-aggregation data frame for a given slice with 3 columns:
@@ -35,6 +39,47 @@ public interface AggregationLoader {
    */
   DataFrame loadBreakdown(MetricSlice slice, int limit) throws Exception;
 
+  /**
+   * Returns the de-aggregation data frames of a current and a baseline interval, with 4 columns:
+   * dimension name, dimension value, metric value in the current interval, metric value in the
+   * baseline interval.
+   * Values are in COL_DIMENSION_NAME, COL_DIMENSION_VALUE, COL_CURRENT_VALUE, COL_BASELINE_VALUE.
+   * A value is null if the dimension value is not observed in the interval.
+   *
+   * The breakdowns of the dimensions that are not loaded before the timeout are not in the
+   * result: the result is then partial, and lists the dimensions that timed out.
+   *
+   * The default implementation loads the current breakdown, then the baseline breakdown, with
+   * {@link #loadBreakdown(MetricSlice, int)}. It does not enforce the timeout.
+   *
+   * @param currentSlice metric slice of the current interval
+   * @param baselineInterval baseline interval. Other attributes are the ones of currentSlice
+   * @param limit top k element limit per dimension name ({@code -1} for default)
+   * @param timeoutMillis maximum time to wait for the breakdowns
+   * @return de-aggregation data frame and the dimensions that timed out
+   */
+  default BreakdownComparison loadBreakdown(final MetricSlice currentSlice,
+      final Interval baselineInterval, final int limit, final long timeoutMillis)
+      throws Exception {
+    final MetricSlice baselineSlice = MetricSlice.from(currentSlice.getMetricConfigDTO(),
+        baselineInterval,
+        currentSlice.getPredicates(),
+        currentSlice.getDatasetConfigDTO());
+    final DataFrame current = loadBreakdown(currentSlice, limit);
+    final DataFrame baseline = loadBreakdown(baselineSlice, limit);
+    final DataFrame breakdown = new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, current.getStrings(COL_DIMENSION_NAME))
+        .addSeries(COL_DIMENSION_VALUE, current.getStrings(COL_DIMENSION_VALUE))
+        .addSeries(COL_CURRENT_VALUE, current.getDoubles(Constants.COL_VALUE))
+        .joinOuter(new DataFrame()
+                .addSeries(COL_DIMENSION_NAME, baseline.getStrings(COL_DIMENSION_NAME))
+                .addSeries(COL_DIMENSION_VALUE, baseline.getStrings(COL_DIMENSION_VALUE))
+                .addSeries(COL_BASELINE_VALUE, baseline.getDoubles(Constants.COL_VALUE)),
+            COL_DIMENSION_NAME,
+            COL_DIMENSION_VALUE);
+    return new BreakdownComparison(breakdown, List.of());
+  }
+
   /**
    * Returns metric aggregates grouped by the given dimensions (or none).
    *
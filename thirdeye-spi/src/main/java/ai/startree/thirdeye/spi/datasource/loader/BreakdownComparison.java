@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datasource.loader;
+
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.List;
+
+/**
+ * Breakdowns of a metric on a current and a baseline interval, returned by
+ * {@link AggregationLoader#loadBreakdown(ai.startree.thirdeye.spi.metric.MetricSlice,
+ * org.joda.time.Interval, int, long)}.
+ */
+public class BreakdownComparison {
+
+  /* columns COL_DIMENSION_NAME, COL_DIMENSION_VALUE, COL_CURRENT_VALUE, COL_BASELINE_VALUE */
+  private final DataFrame breakdown;
+  /* dimensions not loaded before the timeout - they are not in the breakdown */
+  private final List<String> timedOutDimensions;
+
+  public BreakdownComparison(final DataFrame breakdown, final List<String> timedOutDimensions) {
+    this.breakdown = breakdown;
+    this.timedOutDimensions = timedOutDimensions;
+  }
+
+  public DataFrame getBreakdown() {
+    return breakdown;
+  }
+
+  public List<String> getTimedOutDimensions() {
+    return timedOutDimensions;
+  }
+
+  /**
+   * @return true if the breakdown of some dimensions could not be loaded before the timeout
+   */
+  public boolean isPartial() {
+    return !timedOutDimensions.isEmpty();
+  }
+
+  public DataFrame getCurrentBreakdown() {
+    return valueBreakdown(COL_CURRENT_VALUE);
+  }
+
+  public DataFrame getBaselineBreakdown() {
+    return valueBreakdown(COL_BASELINE_VALUE);
+  }
+
+  /**
+   * Returns the breakdown of one of the value columns, in the format of {@link
+   * AggregationLoader#loadBreakdown(ai.startree.thirdeye.spi.metric.MetricSlice, int)}, without
+   * the time column. Dimension values not observed in the interval of valueColumn are dropped.
+   */
+  private DataFrame valueBreakdown(final String valueColumn) {
+    return new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, breakdown.get(COL_DIMENSION_NAME))
+        .addSeries(COL_DIMENSION_VALUE, breakdown.get(COL_DIMENSION_VALUE))
+        .addSeries(Constants.COL_VALUE, breakdown.get(valueColumn))
+        .dropNull(Constants.COL_VALUE);
+  }
+}
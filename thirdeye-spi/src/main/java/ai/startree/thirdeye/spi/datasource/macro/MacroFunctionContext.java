@@ -37,6 +37,12 @@ public class MacroFunctionContext {
   /**Used by macro function to quote identifiers in AUTO mode.*/
   private Function<String, String> identifierQuoter;
 
+  /**
+   * Optional. If set, the time filter computed from the detection interval and the lookbacks is
+   * intersected with this interval. Used to fetch only a sub-range of a query.
+   */
+  private Interval timeFilterRestriction;
+
   public SqlExpressionBuilder getSqlExpressionBuilder() {
     return sqlExpressionBuilder;
   }
@@ -95,4 +101,13 @@ public class MacroFunctionContext {
     this.identifierQuoter = identifierQuoter;
     return this;
   }
+
+  public Interval getTimeFilterRestriction() {
+    return timeFilterRestriction;
+  }
+
+  public MacroFunctionContext setTimeFilterRestriction(final Interval timeFilterRestriction) {
+    this.timeFilterRestriction = timeFilterRestriction;
+    return this;
+  }
 }
@@ -32,12 +32,35 @@ public class ThirdeyeSqlDialect {
   private final String literalQuoteString;
   private final String quotedCasing;
   private final String unquotedCasing;
+  /**
+   * Whether the datasource can run UNION ALL over subqueries that have their own ORDER BY and
+   * LIMIT. When true, multi-dimension breakdowns are sent in a single query.
+   * Opt-in: false by default. Not enabled for Pinot, its single-stage engine does not support
+   * UNION ALL.
+   */
+  private final boolean unionAllSupported;
 
   public ThirdeyeSqlDialect(final String baseDialect, final Boolean caseSensitive,
       final String identifierQuoteString, final String identifierEscapedQuoteString,
       final String literalEscapedQuoteString, final String literalQuoteString,
       final String quotedCasing,
       final String unquotedCasing) {
+    this(baseDialect,
+        caseSensitive,
+        identifierQuoteString,
+        identifierEscapedQuoteString,
+        literalEscapedQuoteString,
+        literalQuoteString,
+        quotedCasing,
+        unquotedCasing,
+        false);
+  }
+
+  public ThirdeyeSqlDialect(final String baseDialect, final Boolean caseSensitive,
+      final String identifierQuoteString, final String identifierEscapedQuoteString,
+      final String literalEscapedQuoteString, final String literalQuoteString,
+      final String quotedCasing,
+      final String unquotedCasing, final boolean unionAllSupported) {
     this.baseDialect = baseDialect;
     this.caseSensitive = caseSensitive;
     this.identifierQuoteString = identifierQuoteString;
@@ -46,6 +69,7 @@ public class ThirdeyeSqlDialect {
     this.literalQuoteString = literalQuoteString;
     this.quotedCasing = quotedCasing;
     this.unquotedCasing = unquotedCasing;
+    this.unionAllSupported = unionAllSupported;
   }
 
   public String getBaseDialect() {
@@ -80,6 +104,10 @@ public class ThirdeyeSqlDialect {
     return unquotedCasing;
   }
 
+  public boolean isUnionAllSupported() {
+    return unionAllSupported;
+  }
+
   public static class Builder {
 
     private String baseDialect;
@@ -90,6 +118,7 @@ public class ThirdeyeSqlDialect {
     private String literalQuoteString;
     private String quotedCasing;
     private String unquotedCasing;
+    private boolean unionAllSupported = false;
 
     public Builder withBaseDialect(final String baseDialect) {
       this.baseDialect = baseDialect;
@@ -133,6 +162,11 @@ public class ThirdeyeSqlDialect {
       return this;
     }
 
+    public Builder withUnionAllSupported(final boolean unionAllSupported) {
+      this.unionAllSupported = unionAllSupported;
+      return this;
+    }
+
     public ThirdeyeSqlDialect build() {
       return new ThirdeyeSqlDialect(baseDialect,
           caseSensitive,
@@ -141,7 +175,8 @@ public class ThirdeyeSqlDialect {
           literalEscapedQuoteString,
           literalQuoteString,
           quotedCasing,
-          unquotedCasing);
+          unquotedCasing,
+          unionAllSupported);
     }
   }
 }
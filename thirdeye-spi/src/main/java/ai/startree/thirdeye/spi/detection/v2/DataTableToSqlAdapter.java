@@ -39,4 +39,12 @@ public interface DataTableToSqlAdapter {
       throws SQLException;
 
   void tearDown(final Connection connection) throws SQLException;
+
+  /**
+   * Whether a connection can be reused by the next executions on the same thread.
+   * If true, tearDown must leave the connection as it was before loadTables.
+   */
+  default boolean isConnectionReusable() {
+    return false;
+  }
 }
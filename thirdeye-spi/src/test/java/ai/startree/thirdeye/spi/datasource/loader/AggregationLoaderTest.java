@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datasource.loader;
+
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_BASELINE_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_CURRENT_VALUE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.Test;
+
+public class AggregationLoaderTest {
+
+  private static final Interval CURRENT_INTERVAL = new Interval(2000, 3000, DateTimeZone.UTC);
+  private static final Interval BASELINE_INTERVAL = new Interval(1000, 2000, DateTimeZone.UTC);
+
+  /**
+   * Implements the per-interval breakdown only: the comparison uses the default method.
+   */
+  private static class PerIntervalAggregationLoader implements AggregationLoader {
+
+    @Override
+    public DataFrame loadBreakdown(final MetricSlice slice, final int limit) {
+      if (slice.getInterval().equals(CURRENT_INTERVAL)) {
+        return new DataFrame()
+            .addSeries(COL_DIMENSION_NAME, "os", "os")
+            .addSeries(COL_DIMENSION_VALUE, "android", "osx")
+            .addSeries(Constants.COL_VALUE, 10., 5.);
+      }
+      return new DataFrame()
+          .addSeries(COL_DIMENSION_NAME, "os", "os")
+          .addSeries(COL_DIMENSION_VALUE, "android", "ios")
+          .addSeries(Constants.COL_VALUE, 20., 3.);
+    }
+
+    @Override
+    public Future<DataFrame> loadAggregateAsync(final MetricSlice slice,
+        final List<String> dimensions, final int limit) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Test
+  public void testDefaultLoadBreakdownWithBaselineJoinsBothIntervals() throws Exception {
+    final MetricSlice currentSlice = MetricSlice.from(new MetricConfigDTO().setName("views"),
+        CURRENT_INTERVAL,
+        new DatasetConfigDTO().setDataset("dataset1"));
+
+    final BreakdownComparison comparison = new PerIntervalAggregationLoader()
+        .loadBreakdown(currentSlice, BASELINE_INTERVAL, 100, 1_000);
+
+    assertThat(comparison.isPartial()).isFalse();
+    final DataFrame breakdown = comparison.getBreakdown().sortedBy(COL_DIMENSION_VALUE);
+    assertThat(breakdown.getStrings(COL_DIMENSION_VALUE).toList())
+        .containsExactly("android", "ios", "osx");
+    assertThat(breakdown.getDoubles(COL_CURRENT_VALUE).toList())
+        .containsExactly(10., null, 5.);
+    assertThat(breakdown.getDoubles(COL_BASELINE_VALUE).toList())
+        .containsExactly(20., 3., null);
+    assertThat(comparison.getCurrentBreakdown().size()).isEqualTo(2);
+    assertThat(comparison.getBaselineBreakdown().size()).isEqualTo(2);
+  }
+}
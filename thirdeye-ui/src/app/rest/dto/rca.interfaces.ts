@@ -38,6 +38,7 @@ export interface AnomalyBreakdown {
             };
         };
     };
+    analysisRunInfo: AnalysisRunInfo;
 }
 
 export interface AnomalyBreakdownRequest {
@@ -92,10 +93,13 @@ export interface AnomalyDimensionAnalysisData {
         name: string;
         cost: number;
     }[];
-    analysisRunInfo: {
-        success: boolean;
-        message: string;
-    };
+    analysisRunInfo: AnalysisRunInfo;
+}
+
+export interface AnalysisRunInfo {
+    success: boolean;
+    message: string;
+    partial: boolean;
 }
 
 /**
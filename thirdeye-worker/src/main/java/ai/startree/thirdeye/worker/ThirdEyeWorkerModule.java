@@ -13,18 +13,23 @@
  */
 package ai.startree.thirdeye.worker;
 
+import ai.startree.thirdeye.worker.task.DetectionReplayConfiguration;
 import ai.startree.thirdeye.worker.task.TaskDriverConfiguration;
 import com.google.inject.AbstractModule;
 
 public class ThirdEyeWorkerModule extends AbstractModule {
   private final TaskDriverConfiguration taskDriverConfiguration;
+  private final DetectionReplayConfiguration detectionReplayConfiguration;
 
-  public ThirdEyeWorkerModule(final TaskDriverConfiguration taskDriverConfiguration) {
+  public ThirdEyeWorkerModule(final TaskDriverConfiguration taskDriverConfiguration,
+      final DetectionReplayConfiguration detectionReplayConfiguration) {
     this.taskDriverConfiguration = taskDriverConfiguration;
+    this.detectionReplayConfiguration = detectionReplayConfiguration;
   }
 
   @Override
   protected void configure() {
     bind(TaskDriverConfiguration.class).toInstance(taskDriverConfiguration);
+    bind(DetectionReplayConfiguration.class).toInstance(detectionReplayConfiguration);
   }
 }
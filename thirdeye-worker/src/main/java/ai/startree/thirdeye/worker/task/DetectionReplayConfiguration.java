@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import java.time.Duration;
+
+public class DetectionReplayConfiguration {
+
+  /**
+   * If true, detection intervals longer than chunkSize are split into chunk tasks that run in
+   * parallel on the available workers.
+   */
+  private boolean enabled = true;
+  /**
+   * Length of a chunk. Chunk boundaries are floored to the alert monitoring granularity.
+   */
+  private Duration chunkSize = Duration.ofDays(30);
+  /**
+   * Max number of times a chunk is run before the replay is abandoned.
+   */
+  private int maxAttempts = 3;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public DetectionReplayConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public Duration getChunkSize() {
+    return chunkSize;
+  }
+
+  public DetectionReplayConfiguration setChunkSize(final Duration chunkSize) {
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public DetectionReplayConfiguration setMaxAttempts(final int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+    return this;
+  }
+}
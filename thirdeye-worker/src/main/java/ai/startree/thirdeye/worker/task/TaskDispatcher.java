@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import ai.startree.thirdeye.datalayer.core.TaskAvailabilitySignal;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Claims WAITING tasks in batches and hands them to the {@link TaskDriverRunnable} threads.
+ *
+ * The dispatcher only claims as many tasks as there are idle task threads. When no task is
+ * available, it waits for a {@link TaskAvailabilitySignal} or for noTaskDelay, whichever comes
+ * first.
+ */
+public class TaskDispatcher implements Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskDispatcher.class);
+
+  private final TaskManager taskManager;
+  private final TaskDriverConfiguration config;
+  private final long workerId;
+  private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskAvailabilitySignal taskAvailabilitySignal;
+  private final Semaphore idleRunners;
+  private final BlockingQueue<TaskDTO> claimedTasks;
+
+  private final Counter taskClaimCounter;
+  private final Counter taskClaimMissCounter;
+  private final Timer taskWaitingTimer;
+
+  public TaskDispatcher(final TaskContext taskContext,
+      final TaskAvailabilitySignal taskAvailabilitySignal,
+      final Semaphore idleRunners,
+      final BlockingQueue<TaskDTO> claimedTasks) {
+    this.taskManager = taskContext.getTaskManager();
+    this.config = taskContext.getConfig();
+    this.workerId = taskContext.getWorkerId();
+    this.taskDriverThreadPoolManager = taskContext.getTaskDriverThreadPoolManager();
+    this.taskAvailabilitySignal = taskAvailabilitySignal;
+    this.idleRunners = idleRunners;
+    this.claimedTasks = claimedTasks;
+
+    final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
+    taskClaimCounter = metricRegistry.counter("taskClaimCounter");
+    taskClaimMissCounter = metricRegistry.counter("taskClaimMissCounter");
+    taskWaitingTimer = metricRegistry.timer("taskWaitingTimer");
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!taskDriverThreadPoolManager.isShutdown()) {
+        dispatch();
+      }
+    } catch (final InterruptedException e) {
+      if (!taskDriverThreadPoolManager.isShutdown()) {
+        LOG.error("TaskDispatcher interrupted. No more task will be claimed.", e);
+      }
+    }
+    LOG.info("TaskDispatcher safely quitting. name: {}", Thread.currentThread().getName());
+  }
+
+  private void dispatch() throws InterruptedException {
+    // block until at least one task thread is idle
+    if (!idleRunners.tryAcquire(config.getNoTaskDelay().toMillis(), TimeUnit.MILLISECONDS)) {
+      return;
+    }
+    final int batchSize = 1 + idleRunners.drainPermits();
+
+    final long generation = taskAvailabilitySignal.generation();
+    final List<TaskDTO> tasks = claimTasks(batchSize);
+    idleRunners.release(batchSize - tasks.size());
+
+    final long now = System.currentTimeMillis();
+    for (final TaskDTO task : tasks) {
+      taskWaitingTimer.update(now - task.getCreateTime().getTime(), TimeUnit.MILLISECONDS);
+      claimedTasks.put(task);
+    }
+    if (tasks.isEmpty()) {
+      taskClaimMissCounter.inc();
+      taskAvailabilitySignal.await(generation, config.getNoTaskDelay());
+    } else {
+      taskClaimCounter.inc(tasks.size());
+    }
+  }
+
+  private List<TaskDTO> claimTasks(final int batchSize) throws InterruptedException {
+    if (taskDriverThreadPoolManager.isShutdown()) {
+      return List.of();
+    }
+    try {
+      return taskManager.acquireTasks(workerId, Math.min(batchSize, config.getTaskFetchSizeCap()));
+    } catch (final Exception e) {
+      LOG.error("Exception when claiming tasks. (Worker Id: {})", workerId, e);
+      Thread.sleep(config.getTaskFailureDelay().toMillis());
+      return List.of();
+    }
+  }
+}
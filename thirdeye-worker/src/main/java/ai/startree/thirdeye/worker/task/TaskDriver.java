@@ -17,6 +17,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
+import ai.startree.thirdeye.datalayer.core.TaskAvailabilitySignal;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskStatus;
@@ -25,6 +26,9 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,14 +42,17 @@ public class TaskDriver {
   private final TaskDriverConfiguration config;
   private final Long workerId;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskAvailabilitySignal taskAvailabilitySignal;
 
   @Inject
   public TaskDriver(final TaskManager taskManager,
       final TaskRunnerFactory taskRunnerFactory,
       final TaskDriverThreadPoolManager taskDriverThreadPoolManager,
       final MetricRegistry metricRegistry,
-      final TaskDriverConfiguration taskDriverConfiguration) {
+      final TaskDriverConfiguration taskDriverConfiguration,
+      final TaskAvailabilitySignal taskAvailabilitySignal) {
     this.taskManager = taskManager;
+    this.taskAvailabilitySignal = taskAvailabilitySignal;
     this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
     config = taskDriverConfiguration;
     workerId = fetchWorkerId(config);
@@ -83,12 +90,28 @@ public class TaskDriver {
   }
 
   private void runTasksInParallel() {
+    if (config.isBatchClaimEnabled()) {
+      runClaimedTasksInParallel();
+      return;
+    }
     for (int i = 0; i < config.getMaxParallelTasks(); i++) {
       taskDriverThreadPoolManager.getTaskWatcherExecutorService()
           .submit(new TaskDriverRunnable(taskContext));
     }
   }
 
+  private void runClaimedTasksInParallel() {
+    final Semaphore idleRunners = new Semaphore(config.getMaxParallelTasks());
+    final BlockingQueue<TaskDTO> claimedTasks = new LinkedBlockingQueue<>();
+    taskDriverThreadPoolManager.getTaskWatcherExecutorService()
+        .submit(new TaskDispatcher(taskContext, taskAvailabilitySignal, idleRunners,
+            claimedTasks));
+    for (int i = 0; i < config.getMaxParallelTasks(); i++) {
+      taskDriverThreadPoolManager.getTaskWatcherExecutorService()
+          .submit(new TaskDriverRunnable(taskContext, claimedTasks, idleRunners));
+    }
+  }
+
   /**
    * Mark all assigned tasks with RUNNING as FAILED
    */
@@ -31,6 +31,15 @@ public class TaskDriverConfiguration {
   private int taskFetchSizeCap = 50;
   private int maxParallelTasks = 5;
 
+  /**
+   * If true, a dispatcher thread claims WAITING tasks in batches with a single atomic statement
+   * and hands them to the task threads. Idle dispatchers are woken up by new tasks created in
+   * the same process, and poll every noTaskDelay otherwise.
+   * If false, every task thread polls the database and competes for tasks with optimistic
+   * locking.
+   */
+  private boolean batchClaimEnabled = false;
+
   public Long getId() {
     return id;
   }
@@ -129,4 +138,13 @@ public class TaskDriverConfiguration {
     this.activeThresholdMultiplier = activeThresholdMultiplier;
     return this;
   }
+
+  public boolean isBatchClaimEnabled() {
+    return batchClaimEnabled;
+  }
+
+  public TaskDriverConfiguration setBatchClaimEnabled(final boolean batchClaimEnabled) {
+    this.batchClaimEnabled = batchClaimEnabled;
+    return this;
+  }
 }
@@ -19,18 +19,18 @@ import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.spi.task.TaskStatus;
-import ai.startree.thirdeye.spi.task.TaskType;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Singleton;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.commons.collections4.CollectionUtils;
@@ -64,8 +64,24 @@ public class TaskDriverRunnable implements Runnable {
   private final Timer taskWaitingTimer;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
 
+  /* Set when tasks are claimed by a TaskDispatcher. Null when this runnable polls the database. */
+  private final BlockingQueue<TaskDTO> claimedTasks;
+  private final Semaphore idleRunners;
+
   public TaskDriverRunnable(final TaskContext taskContext) {
+    this(taskContext, null, null);
+  }
+
+  /**
+   * Runs the tasks claimed by a {@link TaskDispatcher}. A permit is released to
+   * {@code idleRunners} every time a task is finished.
+   */
+  public TaskDriverRunnable(final TaskContext taskContext,
+      final BlockingQueue<TaskDTO> claimedTasks,
+      final Semaphore idleRunners) {
     this.taskContext = taskContext;
+    this.claimedTasks = claimedTasks;
+    this.idleRunners = idleRunners;
     taskDriverThreadPoolManager = taskContext.getTaskDriverThreadPoolManager();
 
     this.taskManager = taskContext.getTaskManager();
@@ -85,15 +101,19 @@ public class TaskDriverRunnable implements Runnable {
   }
 
   public void run() {
-    while (!isShutdown()) {
+    // claimed tasks must be executed before termination
+    while (!isShutdown() || hasClaimedTasks()) {
       // select a task to execute, and update it to RUNNING
-      final TaskDTO taskDTO = waitForTask();
+      final TaskDTO taskDTO = claimedTasks == null ? waitForTask() : takeClaimedTask();
       if (taskDTO == null) {
         continue;
       }
 
       // a task has acquired and we must finish executing it before termination
       taskRunningTimer.time(() -> runAcquiredTask(taskDTO));
+      if (idleRunners != null) {
+        idleRunners.release();
+      }
     }
     LOG.info(String.format("TaskDriverRunnable safely quitting. name: %s",
         Thread.currentThread().getName()));
@@ -121,7 +141,9 @@ public class TaskDriverRunnable implements Runnable {
 
     Future<List<TaskResult>> future = null;
     try {
-      future = runTaskAsync(taskDTO);
+      final TaskInfo taskInfo = TaskInfoFactory.get(taskDTO.getTaskType(), taskDTO.getTaskInfo());
+      final TaskRunner taskRunner = taskRunnerFactory.get(taskDTO.getTaskType());
+      future = runTaskAsync(taskRunner, taskInfo);
       // wait for the future to complete
       future.get(config.getMaxTaskRunTime().toMillis(), TimeUnit.MILLISECONDS);
 
@@ -132,6 +154,7 @@ public class TaskDriverRunnable implements Runnable {
           "");
 
       taskSuccessCounter.inc();
+      onCompleted(taskDTO, taskRunner, taskInfo);
     } catch (TimeoutException e) {
       handleTimeout(taskDTO, future, e);
     } catch (Exception e) {
@@ -148,16 +171,23 @@ public class TaskDriverRunnable implements Runnable {
     taskManager.updateLastActive(taskDTO.getId());
   }
 
-  private Future<List<TaskResult>> runTaskAsync(final TaskDTO taskDTO) throws IOException {
-    final TaskType taskType = taskDTO.getTaskType();
-    final TaskInfo taskInfo = TaskInfoFactory.get(taskType, taskDTO.getTaskInfo());
-    final TaskRunner taskRunner = taskRunnerFactory.get(taskType);
-
+  private Future<List<TaskResult>> runTaskAsync(final TaskRunner taskRunner,
+      final TaskInfo taskInfo) {
     // execute the selected task asynchronously
     return taskDriverThreadPoolManager.getTaskExecutorService()
         .submit(() -> taskRunner.execute(taskInfo, taskContext));
   }
 
+  private void onCompleted(final TaskDTO taskDTO, final TaskRunner taskRunner,
+      final TaskInfo taskInfo) {
+    try {
+      taskRunner.onCompleted(taskInfo);
+    } catch (final Exception e) {
+      // the task is COMPLETED - the failure is not reported in the task status
+      LOG.error("Exception after the completion of task {}", taskDTO.getId(), e);
+    }
+  }
+
   private void handleTimeout(final TaskDTO taskDTO, final Future<List<TaskResult>> future,
       final TimeoutException e) {
     taskExceptionCounter.inc();
@@ -182,6 +212,32 @@ public class TaskDriverRunnable implements Runnable {
         String.format("%s\n%s", ExceptionUtils.getMessage(e), ExceptionUtils.getStackTrace(e)));
   }
 
+  private boolean hasClaimedTasks() {
+    return claimedTasks != null && !claimedTasks.isEmpty();
+  }
+
+  /**
+   * Returns a task claimed by the dispatcher, or null if no task was claimed within the poll
+   * interval.
+   */
+  private TaskDTO takeClaimedTask() {
+    final long idleStart = System.currentTimeMillis();
+    try {
+      final TaskDTO taskDTO = claimedTasks.poll(1, TimeUnit.SECONDS);
+      if (taskDTO != null) {
+        taskFetchHitCounter.inc();
+      }
+      return taskDTO;
+    } catch (InterruptedException e) {
+      if (!isShutdown()) {
+        LOG.warn(e.getMessage(), e);
+      }
+      return null;
+    } finally {
+      workerIdleTimeInSeconds.inc((System.currentTimeMillis() - idleStart) / 1000);
+    }
+  }
+
   /**
    * Returns a TaskDTO if a task is successfully acquired; returns null if system is shutting down.
    *
@@ -39,8 +39,9 @@ public class TaskDriverThreadPoolManager {
             .setNameFormat("task-executor-%d")
             .build());
 
+    // one more watcher thread for the TaskDispatcher in batch claim mode
     taskWatcherExecutorService = Executors.newFixedThreadPool(
-        config.getMaxParallelTasks(),
+        config.getMaxParallelTasks() + (config.isBatchClaimEnabled() ? 1 : 0),
         new ThreadFactoryBuilder()
             .setNameFormat("task-watcher-%d")
             .setDaemon(true)
@@ -22,4 +22,12 @@ import java.util.List;
 public interface TaskRunner {
 
   List<TaskResult> execute(TaskInfo taskInfo, TaskContext taskContext) throws Exception;
+
+  /**
+   * Called once the status of the task is updated to COMPLETED, after a successful
+   * {@link #execute(TaskInfo, TaskContext)}. At this point, other workers see the task as
+   * completed. An exception thrown here does not change the status of the task.
+   */
+  default void onCompleted(final TaskInfo taskInfo) throws Exception {
+  }
 }
@@ -19,8 +19,11 @@ import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.alert.AlertDetectionIntervalCalculator;
 import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
 import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.OffHeapConfiguration;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
+import ai.startree.thirdeye.spi.dataframe.OffHeapStore;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
@@ -40,6 +43,7 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import org.joda.time.DateTime;
@@ -63,6 +67,8 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
   private final AnomalyManager anomalyDao;
   private final PlanExecutor planExecutor;
   private final AlertTemplateRenderer alertTemplateRenderer;
+  private final DetectionReplayCoordinator detectionReplayCoordinator;
+  private final OffHeapConfiguration offHeapConfiguration;
 
   @Inject
   public DetectionPipelineTaskRunner(final AlertManager alertManager,
@@ -71,13 +77,17 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       final AlertDetectionIntervalCalculator alertDetectionIntervalCalculator,
       final AnomalyManager anomalyDao,
       final PlanExecutor planExecutor,
-      final AlertTemplateRenderer alertTemplateRenderer) {
+      final AlertTemplateRenderer alertTemplateRenderer,
+      final DetectionReplayCoordinator detectionReplayCoordinator,
+      final DetectionPipelineConfiguration detectionPipelineConfiguration) {
     this.alertManager = alertManager;
     this.anomalySubscriptionGroupNotificationManager = anomalySubscriptionGroupNotificationManager;
     this.alertDetectionIntervalCalculator = alertDetectionIntervalCalculator;
     this.anomalyDao = anomalyDao;
     this.planExecutor = planExecutor;
     this.alertTemplateRenderer = alertTemplateRenderer;
+    this.detectionReplayCoordinator = detectionReplayCoordinator;
+    this.offHeapConfiguration = detectionPipelineConfiguration.getOffHeap();
 
     detectionTaskExceptionCounter = metricRegistry.counter("detectionTaskExceptionCounter");
     detectionTaskSuccessCounter = metricRegistry.counter("detectionTaskSuccessCounter");
@@ -114,7 +124,9 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
   public List<TaskResult> execute(final TaskInfo taskInfo, final TaskContext taskContext)
       throws Exception {
     detectionTaskCounter.inc();
-    try {
+    // the store frees its memory on close. No operator reads it anymore: run() returns or throws
+    // once the pipeline has stopped, see PlanExecutor.runPipeline
+    try (final OffHeapStore offHeapStore = newOffHeapStore()) {
       final DetectionPipelineTaskInfo info = (DetectionPipelineTaskInfo) taskInfo;
       LOG.info("Start detection task for id {} between {} and {}",
           info.getConfigId(),
@@ -127,7 +139,9 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
           alert,
           info.getStart(), info.getEnd());
 
-      final OperatorResult result = run(alert, detectionInterval);
+      final OperatorResult result = run(alert, detectionInterval, offHeapStore);
+      // chunks of a replay do not update the lastTimestamp - it is updated once all chunks are done
+      final boolean replayChunk = info.getReplayId() != null;
 
       if (result.getLastTimestamp() < 0) {
         // notice lastTimestamp is not updated
@@ -138,6 +152,20 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
         return Collections.emptyList();
       }
 
+      if (replayChunk) {
+        anomalyDao.save(optional(result.getAnomalies()).orElse(Collections.emptyList()));
+        detectionTaskSuccessCounter.inc();
+        LOG.info("Completed chunk {}/{} of replay {} for id {} between {} and {}. Detected {} anomalies.",
+            info.getChunkIndex() + 1,
+            info.getChunkCount(),
+            info.getReplayId(),
+            alert.getId(),
+            detectionInterval.getStart(),
+            detectionInterval.getEnd(),
+            result.getAnomalies().size());
+        return Collections.emptyList();
+      }
+
       // a detection can be replayed on specific period (eg if the data has mutated) - ensure the lastTimestamp never goes back in time because of a detection run
       // if the user really wants to set the lastTimestamp back in time, he can do it with reset, of by editing the lastTimestamp manually
       final long newLastTimestamp = Math.max(detectionInterval.getEndMillis(),
@@ -145,9 +173,7 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       alert.setLastTimestamp(newLastTimestamp);
       alertManager.update(alert);
 
-      optional(result.getAnomalies())
-          .orElse(Collections.emptyList())
-          .forEach(anomalyDao::save);
+      anomalyDao.save(optional(result.getAnomalies()).orElse(Collections.emptyList()));
 
       detectionTaskSuccessCounter.inc();
       LOG.info("Completed detection task for id {} between {} and {}. Detected {} anomalies.",
@@ -163,8 +189,33 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
     }
   }
 
+  /**
+   * The replay is tracked once the chunk task is COMPLETED: when the last chunks complete
+   * concurrently, at least one of them sees all the chunks completed.
+   */
+  @Override
+  public void onCompleted(final TaskInfo taskInfo) {
+    final DetectionPipelineTaskInfo info = (DetectionPipelineTaskInfo) taskInfo;
+    if (info.getReplayId() != null) {
+      detectionReplayCoordinator.onChunkCompleted(info);
+    }
+  }
+
+  private OffHeapStore newOffHeapStore() {
+    if (!offHeapConfiguration.isEnabled()) {
+      return null;
+    }
+    return new OffHeapStore(offHeapConfiguration.getThresholdBytes(),
+        optional(offHeapConfiguration.getDirectory()).map(Path::of).orElse(null));
+  }
+
   public OperatorResult run(final AlertDTO alert, final Interval detectionInterval)
       throws Exception {
+    return run(alert, detectionInterval, null);
+  }
+
+  private OperatorResult run(final AlertDTO alert, final Interval detectionInterval,
+      final OffHeapStore offHeapStore) throws Exception {
     LOG.info(String.format("Running detection pipeline for alert: %d, start: %s, end: %s",
         alert.getId(), detectionInterval.getStart(), detectionInterval.getEnd()));
 
@@ -174,7 +225,8 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
     final DetectionPipelineContext context = new DetectionPipelineContext()
         .setAlertId(alert.getId())
         .setUsage(DetectionPipelineUsage.DETECTION)
-        .setDetectionInterval(detectionInterval);
+        .setDetectionInterval(detectionInterval)
+        .setOffHeapStore(offHeapStore);
     final var detectionPipelineResultMap = planExecutor.runPipelineAndGetRootOutputs(
         templateWithProperties.getNodes(),
         context);
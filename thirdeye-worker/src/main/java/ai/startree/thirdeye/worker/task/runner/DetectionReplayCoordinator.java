@@ -0,0 +1,498 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task.runner;
+
+import static ai.startree.thirdeye.spi.task.TaskType.DETECTION;
+import static ai.startree.thirdeye.spi.util.AlertMetadataUtils.getDateTimeZone;
+import static ai.startree.thirdeye.spi.util.AlertMetadataUtils.getGranularity;
+import static ai.startree.thirdeye.spi.util.AnomalyUtils.isIgnore;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.alert.AlertDetectionIntervalCalculator;
+import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.detectionpipeline.operator.DetectionPipelineOperator;
+import ai.startree.thirdeye.detectionpipeline.plan.PostProcessorPlanNode;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.util.TimeUtils;
+import ai.startree.thirdeye.worker.task.DetectionReplayConfiguration;
+import ai.startree.thirdeye.worker.task.TaskInfoFactory;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits long detection intervals into chunk tasks, and tracks the chunks of a replay until all of
+ * them are completed.
+ *
+ * Chunks share the job name of the alert, so regular detection tasks are not scheduled while a
+ * chunk is waiting or running. Chunks do not update the alert lastTimestamp. Once every chunk is
+ * completed, the replay is finalized: anomalies touching at chunk boundaries are merged in time
+ * order and the lastTimestamp is moved to the end of the replay.
+ *
+ * Finalization is attempted by every chunk task once its status is COMPLETED, and by the detection
+ * job of the alert. The detection job also re-runs chunks that failed, for instance because their
+ * worker crashed.
+ */
+@Singleton
+public class DetectionReplayCoordinator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DetectionReplayCoordinator.class);
+  private static final Interval DUMMY_INTERVAL = new Interval(0L, 0L, DateTimeZone.UTC);
+  // margin for tasks created for the alert by other callers while a replay is in progress
+  private static final int REPLAY_TASKS_FETCH_MARGIN = 10;
+  // anomaly merger settings - same defaults as the ANOMALY_MERGER post-processor
+  private static final String ANOMALY_MERGER_TYPE = "ANOMALY_MERGER";
+  private static final String MERGE_MAX_GAP = "mergeMaxGap";
+  private static final String MERGE_MAX_DURATION = "mergeMaxDuration";
+  private static final Period DEFAULT_MERGE_MAX_GAP = Period.hours(2);
+  private static final Period DEFAULT_MERGE_MAX_DURATION = Period.days(7);
+
+  private final TaskManager taskManager;
+  private final AlertManager alertManager;
+  private final AnomalyManager anomalyManager;
+  private final AlertDetectionIntervalCalculator alertDetectionIntervalCalculator;
+  private final AlertTemplateRenderer alertTemplateRenderer;
+  private final DetectionReplayConfiguration configuration;
+
+  private final Meter replayChunkCreatedMeter;
+  private final Meter replayChunkResumedMeter;
+  private final Meter replayFinalizedMeter;
+  private final Meter replayAbandonedMeter;
+
+  @Inject
+  public DetectionReplayCoordinator(final TaskManager taskManager,
+      final AlertManager alertManager,
+      final AnomalyManager anomalyManager,
+      final AlertDetectionIntervalCalculator alertDetectionIntervalCalculator,
+      final AlertTemplateRenderer alertTemplateRenderer,
+      final DetectionReplayConfiguration configuration,
+      final MetricRegistry metricRegistry) {
+    this.taskManager = taskManager;
+    this.alertManager = alertManager;
+    this.anomalyManager = anomalyManager;
+    this.alertDetectionIntervalCalculator = alertDetectionIntervalCalculator;
+    this.alertTemplateRenderer = alertTemplateRenderer;
+    this.configuration = configuration;
+
+    replayChunkCreatedMeter = metricRegistry.meter("detectionReplayChunkCreatedMeter");
+    replayChunkResumedMeter = metricRegistry.meter("detectionReplayChunkResumedMeter");
+    replayFinalizedMeter = metricRegistry.meter("detectionReplayFinalizedMeter");
+    replayAbandonedMeter = metricRegistry.meter("detectionReplayAbandonedMeter");
+  }
+
+  /**
+   * Create the detection tasks of an alert between start and end. A single task is created if
+   * the interval is not longer than the chunk size.
+   */
+  public List<TaskDTO> createDetectionTasks(final long alertId, final long start, final long end)
+      throws JsonProcessingException {
+    checkArgument(start <= end);
+    final DetectionPipelineTaskInfo info = new DetectionPipelineTaskInfo(alertId, start, end);
+    final long chunkSizeMillis = configuration.getChunkSize().toMillis();
+    if (!configuration.isEnabled() || end - start <= chunkSizeMillis) {
+      return List.of(createTask(info));
+    }
+    final AlertDTO alert = alertManager.findById(alertId);
+    if (alert == null) {
+      return List.of(createTask(info));
+    }
+
+    final List<Interval> chunks;
+    try {
+      final Interval detectionInterval = alertDetectionIntervalCalculator.getCorrectedInterval(
+          alert, start, end);
+      final Period granularity = getGranularity(
+          alertTemplateRenderer.renderAlert(alert, DUMMY_INTERVAL).getMetadata());
+      chunks = splitIntoChunks(detectionInterval, granularity, configuration.getChunkSize());
+    } catch (final Exception e) {
+      LOG.error("Could not split the detection interval of alert {}. Creating a single task.",
+          alertId, e);
+      return List.of(createTask(info));
+    }
+    if (chunks.size() <= 1) {
+      return List.of(createTask(info));
+    }
+
+    final String replayId = UUID.randomUUID().toString();
+    final long replayEnd = chunks.get(chunks.size() - 1).getEndMillis();
+    final List<TaskDTO> tasks = new ArrayList<>();
+    for (int i = 0; i < chunks.size(); i++) {
+      tasks.add(createTask(new DetectionPipelineTaskInfo(alertId,
+          chunks.get(i).getStartMillis(),
+          chunks.get(i).getEndMillis())
+          .setReplayId(replayId)
+          .setReplayEnd(replayEnd)
+          .setChunkIndex(i)
+          .setChunkCount(chunks.size())));
+    }
+    replayChunkCreatedMeter.mark(tasks.size());
+    LOG.info("Created replay {} for alert {} between {} and {} with {} chunks",
+        replayId, alertId, new DateTime(start, DateTimeZone.UTC),
+        new DateTime(replayEnd, DateTimeZone.UTC), tasks.size());
+    return tasks;
+  }
+
+  /**
+   * Called once the task of a chunk is COMPLETED. The status of the task is updated before the
+   * other chunks are read: if the last chunks complete concurrently, at least one of them sees
+   * all the chunks completed. Several of them can finalize the replay.
+   */
+  public void onChunkCompleted(final DetectionPipelineTaskInfo info) {
+    final Map<Integer, List<TaskDTO>> chunkTasks = findReplayTasks(info);
+    final long completed = chunkTasks.values().stream()
+        .filter(DetectionReplayCoordinator::isCompleted)
+        .count();
+    LOG.info("Replay {} of alert {}: {}/{} chunks completed",
+        info.getReplayId(), info.getConfigId(), completed, info.getChunkCount());
+    if (completed == info.getChunkCount()) {
+      finalizeReplay(info.getConfigId(), info, chunkTasks);
+    }
+  }
+
+  /**
+   * Resume the latest replay of an alert. Must only be called when no detection task of the
+   * alert is waiting or running.
+   * Failed chunks are re-created. If all chunks are completed, the replay is finalized.
+   *
+   * @return true if the replay is still in progress and no regular detection task should be
+   *     created
+   */
+  public boolean resume(final long alertId) {
+    final String jobName = DETECTION + "_" + alertId;
+    final List<TaskDTO> latestTasks = taskManager.findByNameOrderByCreateTime(jobName, 1, false);
+    if (latestTasks.isEmpty()) {
+      return false;
+    }
+    final DetectionPipelineTaskInfo latest = parse(latestTasks.get(0));
+    if (latest == null || latest.getReplayId() == null) {
+      return false;
+    }
+
+    final Map<Integer, List<TaskDTO>> chunkTasks = findReplayTasks(latest);
+    final List<TaskDTO> toResume = new ArrayList<>();
+    for (int i = 0; i < latest.getChunkCount(); i++) {
+      final List<TaskDTO> attempts = chunkTasks.getOrDefault(i, List.of());
+      if (isCompleted(attempts)) {
+        continue;
+      }
+      if (attempts.isEmpty() || attempts.size() >= configuration.getMaxAttempts()) {
+        LOG.error("Abandoning replay {} of alert {}: chunk {} failed {} times.",
+            latest.getReplayId(), alertId, i, attempts.size());
+        replayAbandonedMeter.mark();
+        return false;
+      }
+      toResume.add(attempts.get(0));
+    }
+    if (toResume.isEmpty()) {
+      finalizeReplay(alertId, latest, chunkTasks);
+      return false;
+    }
+
+    for (final TaskDTO failed : toResume) {
+      try {
+        final TaskDTO task = taskManager.createTaskDto(alertId, parse(failed), DETECTION);
+        LOG.info("Resumed chunk of replay {} of alert {} with task {}. Previous attempt {}: {}",
+            latest.getReplayId(), alertId, task.getId(), failed.getId(), failed.getStatus());
+        replayChunkResumedMeter.mark();
+      } catch (final JsonProcessingException e) {
+        LOG.error("Could not resume task {} of replay {}", failed.getId(), latest.getReplayId(), e);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Split a detection interval in chunks of length chunkSize. Boundaries are floored to the
+   * granularity, so that the detection interval of each chunk is not changed by the granularity
+   * correction applied by the task.
+   */
+  @VisibleForTesting
+  static List<Interval> splitIntoChunks(final Interval detectionInterval, final Period granularity,
+      final Duration chunkSize) {
+    final List<Interval> chunks = new ArrayList<>();
+    final DateTime end = detectionInterval.getEnd();
+    DateTime chunkStart = detectionInterval.getStart();
+    while (chunkStart.isBefore(end)) {
+      DateTime chunkEnd = TimeUtils.floorByPeriod(chunkStart.plus(chunkSize.toMillis()),
+          granularity);
+      if (!chunkEnd.isAfter(chunkStart)) {
+        // chunk smaller than the granularity
+        chunkEnd = chunkStart.plus(granularity);
+      }
+      if (!chunkEnd.isBefore(end)) {
+        chunkEnd = end;
+      }
+      chunks.add(new Interval(chunkStart, chunkEnd));
+      chunkStart = chunkEnd;
+    }
+    return chunks;
+  }
+
+  /**
+   * Finalizations are serialized in this process: finalizing a replay again is then a no-op.
+   */
+  private synchronized void finalizeReplay(final long alertId,
+      final DetectionPipelineTaskInfo info, final Map<Integer, List<TaskDTO>> chunkTasks) {
+    final AlertDTO alert = alertManager.findById(alertId);
+    if (alert == null) {
+      return;
+    }
+    final List<Long> boundaries = chunkTasks.entrySet().stream()
+        .filter(e -> e.getKey() > 0)
+        .map(e -> parse(e.getValue().get(0)))
+        .filter(Objects::nonNull)
+        .map(DetectionPipelineTaskInfo::getStart)
+        .collect(Collectors.toList());
+    final MergeRules mergeRules = mergeRules(alert);
+    if (mergeRules != null) {
+      for (final long boundary : boundaries) {
+        mergeAtBoundary(alertId, boundary, mergeRules);
+      }
+    }
+
+    // same rule as a regular detection task: the lastTimestamp never goes back in time
+    alert.setLastTimestamp(Math.max(info.getReplayEnd(), alert.getLastTimestamp()));
+    alertManager.update(alert);
+    replayFinalizedMeter.mark();
+    LOG.info("Finalized replay {} of alert {}. lastTimestamp is {}",
+        info.getReplayId(), alertId, new DateTime(alert.getLastTimestamp(), DateTimeZone.UTC));
+  }
+
+  /**
+   * @return the merge rules of the ANOMALY_MERGER post-processor of the alert. Null if the alert
+   *     does not merge anomalies.
+   */
+  private @Nullable MergeRules mergeRules(final AlertDTO alert) {
+    final AlertTemplateDTO template;
+    try {
+      template = alertTemplateRenderer.renderAlert(alert, DUMMY_INTERVAL);
+    } catch (final Exception e) {
+      LOG.error("Could not render alert {}. Anomalies at chunk boundaries are not merged.",
+          alert.getId(), e);
+      return null;
+    }
+    final Map<String, Object> mergerSpec = optional(template.getNodes()).orElse(List.of())
+        .stream()
+        .filter(node -> PostProcessorPlanNode.TYPE.equals(node.getType()))
+        .map(node -> optional(node.getParams()).map(TemplatableMap::valueMap).orElse(Map.of()))
+        .filter(params -> ANOMALY_MERGER_TYPE.equals(params.get("type")))
+        .map(DetectionPipelineOperator::getComponentSpec)
+        .findFirst()
+        .orElse(null);
+    if (mergerSpec == null) {
+      return null;
+    }
+    final Period maxGap = isoPeriod(stringValue(mergerSpec.get(MERGE_MAX_GAP)),
+        DEFAULT_MERGE_MAX_GAP);
+    if (maxGap.equals(Period.ZERO)) {
+      // merging is disabled
+      return null;
+    }
+    return new MergeRules(maxGap,
+        isoPeriod(stringValue(mergerSpec.get(MERGE_MAX_DURATION)), DEFAULT_MERGE_MAX_DURATION),
+        getDateTimeZone(template.getMetadata()));
+  }
+
+  private static @Nullable String stringValue(final @Nullable Object value) {
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * Chunks are detected independently, so an anomaly crossing a chunk boundary is split in two
+   * anomalies touching at the boundary. Merge them back, following the anomaly merger rules:
+   * anomalies of the same enumeration item, direction and ignore status are merged if the merged
+   * anomaly respects the max gap and the max duration. The left anomaly becomes the parent.
+   * Finalizing a replay twice is a no-op.
+   */
+  private void mergeAtBoundary(final long alertId, final long boundary,
+      final MergeRules mergeRules) {
+    final List<AnomalyDTO> parents = anomalyManager
+        .findByStartEndTimeInRangeAndDetectionConfigId(boundary - 1, boundary + 1, alertId, null)
+        .stream()
+        .filter(a -> !a.isChild())
+        .sorted(Comparator.comparingLong(AnomalyDTO::getStartTime))
+        .collect(Collectors.toList());
+    final List<AnomalyDTO> lefts = parents.stream()
+        .filter(a -> a.getEndTime() == boundary)
+        .collect(Collectors.toList());
+    for (final AnomalyDTO right : parents) {
+      if (right.getStartTime() != boundary) {
+        continue;
+      }
+      lefts.stream()
+          .filter(left -> Objects.equals(enumerationItemId(left), enumerationItemId(right)))
+          .filter(left -> direction(left) == direction(right))
+          .filter(left -> isIgnore(left) == isIgnore(right))
+          .filter(left -> mergeRules.allowMerge(left, right))
+          .findFirst()
+          .ifPresent(left -> {
+            mergeIntoParent(left, right);
+            lefts.remove(left);
+          });
+    }
+  }
+
+  private void mergeIntoParent(final AnomalyDTO parent, final AnomalyDTO child) {
+    if (parent.getChildren().isEmpty()) {
+      parent.getChildren().add(copyAnomalyInfo(parent));
+    }
+    parent.setEndTime(Math.max(parent.getEndTime(), child.getEndTime()));
+    child.getProperties().forEach(parent.getProperties()::putIfAbsent);
+    if (parent.getSeverityLabel().compareTo(child.getSeverityLabel()) > 0) {
+      parent.setSeverityLabel(child.getSeverityLabel());
+    }
+    final boolean childHasChildren = !child.getChildren().isEmpty();
+    if (childHasChildren) {
+      parent.getChildren().addAll(child.getChildren());
+    } else {
+      parent.getChildren().add(child);
+    }
+    anomalyManager.save(parent);
+    if (childHasChildren) {
+      // the children are moved to the parent, the empty shell can be removed
+      anomalyManager.delete(child);
+    }
+  }
+
+  private static AnomalyDTO copyAnomalyInfo(final AnomalyDTO from) {
+    final AnomalyDTO to = new AnomalyDTO();
+    to.setStartTime(from.getStartTime());
+    to.setEndTime(from.getEndTime());
+    to.setMetric(from.getMetric());
+    to.setCollection(from.getCollection());
+    to.setDetectionConfigId(from.getDetectionConfigId());
+    to.setAnomalyResultSource(from.getAnomalyResultSource());
+    to.setAvgBaselineVal(from.getAvgBaselineVal());
+    to.setAvgCurrentVal(from.getAvgCurrentVal());
+    to.setScore(from.getScore());
+    to.setWeight(from.getWeight());
+    to.setProperties(from.getProperties());
+    to.setSeverityLabel(from.getSeverityLabel());
+    optional(enumerationItemId(from)).ifPresent(id -> {
+      final EnumerationItemDTO ei = new EnumerationItemDTO();
+      ei.setId(id);
+      to.setEnumerationItem(ei);
+    });
+    return to;
+  }
+
+  private static Long enumerationItemId(final AnomalyDTO anomaly) {
+    return optional(anomaly.getEnumerationItem()).map(EnumerationItemDTO::getId).orElse(null);
+  }
+
+  private static int direction(final AnomalyDTO anomaly) {
+    if (Double.isNaN(anomaly.getAvgBaselineVal()) || Double.isNaN(anomaly.getAvgCurrentVal())) {
+      return 0;
+    }
+    return anomaly.getAvgCurrentVal() > anomaly.getAvgBaselineVal() ? 1 : -1;
+  }
+
+  /**
+   * @return the tasks of the replay grouped by chunk index, most recent attempt first
+   */
+  private Map<Integer, List<TaskDTO>> findReplayTasks(final DetectionPipelineTaskInfo info) {
+    final int fetchSize = info.getChunkCount() * configuration.getMaxAttempts()
+        + REPLAY_TASKS_FETCH_MARGIN;
+    final Map<Integer, List<TaskDTO>> chunkTasks = new TreeMap<>();
+    for (final TaskDTO task : taskManager.findByNameOrderByCreateTime(
+        DETECTION + "_" + info.getConfigId(), fetchSize, false)) {
+      final DetectionPipelineTaskInfo taskInfo = parse(task);
+      if (taskInfo != null && info.getReplayId().equals(taskInfo.getReplayId())) {
+        chunkTasks.computeIfAbsent(taskInfo.getChunkIndex(), k -> new ArrayList<>()).add(task);
+      }
+    }
+    return chunkTasks;
+  }
+
+  private static boolean isCompleted(final List<TaskDTO> attempts) {
+    return attempts.stream().anyMatch(t -> t.getStatus() == TaskStatus.COMPLETED);
+  }
+
+  private static DetectionPipelineTaskInfo parse(final TaskDTO task) {
+    try {
+      return (DetectionPipelineTaskInfo) TaskInfoFactory.get(DETECTION, task.getTaskInfo());
+    } catch (final JsonProcessingException e) {
+      LOG.error("Could not parse the info of task {}", task.getId(), e);
+      return null;
+    }
+  }
+
+  private TaskDTO createTask(final DetectionPipelineTaskInfo info)
+      throws JsonProcessingException {
+    final TaskDTO task = taskManager.createTaskDto(info.getConfigId(), info, DETECTION);
+    LOG.info("Created {} task {} with settings {}", DETECTION, task.getId(), task);
+    return task;
+  }
+
+  /**
+   * The max gap and max duration of the anomaly merger of an alert.
+   */
+  private static class MergeRules {
+
+    private final Period maxGap;
+    private final Period maxDuration;
+    private final Chronology chronology;
+
+    private MergeRules(final Period maxGap, final Period maxDuration,
+        final Chronology chronology) {
+      this.maxGap = maxGap;
+      this.maxDuration = maxDuration;
+      this.chronology = chronology;
+    }
+
+    /**
+     * Same conditions as the anomaly merger: the child starts less than maxGap after the end of
+     * the parent, and the merged anomaly is shorter than maxDuration.
+     */
+    private boolean allowMerge(final AnomalyDTO parent, final AnomalyDTO child) {
+      return new DateTime(child.getStartTime(), chronology).minus(maxGap)
+          .isBefore(parent.getEndTime())
+          && (child.getEndTime() <= parent.getEndTime()
+          || new DateTime(child.getEndTime(), chronology).minus(maxDuration)
+          .isBefore(parent.getStartTime()));
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.core.TaskAvailabilitySignal;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.task.TaskType;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskDispatcherTest {
+
+  private static final Duration NO_TASK_DELAY = Duration.ofSeconds(30);
+  private static final int MAX_PARALLEL_TASKS = 2;
+
+  private TaskManager taskManager;
+  private TaskDriverConfiguration config;
+  private TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private TaskAvailabilitySignal signal;
+  private TaskContext taskContext;
+
+  @BeforeMethod
+  public void setUp() {
+    config = new TaskDriverConfiguration()
+        .setBatchClaimEnabled(true)
+        .setMaxParallelTasks(MAX_PARALLEL_TASKS)
+        .setNoTaskDelay(NO_TASK_DELAY);
+    taskManager = Mockito.mock(TaskManager.class);
+    taskDriverThreadPoolManager = new TaskDriverThreadPoolManager(config);
+    signal = new TaskAvailabilitySignal();
+
+    final TaskRunnerFactory taskRunnerFactory = Mockito.mock(TaskRunnerFactory.class);
+    when(taskRunnerFactory.get(any())).thenReturn((taskInfo, taskContext) -> null);
+    taskContext = new TaskContext()
+        .setConfig(config)
+        .setWorkerId(0)
+        .setTaskManager(taskManager)
+        .setTaskRunnerFactory(taskRunnerFactory)
+        .setMetricRegistry(new MetricRegistry())
+        .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown() {
+    taskDriverThreadPoolManager.shutdown();
+  }
+
+  @Test(timeOut = 10_000)
+  public void testNewTaskSignalWakesUpIdleDispatcher() throws Exception {
+    final AtomicBoolean taskCreated = new AtomicBoolean(false);
+    final TaskDTO task = newTask(1L);
+    when(taskManager.acquireTasks(anyLong(), anyInt()))
+        .thenAnswer(i -> taskCreated.getAndSet(false) ? List.of(task) : List.of());
+    final CountDownLatch completed = new CountDownLatch(1);
+    doAnswer(i -> {
+      completed.countDown();
+      return null;
+    }).when(taskManager).updateStatusAndTaskEndTime(eq(1L), eq(TaskStatus.RUNNING),
+        eq(TaskStatus.COMPLETED), anyLong(), anyString());
+
+    startDispatcher();
+    // let the dispatcher find no task and go idle
+    Thread.sleep(200);
+    taskCreated.set(true);
+    signal.signal();
+
+    // the task is run long before NO_TASK_DELAY
+    assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test(timeOut = 10_000)
+  public void testClaimsAtMostIdleRunners() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final TaskRunnerFactory taskRunnerFactory = Mockito.mock(TaskRunnerFactory.class);
+    when(taskRunnerFactory.get(any())).thenReturn((taskInfo, taskContext) -> {
+      release.await();
+      return null;
+    });
+    taskContext.setTaskRunnerFactory(taskRunnerFactory);
+    final CountDownLatch claimed = new CountDownLatch(MAX_PARALLEL_TASKS);
+    when(taskManager.acquireTasks(anyLong(), anyInt())).thenAnswer(i -> {
+      final int limit = i.getArgument(1);
+      for (int j = 0; j < limit; j++) {
+        claimed.countDown();
+      }
+      return List.of(newTask(1L), newTask(2L)).subList(0, limit);
+    });
+
+    startDispatcher();
+    assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+    Thread.sleep(200);
+
+    // all runners are busy: no more claim
+    verify(taskManager, Mockito.atMost(MAX_PARALLEL_TASKS)).acquireTasks(anyLong(), anyInt());
+    verify(taskManager, never()).acquireTasks(anyLong(), eq(MAX_PARALLEL_TASKS + 1));
+    release.countDown();
+  }
+
+  private void startDispatcher() {
+    final Semaphore idleRunners = new Semaphore(MAX_PARALLEL_TASKS);
+    final BlockingQueue<TaskDTO> claimedTasks = new LinkedBlockingQueue<>();
+    taskDriverThreadPoolManager.getTaskWatcherExecutorService()
+        .submit(new TaskDispatcher(taskContext, signal, idleRunners, claimedTasks));
+    for (int i = 0; i < MAX_PARALLEL_TASKS; i++) {
+      taskDriverThreadPoolManager.getTaskWatcherExecutorService()
+          .submit(new TaskDriverRunnable(taskContext, claimedTasks, idleRunners));
+    }
+  }
+
+  private static TaskDTO newTask(final long id) throws Exception {
+    final TaskDTO task = new TaskDTO()
+        .setStatus(TaskStatus.RUNNING)
+        .setJobName("TestJob")
+        .setTaskType(TaskType.DETECTION)
+        .setTaskInfo(requireNonNull(new ObjectMapper()
+            .writeValueAsString(new DetectionPipelineTaskInfo())));
+    final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+    task.setId(id)
+        .setCreateTime(timestamp)
+        .setUpdateTime(timestamp);
+    return task;
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task.runner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.alert.AlertDetectionIntervalCalculator;
+import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.task.TaskType;
+import ai.startree.thirdeye.worker.task.DetectionReplayConfiguration;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DetectionReplayCoordinatorTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final long ALERT_ID = 1L;
+  private static final long DAY = Duration.ofDays(1).toMillis();
+  private static final String REPLAY_ID = "replay";
+
+  private TaskManager taskManager;
+  private AlertManager alertManager;
+  private AnomalyManager anomalyManager;
+  private AlertTemplateRenderer alertTemplateRenderer;
+  private DetectionReplayCoordinator coordinator;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    taskManager = mock(TaskManager.class);
+    alertManager = mock(AlertManager.class);
+    anomalyManager = mock(AnomalyManager.class);
+    alertTemplateRenderer = mock(AlertTemplateRenderer.class);
+    mockMerger(Map.of("type", "ANOMALY_MERGER"));
+    coordinator = new DetectionReplayCoordinator(taskManager,
+        alertManager,
+        anomalyManager,
+        mock(AlertDetectionIntervalCalculator.class),
+        alertTemplateRenderer,
+        new DetectionReplayConfiguration(),
+        new MetricRegistry());
+  }
+
+  @Test
+  public void testSplitIntoChunks() {
+    final DateTime start = new DateTime(2022, 1, 1, 0, 0, DateTimeZone.UTC);
+    final Interval interval = new Interval(start, start.plusDays(10));
+
+    final List<Interval> chunks = DetectionReplayCoordinator.splitIntoChunks(interval,
+        Period.days(1),
+        Duration.ofHours(60));
+
+    assertThat(chunks).containsExactly(
+        new Interval(start, start.plusDays(2)),
+        new Interval(start.plusDays(2), start.plusDays(4)),
+        new Interval(start.plusDays(4), start.plusDays(6)),
+        new Interval(start.plusDays(6), start.plusDays(8)),
+        new Interval(start.plusDays(8), start.plusDays(10)));
+  }
+
+  @Test
+  public void testSplitIntoChunksSmallerThanGranularity() {
+    final DateTime start = new DateTime(2022, 1, 1, 0, 0, DateTimeZone.UTC);
+    final Interval interval = new Interval(start, start.plusDays(3));
+
+    final List<Interval> chunks = DetectionReplayCoordinator.splitIntoChunks(interval,
+        Period.days(1),
+        Duration.ofHours(1));
+
+    assertThat(chunks).hasSize(3);
+    assertThat(chunks.get(2).getEnd()).isEqualTo(interval.getEnd());
+  }
+
+  @Test
+  public void testResumeRecreatesFailedChunks() throws JsonProcessingException {
+    final TaskDTO completed = chunkTask(0, TaskStatus.COMPLETED);
+    final TaskDTO failed = chunkTask(1, TaskStatus.FAILED);
+    mockTasks(failed, completed);
+    when(taskManager.createTaskDto(anyLong(), any(), any())).thenReturn(new TaskDTO());
+
+    assertThat(coordinator.resume(ALERT_ID)).isTrue();
+
+    final ArgumentCaptor<DetectionPipelineTaskInfo> info = ArgumentCaptor.forClass(
+        DetectionPipelineTaskInfo.class);
+    verify(taskManager).createTaskDto(eq(ALERT_ID), info.capture(), eq(TaskType.DETECTION));
+    assertThat(info.getValue().getReplayId()).isEqualTo(REPLAY_ID);
+    assertThat(info.getValue().getChunkIndex()).isEqualTo(1);
+    assertThat(info.getValue().getStart()).isEqualTo(DAY);
+    verify(alertManager, never()).update(any(AlertDTO.class));
+  }
+
+  @Test
+  public void testResumeAbandonsReplayAfterMaxAttempts() throws JsonProcessingException {
+    mockTasks(chunkTask(1, TaskStatus.FAILED),
+        chunkTask(1, TaskStatus.FAILED),
+        chunkTask(1, TaskStatus.FAILED),
+        chunkTask(0, TaskStatus.COMPLETED));
+
+    assertThat(coordinator.resume(ALERT_ID)).isFalse();
+    verify(taskManager, never()).createTaskDto(anyLong(), any(), any());
+  }
+
+  @Test
+  public void testResumeFinalizesCompletedReplay() throws JsonProcessingException {
+    mockTasks(chunkTask(1, TaskStatus.COMPLETED), chunkTask(0, TaskStatus.COMPLETED));
+    final AlertDTO alert = new AlertDTO().setLastTimestamp(0L);
+    when(alertManager.findById(ALERT_ID)).thenReturn(alert);
+    final AnomalyDTO left = anomaly(DAY / 2, DAY);
+    final AnomalyDTO right = anomaly(DAY, DAY + DAY / 2);
+    final AnomalyDTO other = anomaly(DAY, DAY + 1).setAvgCurrentVal(0);
+    when(anomalyManager.findByStartEndTimeInRangeAndDetectionConfigId(DAY - 1, DAY + 1, ALERT_ID,
+        null)).thenReturn(List.of(right, left, other));
+
+    assertThat(coordinator.resume(ALERT_ID)).isFalse();
+
+    assertThat(alert.getLastTimestamp()).isEqualTo(2 * DAY);
+    verify(alertManager).update(alert);
+    verify(anomalyManager).save(left);
+    assertThat(left.getEndTime()).isEqualTo(DAY + DAY / 2);
+    // a copy of the parent and the right anomaly
+    assertThat(left.getChildren()).hasSize(2).contains(right);
+    verify(anomalyManager, never()).save(other);
+    verify(taskManager, never()).createTaskDto(anyLong(), any(), any());
+  }
+
+  @Test
+  public void testResumeDoesNotMergeAboveMaxDuration() throws Exception {
+    mockMerger(Map.of("type", "ANOMALY_MERGER", "component.mergeMaxDuration", "PT12H"));
+    mockTasks(chunkTask(1, TaskStatus.COMPLETED), chunkTask(0, TaskStatus.COMPLETED));
+    final AlertDTO alert = new AlertDTO().setLastTimestamp(0L);
+    when(alertManager.findById(ALERT_ID)).thenReturn(alert);
+    final AnomalyDTO left = anomaly(DAY / 2, DAY);
+    final AnomalyDTO right = anomaly(DAY, DAY + DAY / 2);
+    when(anomalyManager.findByStartEndTimeInRangeAndDetectionConfigId(DAY - 1, DAY + 1, ALERT_ID,
+        null)).thenReturn(List.of(right, left));
+
+    assertThat(coordinator.resume(ALERT_ID)).isFalse();
+
+    assertThat(alert.getLastTimestamp()).isEqualTo(2 * DAY);
+    verify(anomalyManager, never()).save(any(AnomalyDTO.class));
+  }
+
+  @Test
+  public void testResumeDoesNotMergeWhenMergingIsDisabled() throws Exception {
+    mockMerger(Map.of("type", "ANOMALY_MERGER", "component.mergeMaxGap", "PT0S"));
+    mockTasks(chunkTask(1, TaskStatus.COMPLETED), chunkTask(0, TaskStatus.COMPLETED));
+    final AlertDTO alert = new AlertDTO().setLastTimestamp(0L);
+    when(alertManager.findById(ALERT_ID)).thenReturn(alert);
+
+    assertThat(coordinator.resume(ALERT_ID)).isFalse();
+
+    assertThat(alert.getLastTimestamp()).isEqualTo(2 * DAY);
+    verify(alertManager).update(alert);
+    verify(anomalyManager, never()).findByStartEndTimeInRangeAndDetectionConfigId(anyLong(),
+        anyLong(), anyLong(), any());
+  }
+
+  @Test
+  public void testOnChunkCompletedWaitsForAllChunks() throws Exception {
+    // the other chunk is still running
+    mockTasks(chunkTask(1, TaskStatus.COMPLETED), chunkTask(0, TaskStatus.RUNNING));
+
+    coordinator.onChunkCompleted(chunkInfo(1));
+
+    verify(alertManager, never()).findById(anyLong());
+  }
+
+  @Test
+  public void testOnChunkCompletedFinalizesWhenAllChunksAreCompleted() throws Exception {
+    // both chunks completed concurrently: each of them sees the other one completed
+    mockTasks(chunkTask(1, TaskStatus.COMPLETED), chunkTask(0, TaskStatus.COMPLETED));
+    final AlertDTO alert = new AlertDTO().setLastTimestamp(0L);
+    when(alertManager.findById(ALERT_ID)).thenReturn(alert);
+
+    coordinator.onChunkCompleted(chunkInfo(0));
+    coordinator.onChunkCompleted(chunkInfo(1));
+
+    assertThat(alert.getLastTimestamp()).isEqualTo(2 * DAY);
+    verify(alertManager, times(2)).update(alert);
+  }
+
+  @Test
+  public void testResumeWithoutReplay() throws JsonProcessingException {
+    mockTasks(task(new DetectionPipelineTaskInfo(ALERT_ID, 0, DAY), TaskStatus.FAILED));
+
+    assertThat(coordinator.resume(ALERT_ID)).isFalse();
+    verify(alertManager, never()).findById(anyLong());
+  }
+
+  private void mockTasks(final TaskDTO... latestFirst) {
+    when(taskManager.findByNameOrderByCreateTime(anyString(), anyInt(), anyBoolean()))
+        .thenAnswer(i -> List.of(latestFirst).subList(0,
+            Math.min(i.getArgument(1), latestFirst.length)));
+  }
+
+  private void mockMerger(final Map<String, Object> params) throws Exception {
+    final TemplatableMap<String, Object> templatableParams = new TemplatableMap<>();
+    params.forEach(templatableParams::putValue);
+    when(alertTemplateRenderer.renderAlert(any(AlertDTO.class), any(Interval.class)))
+        .thenReturn(new AlertTemplateDTO()
+            .setNodes(List.of(new PlanNodeBean()
+                .setName("root")
+                .setType("PostProcessor")
+                .setParams(templatableParams)))
+            .setMetadata(new AlertMetadataDTO()));
+  }
+
+  private static TaskDTO chunkTask(final int chunkIndex, final TaskStatus status)
+      throws JsonProcessingException {
+    return task(chunkInfo(chunkIndex), status);
+  }
+
+  private static DetectionPipelineTaskInfo chunkInfo(final int chunkIndex) {
+    return new DetectionPipelineTaskInfo(ALERT_ID, chunkIndex * DAY, (chunkIndex + 1) * DAY)
+        .setReplayId(REPLAY_ID)
+        .setReplayEnd(2 * DAY)
+        .setChunkIndex(chunkIndex)
+        .setChunkCount(2);
+  }
+
+  private static TaskDTO task(final DetectionPipelineTaskInfo info, final TaskStatus status)
+      throws JsonProcessingException {
+    return new TaskDTO()
+        .setTaskType(TaskType.DETECTION)
+        .setJobName(TaskType.DETECTION + "_" + ALERT_ID)
+        .setStatus(status)
+        .setTaskInfo(OBJECT_MAPPER.writeValueAsString(info));
+  }
+
+  private static AnomalyDTO anomaly(final long start, final long end) {
+    return new AnomalyDTO()
+        .setDetectionConfigId(ALERT_ID)
+        .setStartTime(start)
+        .setEndTime(end)
+        .setAvgBaselineVal(1)
+        .setAvgCurrentVal(2);
+  }
+}